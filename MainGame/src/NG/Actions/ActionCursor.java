@@ -0,0 +1,29 @@
+package NG.Actions;
+
+/**
+ * A reusable result of an action lookup, holding an action and how far this action is executed. Lookups like {@link
+ * ActionQueue#getActionAt(float, ActionCursor)} fill a cursor of the caller instead of allocating a result. A cursor is
+ * not thread-safe; each thread should use its own.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class ActionCursor {
+    /** the action found by the last lookup */
+    public EntityAction action;
+    /** the time passed since the start of {@link #action} */
+    public float timeSinceStart;
+
+    /**
+     * sets this cursor to the given values
+     * @return this
+     */
+    public ActionCursor set(EntityAction action, float timeSinceStart) {
+        this.action = action;
+        this.timeSinceStart = timeSinceStart;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + action + ", " + timeSinceStart + "]";
+    }
+}
@@ -8,6 +8,7 @@ import NG.Resources.GeneratorResource;
 import NG.Resources.Resource;
 import NG.Settings.Settings;
 import NG.Tools.Vectors;
+import org.joml.Quaternionf;
 import org.joml.Vector3f;
 import org.joml.Vector3fc;
 
@@ -40,17 +41,28 @@ public class ActionFall implements EntityAction {
     }
 
     @Override
-    public Vector3f getPositionAt(float timeSinceStart) {
-        if (timeSinceStart <= 0) return new Vector3f(start);
+    public Vector3f getPositionAt(float timeSinceStart, Vector3f dest) {
+        if (timeSinceStart <= 0) return dest.set(start);
         final float t = timeSinceStart;
 
-        return new Vector3f(
+        return dest.set(
                 start.x() + movement.x() * t,
                 start.y() + movement.y() * t,
                 start.z() + movement.z() * t - Settings.GRAVITY_CONSTANT * t * t
         );
     }
 
+    @Override
+    public Vector3f getDerivative(float timeSinceStart, Vector3f dest) {
+        final float t = Math.max(timeSinceStart, 0);
+        return dest.set(movement.x(), movement.y(), movement.z() - 2 * Settings.GRAVITY_CONSTANT * t);
+    }
+
+    @Override
+    public Quaternionf getRotationAt(float timeSinceStart, Quaternionf dest) {
+        return dest.rotationZ(org.joml.Math.atan2(movement.y(), movement.x()));
+    }
+
     @Override
     public float duration() {
         return Float.POSITIVE_INFINITY;
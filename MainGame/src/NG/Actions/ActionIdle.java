@@ -6,6 +6,7 @@ import NG.Animations.UniversalAnimation;
 import NG.Core.Game;
 import NG.GameMap.GameMap;
 import NG.Tools.Vectors;
+import org.joml.Quaternionf;
 import org.joml.Vector2ic;
 import org.joml.Vector3f;
 import org.joml.Vector3fc;
@@ -55,8 +56,8 @@ public class ActionIdle implements EntityAction {
     }
 
     @Override
-    public Vector3f getPositionAt(float timeSinceStart) {
-        return new Vector3f(position);
+    public Vector3f getPositionAt(float timeSinceStart, Vector3f dest) {
+        return dest.set(position);
     }
 
     @Override
@@ -65,8 +66,13 @@ public class ActionIdle implements EntityAction {
     }
 
     @Override
-    public Vector3f getDerivative(float timeSinceStart) {
-        return Vectors.newZeroVector();
+    public Vector3f getDerivative(float timeSinceStart, Vector3f dest) {
+        return dest.zero();
+    }
+
+    @Override
+    public Quaternionf getRotationAt(float timeSinceStart, Quaternionf dest) {
+        return dest.identity();
     }
 
     @Override
@@ -13,6 +13,7 @@ import NG.Settings.Settings;
 import NG.Tools.Toolbox;
 import NG.Tools.Vectors;
 import org.joml.Math;
+import org.joml.Quaternionf;
 import org.joml.Vector2ic;
 import org.joml.Vector3f;
 import org.joml.Vector3fc;
@@ -51,23 +52,32 @@ public class ActionJump implements EntityAction {
         float g = Settings.GRAVITY_CONSTANT;
         float vSq = jumpSpeed * jumpSpeed;
 
-        // see https://gamedev.stackexchange.com/questions/53552/how-can-i-find-a-projectiles-launch-angle
-        float determinant = vSq * vSq - g * (g * hz * hz + 2 * vt * vSq);
+        a = -0.5f * g;
+        c = start.z();
 
-        double theta;
-        if (determinant < 0) {
-            theta = PI / 4;
+        if (hz == 0) {
+            // straight up, landing on the way down
+            float landing = vSq - 2 * g * vt;
+            b = jumpSpeed;
+            duration = (jumpSpeed + Math.sqrt(Math.max(landing, 0))) / g;
 
         } else {
-            theta = Math.min(
-                    atan((vSq + Math.sqrt(determinant)) / (g * hz)),
-                    atan((vSq - Math.sqrt(determinant)) / (g * hz))
-            );
+            // see https://gamedev.stackexchange.com/questions/53552/how-can-i-find-a-projectiles-launch-angle
+            float determinant = vSq * vSq - g * (g * hz * hz + 2 * vt * vSq);
+
+            double theta;
+            if (determinant < 0) {
+                theta = PI / 4;
+
+            } else {
+                theta = Math.min(
+                        atan((vSq + Math.sqrt(determinant)) / (g * hz)),
+                        atan((vSq - Math.sqrt(determinant)) / (g * hz))
+                );
+            }
+            b = (float) (jumpSpeed * sin(theta));
+            duration = (float) (hz / (Math.cos(theta) * jumpSpeed));
         }
-        a = -0.5f * g;
-        b = (float) (jumpSpeed * sin(theta));
-        c = start.z();
-        duration = (float) (hz / (Math.cos(theta) * jumpSpeed));
 
         marker = new GeneratorResource<>(() -> new ActionMarkerGenerated(this, duration), null);
     }
@@ -88,13 +98,13 @@ public class ActionJump implements EntityAction {
     }
 
     @Override
-    public Vector3f getPositionAt(float timeSinceStart) {
-        if (timeSinceStart <= 0) return new Vector3f(start);
+    public Vector3f getPositionAt(float timeSinceStart, Vector3f dest) {
+        if (timeSinceStart <= 0) return dest.set(start);
 
         float fraction = timeSinceStart / duration;
         final float x = timeSinceStart;
 
-        return new Vector3f(
+        return dest.set(
                 Toolbox.interpolate(start.x(), end.x(), fraction),
                 Toolbox.interpolate(start.y(), end.y(), fraction),
                 a * x * x + b * x + c
@@ -102,14 +112,19 @@ public class ActionJump implements EntityAction {
     }
 
     @Override
-    public Vector3f getDerivative(float timeSinceStart) {
-        return new Vector3f(
+    public Vector3f getDerivative(float timeSinceStart, Vector3f dest) {
+        return dest.set(
                 (end.x() - start.x()) / duration,
                 (end.y() - start.y()) / duration,
                 a * timeSinceStart + b
         );
     }
 
+    @Override
+    public Quaternionf getRotationAt(float timeSinceStart, Quaternionf dest) {
+        return dest.rotationZ(Math.atan2(end.y() - start.y(), end.x() - start.x()));
+    }
+
     @Override
     public UniversalAnimation getAnimation() {
         return BodyAnimation.BASE_POSE;
@@ -6,6 +6,8 @@ import NG.Animations.UniversalAnimation;
 import NG.Core.Game;
 import NG.GameMap.GameMap;
 import NG.Tools.Vectors;
+import org.joml.Math;
+import org.joml.Quaternionf;
 import org.joml.Vector2ic;
 import org.joml.Vector3f;
 import org.joml.Vector3fc;
@@ -36,10 +38,20 @@ public class ActionLinearMove implements EntityAction {
     }
 
     @Override
-    public Vector3f getPositionAt(float timeSinceStart) {
-        if (timeSinceStart <= 0) return new Vector3f(start);
+    public Vector3f getPositionAt(float timeSinceStart, Vector3f dest) {
+        if (timeSinceStart <= 0) return dest.set(start);
         float fraction = timeSinceStart / duration;
-        return new Vector3f(start).lerp(end, fraction);
+        return dest.set(start).lerp(end, fraction);
+    }
+
+    @Override
+    public Vector3f getDerivative(float timeSinceStart, Vector3f dest) {
+        return dest.set(end).sub(start).div(duration);
+    }
+
+    @Override
+    public Quaternionf getRotationAt(float timeSinceStart, Quaternionf dest) {
+        return dest.rotationZ(Math.atan2(end.y() - start.y(), end.x() - start.x()));
     }
 
     @Override
@@ -3,33 +3,37 @@ package NG.Actions;
 import NG.Core.Game;
 import NG.Core.GameObject;
 import NG.DataStructures.Generic.Pair;
-import NG.Tools.AutoLock;
-import NG.Tools.Toolbox;
 import org.joml.Vector2ic;
 import org.joml.Vector3f;
 import org.joml.Vector3fc;
 
-import java.util.AbstractQueue;
-import java.util.ArrayDeque;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.*;
+import java.util.concurrent.locks.StampedLock;
 
 import static NG.Actions.EntityAction.ACCEPTABLE_DIFFERENCE_SQ;
 
 /**
  * A queue of actions with additional robustness checking and a {@link #getPositionAt(float)} method. If the actions
  * added to this queue have undefined start time, the start time is set to be the closest to the other actions in this
- * queue. This collection is not synchronized.
+ * queue.
+ * <p>
+ * The actions and their start times are stored in a ring buffer, such that the action at a given time is found with a
+ * binary search. Lookups use optimistic reads and do not block on each other, modifications are expected to come from
+ * one thread at a time.
  * @author Geert van Ieperen created on 12-2-2019.
  */
 public class ActionQueue extends AbstractQueue<Pair<EntityAction, Float>> implements GameObject {
-    private ArrayDeque<Float> startTimes;
-    private ArrayDeque<EntityAction> actions;
+    private static final int INITIAL_CAPACITY = 8;
+    /** the cursors of {@link #getPositionAt(float, Vector3f)}, one for each thread */
+    private static final ThreadLocal<ActionCursor> POSITION_CURSOR = ThreadLocal.withInitial(ActionCursor::new);
 
-    private final AutoLock lockQueueRead;
-    private final AutoLock lockQueueEdit;
+    /** element i of the queue is at index (head + i) & (length - 1). Both arrays always have the same length */
+    private EntityAction[] actions;
+    private float[] startTimes;
+    private int head = 0;
+    private int size = 0;
+
+    private final StampedLock lock = new StampedLock();
 
     private float lastActionStart;
     private float lastActionEnd;
@@ -48,12 +52,9 @@ public class ActionQueue extends AbstractQueue<Pair<EntityAction, Float>> implem
      */
     public ActionQueue(EntityAction initialAction, float actionStartTime) {
         if (initialAction == null) throw new NullPointerException("initial action was null");
-        ReadWriteLock rwl = new ReentrantReadWriteLock(true);
-        lockQueueRead = new AutoLock.Wrapper(rwl.readLock());
-        lockQueueEdit = new AutoLock.Wrapper(rwl.writeLock());
 
-        startTimes = new ArrayDeque<>();
-        actions = new ArrayDeque<>();
+        actions = new EntityAction[INITIAL_CAPACITY];
+        startTimes = new float[INITIAL_CAPACITY];
         setLast(initialAction, actionStartTime);
     }
 
@@ -72,60 +73,79 @@ public class ActionQueue extends AbstractQueue<Pair<EntityAction, Float>> implem
      * the previous last action.
      */
     public boolean offer(EntityAction action, float startTime) {
-        if (startTime < lastActionStart) return false;
+        long stamp = lock.writeLock();
+        try {
+            if (startTime < lastActionStart) return false;
 
-        Vector3f position = actions.getLast().getPositionAt(startTime - lastActionStart);
-        if (position.distanceSquared(action.getStartPosition()) > ACCEPTABLE_DIFFERENCE_SQ) {
-            return false;
-        }
+            Vector3f position = getAction(size - 1).getPositionAt(startTime - lastActionStart);
+            if (position.distanceSquared(action.getStartPosition()) > ACCEPTABLE_DIFFERENCE_SQ) {
+                return false;
+            }
 
-        lockQueueEdit.lock();
-        setLast(action, startTime);
-        lockQueueEdit.unlock();
+            setLast(action, startTime);
+            return true;
 
-        return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     @Override
     public Pair<EntityAction, Float> poll() {
-        if (actions.size() == 1) return peek();
-
-        lockQueueEdit.lock();
-        Pair<EntityAction, Float> pair = new Pair<>(actions.poll(), startTimes.poll());
-        lockQueueEdit.unlock();
-        return pair;
+        long stamp = lock.writeLock();
+        try {
+            Pair<EntityAction, Float> pair = new Pair<>(getAction(0), getStartTime(0));
+            if (size > 1) removeHead(1);
+            return pair;
+
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     @Override
     public Pair<EntityAction, Float> peek() {
-        return new Pair<>(actions.peek(), startTimes.peek());
+        long stamp = lock.readLock();
+        try {
+            return new Pair<>(getAction(0), getStartTime(0));
+
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     public boolean removeFirst() {
-        if (isEmpty()) return false;
-        lockQueueEdit.lock();
-        startTimes.removeFirst();
-        actions.removeFirst();
-        lockQueueEdit.unlock();
-        return true;
+        long stamp = lock.writeLock();
+        try {
+            if (size == 1) return false;
+            removeHead(1);
+            return true;
+
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     @Override
     public int size() {
-        return actions.size();
+        return size;
     }
 
     @Override
     public boolean isEmpty() {
-        return actions.size() == 1;
+        return size == 1;
     }
 
-    /** replace the lastAction, lastActionStart and lastActionEnd field */
-    private void setLast(EntityAction action, float startTime) {
-        actions.add(action);
-        startTimes.add(startTime);
-        lastActionStart = startTime;
-        lastActionEnd = startTime + action.duration();
+    /** removes all actions except the last one */
+    @Override
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            removeHead(size - 1);
+
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -134,8 +154,30 @@ public class ActionQueue extends AbstractQueue<Pair<EntityAction, Float>> implem
      * @return the position described by this action queue.
      */
     public Vector3f getPositionAt(float currentTime) {
-        Pair<EntityAction, Float> pair = getActionAt(currentTime);
-        return pair.left.getPositionAt(pair.right);
+        return getPositionAt(currentTime, new Vector3f());
+    }
+
+    /**
+     * returns the position according to the action executing at the given time, without allocating. This may be called
+     * from any thread.
+     * @param currentTime the moment to query
+     * @param dest        the vector to store the result in
+     * @return dest, set to the position described by this action queue.
+     */
+    public Vector3f getPositionAt(float currentTime, Vector3f dest) {
+        return getPositionAt(currentTime, POSITION_CURSOR.get(), dest);
+    }
+
+    /**
+     * returns the position according to the action executing at the given time, without allocating.
+     * @param currentTime the moment to query
+     * @param cursor      a cursor to use for the lookup
+     * @param dest        the vector to store the result in
+     * @return dest, set to the position described by this action queue.
+     */
+    public Vector3f getPositionAt(float currentTime, ActionCursor cursor, Vector3f dest) {
+        getActionAt(currentTime, cursor);
+        return cursor.action.getPositionAt(cursor.timeSinceStart, dest);
     }
 
     /**
@@ -143,29 +185,26 @@ public class ActionQueue extends AbstractQueue<Pair<EntityAction, Float>> implem
      * @param time the time until where to remove actions, exclusive.
      */
     public void removeUntil(float time) {
-        if (time < startTimes.getFirst() || isEmpty()) return;
+        long stamp = lock.writeLock();
+        try {
+            if (time < startTimes[head] || size == 1) return;
 
-        if (time > lastActionStart) {
-            time = lastActionStart;
-        }
+            if (time > lastActionStart) {
+                time = lastActionStart;
+            }
 
-        // a currently executing action...
-        // count how many actions start earlier, then remove all but one of those
-        lockQueueEdit.lock();
-        int i = 0;
-        for (Float startTime : startTimes) {
-            if (startTime < time) i++;
-        }
-        while (i > 1) {
-            startTimes.removeFirst();
-            actions.removeFirst();
-            i--;
-        }
+            // a currently executing action...
+            // count how many actions start earlier, then remove all but one of those
+            int nrOfEarlier = search(startTimes, head, size, time, false);
+            if (nrOfEarlier > 1) {
+                removeHead(nrOfEarlier - 1);
+            }
 
-        lockQueueEdit.unlock();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
-
     /**
      * sets the action to execute at the given start time, removing any action remaining in the queue. The given action
      * may be delayed to let the executing action finish.
@@ -175,51 +214,37 @@ public class ActionQueue extends AbstractQueue<Pair<EntityAction, Float>> implem
     public void insert(EntityAction action, float startTime) {
         assert action != null;
 
-        if (startTime >= lastActionEnd) {
-            offer(action, startTime);
-            return;
-        }
-
-        if (startTime <= firstActionStart()) {
-            lockQueueEdit.lock();
-            clear();
-            setLast(action, startTime);
-            lockQueueEdit.unlock();
-            return;
-        }
+        long stamp = lock.writeLock();
+        try {
+            if (startTime >= lastActionEnd) {
+                lock.unlockWrite(stamp);
+                stamp = 0;
+                offer(action, startTime);
+                return;
+            }
 
-        // a currently executing action...
-        lockQueueEdit.lock();
-        EntityAction previous;
-        float prevStart;
-
-        if (actions.size() == 1) {
-            previous = actions.getLast();
-            prevStart = lastActionStart;
-
-        } else {
-            Iterator<Float> times = startTimes.descendingIterator();
-            Iterator<EntityAction> things = actions.descendingIterator();
-
-            prevStart = times.next();
-            while (prevStart > startTime) {
-                times.remove();
-                things.next();
-                things.remove();
-                prevStart = times.next();
+            if (startTime <= startTimes[head]) {
+                removeTail(size);
+                setLast(action, startTime);
+                return;
             }
-            previous = things.next();
-        }
 
-        Vector3f position = previous.getPositionAt(startTime - prevStart);
-        if (position.distanceSquared(action.getStartPosition()) > ACCEPTABLE_DIFFERENCE_SQ) {
-            lockQueueEdit.unlock();
-            throw new BrokenMovementException(previous, action, startTime - prevStart);
-        }
+            // a currently executing action: the last action that starts on or before startTime
+            int previousIndex = search(startTimes, head, size, startTime, true) - 1;
+            EntityAction previous = getAction(previousIndex);
+            float prevStart = getStartTime(previousIndex);
+
+            Vector3f position = previous.getPositionAt(startTime - prevStart);
+            if (position.distanceSquared(action.getStartPosition()) > ACCEPTABLE_DIFFERENCE_SQ) {
+                throw new BrokenMovementException(previous, action, startTime - prevStart);
+            }
 
-        setLast(action, startTime);
+            removeTail(size - previousIndex - 1);
+            setLast(action, startTime);
 
-        lockQueueEdit.unlock();
+        } finally {
+            if (stamp != 0) lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -230,33 +255,101 @@ public class ActionQueue extends AbstractQueue<Pair<EntityAction, Float>> implem
      * @param gameTime a moment in time after the start of the first action
      * @return a pair with on left the action that should be taking place under normal circumstances, and on right the
      * time passed since the start of this action.
+     * @see #getActionAt(float, ActionCursor)
      */
     public Pair<EntityAction, Float> getActionAt(float gameTime) {
-        assert gameTime >= startTimes.getFirst();
-        assert !actions.isEmpty();
+        ActionCursor cursor = getActionAt(gameTime, new ActionCursor());
+        return new Pair<>(cursor.action, cursor.timeSinceStart);
+    }
 
-        if (gameTime >= lastActionStart) {
-            return new Pair<>(actions.getLast(), gameTime - lastActionStart);
+    /**
+     * finds the action that is executing at the given time, and calculates how far this action is executed. The result
+     * is stored in the given cursor, such that this method does not allocate.
+     * <p>
+     * Note that the eventual execution of this action on this time is not certain, as calls to {@link
+     * #insert(EntityAction, float)} and {@link #remove()} may change this.
+     * @param gameTime a moment in time after the start of the first action
+     * @param dest     the cursor to store the result in
+     * @return dest, with the action that should be taking place under normal circumstances, and the time passed since
+     * the start of this action.
+     */
+    public ActionCursor getActionAt(float gameTime, ActionCursor dest) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            // read all fields once, as they may change while we read
+            EntityAction[] actions = this.actions;
+            float[] startTimes = this.startTimes;
+            int head = this.head;
+            int size = this.size;
+            float lastActionStart = this.lastActionStart;
+
+            EntityAction action;
+            float actionStart;
+
+            if (gameTime >= lastActionStart || size <= 1) {
+                action = actions[(head + size - 1) & (actions.length - 1)];
+                actionStart = lastActionStart;
+
+            } else {
+                int index = findExecuting(startTimes, head, size, gameTime);
+                action = actions[(head + index) & (actions.length - 1)];
+                actionStart = startTimes[(head + index) & (startTimes.length - 1)];
+            }
+
+            if (lock.validate(stamp)) {
+                return dest.set(action, gameTime - actionStart);
+            }
         }
 
-        EntityAction action;
-        float actionStart;
+        stamp = lock.readLock();
+        try {
+            assert gameTime >= startTimes[head];
 
-        try (AutoLock.Section section = lockQueueRead.open()) {
-            // a currently executing action...
-            Iterator<Float> times = startTimes.iterator();
-            Iterator<EntityAction> things = actions.iterator();
+            if (gameTime >= lastActionStart) {
+                return dest.set(getAction(size - 1), gameTime - lastActionStart);
+            }
 
-            float nextActionStart = times.next();
+            int index = findExecuting(startTimes, head, size, gameTime);
+            return dest.set(getAction(index), gameTime - getStartTime(index));
+
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return the index of the action executing at gameTime: the last action that starts before gameTime, or the first
+     * action if there is none.
+     */
+    private static int findExecuting(float[] startTimes, int head, int size, float gameTime) {
+        int index = search(startTimes, head, size, gameTime, false) - 1;
+        return Math.max(index, 0);
+    }
 
-            do {
-                action = things.next();
-                actionStart = nextActionStart;
-                nextActionStart = times.next();
-            } while (nextActionStart < gameTime);
+    /**
+     * binary search on the given ring buffer of non-decreasing start times
+     * @param inclusive if true, count the elements at most the given time. Otherwise, count the elements strictly less
+     *                  than the given time.
+     * @return the number of elements in the queue that start before time (or at time, if inclusive). Since the elements
+     * are sorted, this is also the index of the first element that does not.
+     */
+    private static int search(float[] startTimes, int head, int size, float time, boolean inclusive) {
+        int mask = startTimes.length - 1;
+        int low = 0;
+        int high = size;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            float value = startTimes[(head + middle) & mask];
+
+            if (value < time || (inclusive && value == time)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
         }
 
-        return new Pair<>(action, gameTime - actionStart);
+        return low;
     }
 
     /**
@@ -265,7 +358,7 @@ public class ActionQueue extends AbstractQueue<Pair<EntityAction, Float>> implem
      */
     public void addWait(float duration) {
         assert duration >= 0;
-        Vector3fc position = actions.getLast().getEndPosition();
+        Vector3fc position = lastAction().getEndPosition();
         addLast(new ActionIdle(position, duration));
     }
 
@@ -276,116 +369,213 @@ public class ActionQueue extends AbstractQueue<Pair<EntityAction, Float>> implem
 
     /** the action executed the earliest */
     public EntityAction firstAction() {
-        return actions.peek();
+        long stamp = lock.readLock();
+        try {
+            return getAction(0);
+
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** the action executed the latest */
+    private EntityAction lastAction() {
+        long stamp = lock.readLock();
+        try {
+            return getAction(size - 1);
+
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     /** the start time of the earliest action */
     public float firstActionStart() {
-        return startTimes.getFirst();
+        long stamp = lock.readLock();
+        try {
+            return getStartTime(0);
+
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
+    /**
+     * returns the actions that are executing at some moment between startTime and endTime
+     * @param startTime the start of the period
+     * @param endTime   the end of the period
+     * @return the actions in the given period, in order of execution. This is a copy, and not affected by later changes
+     * to this queue.
+     */
     public Iterable<EntityAction> actionsBetween(float startTime, float endTime) {
-        return () -> {
-            int exitPoint = -1;
-            // if it turns out that this syncing is not enough, consider using toArray to make local copies to iterate on
-            try (AutoLock.Section section = lockQueueRead.open()) { // locks while building an iterator
-                Iterator<Float> times = startTimes.iterator();
-                Iterator<EntityAction> things = actions.iterator();
-
-                times.next(); // time of action 0
-                float time;
-
-                if (times.hasNext()) {
-                    time = times.next(); // time of action 1
-
-                    // i = 0
-                    while (time < startTime) { // (action i is in progress) == ((time of action i+1) > now)
-                        if (!times.hasNext()) {
-                            // action i+1 is the last, but starts before startTime
-                            things.next(); // action i
-                            EntityAction nextAction = things.next(); // action i+1
-
-                            // if it is still in progress at start, return it.
-                            if (time + nextAction.duration() > startTime) {
-                                return Toolbox.singletonIterator(nextAction);
-
-                            } else { // otherwise return nothing
-                                return Collections.emptyIterator();
-                            }
-                        }
-
-                        time = times.next(); // time of action i+2
-                        things.next(); // skip action i
-                        // i++
-                    }
-
-                } else {
-                    // only one action
-                    return things; // guaranteed to also have only one element
-                }
+        return actionsBetween(startTime, endTime, new ArrayList<>());
+    }
 
-                if (time > endTime) {
-                    return Toolbox.singletonIterator(things.next());
-                }
+    /**
+     * adds the actions that are executing at some moment between startTime and endTime to the given collection.
+     * @param startTime the start of the period
+     * @param endTime   the end of the period
+     * @param dest      the collection to add the actions to, in order of execution
+     * @return dest
+     */
+    public <C extends Collection<EntityAction>> C actionsBetween(float startTime, float endTime, C dest) {
+        long stamp = lock.readLock();
+        try {
+            if (size == 1) {
+                dest.add(getAction(0));
+                return dest;
+            }
 
-                assert time >= startTime && time <= endTime;
+            // the action in progress at startTime
+            int first = search(startTimes, head, size, startTime, false) - 1;
+            first = Math.max(first, 0);
 
-                return new Iterator<>() {
-                    private boolean hasNext = true;
-                    private boolean hasTwo = true;
+            if (first == size - 1 && lastActionEnd <= startTime) {
+                return dest;
+            }
 
-                    @Override
-                    public boolean hasNext() {
-                        return hasNext && things.hasNext();
-                    }
+            // the last action that starts before endTime
+            int last = search(startTimes, head, size, endTime, true) - 1;
+            last = Math.max(last, first);
 
-                    @Override
-                    public EntityAction next() {
-                        hasNext = hasTwo;
-                        hasTwo = (times.hasNext() && times.next() < endTime);
-                        return things.next();
-                    }
-                };
+            for (int i = first; i <= last; i++) {
+                dest.add(getAction(i));
             }
-        };
+            return dest;
+
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     @Override
     public Iterator<Pair<EntityAction, Float>> iterator() {
         return new Iterator<>() {
-            Iterator<Float> times = startTimes.iterator();
-            Iterator<EntityAction> things = actions.iterator();
+            int index = 0;
+            boolean canRemove = false;
 
             @Override
             public boolean hasNext() {
-                return things.hasNext();
+                return index < size;
             }
 
             @Override
             public Pair<EntityAction, Float> next() {
-                return new Pair<>(things.next(), times.next());
+                if (index >= size) throw new NoSuchElementException();
+
+                long stamp = lock.readLock();
+                try {
+                    Pair<EntityAction, Float> pair = new Pair<>(getAction(index), getStartTime(index));
+                    index++;
+                    canRemove = true;
+                    return pair;
+
+                } finally {
+                    lock.unlockRead(stamp);
+                }
             }
 
             @Override
             public void remove() {
-                times.remove();
-                things.remove();
+                if (!canRemove) throw new IllegalStateException();
+                canRemove = false;
+                index--;
+
+                long stamp = lock.writeLock();
+                try {
+                    removeAt(index);
+
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
             }
         };
     }
 
+    /** add the action to the end, and replace the lastActionStart and lastActionEnd field. Requires the write lock */
+    private void setLast(EntityAction action, float startTime) {
+        if (size == actions.length) grow();
+
+        int index = (head + size) & (actions.length - 1);
+        actions[index] = action;
+        startTimes[index] = startTime;
+        size++;
+
+        lastActionStart = startTime;
+        lastActionEnd = startTime + action.duration();
+    }
+
+    private void grow() {
+        int capacity = actions.length;
+        EntityAction[] newActions = new EntityAction[capacity * 2];
+        float[] newStartTimes = new float[capacity * 2];
+
+        for (int i = 0; i < size; i++) {
+            int index = (head + i) & (capacity - 1);
+            newActions[i] = actions[index];
+            newStartTimes[i] = startTimes[index];
+        }
+
+        actions = newActions;
+        startTimes = newStartTimes;
+        head = 0;
+    }
+
+    /** removes the given number of elements from the head. Requires the write lock */
+    private void removeHead(int count) {
+        int mask = actions.length - 1;
+        for (int i = 0; i < count; i++) {
+            actions[(head + i) & mask] = null;
+        }
+
+        head = (head + count) & mask;
+        size -= count;
+    }
+
+    /** removes the given number of elements from the tail, and updates the last action fields. Requires the write lock */
+    private void removeTail(int count) {
+        int mask = actions.length - 1;
+        for (int i = size - count; i < size; i++) {
+            actions[(head + i) & mask] = null;
+        }
+
+        size -= count;
+        if (size > 0) {
+            lastActionStart = getStartTime(size - 1);
+            lastActionEnd = lastActionStart + getAction(size - 1).duration();
+        }
+    }
+
+    /** removes the element at the given index, moving later elements forward. Requires the write lock */
+    private void removeAt(int index) {
+        if (size == 1) throw new IllegalStateException("Can not remove the last action of the queue");
+
+        int mask = actions.length - 1;
+        for (int i = index; i < size - 1; i++) {
+            actions[(head + i) & mask] = actions[(head + i + 1) & mask];
+            startTimes[(head + i) & mask] = startTimes[(head + i + 1) & mask];
+        }
+
+        removeTail(1);
+    }
+
+    private EntityAction getAction(int index) {
+        return actions[(head + index) & (actions.length - 1)];
+    }
+
+    private float getStartTime(int index) {
+        return startTimes[(head + index) & (startTimes.length - 1)];
+    }
+
     @Override
     public String toString() {
         StringBuilder str = new StringBuilder("ActionQueue: ");
 
-        Iterator<Float> times = startTimes.iterator();
-        Iterator<EntityAction> things = actions.iterator();
-
-        while (times.hasNext()) {
+        for (Pair<EntityAction, Float> pair : this) {
             str.append("[");
-            str.append(times.next());
+            str.append(pair.right);
             str.append(" : ");
-            str.append(things.next());
+            str.append(pair.left);
             str.append("], ");
         }
 
@@ -396,8 +586,8 @@ public class ActionQueue extends AbstractQueue<Pair<EntityAction, Float>> implem
 
     @Override
     public void restore(Game game) {
-        for (EntityAction action : actions) {
-            action.restore(game);
+        for (Pair<EntityAction, Float> pair : this) {
+            pair.left.restore(game);
         }
     }
 }
@@ -76,9 +76,9 @@ public class ActionWalk implements EntityAction {
     }
 
     @Override
-    public Vector3f getPositionAt(float timeSinceStart) {
-        if (timeSinceStart <= 0) return new Vector3f(start);
-        if (timeSinceStart >= duration) return new Vector3f(end);
+    public Vector3f getPositionAt(float timeSinceStart, Vector3f dest) {
+        if (timeSinceStart <= 0) return dest.set(start);
+        if (timeSinceStart >= duration) return dest.set(end);
 
         // TODO more precise movement, wrt jumping and falling, maybe incorporate animation
         float fraction = timeSinceStart / duration;
@@ -87,12 +87,17 @@ public class ActionWalk implements EntityAction {
         float x = start.x() + fraction * startToEnd.x();
         float y = start.y() + fraction * startToEnd.y();
         float height = map.getHeightAt(x, y);
-        return new Vector3f(x, y, height);
+        return dest.set(x, y, height);
     }
 
     @Override
-    public Vector3f getDerivative(float timeSinceStart) {
-        return new Vector3f(end).sub(start).div(duration);
+    public Vector3f getDerivative(float timeSinceStart, Vector3f dest) {
+        return dest.set(end).sub(start).div(duration);
+    }
+
+    @Override
+    public Quaternionf getRotationAt(float timeSinceStart, Quaternionf dest) {
+        return dest.rotationZ(org.joml.Math.atan2(startToEnd.y(), startToEnd.x()));
     }
 
     @Override
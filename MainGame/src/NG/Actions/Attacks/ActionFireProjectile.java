@@ -60,13 +60,13 @@ public class ActionFireProjectile implements EntityAction {
     }
 
     @Override
-    public Vector3f getPositionAt(float timeSinceStart) {
-        if (timeSinceStart <= 0 || timeSinceStart >= duration) return new Vector3f(startEnd);
+    public Vector3f getPositionAt(float timeSinceStart, Vector3f dest) {
+        if (timeSinceStart <= 0 || timeSinceStart >= duration) return dest.set(startEnd);
 
         float fraction = Math.max(Toolbox.interpolate(-.1f, 1f, timeSinceStart / duration), 0);
         float x = duration * fraction; // NOT timeSinceStart
 
-        return new Vector3f(
+        return dest.set(
                 startEnd.x(), startEnd.y(),
                 // z = -Fg x^2 + a x ; a = Fg * duration ; (result of z(duration) = 0)
                 -JUMP_GRAVITY * x * x + JUMP_GRAVITY * duration * x + startEnd.z()
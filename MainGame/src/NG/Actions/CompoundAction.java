@@ -53,13 +53,13 @@ public class CompoundAction implements EntityAction {
     }
 
     @Override
-    public Vector3f getPositionAt(float timeSinceStart) {
+    public Vector3f getPositionAt(float timeSinceStart, Vector3f dest) {
         if (timeSinceStart <= 0) {
-            return actions[0].getPositionAt(0);
+            return actions[0].getPositionAt(0, dest);
 
         } else if (timeSinceStart >= totalDuration) {
             float end = lastAction.duration();
-            return lastAction.getPositionAt(end);
+            return lastAction.getPositionAt(end, dest);
         }
 
         for (EntityAction action : actions) {
@@ -68,7 +68,7 @@ public class CompoundAction implements EntityAction {
                 timeSinceStart -= duration;
 
             } else {
-                return action.getPositionAt(timeSinceStart);
+                return action.getPositionAt(timeSinceStart, dest);
             }
         }
 
@@ -76,13 +76,13 @@ public class CompoundAction implements EntityAction {
     }
 
     @Override
-    public Quaternionf getRotationAt(float timeSinceStart) {
+    public Vector3f getDerivative(float timeSinceStart, Vector3f dest) {
         if (timeSinceStart <= 0) {
-            return actions[0].getRotationAt(0);
+            return actions[0].getDerivative(0, dest);
 
         } else if (timeSinceStart >= totalDuration) {
             float end = lastAction.duration();
-            return lastAction.getRotationAt(end);
+            return lastAction.getDerivative(end, dest);
         }
 
         for (EntityAction action : actions) {
@@ -91,7 +91,30 @@ public class CompoundAction implements EntityAction {
                 timeSinceStart -= duration;
 
             } else {
-                return action.getRotationAt(timeSinceStart);
+                return action.getDerivative(timeSinceStart, dest);
+            }
+        }
+
+        throw new AssertionError("invalid value of totalDuration, missing " + timeSinceStart);
+    }
+
+    @Override
+    public Quaternionf getRotationAt(float timeSinceStart, Quaternionf dest) {
+        if (timeSinceStart <= 0) {
+            return actions[0].getRotationAt(0, dest);
+
+        } else if (timeSinceStart >= totalDuration) {
+            float end = lastAction.duration();
+            return lastAction.getRotationAt(end, dest);
+        }
+
+        for (EntityAction action : actions) {
+            float duration = action.duration();
+            if (timeSinceStart > duration) {
+                timeSinceStart -= duration;
+
+            } else {
+                return action.getRotationAt(timeSinceStart, dest);
             }
         }
 
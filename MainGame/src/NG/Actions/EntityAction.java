@@ -28,7 +28,18 @@ public interface EntityAction extends GameObject {
      * @param timeSinceStart the time <b>since the start</b> of this action in seconds
      * @return the position at the given moment in time as described by this action.
      */
-    Vector3f getPositionAt(float timeSinceStart);
+    default Vector3f getPositionAt(float timeSinceStart) {
+        return getPositionAt(timeSinceStart, new Vector3f());
+    }
+
+    /**
+     * calculates the position of this action, at the given time after the start of this action, and stores the result
+     * in dest.
+     * @param timeSinceStart the time <b>since the start</b> of this action in seconds
+     * @param dest           the vector to store the result in
+     * @return dest, set to the position at the given moment in time as described by this action.
+     */
+    Vector3f getPositionAt(float timeSinceStart, Vector3f dest);
 
     default Vector3fc getStartPosition() {
         return getPositionAt(0);
@@ -43,9 +54,21 @@ public interface EntityAction extends GameObject {
      * @return direction of this action at the given time
      */
     default Vector3f getDerivative(float timeSinceStart) {
-        Vector3f a = getPositionAt(timeSinceStart - DIRECTION_DELTA);
-        Vector3f b = getPositionAt(timeSinceStart + DIRECTION_DELTA);
-        return b.sub(a).div(DIRECTION_DELTA * 2);
+        return getDerivative(timeSinceStart, new Vector3f());
+    }
+
+    /**
+     * @param timeSinceStart the time <b>since the start</b> of this action in seconds
+     * @param dest           the vector to store the result in
+     * @return dest, set to the direction of this action at the given time
+     */
+    default Vector3f getDerivative(float timeSinceStart, Vector3f dest) {
+        getPositionAt(timeSinceStart - DIRECTION_DELTA, dest);
+        float ax = dest.x;
+        float ay = dest.y;
+        float az = dest.z;
+        getPositionAt(timeSinceStart + DIRECTION_DELTA, dest);
+        return dest.sub(ax, ay, az).div(DIRECTION_DELTA * 2);
     }
 
     ActionMarker getMarker();
@@ -86,8 +109,19 @@ public interface EntityAction extends GameObject {
      * @return the rotation from the base at the given moment in time as described by this action.
      */
     default Quaternionf getRotationAt(float timeSinceStart) {
+        return getRotationAt(timeSinceStart, new Quaternionf());
+    }
+
+    /**
+     * calculates the yaw rotation of this action, at the given time after the start of this action, and stores the
+     * result in dest.
+     * @param timeSinceStart the time <b>since the start</b> of this action in seconds
+     * @param dest           the quaternion to store the result in
+     * @return dest, set to the rotation from the base at the given moment in time as described by this action.
+     */
+    default Quaternionf getRotationAt(float timeSinceStart, Quaternionf dest) {
         Vector3f dir = getDerivative(timeSinceStart);
         float yaw = Math.atan2(dir.y, dir.x);
-        return new Quaternionf().rotateZ(yaw);
+        return dest.rotationZ(yaw);
     }
 }
@@ -1,9 +1,11 @@
 package NG;
 
+import NG.Core.HeadlessGame;
 import NG.Core.MonsterGame;
 import NG.Settings.Settings;
 import NG.Tools.Directory;
 import NG.Tools.Logger;
+import NG.Tools.Toolbox;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -41,6 +43,19 @@ public class Boot {
                 "\n\tMods directory:        " + Directory.mods.getPath()
         );
 
-        new MonsterGame(settings).root();
+        if (args.contains("-headless")) {
+            // simulation only, without window
+            int seed = Toolbox.intArgument(args, "-seed", 0);
+            int size = Toolbox.intArgument(args, "-size", 64);
+
+            HeadlessGame game = new HeadlessGame(settings);
+            game.init();
+            game.generateMap(seed, size, size);
+            game.loadMods();
+            game.root();
+
+        } else {
+            new MonsterGame(settings).root();
+        }
     }
 }
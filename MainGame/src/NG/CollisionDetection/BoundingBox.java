@@ -3,6 +3,7 @@ package NG.CollisionDetection;
 import org.joml.*;
 
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * @author Geert van Ieperen created on 17-4-2019.
@@ -37,6 +38,25 @@ public class BoundingBox extends AABBf {
         return new BoundingBox(this, displacement);
     }
 
+    /**
+     * sets this bounding box to the given box, moved by the given vector
+     * @param source       the box to copy
+     * @param displacement a vector describing the movement
+     * @return this
+     */
+    public BoundingBox set(AABBf source, Vector3fc displacement) {
+        float x = displacement.x();
+        float y = displacement.y();
+        float z = displacement.z();
+        this.minX = source.minX + x;
+        this.minY = source.minY + y;
+        this.minZ = source.minZ + z;
+        this.maxX = source.maxX + x;
+        this.maxY = source.maxY + y;
+        this.maxZ = source.maxZ + z;
+        return this;
+    }
+
     /**
      * calculates the fraction t in the ray equation <i>p(t) = origin + t * dir</i>
      * @param origin the origin of the ray
@@ -115,27 +135,56 @@ public class BoundingBox extends AABBf {
 
             @Override
             public Vector3f next() {
-                switch (i++) {
-                    case 0:
-                        return buffer.set(minX, minY, minZ);
-                    case 1:
-                        return buffer.set(maxX, minY, minZ);
-                    case 2:
-                        return buffer.set(minX, maxY, minZ);
-                    case 3:
-                        return buffer.set(minX, minY, maxZ);
-                    case 4:
-                        return buffer.set(maxX, maxY, minZ);
-                    case 5:
-                        return buffer.set(maxX, minY, maxZ);
-                    case 6:
-                        return buffer.set(minX, maxY, maxZ);
-                    case 7:
-                        return buffer.set(maxX, maxY, maxZ);
-                    default:
-                        throw new IllegalStateException("i = " + --i);
-                }
+                if (i == 8) throw new IllegalStateException("i = " + i);
+                return corner(i++, buffer);
             }
         };
     }
+
+    /**
+     * stores the corners of this bounding box in the vectors of dest, in the order of {@link #corners()}
+     * @param dest a list of vectors. If it does not have exactly 8 elements, it is resized
+     * @return dest
+     */
+    public List<Vector3f> corners(List<Vector3f> dest) {
+        if (dest.size() > 8) {
+            dest.subList(8, dest.size()).clear();
+        }
+        for (int i = dest.size(); i < 8; i++) {
+            dest.add(new Vector3f());
+        }
+
+        for (int i = 0; i < 8; i++) {
+            corner(i, dest.get(i));
+        }
+        return dest;
+    }
+
+    /**
+     * @param index the index of the corner, in the order of {@link #corners()}
+     * @param dest  the vector to store the result in
+     * @return dest, set to the given corner of this box
+     */
+    public Vector3f corner(int index, Vector3f dest) {
+        switch (index) {
+            case 0:
+                return dest.set(minX, minY, minZ);
+            case 1:
+                return dest.set(maxX, minY, minZ);
+            case 2:
+                return dest.set(minX, maxY, minZ);
+            case 3:
+                return dest.set(minX, minY, maxZ);
+            case 4:
+                return dest.set(maxX, maxY, minZ);
+            case 5:
+                return dest.set(maxX, minY, maxZ);
+            case 6:
+                return dest.set(minX, maxY, maxZ);
+            case 7:
+                return dest.set(maxX, maxY, maxZ);
+            default:
+                throw new IndexOutOfBoundsException("index = " + index);
+        }
+    }
 }
@@ -10,9 +10,7 @@ import org.joml.RayAabIntersection;
 import org.joml.Vector3fc;
 
 import java.util.*;
-import java.util.function.BiConsumer;
 import java.util.function.Consumer;
-import java.util.function.Function;
 
 /**
  * @author Geert van Ieperen created on 10-3-2018.
@@ -23,9 +21,14 @@ public class CollisionDetection {
 
     private final Collection<Entity> newEntities = new ArrayList<>();
 
+    /** all entities, sorted on the lower x coordinate of their hitbox */
     private CollisionEntity[] xLowerSorted;
-    private CollisionEntity[] yLowerSorted;
-    private CollisionEntity[] zLowerSorted;
+
+    /* buffers of processCollisions, reused on every tick */
+    private final List<Entity> removals = new ArrayList<>();
+    private final List<Entity> additions = new ArrayList<>();
+    private PairList<CollisionEntity, CollisionEntity> pairs = new PairList<>();
+    private PairList<CollisionEntity, CollisionEntity> newPairs = new PairList<>();
 
     private AveragingQueue avgCollisions;
 
@@ -52,41 +55,25 @@ public class CollisionDetection {
                 String.format("Collision pair count average: %1.01f", avgCollisions.average())
         );
 
-        int nOfEntities = staticEntities.size();
-        xLowerSorted = new CollisionEntity[nOfEntities];
-        yLowerSorted = new CollisionEntity[nOfEntities];
-        zLowerSorted = new CollisionEntity[nOfEntities];
-
-        populate(staticEntities, gameTime, xLowerSorted, yLowerSorted, zLowerSorted);
+        xLowerSorted = new CollisionEntity[staticEntities.size()];
+        populate(staticEntities, gameTime, xLowerSorted);
     }
 
     /**
-     * populates the given arrays, and sorts the arrays on the lower coordinate of the hitboxes (x, y and z
-     * respectively)
+     * populates the given array, and sorts the array on the lower x coordinate of the hitboxes
      */
-    private void populate(
-            Collection<? extends Entity> entities, float gameTime,
-            CollisionEntity[] xLowerSorted, CollisionEntity[] yLowerSorted, CollisionEntity[] zLowerSorted
-    ) {
+    private void populate(Collection<? extends Entity> entities, float gameTime, CollisionEntity[] xLowerSorted) {
         int i = 0;
         for (Entity entity : entities) {
             assert entity != null;
-            CollisionEntity asCollisionEntity = CollisionEntity.getInstance(entity, gameTime);
-            xLowerSorted[i] = asCollisionEntity;
-            yLowerSorted[i] = asCollisionEntity;
-            zLowerSorted[i] = asCollisionEntity;
-            i++;
+            xLowerSorted[i++] = CollisionEntity.getInstance(entity, gameTime);
         }
 
         if (entities.size() < INSERTION_SORT_BOUND) {
             Toolbox.insertionSort(xLowerSorted, CollisionEntity::xLower);
-            Toolbox.insertionSort(yLowerSorted, CollisionEntity::yLower);
-            Toolbox.insertionSort(zLowerSorted, CollisionEntity::zLower);
 
         } else {
             Arrays.sort(xLowerSorted, (a, b) -> Float.compare(a.xLower(), b.xLower()));
-            Arrays.sort(yLowerSorted, (a, b) -> Float.compare(a.yLower(), b.yLower()));
-            Arrays.sort(zLowerSorted, (a, b) -> Float.compare(a.zLower(), b.zLower()));
         }
     }
 
@@ -98,8 +85,6 @@ public class CollisionDetection {
         /* -- clean and restore invariants -- */
 
         // remove despawned entities
-        List<Entity> removals = new ArrayList<>();
-
         for (CollisionEntity e : entityArray()) {
             Entity entity = e.entity();
             if (entity.isDespawnedAt(gameTime)) {
@@ -115,15 +100,17 @@ public class CollisionDetection {
         // add new entities
         synchronized (newEntities) {
             // collect all elements that have spawned
-            List<Entity> additions = new ArrayList<>();
             for (Entity e : newEntities) {
                 if (e.getSpawnTime() < gameTime) {
                     additions.add(e);
                 }
             }
 
-            mergeNewEntities(additions, gameTime);
-            newEntities.removeAll(additions);
+            if (!additions.isEmpty()) {
+                mergeNewEntities(additions, gameTime);
+                newEntities.removeAll(additions);
+                additions.clear();
+            }
         }
 
         // update representation
@@ -131,10 +118,8 @@ public class CollisionDetection {
             entity.update(gameTime);
         }
 
-        // update sorted lists
+        // update sorted list
         Toolbox.insertionSort(xLowerSorted, CollisionEntity::xLower);
-        Toolbox.insertionSort(yLowerSorted, CollisionEntity::yLower);
-        Toolbox.insertionSort(zLowerSorted, CollisionEntity::zLower);
 
         /* -- analyse the collisions -- */
 
@@ -149,22 +134,27 @@ public class CollisionDetection {
          * we shouldn't re-use the getIntersectingPairs method nor reduce by non-collisions.
          * On the other hand, we may assume collisions of that magnitude appear seldom
          */
-        PairList<CollisionEntity, CollisionEntity> pairs = getIntersectingPairs();
+        pairs.clear();
+        getIntersectingPairs(pairs);
 
         int i;
         // for each pair, run checkCollisionPair(a, b, gameTime) until it returns false
         for (i = 0; i < MAX_COLLISION_ITERATIONS && !pairs.isEmpty(); i++) {
 
-            PairList<CollisionEntity, CollisionEntity> newPairs = new PairList<>();
-            for (Pair<CollisionEntity, CollisionEntity> p : pairs) {
-                if (checkCollisionPair(p.left, p.right, gameTime)) {
-                    newPairs.add(p);
+            newPairs.clear();
+            for (int j = 0; j < pairs.size(); j++) {
+                CollisionEntity left = pairs.left(j);
+                CollisionEntity right = pairs.right(j);
+                if (checkCollisionPair(left, right, gameTime)) {
+                    newPairs.add(left, right);
                 }
             }
 
+            PairList<CollisionEntity, CollisionEntity> buffer = pairs;
             pairs = newPairs;
+            newPairs = buffer;
         }
-        Logger.INFO.printSpamless("CollDet" + i, gameTime, "Collision iterations", i);
+        if (i > 0) Logger.INFO.printSpamless("CollDet" + i, gameTime, "Collision iterations", i);
 
         previousTime = gameTime;
     }
@@ -214,72 +204,42 @@ public class CollisionDetection {
     }
 
     /**
-     * generate a list (possibly empty) of all pairs of objects that may have collided. This can include (parts of) the
-     * ground, but not an object with itself. One pair does not occur the other way around.
-     * @return a collection of pairs of objects that are close to each other
+     * collects all pairs of objects that may have collided, of which the hitboxes overlap. This can include (parts of)
+     * the ground, but not an object with itself. One pair does not occur the other way around.
+     * <p>
+     * The entities are swept in order of their lower x coordinate, such that each entity is only compared to the
+     * entities that overlap on the x axis. Overlap on the y and z axis is tested directly.
+     * @param dest the list to add the pairs of objects that are close to each other to
      */
-    private PairList<CollisionEntity, CollisionEntity> getIntersectingPairs() {
+    private void getIntersectingPairs(PairList<CollisionEntity, CollisionEntity> dest) {
         assert testInvariants();
 
-        CollisionEntity[] entityArray = entityArray();
-        int nrOfEntities = entityArray.length;
-
-        // initialize id values to correspond to the array
-        for (int i = 0; i < nrOfEntities; i++) {
-            entityArray[i].setID(i);
-        }
-
-        AdjacencyMatrix adjacencies = new AdjacencyMatrix(nrOfEntities, 3);
-
-        checkOverlap(adjacencies, xLowerSorted, CollisionEntity::xLower, CollisionEntity::xUpper);
-        checkOverlap(adjacencies, yLowerSorted, CollisionEntity::yLower, CollisionEntity::yUpper);
-        checkOverlap(adjacencies, zLowerSorted, CollisionEntity::zLower, CollisionEntity::zUpper);
-
-        int nrOfElts = adjacencies.nrOfFoundElements();
-
-        PairList<CollisionEntity, CollisionEntity> allEntityPairs = new PairList<>(nrOfElts);
-        adjacencies.forEach((i, j) -> allEntityPairs.add(
-                entityArray[i], entityArray[j]
-        ));
-
-        avgCollisions.add(nrOfElts);
-        return allEntityPairs;
-    }
-
-    /**
-     * iterating over the sorted array, increase the value of all pairs that have coinciding intervals
-     * @param adjacencyMatrix the matrix where the pairs are marked using entity id's
-     * @param sortedArray     an array sorted increasingly on the lower mapping
-     * @param lower           a function that maps to the lower value of the interval of the entity
-     * @param upper           a function that maps an entity to its upper interval
-     */
-    protected void checkOverlap(
-            AdjacencyMatrix adjacencyMatrix, CollisionEntity[] sortedArray, Function<CollisionEntity, Float> lower,
-            Function<CollisionEntity, Float> upper
-    ) {
-        // INVARIANT:
-        // all items i where i.lower < source.lower, are already added to the matrix
-
+        CollisionEntity[] sortedArray = xLowerSorted;
         int nOfItems = sortedArray.length;
+        int nOfPairs = 0;
+
         for (int i = 0; i < (nOfItems - 1); i++) {
             CollisionEntity subject = sortedArray[i];
+            float xUpper = subject.xUpper();
+
+            // every target with a lower bound less than the upper bound of our subject overlaps on the x axis
+            for (int j = i + 1; j < nOfItems; j++) {
+                CollisionEntity target = sortedArray[j];
+                if (target.xLower() > xUpper) break;
 
-            // increases the checks count of every source with index less than i, with position less than the given minimum
-            int j = i + 1;
-            CollisionEntity target = sortedArray[j++];
+                if (target.yLower() > subject.yUpper() || subject.yLower() > target.yUpper()) continue;
+                if (target.zLower() > subject.zUpper() || subject.zLower() > target.zUpper()) continue;
 
-            // while the lowerbound of target is less than the upperbound of our subject
-            while (lower.apply(target) <= upper.apply(subject)) {
                 Entity a = subject.entity();
                 Entity b = target.entity();
                 if (a.canCollideWith(b) && b.canCollideWith(a)) {
-                    adjacencyMatrix.add(target.getID(), subject.getID());
+                    dest.add(subject, target);
+                    nOfPairs++;
                 }
-
-                if (j == nOfItems) break;
-                target = sortedArray[j++];
             }
         }
+
+        avgCollisions.add(nOfPairs);
     }
 
     public void addEntities(Collection<Entity> entities) {
@@ -340,14 +300,9 @@ public class CollisionDetection {
         if (nOfNewEntities <= 0) return;
 
         CollisionEntity[] newXSort = new CollisionEntity[nOfNewEntities];
-        CollisionEntity[] newYSort = new CollisionEntity[nOfNewEntities];
-        CollisionEntity[] newZSort = new CollisionEntity[nOfNewEntities];
-
-        populate(newEntities, gameTime, newXSort, newYSort, newZSort);
+        populate(newEntities, gameTime, newXSort);
 
         xLowerSorted = Toolbox.mergeArrays(xLowerSorted, newXSort, CollisionEntity::xLower);
-        yLowerSorted = Toolbox.mergeArrays(yLowerSorted, newYSort, CollisionEntity::yLower);
-        zLowerSorted = Toolbox.mergeArrays(zLowerSorted, newZSort, CollisionEntity::zLower);
     }
 
     /**
@@ -357,8 +312,6 @@ public class CollisionDetection {
      */
     private void deleteEntities(Collection<Entity> targets) {
         xLowerSorted = deleteAll(targets, xLowerSorted);
-        yLowerSorted = deleteAll(targets, yLowerSorted);
-        zLowerSorted = deleteAll(targets, zLowerSorted);
     }
 
     private CollisionEntity[] deleteAll(Collection<Entity> targets, CollisionEntity[] array) {
@@ -381,6 +334,7 @@ public class CollisionDetection {
         return xLowerSorted;
     }
 
+    /** @return a new list of the entities, including the entities that are added but not yet processed */
     public Collection<Entity> getEntityList() {
         CollisionEntity[] eties = entityArray();
         ArrayList<Entity> elts = new ArrayList<>(eties.length);
@@ -389,6 +343,10 @@ public class CollisionDetection {
             elts.add(ety.entity());
         }
 
+        synchronized (newEntities) {
+            elts.addAll(newEntities);
+        }
+
         return elts;
     }
 
@@ -410,72 +368,12 @@ public class CollisionDetection {
 
     public synchronized void cleanup() {
         xLowerSorted = new CollisionEntity[0];
-        yLowerSorted = new CollisionEntity[0];
-        zLowerSorted = new CollisionEntity[0];
 
         synchronized (newEntities) {
             newEntities.clear();
         }
     }
 
-    /**
-     * tracks how often pairs of integers are added, and allows querying whether a given pair has been added at least a
-     * given number of times.
-     */
-    private static class AdjacencyMatrix {
-        // this map is indexed using the entity id values, with i > j
-        // if (adjacencyMatrix[i][j] == n) then entityArray[i] and entityArray[j] have n coordinates with coinciding intervals
-        Map<Integer, Map<Integer, Integer>> relations;
-        Map<Integer, Set<Integer>> found;
-        private int depth;
-
-        /**
-         * @param nrOfElements maximum value that can be added
-         * @param depth        how many times a number must be added to trigger {@link #has(int, int)}. For 3-coordinate
-         *                     matching, use 3
-         */
-        public AdjacencyMatrix(int nrOfElements, int depth) {
-            relations = new HashMap<>(nrOfElements);
-            found = new HashMap<>();
-            this.depth = depth;
-        }
-
-        public void add(int i, int j) {
-            if (j > i) {
-                int t = i;
-                i = j;
-                j = t;
-            }
-
-            Map<Integer, Integer> firstSide = relations.computeIfAbsent(i, HashMap::new);
-            int newValue = firstSide.getOrDefault(j, 0) + 1;
-            if (newValue == depth) {
-                found.computeIfAbsent(i, HashSet::new).add(j);
-            }
-            firstSide.put(j, newValue);
-        }
-
-        public boolean has(int i, int j) {
-            return found.containsKey(i) && found.get(i).contains(j);
-        }
-
-        public void forEach(BiConsumer<Integer, Integer> action) {
-            for (Integer i : found.keySet()) {
-                for (Integer j : found.get(i)) {
-                    action.accept(i, j);
-                }
-            }
-        }
-
-        public int nrOfFoundElements() {
-            int count = 0;
-            for (Set<Integer> integers : found.values()) {
-                count += integers.size();
-            }
-            return count;
-        }
-    }
-
     /**
      * an interface for checking masses of entities against.
      */
@@ -498,36 +396,6 @@ public class CollisionDetection {
         String source = Logger.getCallingMethod(1);
         Logger.DEBUG.printSpamless(source, "\n    " + source + " Checking collision detection invariants");
 
-        // all arrays contain all entities
-        Set<Entity> allEntities = new HashSet<>();
-        for (CollisionEntity colEty : entityArray()) {
-            allEntities.add(colEty.entity());
-        }
-
-        for (CollisionEntity collEty : xLowerSorted) {
-            if (!allEntities.contains(collEty.entity())) {
-                throw new IllegalStateException("Array x does not contain entity " + collEty.entity());
-            }
-        }
-        for (CollisionEntity collEty : yLowerSorted) {
-            if (!allEntities.contains(collEty.entity())) {
-                throw new IllegalStateException("Array y does not contain entity " + collEty.entity());
-            }
-        }
-        for (CollisionEntity collEty : zLowerSorted) {
-            if (!allEntities.contains(collEty.entity())) {
-                throw new IllegalStateException("Array z does not contain entity " + collEty.entity());
-            }
-        }
-
-        // all arrays are of equal length
-        if ((xLowerSorted.length != yLowerSorted.length) || (xLowerSorted.length != zLowerSorted.length)) {
-            Logger.ERROR.print(Arrays.toString(entityArray()));
-            throw new IllegalStateException("Entity arrays have different lengths: "
-                    + xLowerSorted.length + ", " + yLowerSorted.length + ", " + zLowerSorted.length
-            );
-        }
-
         // x is sorted
         float init = Float.NEGATIVE_INFINITY;
         for (int i = 0; i < xLowerSorted.length; i++) {
@@ -540,30 +408,6 @@ public class CollisionDetection {
             init = collisionEntity.xLower();
         }
 
-        // y is sorted
-        init = Float.NEGATIVE_INFINITY;
-        for (int i = 0; i < yLowerSorted.length; i++) {
-            CollisionEntity collisionEntity = yLowerSorted[i];
-            if (collisionEntity.yLower() < init) {
-                Logger.ERROR.print("Sorting error on y = " + i);
-                Logger.ERROR.print(Arrays.toString(yLowerSorted));
-                throw new IllegalStateException("Sorting error on y = " + i);
-            }
-            init = collisionEntity.yLower();
-        }
-
-        // z is sorted
-        init = Float.NEGATIVE_INFINITY;
-        for (int i = 0; i < zLowerSorted.length; i++) {
-            CollisionEntity collisionEntity = zLowerSorted[i];
-            if (collisionEntity.zLower() < init) {
-                Logger.ERROR.print("Sorting error on z = " + i);
-                Logger.ERROR.print(Arrays.toString(zLowerSorted));
-                throw new IllegalStateException("Sorting error on z = " + i);
-            }
-            init = collisionEntity.zLower();
-        }
-
         return true;
     }
 }
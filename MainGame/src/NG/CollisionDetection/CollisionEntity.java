@@ -6,7 +6,6 @@ import org.joml.AABBf;
 import org.joml.Vector3f;
 import org.joml.Vector3fc;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -65,19 +64,19 @@ public interface CollisionEntity {
 
         private BoundingBox nextBoundingBox;
         private BoundingBox prevBoundingBox;
-        private AABBf hitbox; // combined of both states
+        private final AABBf hitbox = new AABBf(); // combined of both states
+        private final Vector3f direction = new Vector3f();
 
         public Moving(MovingEntity source, float gameTime) {
             this.entity = source;
-            prevPoints = new ArrayList<>();
             update(gameTime);
         }
 
         @Override
         public void refresh(float gameTime) {
             nextPoints = entity.getShapePoints(nextPoints, gameTime);
-            nextBoundingBox = entity.getHitbox(gameTime);
-            hitbox = prevBoundingBox.union(nextBoundingBox);
+            nextBoundingBox = entity.getHitbox(gameTime, nextBoundingBox);
+            prevBoundingBox.union(nextBoundingBox, hitbox);
         }
 
         @Override
@@ -88,20 +87,21 @@ public interface CollisionEntity {
                 nextPoints = entity.getShapePoints(gameTime);
                 prevPoints = entity.getShapePoints(gameTime);
 
-                nextBoundingBox = entity.getHitbox(gameTime);
-                hitbox = nextBoundingBox;
+                nextBoundingBox = entity.getHitbox(gameTime, new BoundingBox());
+                prevBoundingBox = entity.getHitbox(gameTime, new BoundingBox());
 
             } else {
-                List<Vector3f> buffer = prevPoints;
-
+                // the buffers of the previous state are reused for the next
+                List<Vector3f> pointBuffer = prevPoints;
                 prevPoints = nextPoints;
-                nextPoints = entity.getShapePoints(buffer, gameTime);
+                nextPoints = entity.getShapePoints(pointBuffer, gameTime);
 
+                BoundingBox boxBuffer = prevBoundingBox;
                 prevBoundingBox = nextBoundingBox;
-                nextBoundingBox = entity.getHitbox(gameTime);
-
-                hitbox = prevBoundingBox.union(nextBoundingBox);
+                nextBoundingBox = entity.getHitbox(gameTime, boxBuffer);
             }
+
+            prevBoundingBox.union(nextBoundingBox, hitbox);
         }
 
         @Override
@@ -161,7 +161,7 @@ public interface CollisionEntity {
             for (int i = 0; i < prevPoints.size(); i++) {
                 Vector3fc origin = nextPoints.get(i);
                 Vector3fc target = prevPoints.get(i);
-                Vector3f direction = new Vector3f(target).sub(origin);
+                direction.set(target).sub(origin);
 
                 float intersection = receiver.getIntersection(origin, direction, gameTime);
 
@@ -180,7 +180,7 @@ public interface CollisionEntity {
     class Static implements CollisionEntity {
         private final Entity entity;
         private int id;
-        private AABBf hitbox; // combined of both states
+        private final BoundingBox hitbox = new BoundingBox();
 
         public Static(Entity source, float gameTime) {
             this.entity = source;
@@ -194,7 +194,7 @@ public interface CollisionEntity {
         @Override
         public void update(float gameTime) {
             entity.update(gameTime);
-            hitbox = entity.getHitbox(gameTime);
+            entity.getHitbox(gameTime, hitbox);
         }
 
         @Override
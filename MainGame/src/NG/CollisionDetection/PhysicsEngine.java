@@ -1,11 +1,13 @@
 package NG.CollisionDetection;
 
+import NG.Actions.ActionCursor;
 import NG.Actions.EntityAction;
 import NG.Core.Game;
 import NG.Core.GameTimer;
 import NG.DataStructures.Generic.Pair;
 import NG.Entities.Entity;
 import NG.Entities.MovingEntity;
+import NG.Entities.SnapshotBuffer;
 import NG.GameMap.GameMap;
 import NG.InputHandling.ClickShader;
 import NG.InputHandling.MouseTools.MouseTool;
@@ -19,15 +21,42 @@ import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 /**
  * Doesn't actually calculate results of collisions. See {@link Entity#collideWith(Entity, float)}
+ * <p>
+ * Each update processes the collisions, lets all entities think and apply their changes, and publishes a snapshot of
+ * the entities for the renderer. The systems that act on the souls of the monsters, such as {@link
+ * NG.Living.EffectSystem}, are updated by the game loop before the state.
  * @author Geert van Ieperen created on 10-2-2019.
  */
 public class PhysicsEngine implements GameState, Externalizable {
+    /** below this number of entities, all entities think on the calling thread */
+    private static final int PARALLEL_THRESHOLD = 64;
+
+    /** the phases of {@link #update(float)}, in order of execution */
+    public enum Phase {
+        COLLISION, THINK, APPLY, MAP, SNAPSHOT
+    }
+
     private final CollisionDetection entityList;
+    private final List<Entity> thinkers = new ArrayList<>();
+    private Runnable[] intents = new Runnable[0];
+    private final long[] phaseNanos = new long[Phase.values().length];
+    /** snapshots of the entities, written by {@link #update(float)} and read by {@link #draw(SGL)} */
+    private final SnapshotBuffer snapshots = new SnapshotBuffer();
+    private final Consumer<Entity> capture = snapshots::capture;
     private Game game;
+    /** the entities that were read, restored on initialisation */
+    private List<Entity> savedEntities;
+    /** the cursors of the world collision checks, only accessed by the simulation thread */
+    private final ActionCursor firstCursor = new ActionCursor();
+    private final ActionCursor lastCursor = new ActionCursor();
 
     public PhysicsEngine() {
         entityList = new CollisionDetection();
@@ -37,9 +66,20 @@ public class PhysicsEngine implements GameState, Externalizable {
     public void init(Game game) throws Exception {
         this.game = game;
         entityList.setWorld(this::entityWorldCollision);
+
+        if (savedEntities != null) {
+            for (Entity entity : savedEntities) {
+                entity.restore(game);
+            }
+            savedEntities = null;
+        }
     }
 
-    private boolean entityWorldCollision(Entity entity, float startTime, float endTime) {
+    /**
+     * checks whether the given entity collides with the map between the given times, and if so, makes it collide
+     * @return true iff the entity collided with the map
+     */
+    boolean entityWorldCollision(Entity entity, float startTime, float endTime) {
         if (!(entity instanceof MovingEntity)) return false;
         MovingEntity movingEntity = (MovingEntity) entity;
 
@@ -53,60 +93,69 @@ public class PhysicsEngine implements GameState, Externalizable {
         if (startTime >= endTime) return false;
 
         // first check whether and where we consider collision
-        Pair<EntityAction, Float> firstAction = movingEntity.getActionAt(startTime);
-        Pair<EntityAction, Float> lastAction = movingEntity.getActionAt(endTime);
+        ActionCursor firstAction = movingEntity.getActionAt(startTime, firstCursor);
+        ActionCursor lastAction = movingEntity.getActionAt(endTime, lastCursor);
         EntityAction action;
+        // the game time at which the checked action started
+        float actionOrigin;
         float actionStart;
         float actionEnd;
 
         GameMap map = game.get(GameMap.class);
 
-        if (firstAction.left == lastAction.left) {
-            if (!firstAction.left.hasWorldCollision()) return false;
-            action = firstAction.left;
-            actionStart = firstAction.right;
-            actionEnd = firstAction.right + (endTime - startTime);
+        if (firstAction.action == lastAction.action) {
+            if (!firstAction.action.hasWorldCollision()) return false;
+            action = firstAction.action;
+            actionOrigin = startTime - firstAction.timeSinceStart;
+            actionStart = firstAction.timeSinceStart;
+            actionEnd = firstAction.timeSinceStart + (endTime - startTime);
 
         } else {
             // we assume there is no action inbetween
-            boolean firstHasColl = firstAction.left.hasWorldCollision();
-            boolean lastHasColl = lastAction.left.hasWorldCollision();
+            float firstActionEnd = firstAction.timeSinceStart + (endTime - startTime) - lastAction.timeSinceStart;
+            boolean firstHasColl = firstAction.action.hasWorldCollision();
+            boolean lastHasColl = lastAction.action.hasWorldCollision();
 
             if (!firstHasColl && !lastHasColl) {
                 return false;
 
             } else if (!firstHasColl) { // lastHasColl
-                action = lastAction.left;
+                action = lastAction.action;
+                actionOrigin = endTime - lastAction.timeSinceStart;
                 actionStart = 0;
-                actionEnd = lastAction.right;
+                actionEnd = lastAction.timeSinceStart;
 
             } else if (!lastHasColl) { // firstHasColl
-                action = firstAction.left;
-                actionStart = firstAction.right;
-                actionEnd = (endTime - startTime) - lastAction.right;
+                action = firstAction.action;
+                actionOrigin = startTime - firstAction.timeSinceStart;
+                actionStart = firstAction.timeSinceStart;
+                actionEnd = firstActionEnd;
 
             } else { // firstHasColl && lastHasColl
-                float relativeEnd = (endTime - startTime) - lastAction.right;
-                Float collisionTime = map.getActionCollision(firstAction.left, firstAction.right, relativeEnd);
+                Float collisionTime = map.getActionCollision(firstAction.action, firstAction.timeSinceStart, firstActionEnd);
                 if (collisionTime != null) {
-                    entity.collideWith(map, startTime - firstAction.right + collisionTime);
+                    entity.collideWith(map, startTime - firstAction.timeSinceStart + collisionTime);
                     return true;
 
                 } else {
-                    action = lastAction.left;
+                    action = lastAction.action;
+                    actionOrigin = endTime - lastAction.timeSinceStart;
                     actionStart = 0;
-                    actionEnd = lastAction.right;
+                    actionEnd = lastAction.timeSinceStart;
                 }
             }
         }
 
+        // the action starts exactly at the end of the interval
+        if (actionStart == actionEnd) return false;
+
         if (!(actionStart < actionEnd)) {
             throw new AssertionError();
         }
 
         Float collisionTime = map.getActionCollision(action, actionStart, actionEnd);
         if (collisionTime != null) {
-            entity.collideWith(map, startTime - actionStart + collisionTime);
+            entity.collideWith(map, actionOrigin + collisionTime);
             return true;
         }
 
@@ -115,8 +164,54 @@ public class PhysicsEngine implements GameState, Externalizable {
 
     @Override
     public void update(float gameTime) {
+        long start = System.nanoTime();
         entityList.processCollisions(gameTime);
-        entityList.forEach(entity -> entity.update(gameTime));
+        long collided = System.nanoTime();
+
+        thinkers.clear();
+        entityList.forEach(thinkers::add);
+        int nofEntities = thinkers.size();
+        if (intents.length < nofEntities) intents = new Runnable[nofEntities];
+        Runnable[] intents = this.intents;
+
+        // think: every entity prepares its update, only reading the world
+        IntStream indices = IntStream.range(0, nofEntities);
+        if (nofEntities >= PARALLEL_THRESHOLD) indices = indices.parallel();
+        indices.forEach(i -> intents[i] = thinkers.get(i).think(gameTime));
+        long thought = System.nanoTime();
+
+        // apply: changes are made one at a time in the order of the entities, independent of which thread thought
+        for (int i = 0; i < nofEntities; i++) {
+            Runnable intent = intents[i];
+            intents[i] = null;
+            if (intent != null) intent.run();
+        }
+        long applied = System.nanoTime();
+
+        // allows streaming maps to follow the entities
+        game.ifAvailable(GameMap.class, map -> map.update(gameTime));
+        long mapped = System.nanoTime();
+
+        snapshots.begin(gameTime);
+        entityList.forEach(capture);
+        snapshots.publish();
+        long end = System.nanoTime();
+
+        phaseNanos[Phase.COLLISION.ordinal()] += collided - start;
+        phaseNanos[Phase.THINK.ordinal()] += thought - collided;
+        phaseNanos[Phase.APPLY.ordinal()] += applied - thought;
+        phaseNanos[Phase.MAP.ordinal()] += mapped - applied;
+        phaseNanos[Phase.SNAPSHOT.ordinal()] += end - mapped;
+    }
+
+    /**
+     * returns the time spent in the given phase of {@link #update(float)}, summed over all updates. This may only be
+     * queried by the thread that updates this engine.
+     * @param phase the phase to query
+     * @return the total time in nanoseconds
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
     }
 
     @Override
@@ -127,7 +222,7 @@ public class PhysicsEngine implements GameState, Externalizable {
 
     @Override
     public void draw(SGL gl) {
-        entityList.forEach(e -> e.draw(gl));
+        snapshots.draw(gl, game.get(GameTimer.class).getRendertime());
     }
 
     @Override
@@ -172,19 +267,23 @@ public class PhysicsEngine implements GameState, Externalizable {
         Collection<Entity> box = entityList.getEntityList();
 
         out.writeInt(box.size());
-        for (Object s : box) {
-            SerializationTools.writeSafe(out, s);
+        for (Entity entity : box) {
+            SerializationTools.writeSafe(out, entity);
         }
     }
 
     @Override
     public void readExternal(ObjectInput in) throws IOException {
+        savedEntities = new ArrayList<>();
+
         int size = in.readInt();
         for (int i = 0; i < size; i++) {
             Entity entity = SerializationTools.readSafe(in, Entity.class);
             if (entity == null) continue;
+
             if (entity instanceof MovingEntity) {
                 entityList.addEntity(entity);
+                savedEntities.add(entity);
             }
         }
     }
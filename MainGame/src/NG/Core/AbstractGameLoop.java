@@ -1,31 +1,64 @@
 package NG.Core;
 
 import NG.DataStructures.Generic.AveragingQueue;
+import NG.DataStructures.Generic.PercentileWindow;
 import NG.Tools.Logger;
-import NG.Tools.Timer;
 
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Supplier;
 
 
 /**
  * A general-purpose game loop that allows concurrent control on a process. This object starts in a paused state, and
  * can be started by a call to {@link Thread#start()} followed by a call to {@link #unPause()}.
+ * <p>
+ * Ticks are scheduled on fixed deadlines of {@link System#nanoTime()}, such that the time lost in one tick does not
+ * shift the following ticks. How the loop waits for the next deadline is set with {@link #setScheduling(Scheduling)},
+ * and what happens when a deadline has already passed with {@link #setCatchUp(CatchUp)}.
  * @author Geert van Ieperen recreated on 29-10-2019
  */
 public abstract class AbstractGameLoop extends Thread {
-    private float targetDeltaMillis;
+    /** the time before a deadline where {@link Scheduling#PRECISE} stops parking and starts spinning */
+    private static final long SPIN_NANOS = 200_000;
+    /** the maximum number of ticks {@link CatchUp#BURST} will catch up on */
+    static final int MAX_BURST = 10;
+    private static final int STATISTICS_WINDOW = 512;
+
+    private volatile long targetDeltaNanos;
+    private volatile boolean wakeRequested = false;
     private CountDownLatch pauseBlock = new CountDownLatch(0);
     private boolean shouldStop = false;
     private boolean isPaused = true;
+    private volatile Scheduling scheduling = Scheduling.PRECISE;
+    private volatile CatchUp catchUp = CatchUp.SKIP;
 
     private ConcurrentLinkedQueue<Runnable> postLoopActions = new ConcurrentLinkedQueue<>();
 
     private AveragingQueue avgTPS;
     private AveragingQueue avgPoss;
+    private final PercentileWindow tickDurations = new PercentileWindow(STATISTICS_WINDOW);
+    private final PercentileWindow jitter = new PercentileWindow(STATISTICS_WINDOW);
     private final Supplier<String> tickCounter;
     private final Supplier<String> possessionCounter;
+    private final Supplier<String> jitterCounter;
+
+    /** how the loop waits until the next tick */
+    public enum Scheduling {
+        /** sleep for the remaining whole milliseconds, with the granularity of the OS scheduler */
+        SLEEP,
+        /** park until shortly before the deadline, then spin until the deadline */
+        PRECISE
+    }
+
+    /** what the loop does when a tick ends after the deadline of the next tick */
+    public enum CatchUp {
+        /** drop the missed ticks, and continue on the first deadline that has not yet passed */
+        SKIP,
+        /** run the missed ticks directly after each other, up to a limit, to keep the average tick rate */
+        BURST
+    }
 
     /**
      * creates a new, paused gameloop
@@ -35,13 +68,20 @@ public abstract class AbstractGameLoop extends Thread {
     public AbstractGameLoop(String name, int targetTps) {
         super(name);
         if (targetTps == 0) pauseBlock = new CountDownLatch(1);
-        this.targetDeltaMillis = 1000f / targetTps;
+        this.targetDeltaNanos = targetTps == 0 ? 0 : 1_000_000_000L / targetTps;
 
         avgTPS = new AveragingQueue(targetTps / 2);
         avgPoss = new AveragingQueue(targetTps / 10);
 
         tickCounter = () -> String.format("%s TPS: %1.01f", name, avgTPS.average());
         possessionCounter = () -> String.format("%s POSS: %3d%%", name, (int) (100 * avgPoss.average()));
+        jitterCounter = () -> {
+            long[] ticks = tickDurations.percentiles(0.5, 0.99);
+            long[] late = jitter.percentiles(0.5, 0.99);
+            return String.format("%s tick p50/p99: %1.02f/%1.02f ms, jitter p50/p99: %1.03f/%1.03f ms", name,
+                    ticks[0] / 1e6f, ticks[1] / 1e6f, late[0] / 1e6f, late[1] / 1e6f
+            );
+        };
     }
 
     /**
@@ -71,15 +111,16 @@ public abstract class AbstractGameLoop extends Thread {
 
         Logger.printOnline(tickCounter);
         Logger.printOnline(possessionCounter);
+        Logger.printOnline(jitterCounter);
 
         try {
             pauseBlock.await();
-            Timer loopTimer = new Timer();
             isPaused = false;
+            long deadline = System.nanoTime();
 
             while (!shouldStop || Thread.interrupted()) {
                 // start measuring how long a gameloop takes
-                loopTimer.updateLoopTime();
+                long loopStart = System.nanoTime();
 
                 // do stuff
                 update(deltaTime);
@@ -89,25 +130,36 @@ public abstract class AbstractGameLoop extends Thread {
                 runPostLoopActions();
                 if (Thread.interrupted()) break;
 
-                // number of milliseconds remaining in this loop
-                float remainingTime = targetDeltaMillis - loopTimer.getMillisSinceLastUpdate();
+                long loopEnd = System.nanoTime();
+                long period = targetDeltaNanos;
+                tickDurations.add(loopEnd - loopStart);
 
-                // sleep at least 0 milliseconds
-                long correctedTime = (long) Math.max(remainingTime, 0);
-                Thread.sleep(correctedTime);
+                deadline = nextDeadline(deadline, loopEnd, period);
+                waitUntil(deadline);
+
+                if (wakeRequested) {
+                    // the tick starts now, and the following ticks are relative to this one
+                    wakeRequested = false;
+                    long wokenAt = System.nanoTime();
+                    if (wokenAt - deadline < 0) deadline = wokenAt;
+                }
 
                 // store the duration and set this as length of next update
-                loopTimer.updateLoopTime();
-                deltaTime = loopTimer.getElapsedSeconds();
+                long now = System.nanoTime();
+                jitter.add(now - deadline);
+                deltaTime = (now - loopStart) / 1e9f;
 
                 // update Ticks per Second
-                float realTPS = 1000f / loopTimer.getElapsedMillis();
-                avgTPS.add(realTPS);
-                avgPoss.add((targetDeltaMillis - remainingTime) / targetDeltaMillis);
+                avgTPS.add(1f / deltaTime);
+                avgPoss.add(period == 0 ? 1 : (float) (loopEnd - loopStart) / period);
 
                 // wait if the game is paused
                 isPaused = true;
-                pauseBlock.await();
+                if (pauseBlock.getCount() > 0) {
+                    pauseBlock.await();
+                    deadline = System.nanoTime();
+                    wakeRequested = false;
+                }
                 isPaused = false;
             }
 
@@ -122,6 +174,7 @@ public abstract class AbstractGameLoop extends Thread {
         } finally {
             Logger.removeOnlinePrint(tickCounter);
             Logger.removeOnlinePrint(possessionCounter);
+            Logger.removeOnlinePrint(jitterCounter);
             postLoopActions.clear();
             cleanup();
         }
@@ -130,6 +183,57 @@ public abstract class AbstractGameLoop extends Thread {
         Logger.DEBUG.print(this + " is stopped");
     }
 
+    /**
+     * @param deadline the deadline of the tick that just ended
+     * @param now      the current time
+     * @param period   the target time between deadlines
+     * @return the deadline of the next tick, according to the catch-up policy
+     */
+    long nextDeadline(long deadline, long now, long period) {
+        long next = deadline + period;
+        if (now - next <= 0) return next;
+
+        switch (catchUp) {
+            case BURST:
+                // when too far behind, give up on the ticks beyond the limit
+                if (now - next > MAX_BURST * period) return now;
+                return next;
+
+            case SKIP:
+            default:
+                if (period == 0) return now;
+                long missed = (now - next) / period + 1;
+                return next + missed * period;
+        }
+    }
+
+    /**
+     * waits until System.nanoTime() passes the given deadline, or until this thread is interrupted. When using {@link
+     * Scheduling#PRECISE}, the wait also ends on {@link #wakeUp()}
+     */
+    private void waitUntil(long deadline) throws InterruptedException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) return;
+
+        switch (scheduling) {
+            case SLEEP:
+                Thread.sleep(remaining / 1_000_000);
+                break;
+
+            case PRECISE:
+            default:
+                while (remaining > SPIN_NANOS) {
+                    LockSupport.parkNanos(remaining - SPIN_NANOS);
+                    if (isInterrupted() || wakeRequested) return;
+                    remaining = deadline - System.nanoTime();
+                }
+
+                while (deadline - System.nanoTime() > 0 && !wakeRequested) {
+                    Thread.onSpinWait();
+                }
+        }
+    }
+
     private void runPostLoopActions() {
         while (!postLoopActions.isEmpty() && !Thread.interrupted()) {
             try {
@@ -177,11 +281,53 @@ public abstract class AbstractGameLoop extends Thread {
         return isPaused && (pauseBlock.getCount() > 0);
     }
 
+    /**
+     * sets the tick rate. The new rate applies from the deadline after the current wait; use {@link #wakeUp()} to apply
+     * it immediately.
+     * @param TPS the target number of executions of {@link #update(float)} per second, or 0 to run as fast as possible
+     */
     public void setTPS(int TPS) {
-        this.targetDeltaMillis = 1000f / TPS;
+        this.targetDeltaNanos = TPS == 0 ? 0 : 1_000_000_000L / TPS;
+    }
+
+    /**
+     * ends the current wait for the next tick, such that the next update starts immediately. The ticks after that are
+     * scheduled relative to this update. Has no effect on a paused loop.
+     */
+    public void wakeUp() {
+        wakeRequested = true;
+        LockSupport.unpark(this);
     }
 
     public int getTPS() {
-        return (int) (1000f / targetDeltaMillis);
+        return targetDeltaNanos == 0 ? 0 : (int) (1_000_000_000L / targetDeltaNanos);
+    }
+
+    /**
+     * sets how this loop waits for the next tick. The default is {@link Scheduling#PRECISE}
+     */
+    public void setScheduling(Scheduling scheduling) {
+        this.scheduling = scheduling;
+    }
+
+    /**
+     * sets what this loop does when it misses the deadline of a tick. The default is {@link CatchUp#SKIP}
+     */
+    public void setCatchUp(CatchUp catchUp) {
+        this.catchUp = catchUp;
+    }
+
+    /**
+     * @return the durations of the most recent updates in nanoseconds, excluding the time spent waiting
+     */
+    public PercentileWindow getTickDurations() {
+        return tickDurations;
+    }
+
+    /**
+     * @return how late the most recent ticks started relative to their deadline, in nanoseconds
+     */
+    public PercentileWindow getJitter() {
+        return jitter;
     }
 }
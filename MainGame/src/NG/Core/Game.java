@@ -1,8 +1,9 @@
 package NG.Core;
 
+import NG.GameEvent.GameEventQueueLoop;
 import NG.GameMap.GameMap;
+import NG.GameMap.MapCodec;
 import NG.Tools.Logger;
-import NG.Tools.SerializationTools;
 
 import java.io.File;
 import java.util.Arrays;
@@ -116,7 +117,7 @@ public interface Game extends Iterable<Object> {
     void cleanup();
 
     default void loadMap(File map) throws Exception {
-        GameMap newMap = (GameMap) SerializationTools.readFromFile(map);
+        GameMap newMap = MapCodec.read(map);
         GameMap oldMap = get(GameMap.class);
 
         newMap.init(this);
@@ -133,11 +134,16 @@ public interface Game extends Iterable<Object> {
     }
 
     /**
-     * a class that allows run-time switching between game instances
+     * a class that allows run-time switching between game instances. Optionally, the instances that are not selected
+     * simulate at a lower tick rate, see {@link #setTickRates(int, int)}.
      */
     class Multiplexer implements Game {
         private final Game[] instances;
-        private Game current;
+        /** read once per call, such that switching is visible to the loops without locking */
+        private volatile Game current;
+        private boolean hasTickRates = false;
+        private int visibleTps;
+        private int hiddenTps;
 
         protected Multiplexer(int initial, Game... instances) {
             this.instances = instances;
@@ -146,6 +152,37 @@ public interface Game extends Iterable<Object> {
 
         void select(int target) {
             current = instances[target];
+            if (hasTickRates) applyTickRates();
+        }
+
+        /**
+         * sets the tick rates of the event loops of all instances, now and whenever another instance is selected. When
+         * an instance becomes selected, its loop catches up on the time it simulated coarsely directly.
+         * @param visibleTps the tick rate of the selected instance
+         * @param hiddenTps  the tick rate of the other instances
+         * @see AbstractGameLoop#setTPS(int)
+         */
+        public void setTickRates(int visibleTps, int hiddenTps) {
+            this.visibleTps = visibleTps;
+            this.hiddenTps = hiddenTps;
+            this.hasTickRates = true;
+            applyTickRates();
+        }
+
+        private void applyTickRates() {
+            Game visible = current;
+
+            for (Game instance : instances) {
+                for (GameEventQueueLoop loop : instance.getAll(GameEventQueueLoop.class)) {
+                    if (instance == visible) {
+                        loop.setTPS(visibleTps);
+                        loop.wakeUp();
+
+                    } else {
+                        loop.setTPS(hiddenTps);
+                    }
+                }
+            }
         }
 
         /**
@@ -209,6 +246,11 @@ public interface Game extends Iterable<Object> {
             return current.has(target);
         }
 
+        @Override
+        public <T> boolean ifAvailable(Class<T> target, Consumer<T> action) {
+            return current.ifAvailable(target, action);
+        }
+
         @Override
         public <V> Future<V> computeOnRenderThread(Callable<V> action) {
             return current.computeOnRenderThread(action);
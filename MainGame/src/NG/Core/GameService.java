@@ -1,18 +1,26 @@
 package NG.Core;
 
-import NG.DataStructures.Generic.PairList;
 import NG.Rendering.RenderLoop;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
- * A Service-Oriented-Architecture for games, based on classes
+ * A Service-Oriented-Architecture for games, based on classes. The elements are kept in an immutable snapshot, which is
+ * replaced as a whole on every {@link #add(Object)} and {@link #remove(Object)}, and numbered with a version. Lookups
+ * never lock: the positions of the elements of each requested class are cached in one {@link ClassValue} per game, and
+ * recomputed on the first lookup after the version changed. Thereby {@link #get(Class)}, {@link #getAll(Class)} and
+ * {@link #has(Class)} may be called from any thread in constant time once the game stops changing.
+ * <p>
+ * The cache only holds positions, not elements, such that the classes that were looked up do not keep the game alive.
  * @author Geert van Ieperen created on 2-4-2019.
  */
 public class GameService implements Game { // TODO make exception elements for renderer etc.
-    private Map<Class<?>, Object> lookAsideTable = new HashMap<>();
-    private final PairList<Object, Class<?>> elements;
+    private static final int[] NONE = new int[0];
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private final Index index = new Index();
     private final String mainThreadName;
     private Version version;
 
@@ -23,7 +31,6 @@ public class GameService implements Game { // TODO make exception elements for r
      */
     public GameService(Version version, String mainThreadName, Object... initial) {
         this.version = version;
-        this.elements = new PairList<>(initial.length);
         this.mainThreadName = mainThreadName;
 
         for (Object elt : initial) {
@@ -33,54 +40,75 @@ public class GameService implements Game { // TODO make exception elements for r
 
     @Override
     public <T> T get(Class<T> target) {
-        Object found = lookAsideTable.get(target);
-        if (found != null) {
-            //noinspection unchecked
-            return (T) found;
+        Snapshot current = snapshot;
+        int[] found = positionsOf(current, target);
+
+        if (found.length == 0) {
+            List<String> elts = Arrays.stream(current.elements)
+                    .map(Object::getClass)
+                    .map(Class::getSimpleName)
+                    .collect(Collectors.toList());
+            throw new NoSuchElementException(String.format("No element of %s :\n%s", target.toString(), elts));
         }
 
-        for (int i = 0; i < elements.size(); i++) {
-            if (target.isAssignableFrom(elements.right(i))) {
-                Object elt = elements.left(i);
-
-                lookAsideTable.put(target, elt);
-                //noinspection unchecked
-                return (T) elt;
-            }
-        }
-
-        List<String> elts = elements.stream().map(p -> p.right).map(Class::getSimpleName).collect(Collectors.toList());
-        throw new NoSuchElementException(String.format("No element of %s :\n%s", target.toString(), elts));
+        //noinspection unchecked
+        return (T) current.elements[found[0]];
     }
 
     @Override
     public <T> List<T> getAll(Class<T> target) {
-        List<T> results = new ArrayList<>();
+        Snapshot current = snapshot;
+        int[] found = positionsOf(current, target);
+        if (found.length == 0) return Collections.emptyList();
 
-        for (int i = 0; i < elements.size(); i++) {
-            if (target.isAssignableFrom(elements.right(i))) {
-                Object elt = elements.left(i);
+        return new ElementList<>(current.elements, found);
+    }
 
-                lookAsideTable.put(target, elt);
-                //noinspection unchecked
-                results.add((T) elements.left(i));
+    /** @return the positions in the elements of the given snapshot of the elements of the given class, in order */
+    private int[] positionsOf(Snapshot current, Class<?> target) {
+        Lookup lookup = index.get(target);
+        Positions cached = lookup.positions;
+        if (cached != null && cached.version == current.version) return cached.indices;
+
+        int count = 0;
+        for (Object elt : current.elements) {
+            if (target.isInstance(elt)) count++;
+        }
+
+        int[] indices = NONE;
+        if (count > 0) {
+            indices = new int[count];
+            int j = 0;
+            for (int i = 0; i < current.elements.length; i++) {
+                if (target.isInstance(current.elements[i])) indices[j++] = i;
             }
         }
 
-        return results;
+        // a lookup of an older version may overwrite this, which only causes the next lookup to recompute
+        lookup.positions = new Positions(current.version, indices);
+        return indices;
     }
 
     @Override
-    public void add(Object newElement) {
-        elements.add(newElement, newElement.getClass());
+    public synchronized void add(Object newElement) {
+        Object[] old = snapshot.elements;
+        Object[] elements = Arrays.copyOf(old, old.length + 1);
+        elements[old.length] = newElement;
+
+        snapshot = new Snapshot(elements, snapshot.version + 1);
     }
 
     @Override
-    public boolean remove(Object original) {
-        for (int i = 0; i < elements.size(); i++) {
-            if (elements.left(i) == original) { // pointer equality
-                elements.remove(i);
-                lookAsideTable.clear(); // we can't remove on value
+    public synchronized boolean remove(Object original) {
+        Object[] old = snapshot.elements;
+
+        for (int i = 0; i < old.length; i++) {
+            if (old[i] == original) { // pointer equality
+                Object[] elements = new Object[old.length - 1];
+                System.arraycopy(old, 0, elements, 0, i);
+                System.arraycopy(old, i + 1, elements, i, old.length - i - 1);
+
+                snapshot = new Snapshot(elements, snapshot.version + 1);
                 return true;
             }
         }
@@ -110,25 +138,25 @@ public class GameService implements Game { // TODO make exception elements for r
             aspect.cleanup();
         }
 
-        elements.clear();
+        synchronized (this) {
+            snapshot = new Snapshot(Snapshot.EMPTY.elements, snapshot.version + 1);
+        }
     }
 
     @Override
     public boolean has(Class<?> target) {
-        if (lookAsideTable.containsKey(target)) {
-            return true;
-        }
-
-        for (int i = 0; i < elements.size(); i++) {
-            if (target.isAssignableFrom(elements.right(i))) {
-                Object elt = elements.left(i);
-                lookAsideTable.put(target, elt);
-
-                return true;
-            }
-        }
+        return positionsOf(snapshot, target).length > 0;
+    }
 
-        return false;
+    @Override
+    public <T> boolean ifAvailable(Class<T> target, Consumer<T> action) {
+        Snapshot current = snapshot;
+        int[] found = positionsOf(current, target);
+        if (found.length == 0) return false;
+
+        //noinspection unchecked
+        action.accept((T) current.elements[found[0]]);
+        return true;
     }
 
     @Override
@@ -136,31 +164,92 @@ public class GameService implements Game { // TODO make exception elements for r
         return version;
     }
 
+    /**
+     * iterates over the elements of this game at the moment of calling. Changes to the game during iteration are not
+     * reflected by the iterator, except that {@link Iterator#remove()} removes the element from this game.
+     */
     @Override
     public Iterator<Object> iterator() {
+        Object[] elements = snapshot.elements;
+
         return new Iterator<>() {
             int i = 0;
-            int originalSize = elements.size();
 
             @Override
             public boolean hasNext() {
-                return i < elements.size();
+                return i < elements.length;
             }
 
             @Override
             public Object next() {
-                if (originalSize != elements.size()) {
-                    throw new ConcurrentModificationException();
-                }
-                return elements.left(i++);
+                if (i >= elements.length) throw new NoSuchElementException();
+                return elements[i++];
             }
 
             @Override
             public void remove() {
-                elements.remove(--i);
-                lookAsideTable.clear(); // we can't remove on value
-                originalSize--;
+                if (i == 0) throw new IllegalStateException();
+                GameService.this.remove(elements[i - 1]);
             }
         };
     }
+
+    /** an immutable set of elements, and the version of the game that it belongs to */
+    private static class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new Object[0], 0);
+
+        final Object[] elements;
+        final int version;
+
+        Snapshot(Object[] elements, int version) {
+            this.elements = elements;
+            this.version = version;
+        }
+    }
+
+    /** the positions of the elements of one class in the snapshot of one version */
+    private static class Positions {
+        final int version;
+        final int[] indices;
+
+        Positions(int version, int[] indices) {
+            this.version = version;
+            this.indices = indices;
+        }
+    }
+
+    /** the cached positions of one class */
+    private static class Lookup {
+        volatile Positions positions;
+    }
+
+    /** a static class, such that the cached values do not refer to the game */
+    private static class Index extends ClassValue<Lookup> {
+        @Override
+        protected Lookup computeValue(Class<?> type) {
+            return new Lookup();
+        }
+    }
+
+    /** an unmodifiable view of the elements of a snapshot at the given positions */
+    private static class ElementList<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[] elements;
+        private final int[] positions;
+
+        ElementList(Object[] elements, int[] positions) {
+            this.elements = elements;
+            this.positions = positions;
+        }
+
+        @Override
+        public T get(int index) {
+            //noinspection unchecked
+            return (T) elements[positions[index]];
+        }
+
+        @Override
+        public int size() {
+            return positions.length;
+        }
+    }
 }
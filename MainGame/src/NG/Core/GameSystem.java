@@ -0,0 +1,15 @@
+package NG.Core;
+
+/**
+ * A {@link GameAspect} that acts on the world once per game tick. The event loop updates all systems of the game in the
+ * order in which they were added, before it updates the {@link NG.CollisionDetection.GameState}, such that the entities
+ * act on the results of the systems.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public interface GameSystem extends GameAspect {
+    /**
+     * updates this system to the given time. This is called once per game tick, on the thread of the event loop.
+     * @param gameTime the current game time
+     */
+    void update(float gameTime);
+}
@@ -0,0 +1,132 @@
+package NG.Core;
+
+import NG.CollisionDetection.PhysicsEngine;
+import NG.GameEvent.GameEventQueueLoop;
+import NG.GameMap.GameMap;
+import NG.GameMap.MapGeneratorMod;
+import NG.GameMap.MapTiles;
+import NG.GameMap.SimpleMapGenerator;
+import NG.GameMap.TileMap;
+import NG.InputHandling.EventCallbacks;
+import NG.Living.EffectSystem;
+import NG.Living.EmotionSystem;
+import NG.Living.MindScheduler;
+import NG.Living.Player;
+import NG.Living.SpeciesRegistry;
+import NG.Living.StimulusBus;
+import NG.Mods.JarModReader;
+import NG.Mods.Mod;
+import NG.Settings.Settings;
+import NG.Tools.Directory;
+import NG.Tools.Logger;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A game that only runs the simulation: a map, the physics, the event loop and the mods, without a window, renderer,
+ * lights or particles. Actions for the render thread are executed directly on the calling thread, as there is no render
+ * thread.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class HeadlessGame extends GameService {
+    private static final int SHUTDOWN_TIMEOUT_MILLIS = 5000;
+    private final GameEventQueueLoop loop;
+    private List<Mod> mods = Collections.emptyList();
+
+    public HeadlessGame(Settings settings) {
+        super(MonsterGame.GAME_VERSION, Thread.currentThread().getName());
+        Logger.INFO.print("Starting up a headless game engine...");
+
+        loop = new GameEventQueueLoop("Headless Loop", settings.TARGET_TPS);
+        add(loop);
+        add(new PhysicsEngine());
+        // the systems are updated in this order
+        add(new EffectSystem());
+        add(new EmotionSystem());
+        add(new StimulusBus());
+        add(new MindScheduler());
+        add(new SpeciesRegistry());
+        add(new GameTimer(settings.RENDER_DELAY));
+        add(new TileMap(Settings.CHUNK_SIZE));
+        add(new EventCallbacks());
+        add(new Player());
+        add(settings);
+    }
+
+    @Override
+    public void executeOnRenderThread(Runnable action) {
+        action.run();
+    }
+
+    /**
+     * generates a new map using a {@link SimpleMapGenerator}
+     * @param seed  the seed of the generator
+     * @param xSize number of tiles in x direction
+     * @param ySize number of tiles in y direction
+     */
+    public void generateMap(int seed, int xSize, int ySize) {
+        MapTiles.readTileSetFile("Hitbox", "tileSetHitbox.txt");
+
+        MapGeneratorMod generator = new SimpleMapGenerator(seed);
+        generator.setSize(xSize + 1, ySize + 1);
+        get(GameMap.class).generateNew(generator);
+    }
+
+    /**
+     * loads all mods of the mods directory, and initializes them on this game. Mods that fail to initialize are
+     * skipped.
+     * @return the mods that are initialized
+     */
+    public List<Mod> loadMods() throws IOException {
+        mods = JarModReader.loadMods(Directory.mods);
+
+        for (Iterator<Mod> it = mods.iterator(); it.hasNext(); ) {
+            Mod mod = it.next();
+            try {
+                mod.init(this);
+
+            } catch (Exception ex) {
+                Logger.ERROR.print("Error while loading " + mod.getModName(), ex);
+                it.remove();
+            }
+        }
+
+        return mods;
+    }
+
+    /**
+     * @return the loop that runs the simulation of this game
+     */
+    public GameEventQueueLoop getLoop() {
+        return loop;
+    }
+
+    /**
+     * runs the simulation until the loop is stopped or the JVM shuts down, and cleans up afterwards. This blocks the
+     * calling thread. The game must have been initialized with {@link #init()}.
+     */
+    public void root() throws InterruptedException {
+        // on shutdown, stop the loop and allow this thread to clean up
+        Thread rootThread = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            loop.stopLoop();
+            try {
+                rootThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+
+            } catch (InterruptedException ignored) {
+            }
+        }));
+
+        Logger.INFO.print("Running headless simulation");
+        loop.start();
+        loop.unPause();
+        loop.join();
+
+        Logger.INFO.print("Simulation stopped, cleaning up...");
+        mods.forEach(Mod::cleanup);
+        cleanup();
+    }
+}
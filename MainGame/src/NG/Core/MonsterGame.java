@@ -17,7 +17,12 @@ import NG.GameMap.TileMap;
 import NG.InputHandling.ClickShader;
 import NG.InputHandling.EventCallbacks;
 import NG.InputHandling.MouseTools.MouseToolCallbacks;
+import NG.Living.EffectSystem;
+import NG.Living.EmotionSystem;
+import NG.Living.MindScheduler;
 import NG.Living.Player;
+import NG.Living.SpeciesRegistry;
+import NG.Living.StimulusBus;
 import NG.Mods.JarModReader;
 import NG.Mods.Mod;
 import NG.Mods.ModLoader;
@@ -67,6 +72,7 @@ public class MonsterGame implements ModLoader {
     private List<Mod> allMods;
     private List<Mod> activeMods = Collections.emptyList();
     private final Pointer pointer;
+    private final SpeciesRegistry species;
 
     public MonsterGame(Settings settings) throws IOException {
         Logger.DEBUG.print("Showing splash...");
@@ -86,6 +92,7 @@ public class MonsterGame implements ModLoader {
         hud = new MonsterHud();
 //        hud = new FrameManagerImpl();
         pointer = new TilePointer();
+        species = new SpeciesRegistry(); // shared, such that the species are loaded once
 
         GameService pocketGame = createWorld("pocket", mainThreadName, settings, thePlayer);
         pocketGame.add(new EmptyMap());
@@ -96,6 +103,7 @@ public class MonsterGame implements ModLoader {
         this.worldGame = worldGame;
 
         combinedGame = new Game.Multiplexer(0, worldGame, pocketGame);
+        combinedGame.setTickRates(settings.TARGET_TPS, settings.BACKGROUND_TPS);
         Logger.printOnline(() -> "Current view: " + (combinedGame.current() == 0 ? "World" : "Pocket"));
     }
 
@@ -106,10 +114,15 @@ public class MonsterGame implements ModLoader {
         GameLights lights = new SingleShadowMapLights();
         GameParticles particles = new GameParticles();
         GameTimer timer = new GameTimer(settings.RENDER_DELAY);
+        EffectSystem effects = new EffectSystem();
+        EmotionSystem emotions = new EmotionSystem();
+        StimulusBus stimuli = new StimulusBus();
+        MindScheduler minds = new MindScheduler();
 
+        // the systems are updated in the order of the elements
         return new GameService(GAME_VERSION, mainThreadName,
-                eventLoop, gameState, lights, camera, particles, timer,
-                settings, window, renderer, inputHandler, callbacks, hud, pointer, thePlayer
+                eventLoop, gameState, effects, emotions, stimuli, minds, lights, camera, particles, timer,
+                settings, window, renderer, inputHandler, callbacks, hud, pointer, species, thePlayer
         );
     }
 
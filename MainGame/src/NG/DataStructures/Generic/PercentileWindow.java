@@ -0,0 +1,75 @@
+package NG.DataStructures.Generic;
+
+import java.util.Arrays;
+
+/**
+ * a collection that accepts long samples and returns percentiles of the last n entries. Adding runs in constant time,
+ * querying sorts a copy of the window. Adding and querying may happen on different threads.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class PercentileWindow {
+    private final long[] entries;
+    private final long[] sorted;
+    private int head = 0;
+    private int size = 0;
+
+    public PercentileWindow(int capacity) {
+        if (capacity < 1) capacity = 1;
+        this.entries = new long[capacity];
+        this.sorted = new long[capacity];
+    }
+
+    /**
+     * add a sample to this collection, deleting the oldest sample if the window is full. Runs in constant time
+     * @param sample a new value
+     */
+    public synchronized void add(long sample) {
+        entries[head] = sample;
+        head = (head + 1) % entries.length;
+        if (size < entries.length) size++;
+    }
+
+    /**
+     * @param fraction the percentile as a fraction in [0, 1], e.g. 0.99 for the 99th percentile
+     * @return the smallest sample such that at least the given fraction of the samples is less or equal to it, or 0 if
+     * no samples have been added
+     */
+    public long percentile(double fraction) {
+        return percentiles(fraction)[0];
+    }
+
+    /**
+     * computes several percentiles on the same window of samples.
+     * @param fractions the percentiles as fractions in [0, 1]
+     * @return for each fraction, the smallest sample such that at least that fraction of the samples is less or equal
+     * to it, or 0 if no samples have been added
+     * @see #percentile(double)
+     */
+    public synchronized long[] percentiles(double... fractions) {
+        long[] result = new long[fractions.length];
+        if (size == 0) return result;
+
+        System.arraycopy(entries, 0, sorted, 0, size);
+        Arrays.sort(sorted, 0, size);
+
+        for (int i = 0; i < fractions.length; i++) {
+            int rank = (int) Math.ceil(fractions[i] * size) - 1;
+            result[i] = sorted[Math.max(0, Math.min(rank, size - 1))];
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the number of samples in the window
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** removes all samples */
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,157 @@
+package NG.DataStructures.Generic;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid over a set of points in the xy-plane, for finding the points near a position. The grid is rebuilt
+ * from scratch by {@link #build(float[], int, int, float)}, which sorts the points on their cell with a counting sort
+ * in linear time. The cells have about one point each, but are never smaller than a given size, such that a query
+ * within that distance only visits the cells next to it.
+ * <p>
+ * The points are identified by their index in the array they were built from. The cells of one row are consecutive,
+ * such that the points of a range of cells in a row are found as one range of slots. The range is empty when the
+ * columns do not overlap the grid:
+ * <pre>{@code
+ * for (int row = grid.firstRow(y - r); row <= grid.lastRow(y + r); row++) {
+ *     int to = grid.rowEnd(row, grid.lastColumn(x + r));
+ *     for (int slot = grid.rowStart(row, grid.firstColumn(x - r)); slot < to; slot++) {
+ *         int point = grid.pointAt(slot);
+ *     }
+ * }
+ * }</pre>
+ * A grid is not thread-safe.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class PointGrid {
+    /** per slot, the index of the point, sorted on cell */
+    private int[] points = new int[0];
+    private int[] cells = new int[0];
+    /** per cell, the first slot of the cell. The end of the last cell is at index {@code nofCells} */
+    private int[] cellStart = new int[1];
+    private int size = 0;
+
+    private float minX;
+    private float minY;
+    private float cellSize = 1;
+    private int width = 0;
+    private int height = 0;
+
+    /**
+     * sorts the given points into a new grid that covers all of them
+     * @param coordinates     the coordinates of the points, with the x and y coordinate of point {@code i} at {@code
+     *                        stride * i} and {@code stride * i + 1}
+     * @param stride          the number of values per point in the coordinates, at least 2
+     * @param nofPoints       the number of points
+     * @param minimumCellSize the smallest width of a cell
+     */
+    public void build(float[] coordinates, int stride, int nofPoints, float minimumCellSize) {
+        size = nofPoints;
+        if (nofPoints == 0) {
+            width = 0;
+            height = 0;
+            return;
+        }
+
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        minX = Float.POSITIVE_INFINITY;
+        minY = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < nofPoints; i++) {
+            minX = Math.min(minX, coordinates[stride * i]);
+            minY = Math.min(minY, coordinates[stride * i + 1]);
+            maxX = Math.max(maxX, coordinates[stride * i]);
+            maxY = Math.max(maxY, coordinates[stride * i + 1]);
+        }
+
+        // about one point per cell, and no more cells in one direction than a few times the number of points
+        float area = (maxX - minX) * (maxY - minY);
+        float length = Math.max(maxX - minX, maxY - minY);
+        cellSize = Math.max(minimumCellSize, Math.max((float) Math.sqrt(area / nofPoints), length / (4 * nofPoints)));
+        width = (int) ((maxX - minX) / cellSize) + 1;
+        height = (int) ((maxY - minY) / cellSize) + 1;
+
+        int nofCells = width * height;
+        if (cellStart.length < nofCells + 1) cellStart = new int[nofCells + 1];
+        Arrays.fill(cellStart, 0, nofCells + 1, 0);
+        if (points.length < nofPoints) {
+            points = new int[nofPoints];
+            cells = new int[nofPoints];
+        }
+
+        for (int i = 0; i < nofPoints; i++) {
+            int x = (int) ((coordinates[stride * i] - minX) / cellSize);
+            int y = (int) ((coordinates[stride * i + 1] - minY) / cellSize);
+            int cell = y * width + x;
+            cells[i] = cell;
+            cellStart[cell + 1]++;
+        }
+
+        for (int c = 0; c < nofCells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+
+        for (int i = 0; i < nofPoints; i++) {
+            points[cellStart[cells[i]]++] = i;
+        }
+
+        // the increments moved each start to the start of the next cell
+        System.arraycopy(cellStart, 0, cellStart, 1, nofCells);
+        cellStart[0] = 0;
+    }
+
+    /** @return the number of points in this grid */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the first column that can contain points with an x coordinate of at least {@code x}, which is the number
+     * of columns if none can
+     */
+    public int firstColumn(float x) {
+        return Math.min(width, Math.max(0, (int) Math.floor((x - minX) / cellSize)));
+    }
+
+    /** @return the last column that can contain points with an x coordinate of at most {@code x}, or -1 if none can */
+    public int lastColumn(float x) {
+        return Math.max(-1, Math.min(width - 1, (int) Math.floor((x - minX) / cellSize)));
+    }
+
+    /**
+     * @return the first row that can contain points with a y coordinate of at least {@code y}, which is the number of
+     * rows if none can
+     */
+    public int firstRow(float y) {
+        return Math.min(height, Math.max(0, (int) Math.floor((y - minY) / cellSize)));
+    }
+
+    /** @return the last row that can contain points with a y coordinate of at most {@code y}, or -1 if none can */
+    public int lastRow(float y) {
+        return Math.max(-1, Math.min(height - 1, (int) Math.floor((y - minY) / cellSize)));
+    }
+
+    /**
+     * @param row    a row of the grid
+     * @param column a column of the grid, or the number of columns
+     * @return the first slot of the cell in the given row and column, such that the points of the columns from this
+     * column on are in the slots from this slot on
+     */
+    public int rowStart(int row, int column) {
+        return cellStart[row * width + column];
+    }
+
+    /**
+     * @param row    a row of the grid
+     * @param column a column of the grid, or -1
+     * @return the slot after the cell in the given row and column, such that the points of the columns up to this
+     * column are in the slots before this slot
+     */
+    public int rowEnd(int row, int column) {
+        return cellStart[row * width + column + 1];
+    }
+
+    /** @return the index of the point in the given slot, as given to {@link #build(float[], int, int, float)} */
+    public int pointAt(int slot) {
+        return points[slot];
+    }
+}
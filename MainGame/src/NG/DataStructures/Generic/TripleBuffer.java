@@ -0,0 +1,74 @@
+package NG.DataStructures.Generic;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Passes values from one writer thread to one reader thread without locking and without allocating. The writer fills
+ * its own buffer and publishes it, the reader acquires the most recently published buffer. Of the three buffers, one
+ * belongs to the writer, one to the reader, and one holds the latest published value. Buffers that are published but
+ * not acquired before the next publish are reused by the writer.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class TripleBuffer<T> {
+    private static final int INDEX_MASK = 0b11;
+    /** set on the middle buffer if it has been published, but not yet acquired */
+    private static final int FRESH = 0b100;
+
+    private final T[] buffers;
+    private final AtomicInteger middle = new AtomicInteger(2);
+    private int writeIndex = 0;
+    private int readIndex = 1;
+
+    /**
+     * @param factory generates the three buffers
+     */
+    @SuppressWarnings("unchecked")
+    public TripleBuffer(Supplier<T> factory) {
+        buffers = (T[]) new Object[]{factory.get(), factory.get(), factory.get()};
+    }
+
+    /**
+     * @return the buffer to fill, owned by the writer until the next call to {@link #publish()}
+     */
+    public T writeBuffer() {
+        return buffers[writeIndex];
+    }
+
+    /**
+     * makes the current write buffer available to the reader, and gives the writer a new buffer
+     */
+    public void publish() {
+        int previous = middle.getAndSet(writeIndex | FRESH);
+        writeIndex = previous & INDEX_MASK;
+    }
+
+    /**
+     * @return true iff a buffer has been published since the last call to {@link #acquire()}. If this returns true, the
+     * next call to acquire will change the read buffer.
+     */
+    public boolean hasUpdate() {
+        return (middle.get() & FRESH) != 0;
+    }
+
+    /**
+     * if a buffer has been published since the last call, takes it as the read buffer. The previous read buffer is
+     * returned to the writer immediately, and may not be accessed afterwards.
+     * @return true iff the read buffer has changed
+     */
+    public boolean acquire() {
+        if (!hasUpdate()) return false;
+
+        int previous = middle.getAndSet(readIndex);
+        readIndex = previous & INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * @return the buffer most recently acquired by the reader, owned by the reader until the next call to {@link
+     * #acquire()}
+     */
+    public T readBuffer() {
+        return buffers[readIndex];
+    }
+}
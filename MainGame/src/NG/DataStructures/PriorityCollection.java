@@ -8,7 +8,6 @@ import java.util.AbstractList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.BiFunction;
-import java.util.function.Function;
 
 /**
  * a collection that only keeps the most relevant elements based on given values.
@@ -185,9 +184,13 @@ public class PriorityCollection<T> extends AbstractCollection<T> {
         return 0; // not in this collection => not relevant (and relevances must be positive)
     }
 
-    public void reduceImportance(Function<Float, Float> method) {
+    /**
+     * multiplies the relevance of all elements with the given factor
+     * @param factor a positive factor, usually less than 1
+     */
+    public void reduceImportance(float factor) {
         for (int i = 0; i < size; i++) {
-            values[i] = method.apply(values[i]);
+            values[i] *= factor;
         }
     }
 
@@ -23,12 +23,46 @@ public interface Entity extends GameObject {
      */
     void draw(SGL gl);
 
+    /**
+     * Draws this entity in the state given by the record, which is read from a snapshot written by {@link
+     * #capture(float, EntitySnapshot, int)}. This method may only be called from the rendering loop, and may not read
+     * the state that is changed by the simulation.
+     * @param gl     the graphics object to be used for rendering, initialized at world's origin.
+     * @param record the state of this entity on the current render time
+     */
+    default void draw(SGL gl, RenderRecord record) {
+        draw(gl);
+    }
+
+    /**
+     * Records the visible state of this entity in the given snapshot. This is called on the simulation thread after
+     * every update, and should set the state of the given index using {@link EntitySnapshot#setState(int, Vector3fc,
+     * org.joml.Quaternionfc, NG.Actions.EntityAction, float)}. If the state is not set, the entity is drawn with {@link
+     * #draw(SGL)} instead.
+     * @param gameTime the current game time
+     * @param snapshot the snapshot to write to
+     * @param index    the index of this entity in the snapshot
+     */
+    default void capture(float gameTime, EntitySnapshot snapshot, int index) {
+    }
+
     /**
      * updates the control and actions of this entity
      * @param gameTime the current game time
      */
     void update(float gameTime);
 
+    /**
+     * Prepares the update of this entity. This may be called for several entities in parallel, and should only read
+     * the state of the game and change the private state of this entity. Changes to the rest of the world are returned,
+     * and executed after all entities have prepared, one at a time in the order of the entities.
+     * @param gameTime the current game time
+     * @return the changes resulting from this update, or null if there are none
+     */
+    default Runnable think(float gameTime) {
+        return () -> update(gameTime);
+    }
+
     /**
      * The position of this entity.
      * @return the position of this entity at the given time
@@ -39,11 +73,38 @@ public interface Entity extends GameObject {
         return new Vector3f((hitbox.maxX - hitbox.minX) / 2, (hitbox.maxY - hitbox.minY) / 2, (hitbox.maxZ - hitbox.minX) / 2);
     }
 
+    /**
+     * The position of this entity, stored in the given vector. Entities that move should override this to prevent
+     * allocation. This may be called from any thread.
+     * @param gameTime the time at which to measure
+     * @param dest     the vector to store the result in
+     * @return dest, or null if this entity has no position
+     */
+    default Vector3f getPositionAt(float gameTime, Vector3f dest) {
+        Vector3f position = getPositionAt(gameTime);
+        return position == null ? null : dest.set(position);
+    }
+
     /**
      * @return a (variable) world-space hitbox of this entity
      */
     BoundingBox getHitbox(float gameTime);
 
+    /**
+     * stores the world-space hitbox of this entity in dest, like {@link #getHitbox(float)}. This is called by the
+     * collision detection on the simulation thread for every entity on every tick, and entities that move should
+     * override this to prevent allocation.
+     * @param gameTime the time at which to measure
+     * @param dest     the bounding box to store the result in
+     * @return dest
+     */
+    default BoundingBox getHitbox(float gameTime, BoundingBox dest) {
+        BoundingBox hitbox = getHitbox(gameTime);
+        dest.setMin(hitbox.minX, hitbox.minY, hitbox.minZ);
+        dest.setMax(hitbox.maxX, hitbox.maxY, hitbox.maxZ);
+        return dest;
+    }
+
     default float getSpawnTime() {
         return Float.NEGATIVE_INFINITY;
     }
@@ -22,6 +22,8 @@ import java.util.*;
  * @author Geert van Ieperen created on 7-4-2019.
  */
 public class EntityProperties implements Serializable {
+    /** the name of the properties created by {@link #EntityProperties()} */
+    public static final String DEFAULT_NAME = "Cube Monster";
     private static final DamageType[] DAMAGE_TYPES = DamageType.values();
 
     public final String name;
@@ -41,7 +43,7 @@ public class EntityProperties implements Serializable {
     public final List<CommandProvider> moves;
 
     public EntityProperties() {
-        this.name = "Cube Monster";
+        this.name = DEFAULT_NAME;
         this.hitPoints = 256;
         this.deltaHitPoints = 0;
         this.jumpSpeed = 10f;
@@ -0,0 +1,233 @@
+package NG.Entities;
+
+import NG.Actions.EntityAction;
+import org.joml.Quaternionf;
+import org.joml.Quaternionfc;
+import org.joml.Vector3fc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The visible state of all entities on one moment of game time, stored as parallel arrays. The simulation writes one
+ * snapshot after every tick using {@link Entity#capture(float, EntitySnapshot, int)}, and the renderer draws by
+ * interpolating between the two most recent snapshots with {@link #read(int, EntitySnapshot, float, RenderRecord)}. A
+ * snapshot is not changed while it is read, such that drawing does not touch the live entities.
+ * <p>
+ * Entities that do not capture their state are still listed, and are drawn directly with {@link
+ * Entity#draw(NG.Rendering.MatrixStack.SGL)}.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class EntitySnapshot {
+    private static final int INITIAL_CAPACITY = 16;
+    /** position x, y, z and rotation x, y, z, w */
+    private static final int TRANSFORM_SIZE = 7;
+    /** how far the index of an entity may shift between snapshots before it is not found anymore */
+    private static final int SEARCH_WINDOW = 4;
+
+    private float gameTime;
+    private int size = 0;
+
+    private Entity[] entities = new Entity[INITIAL_CAPACITY];
+    private float[] transforms = new float[INITIAL_CAPACITY * TRANSFORM_SIZE];
+    private EntityAction[] actions = new EntityAction[INITIAL_CAPACITY];
+    private float[] actionTimes = new float[INITIAL_CAPACITY];
+    private float[] spawnTimes = new float[INITIAL_CAPACITY];
+    private float[] despawnTimes = new float[INITIAL_CAPACITY];
+    private int[] flags = new int[INITIAL_CAPACITY];
+    private List<List<EntityAction>> plans = new ArrayList<>();
+
+    /**
+     * removes all entities, and starts a new snapshot for the given time
+     * @param gameTime the game time of the state recorded in this snapshot
+     */
+    public void clear(float gameTime) {
+        this.gameTime = gameTime;
+        Arrays.fill(entities, 0, size, null);
+        Arrays.fill(actions, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * adds an entity to this snapshot. Until its state is set with {@link #setState(int, Vector3fc, Quaternionfc,
+     * EntityAction, float)}, the entity is drawn directly.
+     * @param entity      the entity to add
+     * @param spawnTime   the spawn time of the entity at the time of this snapshot
+     * @param despawnTime the despawn time of the entity at the time of this snapshot
+     * @return the index of the entity in this snapshot
+     */
+    public int add(Entity entity, float spawnTime, float despawnTime) {
+        if (size == entities.length) grow();
+        if (size == plans.size()) plans.add(new ArrayList<>());
+
+        entities[size] = entity;
+        spawnTimes[size] = spawnTime;
+        despawnTimes[size] = despawnTime;
+        flags[size] = 0;
+        plans.get(size).clear();
+        return size++;
+    }
+
+    /**
+     * records the state of the entity at the given index
+     * @param index          the index returned by {@link #add(Entity, float, float)}
+     * @param position       the position of the entity
+     * @param rotation       the rotation of the entity
+     * @param action         the action executed by the entity, which must be immutable
+     * @param timeSinceStart the time since the start of the action
+     */
+    public void setState(
+            int index, Vector3fc position, Quaternionfc rotation, EntityAction action, float timeSinceStart
+    ) {
+        int t = index * TRANSFORM_SIZE;
+        transforms[t] = position.x();
+        transforms[t + 1] = position.y();
+        transforms[t + 2] = position.z();
+        transforms[t + 3] = rotation.x();
+        transforms[t + 4] = rotation.y();
+        transforms[t + 5] = rotation.z();
+        transforms[t + 6] = rotation.w();
+        actions[index] = action;
+        actionTimes[index] = timeSinceStart;
+    }
+
+    /**
+     * @param index the index returned by {@link #add(Entity, float, float)}
+     * @param flags entity-specific flags, returned as {@link RenderRecord#flags}
+     */
+    public void setFlags(int index, int flags) {
+        this.flags[index] = flags;
+    }
+
+    /**
+     * @param index the index returned by {@link #add(Entity, float, float)}
+     * @return an empty list to be filled with the actions planned after the current action
+     */
+    public List<EntityAction> plannedActions(int index) {
+        return plans.get(index);
+    }
+
+    public float getGameTime() {
+        return gameTime;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Entity entity(int index) {
+        return entities[index];
+    }
+
+    /**
+     * @return true iff the entity at the given index recorded its state, false if it should be drawn directly
+     */
+    public boolean hasState(int index) {
+        return actions[index] != null;
+    }
+
+    /**
+     * copies the recorded states of the given snapshot into this snapshot, except for the planned actions.
+     * @param other the snapshot to copy
+     */
+    public void copyStates(EntitySnapshot other) {
+        clear(other.gameTime);
+        while (entities.length < other.size) grow();
+
+        System.arraycopy(other.entities, 0, entities, 0, other.size);
+        System.arraycopy(other.transforms, 0, transforms, 0, other.size * TRANSFORM_SIZE);
+        System.arraycopy(other.actions, 0, actions, 0, other.size);
+        System.arraycopy(other.actionTimes, 0, actionTimes, 0, other.size);
+        size = other.size;
+    }
+
+    /**
+     * reads the state of the entity at the given index, interpolated between the previous snapshot and this one. If the
+     * entity is not in the previous snapshot, or the render time is not before the time of this snapshot, the state of
+     * this snapshot is returned.
+     * @param index      the index of the entity in this snapshot
+     * @param previous   a snapshot of an earlier game time
+     * @param renderTime the time to interpolate to
+     * @param dest       the record to write the result to
+     * @return dest
+     */
+    public RenderRecord read(int index, EntitySnapshot previous, float renderTime, RenderRecord dest) {
+        dest.renderTime = renderTime;
+        dest.spawnTime = spawnTimes[index];
+        dest.despawnTime = despawnTimes[index];
+        dest.flags = flags[index];
+        dest.plannedActions = plans.get(index);
+
+        int t = index * TRANSFORM_SIZE;
+        dest.position.set(transforms[t], transforms[t + 1], transforms[t + 2]);
+        dest.rotation.set(transforms[t + 3], transforms[t + 4], transforms[t + 5], transforms[t + 6]);
+        dest.action = actions[index];
+        dest.actionTime = actionTimes[index];
+
+        float timeSpan = gameTime - previous.gameTime;
+        if (renderTime >= gameTime || !(timeSpan > 0)) return dest;
+
+        int p = previous.indexOf(entities[index], index);
+        if (p < 0 || previous.actions[p] == null) return dest;
+
+        float fraction = Math.max(0, (renderTime - previous.gameTime) / timeSpan);
+        int pt = p * TRANSFORM_SIZE;
+        float[] prev = previous.transforms;
+
+        dest.position.set(
+                prev[pt] + (dest.position.x - prev[pt]) * fraction,
+                prev[pt + 1] + (dest.position.y - prev[pt + 1]) * fraction,
+                prev[pt + 2] + (dest.position.z - prev[pt + 2]) * fraction
+        );
+
+        // normalized linear interpolation, along the shortest arc
+        Quaternionf q = dest.rotation;
+        float dot = prev[pt + 3] * q.x + prev[pt + 4] * q.y + prev[pt + 5] * q.z + prev[pt + 6] * q.w;
+        float from = 1 - fraction;
+        float to = (dot < 0) ? -fraction : fraction;
+        q.set(
+                from * prev[pt + 3] + to * q.x,
+                from * prev[pt + 4] + to * q.y,
+                from * prev[pt + 5] + to * q.z,
+                from * prev[pt + 6] + to * q.w
+        ).normalize();
+
+        float timeBeforeSnapshot = gameTime - renderTime;
+        if (previous.actions[p] == actions[index]) {
+            dest.actionTime = Math.max(0, actionTimes[index] - timeBeforeSnapshot);
+
+        } else if (actionTimes[index] < timeBeforeSnapshot) {
+            // the current action had not yet started on render time
+            dest.action = previous.actions[p];
+            dest.actionTime = previous.actionTimes[p] + (renderTime - previous.gameTime);
+
+        } else {
+            dest.actionTime = actionTimes[index] - timeBeforeSnapshot;
+        }
+
+        return dest;
+    }
+
+    /** finds the index of the given entity close to the expected index, or returns -1 */
+    private int indexOf(Entity entity, int expected) {
+        int from = Math.max(0, expected - SEARCH_WINDOW);
+        int to = Math.min(size, expected + SEARCH_WINDOW + 1);
+
+        for (int i = from; i < to; i++) {
+            if (entities[i] == entity) return i;
+        }
+        return -1;
+    }
+
+    private void grow() {
+        int capacity = entities.length * 2;
+        entities = Arrays.copyOf(entities, capacity);
+        transforms = Arrays.copyOf(transforms, capacity * TRANSFORM_SIZE);
+        actions = Arrays.copyOf(actions, capacity);
+        actionTimes = Arrays.copyOf(actionTimes, capacity);
+        spawnTimes = Arrays.copyOf(spawnTimes, capacity);
+        despawnTimes = Arrays.copyOf(despawnTimes, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+    }
+}
@@ -9,6 +9,8 @@ import NG.DataStructures.Generic.Color4f;
 import NG.DataStructures.Generic.Pair;
 import NG.GameMap.GameMap;
 import NG.Living.MonsterSoul;
+import NG.Living.SoulCodec;
+import NG.Living.SpeciesRegistry;
 import NG.Particles.GameParticles;
 import NG.Particles.Particles;
 import NG.Rendering.Material;
@@ -18,10 +20,15 @@ import NG.Rendering.Shaders.ShaderProgram;
 import NG.Rendering.Shapes.GenericShapes;
 import NG.Tools.Logger;
 import org.joml.Quaternionf;
+import org.joml.Quaternionfc;
 import org.joml.Vector2i;
 import org.joml.Vector3f;
 import org.joml.Vector3fc;
 
+import java.io.*;
+import java.util.Collections;
+import java.util.List;
+
 import static NG.Actions.EntityAction.ACCEPTABLE_DIFFERENCE_SQ;
 
 /**
@@ -30,10 +37,29 @@ import static NG.Actions.EntityAction.ACCEPTABLE_DIFFERENCE_SQ;
  * @author Geert van Ieperen created on 4-2-2019.
  */
 public class MonsterEntity extends AbstractGameObject implements MovingEntity {
+    private static final Mark[] MARKS = Mark.values();
     /** the current actions that are executed */
     private ActionQueue currentActions;
-
-    private MonsterSoul controller;
+    /** the cursor and transformation used for drawing, only accessed by the render thread */
+    private transient ActionCursor renderCursor = new ActionCursor();
+    private transient Vector3f renderPosition = new Vector3f();
+    private transient Quaternionf renderRotation = new Quaternionf();
+    /** the cursor and transformation used for capturing snapshots, only accessed by the simulation thread */
+    private transient ActionCursor captureCursor = new ActionCursor();
+    private transient Vector3f capturePosition = new Vector3f();
+    private transient Quaternionf captureRotation = new Quaternionf();
+    /** the cursor and buffers used for processing collisions, only accessed by the simulation thread */
+    private transient ActionCursor collisionCursor = new ActionCursor();
+    private transient Vector3f collisionPosition = new Vector3f();
+    private transient Vector3f collisionVelocity = new Vector3f();
+    private transient BoundingBox collisionHitbox = new BoundingBox();
+    /** the cursor used for planning actions, only accessed by the thread that changes the action queue */
+    private transient ActionCursor planCursor = new ActionCursor();
+
+    /** written with {@link SoulCodec}, as it refers to the species of the game */
+    private transient MonsterSoul controller;
+    /** the encoded soul of an entity that was read, decoded when the entity is restored */
+    private transient byte[] savedSoul;
 
     private Mark marking = Mark.NONE;
     private float despawnTime = Float.POSITIVE_INFINITY;
@@ -48,7 +74,30 @@ public class MonsterEntity extends AbstractGameObject implements MovingEntity {
 
     @Override
     public void restoreFields(Game game) {
+        if (savedSoul != null) {
+            // the registry is not saved, and is initialized before the entities are restored
+            try {
+                InputStream soul = new ByteArrayInputStream(savedSoul);
+                SoulCodec.read(soul, game.get(SpeciesRegistry.class)).get(0).restoreEntity(this);
+
+            } catch (IOException ex) {
+                throw new RuntimeException("Could not read the soul of a monster", ex);
+            }
+            savedSoul = null;
+        }
+
         controller.restore(game);
+        renderCursor = new ActionCursor();
+        renderPosition = new Vector3f();
+        renderRotation = new Quaternionf();
+        captureCursor = new ActionCursor();
+        capturePosition = new Vector3f();
+        captureRotation = new Quaternionf();
+        collisionCursor = new ActionCursor();
+        collisionPosition = new Vector3f();
+        collisionVelocity = new Vector3f();
+        collisionHitbox = new BoundingBox();
+        planCursor = new ActionCursor();
     }
 
     @Override
@@ -56,6 +105,29 @@ public class MonsterEntity extends AbstractGameObject implements MovingEntity {
         float now = game.get(GameTimer.class).getRendertime();
         if (now > getDespawnTime()) return;
 
+        currentActions.getActionAt(now, renderCursor);
+        EntityAction action = renderCursor.action;
+        float timeSinceStart = renderCursor.timeSinceStart;
+
+        Vector3f position = action.getPositionAt(timeSinceStart, renderPosition);
+        Quaternionf rotation = action.getRotationAt(timeSinceStart, renderRotation);
+        Iterable<EntityAction> plannedActions = currentActions.actionsBetween(now, Float.POSITIVE_INFINITY);
+
+        draw(gl, position, rotation, action, timeSinceStart, plannedActions, marking);
+    }
+
+    @Override
+    public void draw(SGL gl, RenderRecord record) {
+        if (record.renderTime > record.despawnTime) return;
+
+        Mark mark = MARKS[record.flags];
+        draw(gl, record.position, record.rotation, record.action, record.actionTime, record.plannedActions, mark);
+    }
+
+    private void draw(
+            SGL gl, Vector3fc position, Quaternionfc rotation, EntityAction action, float timeSinceStart,
+            Iterable<EntityAction> plannedActions, Mark mark
+    ) {
         ShaderProgram shader = gl.getShader();
         MaterialShader materials = null;
         if (shader instanceof MaterialShader) {
@@ -63,34 +135,30 @@ public class MonsterEntity extends AbstractGameObject implements MovingEntity {
         }
 
         if (materials != null) {
-            for (EntityAction action : currentActions.actionsBetween(now, Float.POSITIVE_INFINITY)) {
-                action.getMarker().draw(gl);
+            for (EntityAction planned : plannedActions) {
+                planned.getMarker().draw(gl);
             }
         }
 
-        Pair<EntityAction, Float> actionPair = currentActions.getActionAt(now);
-        EntityAction action = actionPair.left;
-        Float timeSinceStart = actionPair.right;
-
         gl.pushMatrix();
         {
-            gl.translate(action.getPositionAt(timeSinceStart));
+            gl.translate(position);
 
-            if (materials != null && marking == Mark.SELECTED) {
+            if (materials != null && mark == Mark.SELECTED) {
                 materials.setMaterial(Material.SILVER, Color4f.YELLOW);
                 gl.translate(0, 0, 0.5f);
                 gl.render(GenericShapes.SELECTION, this);
                 gl.translate(0, 0, -0.5f);
             }
 
-            gl.rotate(action.getRotationAt(timeSinceStart));
+            gl.rotate(rotation);
 
             controller.props.bodyModel.draw(gl, this, controller.props.boneMapping, timeSinceStart, action);
 
             if (materials != null) {
                 materials.setMaterial(Material.ROUGH, Color4f.WHITE);
 
-                switch (marking) {
+                switch (mark) {
                     case SELECTED:
                         materials.setMaterial(Material.SILVER, Color4f.YELLOW);
                     case OWNED:
@@ -106,9 +174,23 @@ public class MonsterEntity extends AbstractGameObject implements MovingEntity {
             }
         }
         gl.popMatrix();
+    }
+
+    @Override
+    public void capture(float gameTime, EntitySnapshot snapshot, int index) {
+        // actions older than the previous snapshot are not drawn anymore
+        currentActions.removeUntil(gameTime - 1f);
+
+        currentActions.getActionAt(gameTime, captureCursor);
+        EntityAction action = captureCursor.action;
+        float timeSinceStart = captureCursor.timeSinceStart;
+
+        Vector3f position = action.getPositionAt(timeSinceStart, capturePosition);
+        Quaternionf rotation = action.getRotationAt(timeSinceStart, captureRotation);
 
-        // TODO future serialisation may want to take this responsibility
-        currentActions.removeUntil(now - 1f);
+        snapshot.setState(index, position, rotation, action, timeSinceStart);
+        snapshot.setFlags(index, marking.ordinal());
+        currentActions.actionsBetween(gameTime, Float.POSITIVE_INFINITY, snapshot.plannedActions(index));
     }
 
     @Override
@@ -116,6 +198,36 @@ public class MonsterEntity extends AbstractGameObject implements MovingEntity {
         controller.update(gameTime);
     }
 
+    @Override
+    public Runnable think(float gameTime) {
+        return controller.think(gameTime);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+
+        ByteArrayOutputStream soul = new ByteArrayOutputStream();
+        SoulCodec.write(Collections.singletonList(controller), soul, game.get(SpeciesRegistry.class));
+        out.writeInt(soul.size());
+        out.write(soul.toByteArray());
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+
+        savedSoul = new byte[in.readInt()];
+        in.readFully(savedSoul);
+    }
+
+    /**
+     * sets the controller of an entity that was read without its controller
+     * @param controller the soul of this entity
+     * @see MonsterSoul#restoreEntity(MonsterEntity)
+     */
+    public void restoreController(MonsterSoul controller) {
+        this.controller = controller;
+    }
+
     /**
      * @return the {@link NG.Living.Living} that controls this entity.
      */
@@ -128,14 +240,29 @@ public class MonsterEntity extends AbstractGameObject implements MovingEntity {
         return currentActions.getActionAt(gameTime);
     }
 
+    @Override
+    public ActionCursor getActionAt(float gameTime, ActionCursor dest) {
+        return currentActions.getActionAt(gameTime, dest);
+    }
+
+    @Override
+    public Vector3f getPositionAt(float gameTime) {
+        return currentActions.getPositionAt(gameTime);
+    }
+
+    @Override
+    public Vector3f getPositionAt(float gameTime, Vector3f dest) {
+        return currentActions.getPositionAt(gameTime, dest);
+    }
+
     @Override
     public void collideWith(Entity other, float collisionTime) {
         GameMap map = game.get(GameMap.class);
 
-        Pair<EntityAction, Float> action = getActionAt(collisionTime);
-        Vector3fc thisPos = action.left.getPositionAt(action.right);
+        ActionCursor action = getActionAt(collisionTime, collisionCursor);
+        Vector3fc thisPos = action.action.getPositionAt(action.timeSinceStart);
         Vector3fc otherPos = other.getPositionAt(collisionTime);
-        Vector3f movement = action.left.getDerivative(action.right);
+        Vector3f movement = action.action.getDerivative(action.timeSinceStart, collisionVelocity);
         Vector3f otherToThis = new Vector3f(thisPos).sub(otherPos);
 
         final EntityAction nextAction;
@@ -215,12 +342,24 @@ public class MonsterEntity extends AbstractGameObject implements MovingEntity {
 
     @Override
     public BoundingBox getHitbox(float gameTime) {
-        Pair<EntityAction, Float> action = getActionAt(gameTime);
-        Quaternionf rotation = action.left.getRotationAt(action.right);
+        return getHitbox(gameTime, new BoundingBox(), new Vector3f());
+    }
+
+    @Override
+    public BoundingBox getHitbox(float gameTime, BoundingBox dest) {
+        return getHitbox(gameTime, dest, collisionPosition);
+    }
+
+    private BoundingBox getHitbox(float gameTime, BoundingBox dest, Vector3f positionBuffer) {
         BoundingBox hitbox = getLocalHitbox();
 //        rotate hitbox
         //...
-        return hitbox.getMoved(getPositionAt(gameTime));
+        return dest.set(hitbox, currentActions.getPositionAt(gameTime, positionBuffer));
+    }
+
+    @Override
+    public List<Vector3f> getShapePoints(List<Vector3f> dest, float gameTime) {
+        return getHitbox(gameTime, collisionHitbox).corners(dest);
     }
 
     /**
@@ -238,12 +377,11 @@ public class MonsterEntity extends AbstractGameObject implements MovingEntity {
     public void processActions(float gameTime) {
         GameMap map = game.get(GameMap.class);
 
-        Pair<EntityAction, Float> actionPair = currentActions.getActionAt(gameTime);
-        assert actionPair != null;
+        ActionCursor current = currentActions.getActionAt(gameTime, planCursor);
 
-        float duration = actionPair.left.duration();
-        if (Float.isFinite(duration) && actionPair.right < duration) {
-            float timeLeft = duration - actionPair.right;
+        float duration = current.action.duration();
+        if (Float.isFinite(duration) && current.timeSinceStart < duration) {
+            float timeLeft = duration - current.timeSinceStart;
             gameTime += timeLeft;
         }
 
@@ -270,9 +408,9 @@ public class MonsterEntity extends AbstractGameObject implements MovingEntity {
     }
 
     public void showDeath(float time) {
-        game.get(GameParticles.class).add(
+        game.ifAvailable(GameParticles.class, particles -> particles.add(
                 Particles.explosion(getPositionAt(time), Color4f.RED, 10, time)
-        );
+        ));
     }
 
     @Override
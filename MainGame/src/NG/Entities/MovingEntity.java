@@ -1,5 +1,6 @@
 package NG.Entities;
 
+import NG.Actions.ActionCursor;
 import NG.Actions.EntityAction;
 import NG.DataStructures.Generic.Pair;
 import org.joml.Vector3f;
@@ -20,12 +21,24 @@ public interface MovingEntity extends Entity {
 
     @Override
     default Vector3f getPositionAt(float gameTime) {
-        Pair<EntityAction, Float> action = getActionAt(gameTime);
-        return action.left.getPositionAt(action.right);
+        ActionCursor action = getActionAt(gameTime, new ActionCursor());
+        return action.action.getPositionAt(action.timeSinceStart);
     }
 
     Pair<EntityAction, Float> getActionAt(float gameTime);
 
+    /**
+     * finds the action executing at the given time, like {@link #getActionAt(float)}, and stores the result in the given
+     * cursor. Entities that are queried often should override this to prevent allocation.
+     * @param gameTime the moment to query
+     * @param dest     the cursor to store the result in
+     * @return dest
+     */
+    default ActionCursor getActionAt(float gameTime, ActionCursor dest) {
+        Pair<EntityAction, Float> action = getActionAt(gameTime);
+        return dest.set(action.left, action.right);
+    }
+
     /**
      * returns the points of the shape of this entity at the given moment in time
      * @param gameTime the moment when to retrieve this entity's points
@@ -45,23 +58,6 @@ public interface MovingEntity extends Entity {
      * not reflected in this object.
      */
     default List<Vector3f> getShapePoints(List<Vector3f> dest, float gameTime) {
-        if (dest.size() > 8) {
-            dest.clear();
-        }
-        if (dest.size() < 8) {
-            for (int i = dest.size(); i < 8; i++) {
-                dest.add(new Vector3f());
-            }
-        }
-
-        Iterable<Vector3f> corners = getHitbox(gameTime).corners();
-
-        int i = 0;
-        for (Vector3f corner : corners) {
-            dest.get(i).set(corner);
-            i++;
-        }
-
-        return dest;
+        return getHitbox(gameTime).corners(dest);
     }
 }
@@ -6,8 +6,14 @@ import NG.Core.Game;
 import NG.Core.GameTimer;
 import NG.DataStructures.Generic.Pair;
 import NG.Entities.Entity;
+import NG.Entities.EntitySnapshot;
 import NG.Entities.MovingEntity;
+import NG.Entities.RenderRecord;
 import NG.Rendering.MatrixStack.SGL;
+import org.joml.Quaternionf;
+import org.joml.Quaternionfc;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
 
 import java.util.function.Supplier;
 
@@ -15,12 +21,21 @@ import java.util.function.Supplier;
  * @author Geert van Ieperen created on 2-4-2019.
  */
 public abstract class Projectile extends AbstractGameObject implements MovingEntity {
+    /** snapshot flag, set if the projectile is verified */
+    private static final int VERIFIED = 0b1;
+
     protected Entity source;
     protected EntityAction movement;
     protected float spawnTime;
     protected float despawnTime;
     private boolean isVerified = false;
     private Supplier<Boolean> validator;
+    /** the transformation used for drawing, only accessed by the render thread */
+    private transient Vector3f renderPosition = new Vector3f();
+    private transient Quaternionf renderRotation = new Quaternionf();
+    /** the transformation used for capturing snapshots, only accessed by the simulation thread */
+    private transient Vector3f capturePosition = new Vector3f();
+    private transient Quaternionf captureRotation = new Quaternionf();
 
     public Projectile(
             Game game, MovingEntity source, float spawnTime, float despawnTime, EntityAction movement,
@@ -56,17 +71,39 @@ public abstract class Projectile extends AbstractGameObject implements MovingEnt
         float now = game.get(GameTimer.class).getRendertime();
         if (isVerified && now >= spawnTime && now <= despawnTime) return;
 
+        draw(gl, movement.getPositionAt(now, renderPosition), movement.getRotationAt(now, renderRotation), now);
+    }
+
+    @Override
+    public void draw(SGL gl, RenderRecord record) {
+        float now = record.renderTime;
+        boolean verified = (record.flags & VERIFIED) != 0;
+        if (verified && now >= record.spawnTime && now <= record.despawnTime) return;
+
+        draw(gl, record.position, record.rotation, record.actionTime);
+    }
+
+    private void draw(SGL gl, Vector3fc position, Quaternionfc rotation, float renderTime) {
         gl.pushMatrix();
         {
-            gl.translate(movement.getPositionAt(now));
-            gl.rotate(movement.getRotationAt(now));
-            drawProjectile(gl, now);
+            gl.translate(position);
+            gl.rotate(rotation);
+            drawProjectile(gl, renderTime);
         }
         gl.popMatrix();
 
         movement.getMarker().draw(gl);
     }
 
+    @Override
+    public void capture(float gameTime, EntitySnapshot snapshot, int index) {
+        Vector3f position = movement.getPositionAt(gameTime, capturePosition);
+        Quaternionf rotation = movement.getRotationAt(gameTime, captureRotation);
+
+        snapshot.setState(index, position, rotation, movement, gameTime);
+        if (isVerified) snapshot.setFlags(index, VERIFIED);
+    }
+
     @Override
     public Pair<EntityAction, Float> getActionAt(float gameTime) {
         return new Pair<>(movement, gameTime - spawnTime);
@@ -76,6 +113,10 @@ public abstract class Projectile extends AbstractGameObject implements MovingEnt
     protected void restoreFields(Game game) {
         source.restore(game);
         movement.restore(game);
+        renderPosition = new Vector3f();
+        renderRotation = new Quaternionf();
+        capturePosition = new Vector3f();
+        captureRotation = new Quaternionf();
     }
 
     /**
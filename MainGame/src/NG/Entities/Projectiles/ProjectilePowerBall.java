@@ -10,6 +10,11 @@ import NG.Entities.Entity;
 import NG.Entities.MonsterEntity;
 import NG.GameMap.GameMap;
 import NG.InputHandling.MouseTools.CommandProvider;
+import NG.Living.BaseStimulus;
+import NG.Living.EffectSystem;
+import NG.Living.EnvironmentalStimulus;
+import NG.Living.MonsterSoul;
+import NG.Living.StimulusBus;
 import NG.Particles.GameParticles;
 import NG.Particles.Particles;
 import NG.Rendering.Material;
@@ -31,8 +36,16 @@ import java.util.function.Supplier;
 public class ProjectilePowerBall extends Projectile {
     private static final GenericShapes mesh = GenericShapes.ICOSAHEDRON;
     private static final int EXPLOSION_POWER = 10;
+    /** magnitude of the explosion stimulus */
+    private static final float EXPLOSION_LOUDNESS = 100;
     private static final float HITBOX_SCALAR = 0.4f;
     private static final int BASE_DAMAGE = 25;
+    /** fire damage per second dealt to a monster after being hit */
+    private static final float BURN_DAMAGE = 4;
+    private static final float BURN_DURATION = 3;
+    /** the physical defence of a monster that was hit is reduced for a while */
+    private static final float STAGGER_DEFENCE = 0.8f;
+    private static final float STAGGER_DURATION = 2;
     private final BoundingBox boundingBox;
     private final DamageType damageType;
     private float size;
@@ -74,7 +87,15 @@ public class ProjectilePowerBall extends Projectile {
         if (other instanceof MonsterEntity) {
             MonsterEntity monster = (MonsterEntity) other;
 
-            monster.getController().applyDamage(damageType, BASE_DAMAGE, collisionTime);
+            MonsterSoul soul = monster.getController();
+            soul.applyDamage(damageType, BASE_DAMAGE, collisionTime);
+
+            game.ifAvailable(EffectSystem.class, effects -> {
+                effects.addDamageOverTime(soul, DamageType.FIRE, BURN_DAMAGE, collisionTime, BURN_DURATION);
+                effects.addDefenceMultiplier(
+                        soul, DamageType.PHYSICAL, STAGGER_DEFENCE, collisionTime, STAGGER_DURATION
+                );
+            });
         }
 
         explode(collisionTime);
@@ -86,14 +107,20 @@ public class ProjectilePowerBall extends Projectile {
     }
 
     private void explode(float collisionTime) {
-        game.get(GameParticles.class).add(Particles.explosion(
-                getPositionAt(collisionTime), Vectors.O,
+        Vector3f position = getPositionAt(collisionTime);
+
+        game.ifAvailable(StimulusBus.class, bus -> bus.emit(
+                new EnvironmentalStimulus(BaseStimulus.EXPLOSION, position, EXPLOSION_LOUDNESS, collisionTime)
+        ));
+
+        game.ifAvailable(GameParticles.class, particles -> particles.add(Particles.explosion(
+                position, Vectors.O,
                 new Color4f(1, 1, 0),
                 new Color4f(0.5f, 0.8f, 0),
                 (int) (game.get(Settings.class).PARTICLE_MODIFIER * Particles.EXPLOSION_BASE_DENSITY),
                 Particles.FIRE_LINGER_TIME, EXPLOSION_POWER,
                 collisionTime
-        ));
+        )));
 
         despawnTime = collisionTime;
     }
@@ -0,0 +1,29 @@
+package NG.Entities;
+
+import NG.Actions.EntityAction;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The state of an entity as it should be drawn on one frame, read from an {@link EntitySnapshot}. Instances are owned by
+ * the render thread and reused for every entity.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class RenderRecord {
+    /** the render time this record is interpolated to */
+    public float renderTime;
+    public final Vector3f position = new Vector3f();
+    public final Quaternionf rotation = new Quaternionf();
+    /** the action executed on render time, and the time since its start */
+    public EntityAction action;
+    public float actionTime;
+    public float spawnTime;
+    public float despawnTime;
+    /** flags set by the entity on capture, see {@link EntitySnapshot#setFlags(int, int)} */
+    public int flags;
+    /** the actions planned after the current action, as captured. This list may not be modified */
+    public List<EntityAction> plannedActions = Collections.emptyList();
+}
@@ -0,0 +1,67 @@
+package NG.Entities;
+
+import NG.DataStructures.Generic.TripleBuffer;
+import NG.Rendering.MatrixStack.SGL;
+
+/**
+ * Passes snapshots of the entities from the simulation thread to the render thread. After each tick, the simulation
+ * captures all entities with {@link #begin(float)}, {@link #capture(Entity)} and {@link #publish()}. The renderer draws
+ * the entities with {@link #draw(SGL, float)}, interpolating between the two most recent snapshots. Neither thread
+ * waits for the other.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class SnapshotBuffer {
+    private final TripleBuffer<EntitySnapshot> snapshots = new TripleBuffer<>(EntitySnapshot::new);
+    /** the snapshot before the current read buffer, only accessed by the render thread */
+    private final EntitySnapshot previousSnapshot = new EntitySnapshot();
+    private final RenderRecord renderRecord = new RenderRecord();
+
+    /**
+     * starts a new snapshot. This may only be called by the simulation thread.
+     * @param gameTime the game time of the snapshot
+     */
+    public void begin(float gameTime) {
+        snapshots.writeBuffer().clear(gameTime);
+    }
+
+    /**
+     * adds the state of the given entity to the snapshot that is started with {@link #begin(float)}
+     * @param entity the entity to capture
+     */
+    public void capture(Entity entity) {
+        EntitySnapshot snapshot = snapshots.writeBuffer();
+        int index = snapshot.add(entity, entity.getSpawnTime(), entity.getDespawnTime());
+        entity.capture(snapshot.getGameTime(), snapshot, index);
+    }
+
+    /** makes the started snapshot available to the renderer */
+    public void publish() {
+        snapshots.publish();
+    }
+
+    /**
+     * draws the entities of the most recent snapshot. This may only be called by the render thread.
+     * @param gl         the gl object to draw with
+     * @param renderTime the game time to draw the entities at
+     */
+    public void draw(SGL gl, float renderTime) {
+        if (snapshots.hasUpdate()) {
+            // the current read buffer is handed to the writer on acquire
+            previousSnapshot.copyStates(snapshots.readBuffer());
+            snapshots.acquire();
+        }
+        EntitySnapshot current = snapshots.readBuffer();
+
+        for (int i = 0; i < current.size(); i++) {
+            Entity entity = current.entity(i);
+
+            if (current.hasState(i)) {
+                current.read(i, previousSnapshot, renderTime, renderRecord);
+                entity.draw(gl, renderRecord);
+
+            } else {
+                entity.draw(gl);
+            }
+        }
+    }
+}
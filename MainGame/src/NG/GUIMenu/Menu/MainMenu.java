@@ -19,6 +19,7 @@ import NG.GameMap.SimpleMapGenerator;
 import NG.InputHandling.MouseTools.DefaultMouseTool;
 import NG.Living.MonsterSoul;
 import NG.Living.Player;
+import NG.Living.SpeciesRegistry;
 import NG.Mods.ModLoader;
 import NG.Particles.GameParticles;
 import NG.Particles.ParticleCloud;
@@ -48,7 +49,8 @@ import static NG.Rendering.Shapes.GenericShapes.CUBE;
  * @author Geert van Ieperen. Created on 28-9-2018.
  */
 public class MainMenu extends SFrame {
-    public static final EntityProperties BASE_PROPERTIES = new EntityProperties();
+    /** the soul of the monsters of the debug section */
+    private static final String BASE_SOUL = "soul1";
     private final Game overworld;
     private final Game pocketworld;
     private final ModLoader modLoader;
@@ -152,13 +154,14 @@ public class MainMenu extends SFrame {
 
             // add a default entity
             Vector2ic position = gameMap.getCoordinate(cameraFocus);
-            MonsterSoul monsterSoul1 = new MonsterSoul(BASE_PROPERTIES);
+            SpeciesRegistry species = overworld.get(SpeciesRegistry.class);
+            MonsterSoul monsterSoul1 = species.createSoul(EntityProperties.DEFAULT_NAME, BASE_SOUL);
             state.addEntity(monsterSoul1.spawnEntity(overworld, new Vector2i(position).add(1, 2)));
-            MonsterSoul monsterSoul2 = new MonsterSoul(BASE_PROPERTIES);
+            MonsterSoul monsterSoul2 = species.createSoul(EntityProperties.DEFAULT_NAME, BASE_SOUL);
             state.addEntity(monsterSoul2.spawnEntity(overworld, new Vector2i(position).add(-1, 2)));
-            MonsterSoul monsterSoul3 = new MonsterSoul(BASE_PROPERTIES);
+            MonsterSoul monsterSoul3 = species.createSoul(EntityProperties.DEFAULT_NAME, BASE_SOUL);
             state.addEntity(monsterSoul3.spawnEntity(overworld, new Vector2i(position).add(1, -2)));
-            MonsterSoul monsterSoul4 = new MonsterSoul(BASE_PROPERTIES);
+            MonsterSoul monsterSoul4 = species.createSoul(EntityProperties.DEFAULT_NAME, BASE_SOUL);
             state.addEntity(monsterSoul4.spawnEntity(overworld, new Vector2i(position).add(-1, -2)));
 
             player.addToTeam(monsterSoul1, overworld);
@@ -0,0 +1,245 @@
+package NG.GameEvent;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A hierarchical timing wheel of events, keyed on game time. Game time is divided in ticks of a fixed resolution. The
+ * lowest wheel has one slot per tick, every higher wheel has one slot per full rotation of the wheel below it. Events
+ * that are further away than the top wheel reaches are kept aside until the top wheel comes around.
+ * <p>
+ * {@link #add(Event)} may be called from any thread and does not block. All other methods may only be called by one
+ * consumer thread at a time; they move new events into the wheels, and extract all events of passed ticks at once.
+ * Events are returned in order of their time, and events with equal time in the order they were added.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class EventTimingWheel implements Serializable {
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int NOF_WHEELS = 4;
+    /** the index of the overflow in {@link #counts} */
+    private static final int OVERFLOW = NOF_WHEELS;
+    /** orders entries from last to first, such that the first is removed from the end of the list */
+    private static final Comparator<Entry> LAST_TO_FIRST = (a, b) -> {
+        int byTime = Float.compare(b.event.getTime(), a.event.getTime());
+        return byTime != 0 ? byTime : Long.compare(b.sequence, a.sequence);
+    };
+
+    private final float resolution;
+    /** events added since the last time the consumer looked, in order of adding */
+    private final Queue<Event> incoming = new ConcurrentLinkedQueue<>();
+    /** slots of each wheel, each slot a linked list of entries */
+    private final Entry[][] wheels = new Entry[NOF_WHEELS][WHEEL_SIZE];
+    /** entries beyond the reach of the top wheel */
+    private Entry overflow = null;
+    /** entries of all ticks up to and including currentTick, sorted by {@link #LAST_TO_FIRST} */
+    private final List<Entry> ready = new ArrayList<>();
+
+    /** number of entries in each wheel, and in the overflow at index {@link #OVERFLOW} */
+    private final int[] counts = new int[NOF_WHEELS + 1];
+
+    private long currentTick = 0;
+    private long nextSequence = 0;
+
+    /**
+     * @param resolution the length of one tick of the lowest wheel in seconds. Events of one tick are sorted when the
+     *                   tick is reached, so this should be in the order of one update of the consumer.
+     */
+    public EventTimingWheel(float resolution) {
+        assert resolution > 0 : resolution;
+        this.resolution = resolution;
+    }
+
+    /**
+     * schedules the given event. This may be called from any thread.
+     * @param event the event to add
+     */
+    public void add(Event event) {
+        incoming.add(event);
+    }
+
+    /**
+     * returns the first event that happens before the given time, without removing it.
+     * @param time the time until where to look for events, exclusive
+     * @return the first event with {@link Event#getTime()} less than time, or null if there is none.
+     */
+    public Event peek(float time) {
+        drainIncoming();
+        advanceTo(tickOf(time));
+
+        if (ready.isEmpty()) return null;
+        Event first = ready.get(ready.size() - 1).event;
+        return first.getTime() < time ? first : null;
+    }
+
+    /**
+     * removes and returns the event most recently returned by {@link #peek(float)}. Events that are added in the
+     * meantime do not change which event is removed.
+     * @return the removed event
+     * @throws NoSuchElementException if no event has been peeked
+     */
+    public Event poll() {
+        if (ready.isEmpty()) throw new NoSuchElementException();
+        return ready.remove(ready.size() - 1).event;
+    }
+
+    /**
+     * @return true if no events are scheduled
+     */
+    public boolean isEmpty() {
+        drainIncoming();
+        if (!ready.isEmpty()) return false;
+
+        for (int count : counts) {
+            if (count > 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * removes all events. This may not be called while another thread is using this wheel.
+     */
+    public void clear() {
+        incoming.clear();
+        for (Entry[] wheel : wheels) {
+            Arrays.fill(wheel, null);
+        }
+        overflow = null;
+        ready.clear();
+        Arrays.fill(counts, 0);
+    }
+
+    private long tickOf(float time) {
+        return (long) Math.floor(time / resolution);
+    }
+
+    private void drainIncoming() {
+        Event event;
+        while ((event = incoming.poll()) != null) {
+            Entry entry = new Entry(event, tickOf(event.getTime()), nextSequence++);
+
+            if (entry.tick <= currentTick) {
+                insertReady(entry);
+
+            } else {
+                schedule(entry);
+            }
+        }
+    }
+
+    /** inserts the entry into the ready list, after entries that compare equal */
+    private void insertReady(Entry entry) {
+        int low = 0;
+        int high = ready.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (LAST_TO_FIRST.compare(ready.get(mid), entry) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        ready.add(low, entry);
+    }
+
+    /** puts the entry in the slot of the lowest wheel that distinguishes its tick from the current tick */
+    private void schedule(Entry entry) {
+        assert entry.tick > currentTick;
+
+        for (int level = 0; level < NOF_WHEELS; level++) {
+            int shift = WHEEL_BITS * (level + 1);
+            if ((entry.tick >> shift) == (currentTick >> shift)) {
+                int slot = (int) (entry.tick >> (WHEEL_BITS * level)) & WHEEL_MASK;
+                entry.next = wheels[level][slot];
+                wheels[level][slot] = entry;
+                counts[level]++;
+                return;
+            }
+        }
+
+        entry.next = overflow;
+        overflow = entry;
+        counts[OVERFLOW]++;
+    }
+
+    /** advances the current tick to the given tick, moving all entries up to and including that tick to ready */
+    private void advanceTo(long targetTick) {
+        int oldReady = ready.size();
+
+        while (currentTick < targetTick) {
+            // all wheels below the lowest occupied level are empty, so we can skip to the next slot of that level
+            int level = 0;
+            while (level <= OVERFLOW && counts[level] == 0) level++;
+            if (level > OVERFLOW) {
+                currentTick = targetTick;
+                break;
+            }
+
+            if (level > 0) {
+                int shift = WHEEL_BITS * level;
+                long lastBeforeSlot = (((currentTick >> shift) + 1) << shift) - 1;
+                currentTick = Math.min(lastBeforeSlot, targetTick - 1);
+            }
+
+            currentTick++;
+
+            // when a wheel completes a rotation, spread the next slot of the wheel above it over the lower wheels
+            if ((currentTick & ((1L << (WHEEL_BITS * NOF_WHEELS)) - 1)) == 0) {
+                Entry list = overflow;
+                overflow = null;
+                reschedule(list, OVERFLOW);
+            }
+
+            for (int l = NOF_WHEELS - 1; l >= 0; l--) {
+                if ((currentTick & ((1L << (WHEEL_BITS * l)) - 1)) == 0) {
+                    int slot = (int) (currentTick >> (WHEEL_BITS * l)) & WHEEL_MASK;
+                    Entry list = wheels[l][slot];
+                    wheels[l][slot] = null;
+                    reschedule(list, l);
+                }
+            }
+        }
+
+        if (ready.size() > oldReady) {
+            ready.sort(LAST_TO_FIRST);
+        }
+    }
+
+    /** schedules each entry of the list again relative to the current tick, or adds it to ready if it is due */
+    private void reschedule(Entry list, int fromLevel) {
+        while (list != null) {
+            Entry next = list.next;
+            list.next = null;
+            counts[fromLevel]--;
+
+            if (list.tick <= currentTick) {
+                ready.add(list);
+
+            } else {
+                schedule(list);
+            }
+
+            list = next;
+        }
+    }
+
+    private static class Entry implements Serializable {
+        final Event event;
+        final long tick;
+        final long sequence;
+        Entry next;
+
+        Entry(Event event, long tick, long sequence) {
+            this.event = event;
+            this.tick = tick;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -3,26 +3,37 @@ package NG.GameEvent;
 import NG.CollisionDetection.GameState;
 import NG.Core.AbstractGameLoop;
 import NG.Core.Game;
+import NG.Core.GameSystem;
 import NG.Core.GameTimer;
 import NG.InputHandling.EventCallbacks;
+import NG.Settings.Settings;
 
 import java.io.Serializable;
-import java.util.PriorityQueue;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * An object similar to {@link GameEventQueue}, but now the queue is evaluated once every game tick. This allows for
- * external updates to the queue, like with user interaction.
+ * external updates to the queue, like with user interaction. Events are kept in an {@link EventTimingWheel}, such that
+ * other threads can add events without blocking the loop.
+ * <p>
+ * When the loop runs at a low tick rate or has fallen behind, the state is fast-forwarded in steps of at most {@link
+ * Settings#MAX_COLLISION_DELTA_TIME}, such that collisions between moving entities remain detected. The number of steps
+ * is limited, such that a large jump of the timer does not stall the loop. Each step first updates the {@link
+ * GameSystem} elements of the game, and then the state.
  * @author Geert van Ieperen created on 14-2-2019.
  */
 public class GameEventQueueLoop extends AbstractGameLoop implements Serializable, EventLoop {
-    private final PriorityQueue<Event> eventQueue; // requires explicit synchronisation
-    private final transient Lock lockQueueRead;
-    private final transient Lock lockQueueEdit;
+    /** the maximum number of steps of a fast-forward */
+    static final int MAX_FAST_FORWARD_STEPS = 120;
+    private final EventTimingWheel events;
     private transient Game game;
     private float updateTime;
+    /** the time of the last update of the state */
+    private float stateTime;
+    /** per system, the time spent in its updates in nanoseconds, only accessed by the thread of the loop */
+    private transient Map<GameSystem, long[]> systemNanos = new IdentityHashMap<>();
 
     /**
      * creates a new, paused event loop
@@ -31,90 +42,114 @@ public class GameEventQueueLoop extends AbstractGameLoop implements Serializable
      */
     public GameEventQueueLoop(String name, int targetTps) {
         super(name, targetTps);
-        eventQueue = new PriorityQueue<>();
-        ReadWriteLock rwl = new ReentrantReadWriteLock(false);
-        lockQueueRead = rwl.readLock();
-        lockQueueEdit = rwl.writeLock();
+        events = new EventTimingWheel(1f / targetTps);
     }
 
     @Override
     public void init(Game game) throws Exception {
         this.game = game;
         updateTime = game.get(GameTimer.class).getGametime();
+        stateTime = updateTime;
+        if (systemNanos == null) systemNanos = new IdentityHashMap<>();
     }
 
     @Override
     protected void update(float deltaTime) throws Exception {
         GameTimer timer = game.get(GameTimer.class);
         GameState state = game.get(GameState.class);
+        List<GameSystem> systems = game.getAll(GameSystem.class);
         EventCallbacks callbacks = game.get(EventCallbacks.class);
 
         timer.updateGameTime();
         float gameTime = timer.getGametime();
 
-        if (eventQueue.isEmpty() && timer.getGametimeDifference() > 0) {
-            state.update(gameTime);
-        }
-
-        if (eventQueue.isEmpty()) return;
-
-        lockQueueRead.lock();
-        Event next = eventQueue.element();
-        lockQueueRead.unlock();
+        Event next = events.peek(gameTime);
 
-        float eventTime = next.getTime();
+        while (next != null) {
+            float eventTime = next.getTime();
 
-        while (eventTime < gameTime) {
             if (eventTime > updateTime) {
-                state.update(eventTime);
+                updateState(systems, state, eventTime);
                 updateTime = eventTime;
 
-                lockQueueRead.lock();
-                next = eventQueue.element();
-                lockQueueRead.unlock();
+                // updating the state may have generated new events that come first
+                next = events.peek(gameTime);
             }
 
             /* if state had to be updated, and a new event was generated,
              * then the state has already been updated past this new event.
              */
+            events.poll();
             next.run();
             callbacks.notifyEvent(next);
 
-            lockQueueEdit.lock();
-            eventQueue.remove();
+            next = events.peek(gameTime);
+        }
 
-            if (eventQueue.isEmpty()) {
-                lockQueueEdit.unlock();
-                break;
-            }
+        if (timer.getGametimeDifference() > 0) {
+            updateState(systems, state, gameTime);
+        }
+    }
 
-            next = eventQueue.element();
-            lockQueueEdit.unlock();
+    /**
+     * updates the state to the given time, in steps of at most {@link Settings#MAX_COLLISION_DELTA_TIME}. A gap that
+     * would take more than {@link #MAX_FAST_FORWARD_STEPS} steps, for instance after a jump of the timer, is divided in
+     * that many larger steps instead.
+     * @param systems the systems to update in each step, before the state
+     * @param state   the state to update
+     * @param time    the time to update to
+     */
+    void updateState(List<? extends GameSystem> systems, GameState state, float time) {
+        float gap = time - stateTime;
+        int nofSteps = Math.min((int) Math.ceil(gap / Settings.MAX_COLLISION_DELTA_TIME), MAX_FAST_FORWARD_STEPS);
+        float stepSize = gap / nofSteps;
 
-            eventTime = next.getTime();
+        for (int i = 1; i < nofSteps; i++) {
+            step(systems, state, stateTime + i * stepSize);
         }
 
-        if (timer.getGametimeDifference() > 0) {
-            state.update(gameTime);
+        step(systems, state, time);
+        stateTime = time;
+    }
+
+    private void step(List<? extends GameSystem> systems, GameState state, float gameTime) {
+        for (int i = 0; i < systems.size(); i++) {
+            GameSystem system = systems.get(i);
+            long start = System.nanoTime();
+            system.update(gameTime);
+            long nanos = System.nanoTime() - start;
+
+            long[] total = systemNanos.get(system);
+            if (total == null) {
+                total = new long[1];
+                systemNanos.put(system, total);
+            }
+            total[0] += nanos;
         }
+
+        state.update(gameTime);
+    }
+
+    /**
+     * returns the time spent in the updates of the given system by this loop. This may only be queried by the thread
+     * of this loop.
+     * @param system a system of the game of this loop
+     * @return the total time in nanoseconds, or 0 if the system was never updated by this loop
+     */
+    public long getSystemNanos(GameSystem system) {
+        long[] total = systemNanos.get(system);
+        return total == null ? 0 : total[0];
     }
 
     @Override
     public void addEvent(Event e) {
         assert e.getTime() >= updateTime;
-        lockQueueEdit.lock();
-        try {
-            eventQueue.add(e);
-
-        } finally {
-            lockQueueEdit.unlock();
-        }
+        events.add(e);
     }
 
     @Override
     public void cleanup() {
-        boolean b = lockQueueEdit.tryLock();
-        eventQueue.clear();
-        if (b) lockQueueEdit.unlock();
+        events.clear();
+        systemNanos.clear();
     }
 }
@@ -101,7 +101,7 @@ public abstract class AbstractMap extends StaticEntity implements GameMap {
         } else {
             // check this tile before setting up voxel ray casting
             Float secFrac = getTileIntersect(origin, direction, (int) coordPos.x, (int) coordPos.y);
-            if (secFrac < 1) {
+            if (secFrac != null && secFrac < 1) {
                 return secFrac;
             }
         }
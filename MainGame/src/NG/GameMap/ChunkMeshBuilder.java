@@ -0,0 +1,228 @@
+package NG.GameMap;
+
+import NG.Rendering.MeshLoading.BufferedMesh;
+import NG.Rendering.MeshLoading.Mesh;
+import NG.Rendering.MeshLoading.MeshFile;
+import NG.Rendering.Textures.Texture;
+import NG.Resources.Resource;
+import org.joml.Vector2fc;
+import org.joml.Vector3fc;
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.*;
+
+import static NG.Settings.Settings.TILE_SIZE;
+import static NG.Settings.Settings.TILE_SIZE_Z;
+
+/**
+ * Merges the meshes of all tiles of a chunk into one set of buffers per texture, with the offset, rotation and position
+ * of each tile baked into the vertices. The result is equal to drawing each tile with {@link MapTile.Instance#draw}, with
+ * the chunk origin on the center of tile (0, 0). Building does not require a GL context; only {@link Batch#toMesh()}
+ * does.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public final class ChunkMeshBuilder {
+    private ChunkMeshBuilder() {
+    }
+
+    /**
+     * merges the tiles of the given chunk
+     * @param chunk the chunk to merge
+     * @param size  the number of tiles in x and y direction of the chunk
+     * @return one batch for every texture used in the chunk, where untextured tiles share a batch with texture null.
+     */
+    public static List<Batch> build(MapChunk chunk, int size) {
+        Map<MapTile, Template> templates = new HashMap<>();
+        Map<Resource<Texture>, Batch> batches = new LinkedHashMap<>();
+
+        // first count, such that all buffers can be allocated at once
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                MapTile type = chunk.get(x, y).type;
+                Template template = templates.computeIfAbsent(type, Template::new);
+                Batch batch = batches.computeIfAbsent(type.getTexture(), Batch::new);
+                batch.nrOfVertices += template.nrOfVertices();
+                batch.nrOfIndices += template.indices.length;
+            }
+        }
+
+        batches.values().forEach(Batch::allocate);
+
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                MapTile.Instance tile = chunk.get(x, y);
+                Template template = templates.get(tile.type);
+                Batch batch = batches.get(tile.type.getTexture());
+                batch.add(template, x * TILE_SIZE, y * TILE_SIZE, tile.offset * TILE_SIZE_Z, tile.rotation);
+            }
+        }
+
+        List<Batch> result = new ArrayList<>(batches.values());
+        result.forEach(Batch::flip);
+        return result;
+    }
+
+    /**
+     * the data of the mesh of one tile type, where each distinct combination of vertex, normal and texture coordinate
+     * is stored once
+     */
+    private static class Template {
+        final float[] positions;
+        final float[] normals;
+        final float[] texCoords;
+        final int[] indices;
+
+        Template(MapTile type) {
+            MeshFile file = type.getMeshFile();
+            List<Mesh.Face> faces = file.getFaces();
+            boolean isTextured = file.isTextured();
+
+            Map<Long, Integer> corners = new HashMap<>();
+            List<Long> order = new ArrayList<>();
+            indices = new int[faces.size() * 3];
+
+            for (int f = 0; f < faces.size(); f++) {
+                Mesh.Face face = faces.get(f);
+                assert face.size() == 3 : "Face is not a triangle";
+
+                for (int i = 0; i < 3; i++) {
+                    int tex = isTextured ? face.tex[i] : 0;
+                    long key = face.vert[i] | ((long) face.norm[i] << 21) | ((long) tex << 42);
+                    Integer index = corners.get(key);
+                    if (index == null) {
+                        index = order.size();
+                        corners.put(key, index);
+                        order.add(key);
+                    }
+                    indices[f * 3 + i] = index;
+                }
+            }
+
+            int n = order.size();
+            positions = new float[n * 3];
+            normals = new float[n * 3];
+            texCoords = isTextured ? new float[n * 2] : null;
+
+            for (int i = 0; i < n; i++) {
+                long key = order.get(i);
+                Vector3fc vertex = file.getVertices().get((int) (key & 0x1FFFFF));
+                Vector3fc normal = file.getNormals().get((int) ((key >> 21) & 0x1FFFFF));
+                positions[i * 3] = vertex.x();
+                positions[i * 3 + 1] = vertex.y();
+                positions[i * 3 + 2] = vertex.z();
+                normals[i * 3] = normal.x();
+                normals[i * 3 + 1] = normal.y();
+                normals[i * 3 + 2] = normal.z();
+
+                if (isTextured) {
+                    Vector2fc coord = file.getTextureCoords().get((int) (key >>> 42));
+                    texCoords[i * 2] = coord.x();
+                    texCoords[i * 2 + 1] = coord.y();
+                }
+            }
+        }
+
+        int nrOfVertices() {
+            return positions.length / 3;
+        }
+    }
+
+    /** the merged data of all tiles of a chunk with the same texture */
+    public static class Batch {
+        /** the texture of all tiles in this batch, or null if these are not textured */
+        public final Resource<Texture> texture;
+        private FloatBuffer positions;
+        private FloatBuffer normals;
+        private FloatBuffer texCoords;
+        private IntBuffer indices;
+        private int nrOfVertices = 0;
+        private int nrOfIndices = 0;
+
+        private Batch(Resource<Texture> texture) {
+            this.texture = texture;
+        }
+
+        private void allocate() {
+            positions = BufferUtils.createFloatBuffer(nrOfVertices * 3);
+            normals = BufferUtils.createFloatBuffer(nrOfVertices * 3);
+            texCoords = (texture == null) ? null : BufferUtils.createFloatBuffer(nrOfVertices * 2);
+            indices = BufferUtils.createIntBuffer(nrOfIndices);
+        }
+
+        private void add(Template template, float x, float y, float z, int rotation) {
+            int base = positions.position() / 3;
+            float[] p = template.positions;
+            float[] n = template.normals;
+
+            for (int i = 0; i < p.length; i += 3) {
+                putRotated(positions, p[i], p[i + 1], p[i + 2], rotation, x, y, z);
+                putRotated(normals, n[i], n[i + 1], n[i + 2], rotation, 0, 0, 0);
+            }
+
+            if (texCoords != null) {
+                if (template.texCoords != null) {
+                    texCoords.put(template.texCoords);
+                } else {
+                    // the mesh of this tile has no texture coordinates
+                    texCoords.position(texCoords.position() + template.nrOfVertices() * 2);
+                }
+            }
+
+            for (int index : template.indices) {
+                indices.put(base + index);
+            }
+        }
+
+        private void flip() {
+            positions.flip();
+            normals.flip();
+            if (texCoords != null) texCoords.flip();
+            indices.flip();
+        }
+
+        /** @return the vertex positions, in groups of 3 */
+        public FloatBuffer getPositions() {
+            return positions.duplicate();
+        }
+
+        /** @return the vertex normals, in groups of 3 */
+        public FloatBuffer getNormals() {
+            return normals.duplicate();
+        }
+
+        /** @return the vertex indices of all triangles, in groups of 3 */
+        public IntBuffer getIndices() {
+            return indices.duplicate();
+        }
+
+        /**
+         * creates a mesh of this batch. This may only be called on the main thread.
+         * @return a new mesh, which must be disposed after use.
+         */
+        public Mesh toMesh() {
+            FloatBuffer coords = (texCoords == null) ? null : texCoords.duplicate();
+            return new BufferedMesh(getPositions(), getNormals(), coords, getIndices());
+        }
+    }
+
+    /** rotates (x, y, z) the same way as {@link NG.Rendering.MatrixStack.MatrixStack#rotateQuarter(int, int, int)} on the z-axis */
+    private static void putRotated(
+            FloatBuffer target, float x, float y, float z, int quarters, float dx, float dy, float dz
+    ) {
+        switch (quarters & 3) {
+            case 1:
+                target.put(dx - y).put(dy + x).put(dz + z);
+                break;
+            case 2:
+                target.put(dx - x).put(dy - y).put(dz + z);
+                break;
+            case 3:
+                target.put(dx + y).put(dy - x).put(dz + z);
+                break;
+            default:
+                target.put(dx + x).put(dy + y).put(dz + z);
+        }
+    }
+}
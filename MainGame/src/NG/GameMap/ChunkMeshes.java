@@ -0,0 +1,167 @@
+package NG.GameMap;
+
+import NG.Rendering.MatrixStack.SGL;
+import NG.Rendering.MeshLoading.Mesh;
+import NG.Rendering.Shaders.ShaderProgram;
+import NG.Rendering.Shaders.TextureShader;
+import NG.Tools.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a merged mesh of every chunk of a {@link TileMap}, such that a chunk costs one draw call per texture instead of
+ * one per tile. Whenever the map changes, the chunks that were replaced since their mesh was built are merged again on
+ * a background thread. Until the new mesh is uploaded, {@link #draw(SGL, int, int, MapChunk)} returns false and the
+ * chunk should be drawn tile by tile. The mesh of a chunk that is replaced by a placeholder is removed from the GPU.
+ * @author Geert van Ieperen created on 19-10-2026.
+ * @see ChunkMeshBuilder
+ */
+class ChunkMeshes implements GameMap.ChangeListener {
+    private final TileMap map;
+    private final ExecutorService builder;
+    /** the chunk of which a mesh is built or being built, per chunk coordinate */
+    private final Map<Long, MapChunk> scheduled = new ConcurrentHashMap<>();
+    /** built meshes that are not yet uploaded */
+    private final Queue<Built> finished = new ConcurrentLinkedQueue<>();
+    /** chunk coordinates of which the chunk has been removed, and of which the mesh is not yet disposed */
+    private final Queue<Long> removed = new ConcurrentLinkedQueue<>();
+    /** uploaded meshes, only accessed by the render thread */
+    private final Map<Long, Built> uploaded = new HashMap<>();
+
+    ChunkMeshes(TileMap map) {
+        this.map = map;
+        this.builder = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Chunk mesh builder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void onMapChange() {
+        TileMap.ChunkGrid grid = map.snapshot();
+
+        for (int cx = 0; cx < grid.xChunks; cx++) {
+            for (int cy = 0; cy < grid.yChunks; cy++) {
+                MapChunk chunk = grid.chunks[cx][cy];
+                long key = key(cx, cy);
+
+                if (chunk == null || chunk instanceof MapChunkPlaceholder) {
+                    if (scheduled.remove(key) != null) removed.add(key);
+
+                } else if (scheduled.put(key, chunk) != chunk) {
+                    builder.submit(() -> build(key, chunk, grid.chunkSize));
+                }
+            }
+        }
+    }
+
+    private void build(long key, MapChunk chunk, int chunkSize) {
+        // skip chunks that have been replaced again before we got to them
+        if (scheduled.get(key) != chunk) return;
+
+        try {
+            finished.add(new Built(key, chunk, ChunkMeshBuilder.build(chunk, chunkSize)));
+
+        } catch (Exception ex) {
+            Logger.ERROR.print("Could not build mesh of chunk (" + (key >> 32) + ", " + (int) key + ")", ex);
+        }
+    }
+
+    /**
+     * uploads all meshes that have been built since the last call, and disposes the meshes of removed chunks. This may
+     * only be called on the main thread.
+     */
+    void update() {
+        Long key;
+        while ((key = removed.poll()) != null) {
+            Built old = uploaded.get(key);
+            // the same chunk may have been put back in the meantime
+            if (old != null && scheduled.get(key) != old.source) {
+                uploaded.remove(key);
+                old.dispose();
+            }
+        }
+
+        Built next;
+        while ((next = finished.poll()) != null) {
+            // skip meshes of chunks that have been replaced before uploading
+            if (scheduled.get(next.key) != next.source) continue;
+
+            next.upload();
+            Built old = uploaded.put(next.key, next);
+            if (old != null) old.dispose();
+        }
+    }
+
+    /**
+     * draws the merged mesh of the given chunk, if it is up to date
+     * @param gl    the gl object, positioned on the center of tile (0, 0) of the chunk
+     * @param cx    x coordinate of the chunk
+     * @param cy    y coordinate of the chunk
+     * @param chunk the current chunk on this coordinate
+     * @return true if the chunk has been drawn, false if there is no mesh of this chunk.
+     */
+    boolean draw(SGL gl, int cx, int cy, MapChunk chunk) {
+        Built built = uploaded.get(key(cx, cy));
+        if (built == null || built.source != chunk) return false;
+
+        ShaderProgram shader = gl.getShader();
+        for (int i = 0; i < built.meshes.size(); i++) {
+            ChunkMeshBuilder.Batch batch = built.batches.get(i);
+            if (batch.texture != null && shader instanceof TextureShader) {
+                ((TextureShader) shader).setTexture(batch.texture.get());
+            }
+
+            gl.render(built.meshes.get(i), null);
+        }
+
+        return true;
+    }
+
+    /** stops building, and removes all meshes from the GPU. This may only be called on the main thread. */
+    void cleanup() {
+        builder.shutdownNow();
+        uploaded.values().forEach(Built::dispose);
+        uploaded.clear();
+        finished.clear();
+        removed.clear();
+        scheduled.clear();
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    private static class Built {
+        final long key;
+        final MapChunk source;
+        final List<ChunkMeshBuilder.Batch> batches;
+        final List<Mesh> meshes = new ArrayList<>();
+
+        Built(long key, MapChunk source, List<ChunkMeshBuilder.Batch> batches) {
+            this.key = key;
+            this.source = source;
+            this.batches = batches;
+        }
+
+        void upload() {
+            for (ChunkMeshBuilder.Batch batch : batches) {
+                meshes.add(batch.toMesh());
+            }
+        }
+
+        void dispose() {
+            meshes.forEach(Mesh::dispose);
+            meshes.clear();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package NG.GameMap;
+
+import NG.Tools.Logger;
+import org.joml.Vector3fc;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static NG.Settings.Settings.TILE_SIZE;
+import static NG.Settings.Settings.TILE_SIZE_Z;
+
+/**
+ * Streams the chunks of a {@link TileMap} in and out of memory. Chunks within the load radius of a focus point (the
+ * camera or an entity) are generated by the map generator, or read back from disk if they were evicted earlier. Chunks
+ * that are outside the retention radius of every focus point are written to disk and replaced by a {@link
+ * MapChunkPlaceholder}. Generating, loading and storing runs on background workers.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class ChunkStreamer {
+    /** minimum game time between two checks of the focus points */
+    private static final float UPDATE_INTERVAL = 0.5f;
+    private static final String FILE_PREFIX = "chunk_";
+
+    private final TileMap map;
+    private final MapGeneratorMod generator;
+    private final File directory;
+    private final int chunkSize;
+    private final int xChunks;
+    private final int yChunks;
+    private final int loadRadius;
+    private final int retainRadius;
+
+    private final ExecutorService workers;
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final Set<Long> loaded = ConcurrentHashMap.newKeySet();
+    private final Set<Long> stored = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, MapTile> tileMapping = new HashMap<>();
+    /** the largest height of a tile above the lowest corner it is placed on */
+    private final int maximumRise;
+    private float lastUpdate = Float.NEGATIVE_INFINITY;
+
+    /**
+     * @param map          the map to stream
+     * @param generator    the generator used to create chunks that have never been loaded
+     * @param directory    the directory where evicted chunks are stored
+     * @param chunkSize    the number of tiles in x and y direction of one chunk
+     * @param xChunks      number of chunks in x direction
+     * @param yChunks      number of chunks in y direction
+     * @param loadRadius   the distance in chunks around a focus point where chunks are loaded
+     * @param retainRadius the distance in chunks around all focus points outside of which chunks are evicted. Should
+     *                     be larger than loadRadius to prevent chunks from being loaded and evicted repeatedly.
+     */
+    ChunkStreamer(
+            TileMap map, MapGeneratorMod generator, File directory, int chunkSize, int xChunks, int yChunks,
+            int loadRadius, int retainRadius
+    ) {
+        if (retainRadius < loadRadius) {
+            throw new IllegalArgumentException("Retention radius " + retainRadius + " is smaller than load radius " + loadRadius);
+        }
+
+        this.map = map;
+        this.generator = generator;
+        this.directory = directory;
+        this.chunkSize = chunkSize;
+        this.xChunks = xChunks;
+        this.yChunks = yChunks;
+        this.loadRadius = loadRadius;
+        this.retainRadius = retainRadius;
+
+        int nrOfWorkers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.workers = Executors.newFixedThreadPool(nrOfWorkers, r -> {
+            Thread thread = new Thread(r, "Chunk streamer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        tileMapping.put(MapTile.DEFAULT_TILE.tileID, MapTile.DEFAULT_TILE);
+        for (MapTile tile : MapTiles.values()) {
+            tileMapping.put(tile.tileID, tile);
+        }
+
+        // tiles that do not fit are replaced by the default tile on the height of one of their corners
+        int rise = MapTile.DEFAULT_TILE.baseHeight;
+        for (MapTile tile : tileMapping.values()) {
+            rise = Math.max(rise, tile.baseHeight - tile.fit.offset);
+        }
+        this.maximumRise = rise;
+
+        //noinspection ResultOfMethodCallIgnored
+        directory.mkdirs();
+    }
+
+    /**
+     * schedules loading of chunks near the given focus points, and eviction of chunks far from all of them. Returns
+     * immediately.
+     * @param gameTime    the current game time
+     * @param focusPoints the positions to stream the map around
+     */
+    public void update(float gameTime, Collection<? extends Vector3fc> focusPoints) {
+        if (!isDue(gameTime)) return;
+        lastUpdate = gameTime;
+
+        Set<Long> retained = new HashSet<>();
+        float realChunkSize = chunkSize * TILE_SIZE;
+
+        for (Vector3fc point : focusPoints) {
+            int cx = (int) (point.x() / realChunkSize);
+            int cy = (int) (point.y() / realChunkSize);
+
+            for (int x = Math.max(0, cx - retainRadius); x <= Math.min(xChunks - 1, cx + retainRadius); x++) {
+                for (int y = Math.max(0, cy - retainRadius); y <= Math.min(yChunks - 1, cy + retainRadius); y++) {
+                    long key = key(x, y);
+                    retained.add(key);
+
+                    boolean isNear = Math.abs(x - cx) <= loadRadius && Math.abs(y - cy) <= loadRadius;
+                    if (isNear && !loaded.contains(key) && pending.add(key)) {
+                        scheduleLoad(x, y, key);
+                    }
+                }
+            }
+        }
+
+        for (Long key : loaded) {
+            if (!retained.contains(key) && pending.add(key)) {
+                scheduleEvict(key);
+            }
+        }
+    }
+
+    /**
+     * @param gameTime the current game time
+     * @return true iff {@link #update(float, Collection)} would check the focus points at the given time
+     */
+    boolean isDue(float gameTime) {
+        return gameTime >= lastUpdate + UPDATE_INTERVAL;
+    }
+
+    private void scheduleLoad(int cx, int cy, long key) {
+        MapChunk current = map.getChunk(cx, cy);
+        // evicted chunks already have a placeholder of their real maximum
+        MapChunk placeholder = stored.contains(key) ? current :
+                new MapChunkPlaceholder(chunkSize, estimateMaximum(cx, cy));
+        map.replaceChunk(cx, cy, current, placeholder);
+
+        workers.submit(() -> {
+            try {
+                MapChunk expected = placeholder;
+                float[][] heightmap = null;
+
+                if (!stored.contains(key)) {
+                    heightmap = generateHeightMap(cx, cy);
+                    // until the chunk is built, we answer the highest height its tiles can have
+                    MapChunk bounded = new MapChunkPlaceholder(chunkSize, getMaximum(heightmap));
+                    if (map.replaceChunk(cx, cy, placeholder, bounded)) expected = bounded;
+                }
+
+                MapChunk chunk = createChunk(cx, cy, key, heightmap);
+                if (map.replaceChunk(cx, cy, expected, chunk)) {
+                    loaded.add(key);
+                }
+
+            } catch (Exception ex) {
+                Logger.ERROR.print("Could not load chunk (" + cx + ", " + cy + ")", ex);
+
+            } finally {
+                pending.remove(key);
+            }
+        });
+    }
+
+    private void scheduleEvict(long key) {
+        int cx = (int) (key >> 32);
+        int cy = (int) key;
+        MapChunk chunk = map.getChunk(cx, cy);
+
+        workers.submit(() -> {
+            try {
+                File file = getFile(cx, cy);
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                    chunk.writeToFile(out);
+                }
+                stored.add(key);
+
+                int height = (int) Math.ceil(chunk.getMinMax().getMax() / TILE_SIZE_Z);
+                MapChunkPlaceholder placeholder = new MapChunkPlaceholder(chunkSize, height);
+                // if the chunk has been changed in the meantime, we keep it
+                if (map.replaceChunk(cx, cy, chunk, placeholder)) {
+                    loaded.remove(key);
+                }
+
+            } catch (Exception ex) {
+                Logger.ERROR.print("Could not evict chunk (" + cx + ", " + cy + ")", ex);
+
+            } finally {
+                pending.remove(key);
+            }
+        });
+    }
+
+    /**
+     * returns the complete chunk on the given chunk coordinate, by returning the chunk in memory, reading it from disk
+     * or generating it. The result is not inserted in the map.
+     * @param cx x coordinate of the chunk
+     * @param cy y coordinate of the chunk
+     * @return the chunk on the given coordinate
+     */
+    MapChunk getComplete(int cx, int cy) throws IOException {
+        MapChunk chunk = map.getChunk(cx, cy);
+        if (chunk instanceof MapChunkPlaceholder) {
+            return createChunk(cx, cy, key(cx, cy), null);
+        }
+        return chunk;
+    }
+
+    /**
+     * reads the chunk from disk if it was stored, or generates it otherwise
+     * @param heightmap the heightmap of the chunk as given by {@link #generateHeightMap(int, int)}, or null to generate
+     *                  it when necessary
+     */
+    private MapChunk createChunk(int cx, int cy, long key, float[][] heightmap) throws IOException {
+        MapChunkArray chunk;
+
+        if (stored.contains(key)) {
+            chunk = new MapChunkArray(chunkSize);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(getFile(cx, cy))))) {
+                chunk.readFromFile(in, tileMapping);
+            }
+
+        } else {
+            if (heightmap == null) heightmap = generateHeightMap(cx, cy);
+            chunk = new MapChunkArray(chunkSize, heightmap, 0, 0, generator.getMapSeed());
+        }
+
+        return chunk;
+    }
+
+    /** @return the heights of all corners of the tiles of the given chunk */
+    private float[][] generateHeightMap(int cx, int cy) {
+        return generator.generateHeightMap(cx * chunkSize, cy * chunkSize, chunkSize + 1, chunkSize + 1);
+    }
+
+    /**
+     * returns the height of a chunk that is not yet generated, without generating it. This is the maximum height of the
+     * generator when it is known, and the highest of the neighbouring chunks otherwise.
+     * @return the estimated maximum coordinate height of a tile of the chunk
+     */
+    private int estimateMaximum(int cx, int cy) {
+        float maximum = generator.getMaximumHeight();
+        if (Float.isFinite(maximum)) return (int) maximum + maximumRise;
+
+        float neighbours = 0;
+        for (int x = Math.max(0, cx - 1); x <= Math.min(xChunks - 1, cx + 1); x++) {
+            for (int y = Math.max(0, cy - 1); y <= Math.min(yChunks - 1, cy + 1); y++) {
+                neighbours = Math.max(neighbours, map.getChunk(x, y).getMinMax().getMax());
+            }
+        }
+        return (int) Math.ceil(neighbours / TILE_SIZE_Z);
+    }
+
+    /**
+     * returns an upper bound of the height of the chunk generated from the given heightmap. A tile is placed on the
+     * lowest of its corners, and rises at most {@link #maximumRise} above it.
+     * @param heightmap the heights of the corners of the chunk
+     * @return the maximum coordinate height of a tile of the chunk
+     */
+    int getMaximum(float[][] heightmap) {
+        float max = Float.NEGATIVE_INFINITY;
+        for (float[] strip : heightmap) {
+            for (float height : strip) {
+                max = Math.max(max, height);
+            }
+        }
+
+        // the corners of a tile are truncated like this
+        return (int) max + maximumRise;
+    }
+
+    private File getFile(int cx, int cy) {
+        return new File(directory, FILE_PREFIX + cx + "_" + cy);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    /** stops all workers, and removes all stored chunks */
+    public void cleanup() {
+        workers.shutdownNow();
+
+        for (Long key : stored) {
+            //noinspection ResultOfMethodCallIgnored
+            getFile((int) (key >> 32), (int) (long) key).delete();
+        }
+        stored.clear();
+        loaded.clear();
+        pending.clear();
+    }
+}
@@ -10,9 +10,18 @@ import java.util.Map;
  */
 public class FixedMapGenerator implements MapGeneratorMod {
     private final float[][] map;
+    private final float maximum;
 
     public FixedMapGenerator(float[]... map) {
         this.map = map;
+
+        float max = Float.NEGATIVE_INFINITY;
+        for (float[] strip : map) {
+            for (float height : strip) {
+                max = Math.max(max, height);
+            }
+        }
+        this.maximum = max;
     }
 
     @Override
@@ -25,6 +34,11 @@ public class FixedMapGenerator implements MapGeneratorMod {
         return map;
     }
 
+    @Override
+    public float getMaximumHeight() {
+        return maximum;
+    }
+
     @Override
     public int getMapSeed() {
         return 0;
@@ -173,16 +173,18 @@ public interface GameMap extends GameAspect, Entity, MouseToolListener, External
             lowerBound = lowerBound + Settings.MAX_COLLISION_DELTA_TIME;
         }
 
-        Vector3fc startPos = action.getPositionAt(lowerBound);
-        Vector3fc endPos = action.getPositionAt(upperBound);
+        Vector3f startPos = action.getPositionAt(lowerBound, new Vector3f());
+        Vector3f endPos = action.getPositionAt(upperBound, new Vector3f());
+        Vector3f midPos = new Vector3f();
+        Vector3f direction = new Vector3f(endPos).sub(startPos);
 
-        intersect = gridMapIntersection(startPos, new Vector3f(endPos).sub(startPos));
+        intersect = gridMapIntersection(startPos, direction);
 
         // edge case: immediate collision, but still legal
         if (intersect != null && intersect * (upperBound - lowerBound) < DIRECTION_DELTA) {
-            Vector3fc delta = action.getPositionAt(lowerBound + DIRECTION_DELTA);
+            Vector3fc delta = action.getPositionAt(lowerBound + DIRECTION_DELTA, midPos);
             if (delta.z() > getHeightAt(delta.x(), delta.y())) {
-                intersect = gridMapIntersection(startPos, new Vector3f(endPos).sub(startPos));
+                intersect = gridMapIntersection(startPos, direction);
             }
         }
 
@@ -201,25 +203,25 @@ public interface GameMap extends GameAspect, Entity, MouseToolListener, External
 
         // collision found
         float collisionTime = lowerBound + intersect * (upperBound - lowerBound);
-        Vector3fc midPos = action.getPositionAt(collisionTime);
+        action.getPositionAt(collisionTime, midPos);
 
         // only accept if the found position is sufficiently close to a checked point
         while (Math.min(startPos.distanceSquared(midPos), endPos.distanceSquared(midPos)) > Settings.MIN_COLLISION_CHECK_DISTANCE) {
-            intersect = gridMapIntersection(startPos, new Vector3f(midPos).sub(startPos));
+            intersect = gridMapIntersection(startPos, direction.set(midPos).sub(startPos));
 
             if (intersect != null) {
                 collisionTime = lowerBound + intersect * (collisionTime - lowerBound);
-                endPos = midPos;
+                endPos.set(midPos);
 
             } else { // wrong half, repeat with other half
-                intersect = gridMapIntersection(midPos, new Vector3f(endPos).sub(midPos));
+                intersect = gridMapIntersection(midPos, direction.set(endPos).sub(midPos));
                 if (intersect == null) return null; // after smoothing, no collision is found
 
                 collisionTime = collisionTime + intersect * (upperBound - collisionTime);
-                startPos = midPos;
+                startPos.set(midPos);
             }
 
-            midPos = action.getPositionAt(collisionTime);
+            action.getPositionAt(collisionTime, midPos);
         }
 
         return collisionTime;
@@ -70,6 +70,13 @@ public interface MapChunk {
 
     Extremes getMinMax();
 
+    /**
+     * creates a copy of this chunk, such that changes to the copy are not reflected in this chunk. The tile instances
+     * themselves are immutable and may be shared.
+     * @return a copy of this chunk
+     */
+    MapChunk copy();
+
     class Extremes {
         private float min = Float.POSITIVE_INFINITY;
         private float max = Float.NEGATIVE_INFINITY;
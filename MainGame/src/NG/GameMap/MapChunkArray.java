@@ -33,6 +33,37 @@ public class MapChunkArray implements MapChunk {
         this.highlights = new HashSet<>();
     }
 
+    /**
+     * creates a chunk of the given tiles
+     * @param tiles a square array of tiles, which is used directly as the backing array of this chunk
+     */
+    MapChunkArray(MapTile.Instance[][] tiles) {
+        this.size = tiles.length;
+        this.tiles = tiles;
+        this.highlights = new HashSet<>();
+
+        for (MapTile.Instance[] strip : tiles) {
+            for (MapTile.Instance tile : strip) {
+                minimumMaximum.check(tile.getHeight() * TILE_SIZE_Z);
+            }
+        }
+    }
+
+    /** copy constructor, see {@link #copy()} */
+    private MapChunkArray(MapChunkArray source) {
+        this.size = source.size;
+        this.tiles = new MapTile.Instance[size][];
+        for (int x = 0; x < size; x++) {
+            this.tiles[x] = source.tiles[x].clone();
+        }
+        this.highlights = new HashSet<>(source.highlights);
+        this.doHighlight = source.doHighlight;
+        if (source.minimumMaximum.getMin() <= source.minimumMaximum.getMax()) {
+            this.minimumMaximum.check(source.minimumMaximum.getMin());
+            this.minimumMaximum.check(source.minimumMaximum.getMax());
+        }
+    }
+
     public MapChunkArray(int size, float[][] heightmap, int fromX, int fromY, int randomSeed) {
         this.size = size;
         this.tiles = new MapTile.Instance[size][size];
@@ -173,6 +204,11 @@ public class MapChunkArray implements MapChunk {
         }
     }
 
+    @Override
+    public MapChunkArray copy() {
+        return new MapChunkArray(this);
+    }
+
     @Override
     public Extremes getMinMax() {
         return minimumMaximum;
@@ -0,0 +1,92 @@
+package NG.GameMap;
+
+import NG.Rendering.MatrixStack.SGL;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.util.Map;
+
+import static NG.Settings.Settings.TILE_SIZE_Z;
+
+/**
+ * A chunk that stands in for a chunk that is not in memory, as used by a streaming {@link TileMap}. It is flat, it is
+ * not drawn, and it answers a conservative height: the highest height the real chunk is expected to have. This class is
+ * immutable.
+ * @author Geert van Ieperen created on 19-10-2026.
+ * @see ChunkStreamer
+ */
+public class MapChunkPlaceholder implements MapChunk {
+    private final int size;
+    private final MapTile.Instance tile;
+    private final Extremes minMax = new Extremes();
+
+    /**
+     * @param size   the number of tiles in x and y direction
+     * @param height the coordinate height reported by all tiles of this chunk
+     */
+    public MapChunkPlaceholder(int size, int height) {
+        this.size = size;
+        this.tile = new MapTile.Instance(height - MapTile.DEFAULT_TILE.baseHeight, 0, MapTile.DEFAULT_TILE);
+        minMax.check(height * TILE_SIZE_Z);
+    }
+
+    @Override
+    public MapTile.Instance get(int x, int y) {
+        checkBounds(x, y);
+        return tile;
+    }
+
+    @Override
+    public MapTile set(int x, int y, MapTile.Instance tile) {
+        throw new UnsupportedOperationException("Placeholder chunks can not be modified");
+    }
+
+    @Override
+    public int getHeightAt(int x, int y) {
+        checkBounds(x, y);
+        return tile.getHeight();
+    }
+
+    private void checkBounds(int x, int y) {
+        if (x < 0 || y < 0 || x >= size || y >= size) {
+            throw new IndexOutOfBoundsException("(" + x + ", " + y + "), size is " + size);
+        }
+    }
+
+    @Override
+    public void draw(SGL gl) {
+        // not yet available
+    }
+
+    @Override
+    public void highlight(int x, int y) {
+    }
+
+    @Override
+    public void setHighlight(boolean doHighlight) {
+    }
+
+    @Override
+    public void clearHighlight() {
+    }
+
+    @Override
+    public void writeToFile(DataOutput out) {
+        throw new UnsupportedOperationException("Placeholder chunks can not be stored");
+    }
+
+    @Override
+    public void readFromFile(DataInput in, Map<Integer, MapTile> mapping) {
+        throw new UnsupportedOperationException("Placeholder chunks can not be restored");
+    }
+
+    @Override
+    public Extremes getMinMax() {
+        return minMax;
+    }
+
+    @Override
+    public MapChunkPlaceholder copy() {
+        return this;
+    }
+}
@@ -0,0 +1,340 @@
+package NG.GameMap;
+
+import NG.Tools.Logger;
+import NG.Tools.SerializationTools;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Reads and writes {@link TileMap} instances in the binary .mgm format, version 2. A file consists of
+ * <ol>
+ * <li>the magic number {@link #MAGIC} and the format version</li>
+ * <li>a table of the names of all tile types used in the map</li>
+ * <li>the chunk size and the number of chunks in x and y direction</li>
+ * <li>for each chunk, the length of its compressed data, followed by the data compressed with {@link Deflater}</li>
+ * </ol>
+ * The tiles of a chunk are stored as runs of equal tiles. Each run stores its length, the index in the name table, the
+ * rotation and the difference in offset with the previous run, using variable-length integers. Chunks are decoded in
+ * parallel. Files written with Java serialization by earlier versions can still be read by {@link #read(File)}.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public final class MapCodec {
+    /** "MGM" followed by a zero byte */
+    public static final int MAGIC = 0x4D474D00;
+    public static final short VERSION = 2;
+    /** the first two bytes written by an {@link ObjectOutputStream} */
+    private static final short SERIALIZATION_MAGIC = (short) 0xACED;
+
+    private MapCodec() {
+    }
+
+    /**
+     * writes the given map to the given file
+     * @param map  the map to write
+     * @param file the file to write to, existing or not
+     */
+    public static void write(TileMap map, File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            write(map, out);
+        }
+    }
+
+    /**
+     * writes the given map to the given stream, in a format that can be read with {@link #read(InputStream)}
+     * @param map    the map to write
+     * @param stream the stream to write to. It is not closed.
+     */
+    public static void write(TileMap map, OutputStream stream) throws IOException {
+        TileMap.ChunkGrid grid = map.snapshot();
+        DataOutputStream out = new DataOutputStream(stream);
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+
+        // gather all chunks, and the types that are used
+        int chunkSize = grid.chunkSize;
+        MapChunk[][] chunks = new MapChunk[grid.xChunks][grid.yChunks];
+        Map<MapTile, Integer> typeIndices = new HashMap<>();
+        List<String> names = new ArrayList<>();
+
+        for (int mx = 0; mx < grid.xChunks; mx++) {
+            for (int my = 0; my < grid.yChunks; my++) {
+                MapChunk chunk = map.getCompleteChunk(grid, mx, my);
+                chunks[mx][my] = chunk;
+
+                for (int x = 0; x < chunkSize; x++) {
+                    for (int y = 0; y < chunkSize; y++) {
+                        MapTile type = chunk.get(x, y).type;
+                        if (!typeIndices.containsKey(type)) {
+                            typeIndices.put(type, names.size());
+                            names.add(type.name);
+                        }
+                    }
+                }
+            }
+        }
+
+        out.writeInt(names.size());
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+
+        out.writeInt(chunkSize);
+        out.writeInt(grid.xChunks);
+        out.writeInt(grid.yChunks);
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        ByteArrayOutputStream records = new ByteArrayOutputStream(chunkSize * chunkSize * 4);
+        byte[] buffer = new byte[chunkSize * chunkSize * 8 + 64];
+
+        for (MapChunk[] strip : chunks) {
+            for (MapChunk chunk : strip) {
+                records.reset();
+                encodeChunk(chunk, chunkSize, typeIndices, records);
+
+                deflater.reset();
+                deflater.setInput(records.toByteArray());
+                deflater.finish();
+
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                while (!deflater.finished()) {
+                    int length = deflater.deflate(buffer);
+                    compressed.write(buffer, 0, length);
+                }
+
+                out.writeInt(compressed.size());
+                compressed.writeTo(out);
+            }
+        }
+
+        deflater.end();
+        out.flush();
+    }
+
+    private static void encodeChunk(
+            MapChunk chunk, int chunkSize, Map<MapTile, Integer> typeIndices, ByteArrayOutputStream out
+    ) {
+        int previousOffset = 0;
+        MapTile.Instance runTile = null;
+        int runLength = 0;
+
+        for (int x = 0; x < chunkSize; x++) {
+            for (int y = 0; y < chunkSize; y++) {
+                MapTile.Instance tile = chunk.get(x, y);
+
+                if (runTile != null && isEqual(runTile, tile)) {
+                    runLength++;
+                    continue;
+                }
+
+                if (runTile != null) {
+                    writeRun(out, runLength, runTile, typeIndices, previousOffset);
+                    previousOffset = runTile.offset;
+                }
+
+                runTile = tile;
+                runLength = 1;
+            }
+        }
+
+        if (runTile != null) {
+            writeRun(out, runLength, runTile, typeIndices, previousOffset);
+        }
+    }
+
+    private static void writeRun(
+            ByteArrayOutputStream out, int length, MapTile.Instance tile, Map<MapTile, Integer> typeIndices,
+            int previousOffset
+    ) {
+        writeVarInt(out, length);
+        writeVarInt(out, typeIndices.get(tile.type));
+        out.write(tile.rotation);
+        // zigzag encoding of the difference
+        int delta = tile.offset - previousOffset;
+        writeVarInt(out, (delta << 1) ^ (delta >> 31));
+    }
+
+    private static boolean isEqual(MapTile.Instance a, MapTile.Instance b) {
+        return a.type == b.type && a.rotation == b.rotation && a.offset == b.offset;
+    }
+
+    /**
+     * reads a map from the given file, which is either in the format of this codec, or a serialized map of earlier
+     * versions.
+     * @param file the file to read
+     * @return the map in the file
+     * @throws IOException if the file could not be read, or is not a map file
+     */
+    public static GameMap read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            in.mark(4);
+            int magic = in.readInt();
+            in.reset();
+
+            if (magic == MAGIC) {
+                return read(in);
+
+            } else if ((short) (magic >>> 16) == SERIALIZATION_MAGIC) {
+                Logger.INFO.print("Reading legacy map file " + file);
+                try {
+                    return (GameMap) new ObjectInputStream(in).readObject();
+
+                } catch (ClassNotFoundException | ClassCastException ex) {
+                    throw new IOException("File " + file + " does not contain a map", ex);
+                }
+
+            } else {
+                throw new IOException("File " + file + " is not a map file");
+            }
+        }
+    }
+
+    /**
+     * reads a map written by {@link #write(TileMap, OutputStream)}
+     * @param stream the stream to read. It is not closed.
+     * @return a new map, which must still be initialized.
+     */
+    public static TileMap read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+
+        int magic = in.readInt();
+        if (magic != MAGIC) throw new IOException("Not a map file");
+        short version = in.readShort();
+        if (version != VERSION) throw new IOException("Unsupported map file version " + version);
+
+        int nrOfTypes = in.readInt();
+        if (nrOfTypes < 0) throw new IOException("Corrupted number of tile types " + nrOfTypes);
+        MapTile[] types = new MapTile[nrOfTypes];
+        for (int i = 0; i < nrOfTypes; i++) {
+            String name = in.readUTF();
+            types[i] = MapTiles.getByName(name);
+            if (types[i] == MapTile.DEFAULT_TILE && !name.equals(MapTile.DEFAULT_TILE.name)) {
+                Logger.WARN.print("Tile " + name + " is not registered, and is replaced with the default tile");
+            }
+        }
+
+        int chunkSize = in.readInt();
+        int xChunks = in.readInt();
+        int yChunks = in.readInt();
+        if (chunkSize <= 0 || xChunks < 0 || yChunks < 0 || (long) xChunks * yChunks > Integer.MAX_VALUE) {
+            throw new IOException("Corrupted map size: " + xChunks + " x " + yChunks + " chunks of " + chunkSize);
+        }
+
+        // read all data first, then decode in parallel
+        byte[][] data = new byte[xChunks * yChunks][];
+        for (int i = 0; i < data.length; i++) {
+            int length = in.readInt();
+            if (length < 0) throw new IOException("Corrupted chunk length " + length);
+            data[i] = new byte[length];
+            in.readFully(data[i]);
+        }
+
+        MapChunk[][] chunks = new MapChunk[xChunks][yChunks];
+        try {
+            IntStream.range(0, data.length).parallel().forEach(i -> {
+                try {
+                    chunks[i / yChunks][i % yChunks] = decodeChunk(data[i], chunkSize, types);
+
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        TileMap map = new TileMap(chunkSize);
+        map.setChunks(chunkSize, chunks);
+        return map;
+    }
+
+    /**
+     * decodes the tiles of one chunk
+     * @throws IOException if the data is not a valid chunk of the given size and tile types
+     */
+    private static MapChunk decodeChunk(byte[] data, int chunkSize, MapTile[] types) throws IOException {
+        int nrOfTiles = chunkSize * chunkSize;
+        Inflater inflater = new Inflater();
+        // a run takes at most 5 + 5 + 1 + 5 bytes
+        byte[] records = new byte[nrOfTiles * 16];
+        int length;
+
+        try {
+            inflater.setInput(data);
+            length = inflater.inflate(records);
+            if (!inflater.finished()) throw new IOException("Chunk data is larger than expected");
+
+        } catch (DataFormatException | IOException ex) {
+            throw new IOException("Corrupted chunk data", ex);
+
+        } finally {
+            inflater.end();
+        }
+
+        MapTile.Instance[][] tiles = new MapTile.Instance[chunkSize][chunkSize];
+        int[] position = {0};
+        int tileIndex = 0;
+        int offset = 0;
+
+        while (position[0] < length) {
+            int runLength = readVarInt(records, length, position);
+            if (runLength <= 0 || runLength > nrOfTiles - tileIndex) {
+                throw new IOException("Run of " + runLength + " tiles does not fit in the chunk");
+            }
+
+            int typeIndex = readVarInt(records, length, position);
+            if (typeIndex < 0 || typeIndex >= types.length) throw new IOException("Unknown tile type " + typeIndex);
+            MapTile type = types[typeIndex];
+
+            if (position[0] >= length) throw new IOException("Chunk data ends within a run");
+            byte rotation = records[position[0]++];
+            int zigzag = readVarInt(records, length, position);
+            offset += (zigzag >>> 1) ^ -(zigzag & 1);
+
+            // instances are not shared, as highlighting is based on identity
+            for (int i = 0; i < runLength; i++, tileIndex++) {
+                tiles[tileIndex / chunkSize][tileIndex % chunkSize] = new MapTile.Instance(offset, rotation, type);
+            }
+        }
+
+        if (tileIndex != nrOfTiles) {
+            throw new IOException("Expected " + nrOfTiles + " tiles, but got " + tileIndex);
+        }
+
+        return new MapChunkArray(tiles);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * reads a variable-length integer of at most 5 bytes from the first length bytes of the buffer
+     * @throws IOException if the integer does not end within these bytes
+     */
+    private static int readVarInt(byte[] buffer, int length, int[] position) throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (position[0] >= length || shift > 28) throw new IOException("Corrupted variable-length integer");
+            b = buffer[position[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -28,6 +28,43 @@ public interface MapGeneratorMod extends Mod {
      */
     float[][] generateHeightMap();
 
+    /**
+     * generate a part of the heightmap, such that the result is equal to the given region of {@link
+     * #generateHeightMap()} if the size of the generator would be large enough to include this region. This is used
+     * for streaming maps, which may call this method from several threads at once. The default implementation
+     * generates the complete heightmap and copies the region, generators that support streaming should override this
+     * method.
+     * @param fromX the lowest x coordinate of the region
+     * @param fromY the lowest y coordinate of the region
+     * @param xSize the number of heights in x direction
+     * @param ySize the number of heights in y direction
+     * @return the heightmap of the region, of size (xSize x ySize)
+     */
+    default float[][] generateHeightMap(int fromX, int fromY, int xSize, int ySize) {
+        float[][] region = new float[xSize][ySize];
+
+        synchronized (this) {
+            setSize(fromX + xSize, fromY + ySize);
+            float[][] map = generateHeightMap();
+
+            for (int x = 0; x < xSize; x++) {
+                System.arraycopy(map[fromX + x], fromY, region[x], 0, ySize);
+            }
+        }
+
+        return region;
+    }
+
+    /**
+     * returns an upper bound of the heights generated by this generator. Streaming maps use this as the height of a
+     * chunk that is not yet generated.
+     * @return an upper bound of the values of {@link #generateHeightMap()}, or {@link Float#POSITIVE_INFINITY} if it is
+     * not known
+     */
+    default float getMaximumHeight() {
+        return Float.POSITIVE_INFINITY;
+    }
+
     /**
      * @return the seed used to create the map
      */
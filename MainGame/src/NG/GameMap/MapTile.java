@@ -3,18 +3,22 @@ package NG.GameMap;
 import NG.DataStructures.Direction;
 import NG.Rendering.MatrixStack.SGL;
 import NG.Rendering.MeshLoading.Mesh;
+import NG.Rendering.MeshLoading.MeshFile;
 import NG.Rendering.Shaders.ShaderProgram;
 import NG.Rendering.Shaders.TextureShader;
+import NG.Rendering.Shapes.BVHShape;
 import NG.Rendering.Shapes.GenericShapes;
+import NG.Rendering.Shapes.Primitives.Plane;
 import NG.Rendering.Shapes.Shape;
 import NG.Rendering.Textures.Texture;
 import NG.Resources.Resource;
 import org.joml.AABBf;
-import org.joml.Vector3f;
 import org.joml.Vector3fc;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Random;
 
 import static NG.Settings.Settings.TILE_SIZE_Z;
@@ -41,18 +45,21 @@ public class MapTile
     private final int[] heights; // pp, pm, pn, mn, nn, nm, np, mp
 
     private final Resource<Shape> shape;
+    private final Resource<MeshFile> meshData;
     private final Resource<Mesh> mesh;
     private final Resource<Texture> texture; // may be null
+    private transient Shape[] hitboxes; // the shape for each rotation, lazily restored after deserialization
+    private transient MeshFile meshFile; // cached vertex data for chunk meshes, see getMeshFile()
 
     /**
      * @param name       a unique name for this tile
-     * @param meshFile
+     * @param meshFile   the vertex data of the visual element of this tile
      * @param shapeFile
      * @param texture    the path to the texture of this tile
      * @param properties the properties of this tile
      */
     MapTile(
-            String name, Resource<Mesh> meshFile, Resource<Shape> shapeFile, Resource<Texture> texture, int[] heights,
+            String name, Resource<MeshFile> meshFile, Resource<Shape> shapeFile, Resource<Texture> texture, int[] heights,
             int baseHeight, EnumSet<TileProperties> properties
     ) {
         this.name = name;
@@ -65,14 +72,16 @@ public class MapTile
 
         this.heights = heights;
         this.shape = shapeFile;
-        this.mesh = meshFile;
+        this.meshData = meshFile;
+        this.mesh = Resource.derive(meshFile, MeshFile::getMesh, Mesh::dispose);
+        this.hitboxes = createHitboxes();
     }
 
     /** basic tile */
     public MapTile() {
         // circumvent registration to allow initialisation of static fields
         this(
-                "default tile", GenericShapes.CUBE.meshResource(), GenericShapes.CUBE.shapeResource(), null,
+                "default tile", GenericShapes.CUBE.meshFileResource(), GenericShapes.CUBE.shapeResource(), null,
                 new int[]{1, 1, 1, 1, 1, 1, 1, 1}, 1, EnumSet.noneOf(TileProperties.class)
         );
     }
@@ -90,6 +99,45 @@ public class MapTile
         return shape.get().getBoundingBox();
     }
 
+    /**
+     * @param rotation the number of quarter turns of the tile
+     * @return the hitbox of this tile, rotated as a tile with the given rotation
+     */
+    Shape getHitbox(int rotation) {
+        if (hitboxes == null) hitboxes = createHitboxes();
+        return hitboxes[rotation];
+    }
+
+    /**
+     * returns the vertex data of the mesh of this tile. Unlike the mesh itself, this is not dropped when unused, and may
+     * be queried from any thread.
+     */
+    synchronized MeshFile getMeshFile() {
+        if (meshFile == null) meshFile = meshData.get();
+        return meshFile;
+    }
+
+    /** @return the texture of this tile, or null if this tile is not textured */
+    Resource<Texture> getTexture() {
+        return texture;
+    }
+
+    /** precomputes the hitbox for each of the four rotations, such that rays do not have to be rotated */
+    private Shape[] createHitboxes() {
+        Shape base = shape.get();
+        Shape[] rotations = new Shape[4];
+
+        for (int r = 0; r < 4; r++) {
+            List<Plane> planes = new ArrayList<>();
+            for (Plane plane : base.getPlanes()) {
+                planes.add(plane.rotateQuarter(r));
+            }
+            rotations[r] = new BVHShape(planes);
+        }
+
+        return rotations;
+    }
+
     public static int index(Direction direction) {
         switch (direction) { // pp, pm, pn, mn, nn, nm, np, mp
             case POSITIVE_X:
@@ -180,30 +228,21 @@ public class MapTile
         /**
          * calculates the fraction t such that (origin + direction * t) lies on this tile, or Float.POSITIVE_INFINITY if
          * it does not hit.
-         * @param localOrigin origin relative to this tile, will be modified
+         * @param localOrigin origin relative to this tile
          * @param direction   the direction of the ray
          * @return fraction t of (origin + direction * t), or Float.POSITIVE_INFINITY if it does not hit.
          */
-        public float intersectFraction(Vector3f localOrigin, Vector3fc direction) {
-            Shape shape = type.shape.get();
+        public float intersectFraction(Vector3fc localOrigin, Vector3fc direction) {
+            Shape shape = type.getHitbox(rotation);
             boolean doIntersect = shape.getBoundingBox().testRay(
-                    localOrigin.x, localOrigin.y, localOrigin.z,
+                    localOrigin.x(), localOrigin.y(), localOrigin.z(),
                     direction.x(), direction.y(), direction.z()
             );
             if (!doIntersect) {
                 return Float.POSITIVE_INFINITY;
             }
 
-            // rotation
-            Vector3f localDirection = new Vector3f(direction);
-            for (byte i = 0; i < rotation; i++) {
-                //noinspection SuspiciousNameCombination
-                localOrigin.set(localOrigin.y, -localOrigin.x, localOrigin.z);
-                //noinspection SuspiciousNameCombination
-                localDirection.set(localDirection.y, -localDirection.x, localDirection.z);
-            }
-
-            return shape.getIntersectionScalar(localOrigin, localDirection);
+            return shape.getIntersectionScalar(localOrigin, direction);
         }
     }
 }
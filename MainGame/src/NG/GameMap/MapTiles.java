@@ -1,6 +1,5 @@
 package NG.GameMap;
 
-import NG.Rendering.MeshLoading.Mesh;
 import NG.Rendering.MeshLoading.MeshFile;
 import NG.Rendering.Shapes.Shape;
 import NG.Rendering.Textures.Texture;
@@ -141,7 +140,7 @@ public class MapTiles {
         int[] heights = gatherHeights(hitbox.get());
         int baseHeight = heights[8];
         heights = Arrays.copyOf(heights, 8);
-        Resource<Mesh> meshFile = Mesh.createResource(Directory.mapTileModels, meshPath.toString());
+        Resource<MeshFile> meshFile = MeshFile.createResource(Directory.mapTileModels, meshPath.toString());
         Resource<Texture> textureFile = (texturePath == null) ? null : Texture.createResource(texturePath.toString());
 
         MapTile tile = new MapTile(name, meshFile, hitbox, textureFile, heights, baseHeight, properties);
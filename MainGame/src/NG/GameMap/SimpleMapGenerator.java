@@ -45,22 +45,46 @@ public class SimpleMapGenerator implements MapGeneratorMod {
         float[][] map = new float[width][height];
 
         double majorAmplitude = properties.get(MAJOR_AMPLITUDE) * AMPLITUDE_SCALE_FACTOR;
-        addNoiseLayer(map, majorGenerator, MAJOR_DENSITY, majorAmplitude);
+        addNoiseLayer(map, 0, 0, majorGenerator, MAJOR_DENSITY, majorAmplitude);
         progress = 0.5f;
 
         double minorAmplitude = properties.get(MINOR_AMPLITUDE) * AMPLITUDE_SCALE_FACTOR;
-        addNoiseLayer(map, minorGenerator, MINOR_DENSITY, minorAmplitude);
+        addNoiseLayer(map, 0, 0, minorGenerator, MINOR_DENSITY, minorAmplitude);
         progress = 1;
 
         return map;
     }
 
-    private void addNoiseLayer(
-            float[][] map, OpenSimplexNoise noise, double density, double amplitude
+    @Override
+    public float[][] generateHeightMap(int fromX, int fromY, int xSize, int ySize) {
+        // does not touch the state of the generator, thus thread-safe
+        float[][] map = new float[xSize][ySize];
+
+        double majorAmplitude = properties.get(MAJOR_AMPLITUDE) * AMPLITUDE_SCALE_FACTOR;
+        addNoiseLayer(map, fromX, fromY, majorGenerator, MAJOR_DENSITY, majorAmplitude);
+
+        double minorAmplitude = properties.get(MINOR_AMPLITUDE) * AMPLITUDE_SCALE_FACTOR;
+        addNoiseLayer(map, fromX, fromY, minorGenerator, MINOR_DENSITY, minorAmplitude);
+
+        return map;
+    }
+
+    @Override
+    public float getMaximumHeight() {
+        // the noise is within [-1, 1]
+        int amplitudes = properties.get(MAJOR_AMPLITUDE) + properties.get(MINOR_AMPLITUDE);
+        return (float) (amplitudes * AMPLITUDE_SCALE_FACTOR);
+    }
+
+    private static void addNoiseLayer(
+            float[][] map, int fromX, int fromY, OpenSimplexNoise noise, double density, double amplitude
     ) {
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                map[x][y] += (float) (amplitude * noise.eval(x * density, y * density));
+        for (int x = 0; x < map.length; x++) {
+            float[] strip = map[x];
+            double xDensity = (fromX + x) * density;
+
+            for (int y = 0; y < strip.length; y++) {
+                strip[y] += (float) (amplitude * noise.eval(xDensity, (fromY + y) * density));
             }
         }
     }
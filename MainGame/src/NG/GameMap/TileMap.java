@@ -2,10 +2,12 @@ package NG.GameMap;
 
 import NG.Camera.Camera;
 import NG.CollisionDetection.BoundingBox;
+import NG.CollisionDetection.GameState;
 import NG.Core.Game;
 import NG.DataStructures.Direction;
 import NG.DataStructures.Generic.AveragingQueue;
 import NG.DataStructures.Generic.Color4f;
+import NG.Entities.Entity;
 import NG.InputHandling.MouseTools.MouseTool;
 import NG.Rendering.GLFWWindow;
 import NG.Rendering.Material;
@@ -18,25 +20,42 @@ import NG.Tools.Logger;
 import NG.Tools.Vectors;
 import org.joml.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static NG.Settings.Settings.TILE_SIZE;
 import static NG.Settings.Settings.TILE_SIZE_Z;
 
 /**
+ * A map of tiles, grouped in chunks. The chunks are published as an immutable, versioned snapshot: readers never lock
+ * and always see a consistent map, while edits copy only the chunk they touch and atomically replace the snapshot.
+ * <p>
+ * A map can be generated at once with {@link #generateNew(MapGeneratorMod)}, or be streamed around the camera and the
+ * entities with {@link #generateStreaming(MapGeneratorMod, int, int, int, int, File)}.
  * @author Geert van Ieperen created on 3-2-2019.
  */
 public class TileMap extends AbstractMap {
-    private transient List<ChangeListener> changeListeners = new ArrayList<>();
+    private static final Vector3fc DOWN = new Vector3f(0, 0, -1);
+    /** the origins of the ray casts of {@link #getHeightAt(float, float)}, one for each thread */
+    private static final ThreadLocal<Vector3f> HEIGHT_RAY_ORIGIN = ThreadLocal.withInitial(Vector3f::new);
+
+    private transient List<ChangeListener> changeListeners = new CopyOnWriteArrayList<>();
     private int chunkSize;
-    private float realChunkSize;
 
-    private int xChunks = 0;
-    private int yChunks = 0;
-    private MapChunk[][] map = new MapChunk[0][0];
+    private final AtomicReference<ChunkGrid> grid = new AtomicReference<>(ChunkGrid.EMPTY);
+    private transient ChunkStreamer streamer = null;
+    /** whether the streamer replaced a chunk since the listeners were last notified */
+    private final transient AtomicBoolean hasStreamedChanges = new AtomicBoolean(false);
+    /** the focus points of the streamer and the entity positions among them, only accessed by the simulation thread */
+    private transient List<Vector3fc> focusPoints = new ArrayList<>();
+    private transient List<Vector3f> entityPositions = new ArrayList<>();
+    private transient ChunkMeshes meshes = null; // created on the first draw
     private transient Game game;
 
     private Collection<MapChunk> highlightedChunks = new HashSet<>();
@@ -44,7 +63,6 @@ public class TileMap extends AbstractMap {
 
     public TileMap(int chunkSize) {
         this.chunkSize = chunkSize;
-        this.realChunkSize = chunkSize * Settings.TILE_SIZE;
     }
 
     public TileMap() {
@@ -58,6 +76,8 @@ public class TileMap extends AbstractMap {
 
     @Override
     public void generateNew(MapGeneratorMod mapGenerator) {
+        stopStreaming();
+
         // height map generation
         float[][] heightmap = mapGenerator.generateHeightMap();
         int randomSeed = mapGenerator.getMapSeed();
@@ -78,27 +98,83 @@ public class TileMap extends AbstractMap {
             }
         }
 
-        synchronized (this) {
-            this.map = newMap;
-            this.xChunks = xChunks;
-            this.yChunks = yChunks;
+        grid.getAndUpdate(old -> new ChunkGrid(old.version + 1, chunkSize, xChunks, yChunks, newMap));
+        changeListeners.forEach(ChangeListener::onMapChange);
+    }
+
+    /**
+     * sets this map to streaming mode, where chunks are only kept in memory when the camera or an entity is near. Chunks
+     * are generated on background workers as soon as a focus point comes within loadRadius, and until then a
+     * placeholder answers a conservative height. Chunks farther than retainRadius from every focus point are stored in
+     * the given directory and evicted.
+     * @param mapGenerator the generator of the chunks, preferably overriding {@link MapGeneratorMod#generateHeightMap(int,
+     *                     int, int, int)}
+     * @param xChunks      the number of chunks of the map in x direction
+     * @param yChunks      the number of chunks of the map in y direction
+     * @param loadRadius   the number of chunks around a focus point that are loaded
+     * @param retainRadius the number of chunks around a focus point that are kept in memory, at least loadRadius
+     * @param directory    the directory to store evicted chunks
+     * @see ChunkStreamer
+     */
+    public void generateStreaming(
+            MapGeneratorMod mapGenerator, int xChunks, int yChunks, int loadRadius, int retainRadius, File directory
+    ) {
+        stopStreaming();
+
+        MapChunk unknown = new MapChunkPlaceholder(chunkSize, 0);
+        MapChunk[][] newMap = new MapChunk[xChunks][yChunks];
+        for (MapChunk[] strip : newMap) {
+            Arrays.fill(strip, unknown);
         }
+
+        streamer = new ChunkStreamer(
+                this, mapGenerator, directory, chunkSize, xChunks, yChunks, loadRadius, retainRadius
+        );
+
+        grid.getAndUpdate(old -> new ChunkGrid(old.version + 1, chunkSize, xChunks, yChunks, newMap));
         changeListeners.forEach(ChangeListener::onMapChange);
     }
 
+    private void stopStreaming() {
+        if (streamer != null) {
+            streamer.cleanup();
+            streamer = null;
+        }
+    }
 
     @Override
-    public int getHeightAt(int x, int y) {
-        int cx = x / chunkSize;
-        int cy = y / chunkSize;
+    public void update(float gameTime) {
+        if (streamer == null) return;
+
+        // chunks are replaced by the workers of the streamer, but the listeners are notified on this thread
+        if (hasStreamedChanges.getAndSet(false)) {
+            changeListeners.forEach(ChangeListener::onMapChange);
+        }
+
+        if (!streamer.isDue(gameTime)) return;
+
+        focusPoints.clear();
+        game.ifAvailable(Camera.class, camera -> focusPoints.add(camera.getFocus()));
 
-        if (cx >= xChunks || cx < 0 || cy >= yChunks || cy < 0) {
-            return 0;
+        int nofPositions = 0;
+        for (Entity entity : game.get(GameState.class).entities()) {
+            if (nofPositions == entityPositions.size()) entityPositions.add(new Vector3f());
+
+            Vector3f position = entity.getPositionAt(gameTime, entityPositions.get(nofPositions));
+            if (position != null) {
+                focusPoints.add(position);
+                nofPositions++;
+            }
         }
 
-        MapChunk chunk = map[cx][cy];
+        streamer.update(gameTime, focusPoints);
+    }
+
 
-        return chunk == null ? 0 : chunk.getHeightAt(x - cx * chunkSize, y - cy * chunkSize);
+    @Override
+    public int getHeightAt(int x, int y) {
+        MapTile.Instance tile = grid.get().get(x, y);
+        return tile == null ? 0 : tile.getHeight();
     }
 
     @Override
@@ -137,14 +213,13 @@ public class TileMap extends AbstractMap {
         if (tile == null) return 0;
 
         float rayStartHeight = tile.type.getBoundingBox().maxZ + tile.offset * TILE_SIZE_Z + 1;
-        final Vector3f origin = new Vector3f(x, y, rayStartHeight);
 
         float f = tile.intersectFraction(
-                new Vector3f(
-                        origin.x() - (ix + 0.5f) * TILE_SIZE,
-                        origin.y() - (iy + 0.5f) * TILE_SIZE,
-                        origin.z() - tile.offset * TILE_SIZE_Z
-                ), new Vector3f(0, 0, -1)
+                HEIGHT_RAY_ORIGIN.get().set(
+                        x - (ix + 0.5f) * TILE_SIZE,
+                        y - (iy + 0.5f) * TILE_SIZE,
+                        rayStartHeight - tile.offset * TILE_SIZE_Z
+                ), DOWN
         );
 
         return rayStartHeight - f;
@@ -152,7 +227,8 @@ public class TileMap extends AbstractMap {
 
     @Override
     public void draw(SGL gl) {
-        if (map == null) return;
+        ChunkGrid current = grid.get();
+        float realChunkSize = current.chunkSize * TILE_SIZE;
         assert gl.getPosition(Vectors.O).equals(Vectors.O) : "gl object not placed at origin";
 
         ShaderProgram shader = gl.getShader();
@@ -167,43 +243,52 @@ public class TileMap extends AbstractMap {
         FrustumIntersection fic = new FrustumIntersection().set(viewProjection, false);
         int numOfCulled = 0;
 
-        synchronized (this) {
-            gl.pushMatrix();
-            {
-                // tile 1 stretches from (0, 0) to (TILE_SIZE, TILE_SIZE)
-                gl.translate(TILE_SIZE * 0.5f, TILE_SIZE * 0.5f, 0);
-
-                for (int x = 0; x < map.length; x++) {
-                    MapChunk[] chunks = map[x];
-
-                    gl.pushMatrix();
-                    {
-                        for (int y = 0; y < chunks.length; y++) {
-                            MapChunk chunk = chunks[y];
-                            MapChunk.Extremes minMax = chunk.getMinMax();
-                            boolean isVisible = fic.testAab(
-                                    x * realChunkSize, y * realChunkSize, minMax.getMin(),
-                                    (x + 1) * realChunkSize, (y + 1) * realChunkSize, minMax.getMax()
-                            );
-
-                            if (isVisible) {
-                                chunk.setHighlight(isMaterialShader);
+        if (meshes == null) {
+            meshes = new ChunkMeshes(this);
+            addChangeListener(meshes);
+            meshes.onMapChange();
+        }
+        meshes.update();
+
+        gl.pushMatrix();
+        {
+            // tile 1 stretches from (0, 0) to (TILE_SIZE, TILE_SIZE)
+            gl.translate(TILE_SIZE * 0.5f, TILE_SIZE * 0.5f, 0);
+
+            for (int x = 0; x < current.xChunks; x++) {
+                MapChunk[] chunks = current.chunks[x];
+
+                gl.pushMatrix();
+                {
+                    for (int y = 0; y < chunks.length; y++) {
+                        MapChunk chunk = chunks[y];
+                        MapChunk.Extremes minMax = chunk.getMinMax();
+                        boolean isVisible = fic.testAab(
+                                x * realChunkSize, y * realChunkSize, minMax.getMin(),
+                                (x + 1) * realChunkSize, (y + 1) * realChunkSize, minMax.getMax()
+                        );
+
+                        if (isVisible) {
+                            chunk.setHighlight(isMaterialShader);
+                            // highlighted chunks are drawn per tile, as the merged mesh has one material
+                            boolean isHighlighted = isMaterialShader && highlightedChunks.contains(chunk);
+                            if (isHighlighted || !meshes.draw(gl, x, y, chunk)) {
                                 chunk.draw(gl);
-                            } else {
-                                numOfCulled++;
                             }
-
-                            gl.translate(0, realChunkSize, 0);
+                        } else {
+                            numOfCulled++;
                         }
+
+                        gl.translate(0, realChunkSize, 0);
                     }
-                    gl.popMatrix();
-                    gl.translate(realChunkSize, 0, 0);
                 }
+                gl.popMatrix();
+                gl.translate(realChunkSize, 0, 0);
             }
-
-            culledChunks.add(numOfCulled);
-            gl.popMatrix();
         }
+
+        culledChunks.add(numOfCulled);
+        gl.popMatrix();
     }
 
     public CopyGenerator cornerCopyGenerator() {
@@ -211,30 +296,31 @@ public class TileMap extends AbstractMap {
             @Override
             public float[][] generateHeightMap() {
                 progress = 0;
-                int mapXSize = chunkSize * xChunks;
-                int mapYSize = chunkSize * yChunks;
+                ChunkGrid source = grid.get();
+                int mapXSize = source.chunkSize * source.xChunks;
+                int mapYSize = source.chunkSize * source.yChunks;
                 setSize(mapXSize + 1, mapYSize + 1);
                 float[][] floats = new float[mapXSize + 1][mapYSize + 1];
 
                 for (int x = 0; x < mapXSize; x++) {
                     for (int y = 0; y < mapYSize; y++) {
-                        MapTile.Instance tile = getTileData(x, y);
+                        MapTile.Instance tile = source.get(x, y);
                         floats[x][y] = tile.heightOfCorner(false, false);
                         progress++;
                     }
 
-                    MapTile.Instance tile = getTileData(x, mapYSize - 1);
+                    MapTile.Instance tile = source.get(x, mapYSize - 1);
                     floats[x][mapYSize] = tile.heightOfCorner(false, true);
                     progress++;
                 }
 
                 for (int y = 0; y < mapYSize; y++) {
-                    MapTile.Instance tile = getTileData(mapXSize - 1, y);
+                    MapTile.Instance tile = source.get(mapXSize - 1, y);
                     floats[mapXSize][y] = tile.heightOfCorner(true, false);
                     progress++;
                 }
 
-                MapTile.Instance tile = getTileData(mapXSize - 1, mapYSize - 1);
+                MapTile.Instance tile = source.get(mapXSize - 1, mapYSize - 1);
                 floats[mapXSize][mapYSize] = tile.heightOfCorner(true, true);
                 progress++;
 
@@ -260,18 +346,17 @@ public class TileMap extends AbstractMap {
     public void setHighlights(Vector2ic... coordinates) {
         highlightedChunks.forEach(MapChunk::clearHighlight);
         highlightedChunks.clear();
+        ChunkGrid current = grid.get();
+        int chunkSize = current.chunkSize;
 
         for (Vector2ic c : coordinates) {
-            int cx = c.x() / chunkSize;
-            int cy = c.y() / chunkSize;
-
-            if (cx >= xChunks || cx < 0 || cy >= yChunks || cy < 0) continue;
+            MapChunk chunk = current.chunkOf(c.x(), c.y());
+            if (chunk == null) continue;
 
-            MapChunk chunk = map[cx][cy];
             highlightedChunks.add(chunk);
 
-            int rx = c.x() - cx * chunkSize;
-            int ry = c.y() - cy * chunkSize;
+            int rx = c.x() - (c.x() / chunkSize) * chunkSize;
+            int ry = c.y() - (c.y() / chunkSize) * chunkSize;
 
             chunk.highlight(rx, ry);
         }
@@ -279,7 +364,16 @@ public class TileMap extends AbstractMap {
 
     @Override
     public Vector2ic getSize() {
-        return new Vector2i(xChunks * chunkSize, yChunks * chunkSize);
+        ChunkGrid current = grid.get();
+        return new Vector2i(current.xChunks * current.chunkSize, current.yChunks * current.chunkSize);
+    }
+
+    /**
+     * @return the version of the current map. Every change to the map results in a higher version number, such that two
+     * equal version numbers imply equal maps.
+     */
+    public int getVersion() {
+        return grid.get().version;
     }
 
     @Override
@@ -289,6 +383,11 @@ public class TileMap extends AbstractMap {
 
     @Override
     public void cleanup() {
+        stopStreaming();
+        if (meshes != null) {
+            meshes.cleanup();
+            meshes = null;
+        }
         changeListeners.clear();
         highlightedChunks.clear();
     }
@@ -306,16 +405,16 @@ public class TileMap extends AbstractMap {
             out.writeObject(tileType);
         }
 
-        synchronized (this) {
-            out.writeInt(chunkSize);
-            out.writeInt(xChunks);
-            out.writeInt(yChunks);
+        ChunkGrid current = grid.get();
+        out.writeInt(current.chunkSize);
+        out.writeInt(current.xChunks);
+        out.writeInt(current.yChunks);
 
-            // now write the chunks themselves
-            for (MapChunk[] mapChunks : map) {
-                for (MapChunk chunk : mapChunks) {
-                    chunk.writeToFile(out);
-                }
+        // now write the chunks themselves
+        for (int mx = 0; mx < current.xChunks; mx++) {
+            for (int my = 0; my < current.yChunks; my++) {
+                MapChunk chunk = getCompleteChunk(current, mx, my);
+                chunk.writeToFile(out);
             }
         }
     }
@@ -324,22 +423,24 @@ public class TileMap extends AbstractMap {
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
         // get number of tile types
         int nrOfTileTypes = in.readInt();
-        Map<Integer, MapTile> types = new HashMap<>(nrOfTileTypes);
+        Map<Integer, MapTile> types = new HashMap<>(nrOfTileTypes + 1);
+        // the default tile is not registered, and thus not written
+        types.put(MapTile.DEFAULT_TILE.tileID, MapTile.DEFAULT_TILE);
 
-        // read tiles in order
+        // the chunks refer to the tiles by their identity
         for (int i = 0; i < nrOfTileTypes; i++) {
-            types.put(i, (MapTile) in.readObject());
+            MapTile tile = (MapTile) in.readObject();
+            types.put(tile.tileID, tile);
         }
 
         chunkSize = in.readInt();
-        this.realChunkSize = chunkSize * Settings.TILE_SIZE;
-        this.xChunks = in.readInt();
-        this.yChunks = in.readInt();
+        int xChunks = in.readInt();
+        int yChunks = in.readInt();
 
         Logger.DEBUG.printf("Tilemap: %s x %s", chunkSize * xChunks, chunkSize * yChunks);
 
         // now read chunks themselves
-        map = new MapChunk[xChunks][];
+        MapChunk[][] map = new MapChunk[xChunks][];
         for (int mx = 0; mx < xChunks; mx++) {
             MapChunk[] yStrip = new MapChunk[yChunks];
 
@@ -350,39 +451,97 @@ public class TileMap extends AbstractMap {
             }
             map[mx] = yStrip;
         }
+
+        setChunks(chunkSize, map);
     }
 
-    public MapTile.Instance getTileData(int x, int y) {
-        if (x < 0 || y < 0) return null;
+    /**
+     * replaces the complete map with the given chunks, as a result of reading a map.
+     * @param chunkSize the size of each chunk
+     * @param map       the new chunks, which should not be modified after calling this method
+     */
+    void setChunks(int chunkSize, MapChunk[][] map) {
+        stopStreaming();
+        this.chunkSize = chunkSize;
 
-        int cx = x / chunkSize;
-        int cy = y / chunkSize;
+        int xChunks = map.length;
+        int yChunks = xChunks == 0 ? 0 : map[0].length;
+        grid.getAndUpdate(old -> new ChunkGrid(old.version + 1, chunkSize, xChunks, yChunks, map));
+        changeListeners.forEach(ChangeListener::onMapChange);
+    }
 
-        if (cx >= xChunks || cy >= yChunks) return null;
+    /** @return the current snapshot of the chunks of this map */
+    ChunkGrid snapshot() {
+        return grid.get();
+    }
 
-        MapChunk chunk = map[cx][cy];
+    /**
+     * @return the given chunk of the given snapshot, or if it is not in memory, the chunk that it represents.
+     */
+    MapChunk getCompleteChunk(ChunkGrid source, int cx, int cy) throws IOException {
+        MapChunk chunk = source.chunks[cx][cy];
+        if (streamer != null && chunk instanceof MapChunkPlaceholder) {
+            return streamer.getComplete(cx, cy);
+        }
+        return chunk;
+    }
 
-        int rx = x - cx * chunkSize;
-        int ry = y - cy * chunkSize;
-        return chunk.get(rx, ry);
+    public MapTile.Instance getTileData(int x, int y) {
+        return grid.get().get(x, y);
     }
 
     public void setTile(int x, int y, MapTile.Instance instance) {
-        int cx = x / chunkSize;
-        int cy = y / chunkSize;
+        ChunkGrid current;
+        MapChunk oldChunk;
+        MapChunk newChunk;
 
-        if (cx >= xChunks || cx < 0 || cy >= yChunks || cy < 0) return;
+        do {
+            current = grid.get();
+            oldChunk = current.chunkOf(x, y);
+            if (oldChunk == null || oldChunk instanceof MapChunkPlaceholder) return;
 
-        MapChunk chunk = map[cx][cy];
+            int rx = x - (x / current.chunkSize) * current.chunkSize;
+            int ry = y - (y / current.chunkSize) * current.chunkSize;
 
-        int rx = x - cx * chunkSize;
-        int ry = y - cy * chunkSize;
+            // copy-on-write: published chunks are never modified
+            newChunk = oldChunk.copy();
+            newChunk.set(rx, ry, instance);
 
-        chunk.set(rx, ry, instance);
+        } while (!grid.compareAndSet(current, current.with(x / current.chunkSize, y / current.chunkSize, newChunk)));
+
+        if (highlightedChunks.remove(oldChunk)) {
+            highlightedChunks.add(newChunk);
+        }
 
         changeListeners.forEach(ChangeListener::onMapChange);
     }
 
+    /** @return the chunk on chunk coordinate (cx, cy) */
+    MapChunk getChunk(int cx, int cy) {
+        return grid.get().chunks[cx][cy];
+    }
+
+    /**
+     * replaces the chunk on chunk coordinate (cx, cy), if it has not been changed since it was read. This may be called
+     * from any thread: the change listeners are notified on the next {@link #update(float)}.
+     * @param expected    the chunk that is expected on the given coordinate
+     * @param replacement the chunk to replace it with
+     * @return true if the chunk was replaced, false if the chunk on the coordinate was not the expected chunk.
+     */
+    boolean replaceChunk(int cx, int cy, MapChunk expected, MapChunk replacement) {
+        if (expected == replacement) return true;
+
+        ChunkGrid current;
+        do {
+            current = grid.get();
+            if (current.chunks[cx][cy] != expected) return false;
+
+        } while (!grid.compareAndSet(current, current.with(cx, cy, replacement)));
+
+        hasStreamedChanges.set(true);
+        return true;
+    }
+
     public void replaceTile(int x, int y, MapTile newShape) {
         MapTile.Instance oldTile = getTileData(x, y);
         setTile(x, y, oldTile.replaceWith(newShape));
@@ -392,8 +551,10 @@ public class TileMap extends AbstractMap {
     public Collection<Vector2i> findPath(
             Vector2ic beginPosition, Vector2ic target, float walkSpeed, float climbSpeed
     ) {
-        int xMax = (xChunks * chunkSize) - 1;
-        int yMax = (yChunks * chunkSize) - 1;
+        // use one snapshot for the complete search
+        ChunkGrid source = grid.get();
+        int xMax = (source.xChunks * source.chunkSize) - 1;
+        int yMax = (source.yChunks * source.chunkSize) - 1;
 
         return new AStar(beginPosition, target, 0, 0, xMax, yMax) {
             @Override
@@ -402,9 +563,10 @@ public class TileMap extends AbstractMap {
                 float duration = 0;
 
                 if (x1 == x2 || y1 == y2) {
-                    MapTile.Instance fromTile = getTileData(x1, y1);
-                    MapTile.Instance toTile = getTileData(x2, y2);
-                    assert fromTile != null && toTile != null;
+                    MapTile.Instance fromTile = source.get(x1, y1);
+                    MapTile.Instance toTile = source.get(x2, y2);
+                    // the path may start outside the map, e.g. after being launched by a collision
+                    if (fromTile == null || toTile == null) return Float.POSITIVE_INFINITY;
 
                     Direction move = Direction.get(x2 - x1, y2 - y1);
 
@@ -462,11 +624,67 @@ public class TileMap extends AbstractMap {
 
     @Override
     public BoundingBox getHitbox(float gameTime) {
-        return new BoundingBox(0, 0, Float.NEGATIVE_INFINITY, xChunks * chunkSize * TILE_SIZE, yChunks * chunkSize * TILE_SIZE, Float.POSITIVE_INFINITY);
+        ChunkGrid current = grid.get();
+        float xSize = current.xChunks * current.chunkSize * TILE_SIZE;
+        float ySize = current.yChunks * current.chunkSize * TILE_SIZE;
+        return new BoundingBox(0, 0, Float.NEGATIVE_INFINITY, xSize, ySize, Float.POSITIVE_INFINITY);
     }
 
     @Override
     public void restore(Game game) {
         init(game);
     }
+
+    /**
+     * an immutable snapshot of the chunks of a map. Chunks that are part of a published snapshot are never modified.
+     */
+    static final class ChunkGrid {
+        static final ChunkGrid EMPTY = new ChunkGrid(0, 1, 0, 0, new MapChunk[0][0]);
+
+        final int version;
+        final int chunkSize;
+        final int xChunks;
+        final int yChunks;
+        final MapChunk[][] chunks;
+
+        ChunkGrid(int version, int chunkSize, int xChunks, int yChunks, MapChunk[][] chunks) {
+            this.version = version;
+            this.chunkSize = chunkSize;
+            this.xChunks = xChunks;
+            this.yChunks = yChunks;
+            this.chunks = chunks;
+        }
+
+        /** @return the chunk containing coordinate (x, y), or null if it is out of bounds */
+        MapChunk chunkOf(int x, int y) {
+            if (x < 0 || y < 0) return null;
+
+            int cx = x / chunkSize;
+            int cy = y / chunkSize;
+
+            if (cx >= xChunks || cy >= yChunks) return null;
+
+            return chunks[cx][cy];
+        }
+
+        /** @return the tile on coordinate (x, y), or null if it is out of bounds */
+        MapTile.Instance get(int x, int y) {
+            MapChunk chunk = chunkOf(x, y);
+            if (chunk == null) return null;
+
+            return chunk.get(x % chunkSize, y % chunkSize);
+        }
+
+        /**
+         * @return a new snapshot with the chunk on chunk coordinate (cx, cy) replaced by the given chunk. Only the
+         * affected column of chunks is copied.
+         */
+        ChunkGrid with(int cx, int cy, MapChunk chunk) {
+            MapChunk[][] newChunks = chunks.clone();
+            newChunks[cx] = chunks[cx].clone();
+            newChunks[cx][cy] = chunk;
+
+            return new ChunkGrid(version + 1, chunkSize, xChunks, yChunks, newChunks);
+        }
+    }
 }
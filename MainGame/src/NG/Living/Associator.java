@@ -2,22 +2,33 @@ package NG.Living;
 
 import NG.DataStructures.PriorityCollection;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
-import java.util.function.BiFunction;
 
 /**
+ * Associates stimuli that occur frequently after each other (Hebbian learning). Every stimulus type is given a small
+ * integer id when it is first seen, and the associations of each unordered pair of ids are kept in a fixed number of
+ * slots of a triangular matrix. Recording and querying does not allocate, except when a new stimulus type is seen.
+ * <p>
+ * All values of a pair of ids, and all values of the attention, share a scale factor. Decaying multiplies only this
+ * scale, and reads apply it, such that decay takes constant time. When a scale becomes too small to be accurate, it is
+ * multiplied into the values it applies to.
  * @author Geert van Ieperen created on 22-2-2019.
  */
-public class Associator<T extends Serializable> implements Serializable {
+public class Associator<T extends StimulusType> implements Serializable {
     /** fraction of importance lost per incoming stimulus */
     private static final float ATTENTION_REDUCTION = 0.05f;
     /** fraction of association lost per new association */
     private static final float ASSOCIATION_REDUCTION = 0.01f;
-    /** function that determine the 'growth' of an association when an earlier association is known */
-    private static final BiFunction<Float, Float, Float> ASSOCIATION_FUNCTION = Float::sum;
+    /** the number of stimulus types that can be associated, which bounds the memory of an associator */
+    public static final int MAX_STIMULUS_TYPES = 64;
+    private static final int INITIAL_TYPE_CAPACITY = 16;
+    /** when a scale drops below this value, it is multiplied into its values */
+    private static final float RENORMALIZE_THRESHOLD = 1e-20f;
 
     /** the class type where this associator is mapping to */
     private Class<T> mapClass;
@@ -25,20 +36,50 @@ public class Associator<T extends Serializable> implements Serializable {
     private int associationMapSize;
     /** maximum number of elements in the work-memory */
     private int attentionSize; // magic number 7 +/- 2 (or 4 +/- 1)
-    /** maps two stimuli to a number of other stimuli, each with an intensity value */
-    private Map<StimulusPair, PriorityCollection<T>> memory; // TODO pairlist
-    /** the stimuli that happened recently with the respective dominance */
-    private PriorityCollection<StimulusType> attention;
+
+    /** maps each known stimulus type to its id */
+    private Map<StimulusType, Integer> typeIds;
+    /** maps each id to its stimulus type */
+    private StimulusType[] types;
+    private int nofTypes = 0;
+
+    /** for each pair of ids, the number of associations in use */
+    private int[] associationCounts;
+    /** for each pair of ids, {@code associationMapSize} slots with the id of the associated stimulus */
+    private int[] associationIds;
+    /** the intensity of the association in the slot of the same index, relative to the scale of its pair */
+    private float[] associationValues;
+    /** for each pair of ids, the factor to apply to the values of its slots */
+    private float[] associationScales;
+
+    /** the ids of the stimuli that happened recently */
+    private int[] attentionIds;
+    /** the dominance of the stimulus in the attention slot of the same index, relative to {@link #attentionScale} */
+    private float[] attentionValues;
+    /** the factor to apply to all attention values */
+    private float attentionScale = 1;
+    private int attentionCount = 0;
 
     /**
      * allows association of stimuli that occur frequently after each other (Hebbian learning)
      */
     public Associator(Class<T> mapClass, int attentionSize, int associationSize) {
         this.mapClass = mapClass;
-        memory = new HashMap<>();
         this.attentionSize = attentionSize;
-        attention = new PriorityCollection<>(new StimulusType[attentionSize]);
-        associationMapSize = associationSize;
+        this.associationMapSize = associationSize;
+
+        typeIds = new HashMap<>();
+        types = new StimulusType[INITIAL_TYPE_CAPACITY];
+
+        int nofPairs = nofPairs(INITIAL_TYPE_CAPACITY);
+        associationCounts = new int[nofPairs];
+        associationIds = new int[nofPairs * associationSize];
+        associationValues = new float[nofPairs * associationSize];
+        associationScales = new float[nofPairs];
+        Arrays.fill(associationScales, 1);
+
+        attentionIds = new int[attentionSize];
+        attentionValues = new float[attentionSize];
     }
 
     /**
@@ -46,25 +87,50 @@ public class Associator<T extends Serializable> implements Serializable {
      * stimulus.
      * @param event a stimulus to query
      * @return a collection of size {@code resultSize} with the stimuli most closely related to the given stimulus.
-     * @see #process(StimulusType, T, float)
+     * @see #query(StimulusType, StimulusType[], float[])
      */
     public PriorityCollection<T> query(StimulusType event, int resultSize) {
+        @SuppressWarnings("unchecked")
+        T[] elements = (T[]) Array.newInstance(mapClass, resultSize);
+        float[] relevances = new float[resultSize];
+
+        int size = query(event, elements, relevances);
+
         PriorityCollection<T> results = new PriorityCollection<>(mapClass, resultSize);
+        for (int i = 0; i < size; i++) {
+            results.add(elements[i], relevances[i], Math::max);
+        }
+        return results;
+    }
 
-        for (StimulusType stimulus : attention) {
-            if (stimulus == null) break;
-            StimulusPair key = new StimulusPair(event, stimulus);
+    /**
+     * collects the associations most closely related to the given stimulus into the given arrays, without allocating.
+     * Does not actually record the stimulus.
+     * @param event      a stimulus to query
+     * @param elements   the array to write the associated stimuli to. Its length determines the number of results.
+     * @param relevances the array to write the relevance of each associated stimulus to, of at least the same length
+     * @return the number of associations written to the arrays
+     */
+    public int query(StimulusType event, T[] elements, float[] relevances) {
+        Integer eventId = typeIds.get(event);
+        if (eventId == null) return 0;
+
+        int size = 0;
+        for (int a = 0; a < attentionCount; a++) {
+            int pair = pairIndex(eventId, attentionIds[a]);
+            int offset = pair * associationMapSize;
+            int count = associationCounts[pair];
+            float scale = associationScales[pair];
 
-            if (memory.containsKey(key)) {
-                PriorityCollection<T> associations = memory.get(key);
-                results.addAll(associations);
+            for (int i = offset; i < offset + count; i++) {
+                T element = mapClass.cast(types[associationIds[i]]);
+                size = addMaximum(elements, relevances, size, element, associationValues[i] * scale);
             }
         }
 
-        return results;
+        return size;
     }
 
-
     /**
      * notifies this associator about the given stimulus. Future calls to {@link #query(StimulusType, int)} may return this
      * stimulus if the argument is one of the stimuli currently in the attention space, and the importance is high
@@ -74,23 +140,62 @@ public class Associator<T extends Serializable> implements Serializable {
      *                   stimuli are easiest forgotten.
      */// TODO anti-hebbian learning
     public void record(T event, float importance) {
-        for (StimulusType first : attention) {
-            if (first == null) break; // break one layer
+        int eventId = idOf(event);
+        if (eventId < 0) return;
+
+        // every ordered pair, such that a pair of different stimuli is strengthened twice
+        for (int i = 0; i < attentionCount; i++) {
+            for (int j = 0; j < attentionCount; j++) {
+                int pair = pairIndex(attentionIds[i], attentionIds[j]);
+                int offset = pair * associationMapSize;
+                int count = associationCounts[pair];
 
-            for (StimulusType second : attention) {
-                if (second == null) break; // break one layer
-                StimulusPair pair = new StimulusPair(first, second);
+                float scale = associationScales[pair] * (1 - ASSOCIATION_REDUCTION);
+                if (scale < RENORMALIZE_THRESHOLD) {
+                    for (int k = offset; k < offset + count; k++) {
+                        associationValues[k] *= scale;
+                    }
+                    scale = 1;
+                }
+                associationScales[pair] = scale;
 
-                PriorityCollection<T> associations = memory.computeIfAbsent(pair, this::createAssociations);
-                associations.reduceImportance((v) -> v *= (1 - ASSOCIATION_REDUCTION));
-                associations.add(event, importance, ASSOCIATION_FUNCTION);
+                associationCounts[pair] = addSum(offset, count, eventId, importance / scale);
             }
         }
     }
 
     public void notice(StimulusType event, float importance) {
-        attention.reduceImportance((v) -> v *= (1 - ATTENTION_REDUCTION));
-        attention.add(event, importance, Math::max);
+        attentionScale *= (1 - ATTENTION_REDUCTION);
+        if (attentionScale < RENORMALIZE_THRESHOLD) {
+            for (int i = 0; i < attentionCount; i++) {
+                attentionValues[i] *= attentionScale;
+            }
+            attentionScale = 1;
+        }
+
+        int eventId = idOf(event);
+        if (eventId < 0) return;
+        float value = importance / attentionScale;
+
+        for (int i = 0; i < attentionCount; i++) {
+            if (attentionIds[i] == eventId) {
+                attentionValues[i] = Math.max(attentionValues[i], value);
+                return;
+            }
+        }
+
+        if (attentionCount < attentionSize) {
+            attentionIds[attentionCount] = eventId;
+            attentionValues[attentionCount] = value;
+            attentionCount++;
+            return;
+        }
+
+        int least = indexOfMinimum(attentionValues, 0, attentionCount);
+        if (value >= attentionValues[least]) {
+            attentionIds[least] = eventId;
+            attentionValues[least] = value;
+        }
     }
 
     /**
@@ -109,52 +214,196 @@ public class Associator<T extends Serializable> implements Serializable {
     }
 
     /**
-     * gives an indication of how many stimuli are associated.
+     * gives an indication of how many stimuli are associated. This is bounded by {@code associationSize} for each pair
+     * of the at most {@link #MAX_STIMULUS_TYPES} stimulus types.
      * @return the sum of for each pair of stimuli, the number of associated values.
      */
     public int getNrOfAssociations() {
         int size = 0;
-        for (PriorityCollection associations : memory.values()) {
-            size += associations.size();
+        for (int i = 0; i < nofPairs(nofTypes); i++) {
+            size += associationCounts[i];
+        }
+        return size;
+    }
+
+    /**
+     * adds the given value to the association with the given id in the slots starting at offset. If the slots are full,
+     * the least associated stimulus is replaced if it is less important.
+     * @param importance the importance relative to the scale of the pair of the slots
+     * @return the new number of used slots
+     */
+    private int addSum(int offset, int count, int id, float importance) {
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            if (associationIds[i] == id) {
+                associationValues[i] += importance;
+                return count;
+            }
+        }
+
+        if (count < associationMapSize) {
+            associationIds[end] = id;
+            associationValues[end] = importance;
+            return count + 1;
+        }
+
+        int least = indexOfMinimum(associationValues, offset, end);
+        if (importance >= associationValues[least]) {
+            associationIds[least] = id;
+            associationValues[least] = importance;
+        }
+        return count;
+    }
+
+    /**
+     * adds the element to the first size elements of the given arrays, keeping the maximum relevance if it is already
+     * present. If the arrays are full, the least relevant element is replaced if it is less relevant.
+     * @return the new number of elements
+     */
+    private static <T> int addMaximum(T[] elements, float[] relevances, int size, T element, float relevance) {
+        for (int i = 0; i < size; i++) {
+            if (elements[i] == element) {
+                relevances[i] = Math.max(relevances[i], relevance);
+                return size;
+            }
+        }
+
+        if (size < elements.length) {
+            elements[size] = element;
+            relevances[size] = relevance;
+            return size + 1;
+        }
+
+        int least = indexOfMinimum(relevances, 0, size);
+        if (relevance >= relevances[least]) {
+            elements[least] = element;
+            relevances[least] = relevance;
         }
         return size;
     }
 
-    private PriorityCollection<T> createAssociations(StimulusPair pair) {
-        return new PriorityCollection<>(mapClass, associationMapSize);
+    private static int indexOfMinimum(float[] values, int from, int to) {
+        int least = from;
+        for (int i = from + 1; i < to; i++) {
+            if (values[i] < values[least]) least = i;
+        }
+        return least;
+    }
+
+    /**
+     * @return the id of the given stimulus type, or -1 if there are already {@link #MAX_STIMULUS_TYPES} other types
+     */
+    private int idOf(StimulusType type) {
+        Integer id = typeIds.get(type);
+        if (id != null) return id;
+        if (nofTypes == MAX_STIMULUS_TYPES) return -1;
+
+        if (nofTypes == types.length) {
+            // rows of the triangular matrix are appended, such that the existing pairs keep their index
+            int capacity = Math.min(types.length * 2, MAX_STIMULUS_TYPES);
+            int nofPairs = nofPairs(capacity);
+            types = Arrays.copyOf(types, capacity);
+            associationCounts = Arrays.copyOf(associationCounts, nofPairs);
+            associationIds = Arrays.copyOf(associationIds, nofPairs * associationMapSize);
+            associationValues = Arrays.copyOf(associationValues, nofPairs * associationMapSize);
+            int oldNofPairs = associationScales.length;
+            associationScales = Arrays.copyOf(associationScales, nofPairs);
+            Arrays.fill(associationScales, oldNofPairs, nofPairs, 1);
+        }
+
+        int newId = nofTypes++;
+        types[newId] = type;
+        typeIds.put(type, newId);
+        return newId;
     }
 
     /**
-     * a symmetric pair of {@link StimulusType} objects
+     * writes the stimulus types as references to the tables of the output, followed by the used association slots and
+     * the attention. Counts and ids are written as variable-length integers. See {@link SoulCodec}
+     * @param out the record to write to
      */
-    private static class StimulusPair implements Serializable {
-        final StimulusType one;
-        final StimulusType two;
+    public void write(SoulCodec.Output out) throws IOException {
+        out.writeVarInt(attentionSize);
+        out.writeVarInt(associationMapSize);
 
-        private StimulusPair(StimulusType one, StimulusType two) {
-            this.one = one;
-            this.two = two;
+        out.writeVarInt(nofTypes);
+        for (int i = 0; i < nofTypes; i++) {
+            out.writeType(types[i]);
         }
 
-        @Override
-        public boolean equals(Object obj) {
-            if (!(obj instanceof StimulusPair)) return false;
-            StimulusPair other = (StimulusPair) obj;
+        for (int pair = 0; pair < nofPairs(nofTypes); pair++) {
+            int offset = pair * associationMapSize;
+            int count = associationCounts[pair];
 
-            if (Objects.equals(one, other.one) && Objects.equals(two, other.two)) return true;
-            return Objects.equals(one, other.two) && Objects.equals(two, other.one);
+            out.writeVarInt(count);
+            for (int i = offset; i < offset + count; i++) {
+                out.writeVarInt(associationIds[i]);
+                out.writeFloat(associationValues[i] * associationScales[pair]);
+            }
         }
 
-        @Override
-        public int hashCode() {
-            int oneHash = one.hashCode();
-            int twoHash = two.hashCode();
-            return (oneHash == twoHash) ? oneHash : oneHash ^ twoHash; // reflexive
+        out.writeVarInt(attentionCount);
+        for (int i = 0; i < attentionCount; i++) {
+            out.writeVarInt(attentionIds[i]);
+            out.writeFloat(attentionValues[i] * attentionScale);
+        }
+    }
+
+    /**
+     * reads an associator written by {@link #write(SoulCodec.Output)}
+     * @param in       the record to read from
+     * @param mapClass the class of the associated stimuli
+     * @return a new associator with the same associations
+     */
+    public static <T extends StimulusType> Associator<T> read(SoulCodec.Input in, Class<T> mapClass)
+            throws IOException {
+        int attentionSize = in.readVarInt();
+        int associationSize = in.readVarInt();
+        Associator<T> associator = new Associator<>(mapClass, attentionSize, associationSize);
+
+        int nofTypes = in.readVarInt();
+        if (nofTypes > MAX_STIMULUS_TYPES) throw new IOException("Too many stimulus types: " + nofTypes);
+        for (int i = 0; i < nofTypes; i++) {
+            StimulusType type = in.readType();
+            if (associator.idOf(type) != i) throw new IOException("Duplicate stimulus type " + type);
         }
 
-        @Override
-        public String toString() {
-            return "[" + one + ", " + two + "]";
+        for (int pair = 0; pair < nofPairs(nofTypes); pair++) {
+            int offset = pair * associationSize;
+            int count = in.readVarInt();
+            if (count > associationSize) throw new IOException("Too many associations: " + count);
+
+            associator.associationCounts[pair] = count;
+            for (int i = offset; i < offset + count; i++) {
+                associator.associationIds[i] = readId(in, nofTypes);
+                associator.associationValues[i] = in.readFloat();
+            }
         }
+
+        int attentionCount = in.readVarInt();
+        if (attentionCount > attentionSize) throw new IOException("Too many attention elements: " + attentionCount);
+        associator.attentionCount = attentionCount;
+        for (int i = 0; i < attentionCount; i++) {
+            associator.attentionIds[i] = readId(in, nofTypes);
+            associator.attentionValues[i] = in.readFloat();
+        }
+
+        return associator;
+    }
+
+    private static int readId(SoulCodec.Input in, int nofTypes) throws IOException {
+        int id = in.readVarInt();
+        if (id >= nofTypes) throw new IOException("Unknown stimulus id " + id);
+        return id;
+    }
+
+    /** @return the index of the unordered pair of the given ids in the triangular matrix */
+    private static int pairIndex(int a, int b) {
+        return (a > b) ? (a * (a + 1) / 2 + b) : (b * (b + 1) / 2 + a);
+    }
+
+    /** @return the number of unordered pairs of ids less than the given number of types */
+    private static int nofPairs(int nofTypes) {
+        return nofTypes * (nofTypes + 1) / 2;
     }
 }
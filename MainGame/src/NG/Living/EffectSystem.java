@@ -0,0 +1,539 @@
+package NG.Living;
+
+import NG.Actions.Attacks.DamageType;
+import NG.CollisionDetection.GameState;
+import NG.Core.Game;
+import NG.Core.GameSystem;
+import NG.Entities.Entity;
+import NG.Entities.MonsterEntity;
+import NG.GameEvent.Event;
+import NG.GameEvent.EventLoop;
+import NG.Tools.Logger;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Applies the lasting effects on monster souls. Effects are stored by kind in pools of primitive arrays, and each kind
+ * is applied to all souls in one loop by {@link #process(float)}, which is called on each update of this system.
+ * An effect with a limited duration is removed by an event on the {@link EventLoop} of the game at the end of its
+ * duration, such that no update has to check which effects expire. Effects on souls that died are removed on the next
+ * update.
+ * <p>
+ * Each effect is identified by a handle, which stays valid until the effect is removed. Removing an effect twice, or
+ * removing an effect after its handle is reused, has no effect, unless one handle is reused more than 2^30 times.
+ * <p>
+ * The souls are saved with their monsters, and a saved system refers to the souls of its effects by their id (see
+ * {@link MonsterSoul#getId()}). The effects are restored on the souls of the monsters of the game state on the first
+ * update after loading, and get new handles. Effects on souls that are not in the game state are dropped.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class EffectSystem implements GameSystem, Externalizable {
+    private static final DamageType[] DAMAGE_TYPES = DamageType.values();
+    /** the kinds of effects, stored in the high bits of a handle */
+    private static final int KIND_DAMAGE = 0;
+    private static final int KIND_DEFENCE = 1;
+
+    private Game game;
+    private final DamageOverTime damage = new DamageOverTime();
+    private final DefenceMultiplier defence = new DefenceMultiplier();
+    /** the ids of the souls of the effects that were read, and the effects written with these souls */
+    private long[] savedSoulIds;
+    private byte[] savedEffects;
+
+    @Override
+    public void init(Game game) {
+        this.game = game;
+    }
+
+    @Override
+    public void update(float gameTime) {
+        if (savedEffects != null) restoreSaved(gameTime);
+        process(gameTime);
+    }
+
+    /** restores the effects that were read on the souls of the monsters of the game state */
+    private void restoreSaved(float gameTime) {
+        Map<Long, MonsterSoul> soulsById = new HashMap<>();
+        for (Entity entity : game.get(GameState.class).entities()) {
+            if (!(entity instanceof MonsterEntity)) continue;
+            MonsterSoul soul = ((MonsterEntity) entity).getController();
+            soulsById.put(soul.getId(), soul);
+        }
+
+        // souls that are not found are null, and their effects are dropped
+        List<MonsterSoul> souls = new ArrayList<>(savedSoulIds.length);
+        for (long id : savedSoulIds) {
+            souls.add(soulsById.get(id));
+        }
+
+        try {
+            read(new DataInputStream(new ByteArrayInputStream(savedEffects)), souls).restoreTo(this, gameTime);
+
+        } catch (IOException ex) {
+            Logger.ERROR.print("Could not restore the effects: " + ex);
+        }
+
+        savedSoulIds = null;
+        savedEffects = null;
+    }
+
+    /**
+     * deals damage to the given soul over a period of time
+     * @param soul           the receiver of the damage
+     * @param type           the type of damage
+     * @param powerPerSecond the power of the damage dealt per second, before defences are applied
+     * @param startTime      the current game time
+     * @param duration       the duration in seconds, or infinity to last until removed
+     * @return a handle of the effect, which can be passed to {@link #remove(long)}
+     */
+    public synchronized long addDamageOverTime(
+            MonsterSoul soul, DamageType type, float powerPerSecond, float startTime, float duration
+    ) {
+        int slot = damage.allocate(soul, type, startTime + duration);
+        damage.rates[slot] = powerPerSecond;
+        damage.lastTimes[slot] = startTime;
+        damage.pending[slot] = 0;
+
+        return scheduleExpiry(damage, KIND_DAMAGE, slot);
+    }
+
+    /**
+     * multiplies the defence of the given soul against one type of damage for a period of time. Multipliers of the
+     * same type multiply each other.
+     * @param soul       the receiver of the effect
+     * @param type       the type of damage
+     * @param multiplier the factor applied to the defence, where a value larger than 1 reduces the damage taken
+     * @param startTime  the current game time
+     * @param duration   the duration in seconds, or infinity to last until removed
+     * @return a handle of the effect, which can be passed to {@link #remove(long)}
+     */
+    public synchronized long addDefenceMultiplier(
+            MonsterSoul soul, DamageType type, float multiplier, float startTime, float duration
+    ) {
+        assert multiplier > 0 : multiplier;
+        int slot = defence.allocate(soul, type, startTime + duration);
+        defence.multipliers[slot] = multiplier;
+        soul.defenceMultipliers[type.ordinal()] *= multiplier;
+        soul.nofDefenceMultipliers[type.ordinal()]++;
+
+        return scheduleExpiry(defence, KIND_DEFENCE, slot);
+    }
+
+    /**
+     * removes the effect with the given handle, if it still exists
+     * @param handle a handle returned when adding the effect
+     */
+    public synchronized void remove(long handle) {
+        Pool pool = (handle >>> Pool.KIND_SHIFT) == KIND_DAMAGE ? damage : defence;
+        int slot = pool.slotOf(handle);
+        if (slot >= 0) pool.remove(slot);
+    }
+
+    /**
+     * applies all effects up to the given time
+     * @param currentTime the current game time
+     */
+    public synchronized void process(float currentTime) {
+        // effects on the dead are removed, iterating backwards as removal moves the last element
+        for (int i = damage.size - 1; i >= 0; i--) {
+            if (damage.souls[i].getTimeOfDeath() <= currentTime) damage.remove(i);
+        }
+        for (int i = defence.size - 1; i >= 0; i--) {
+            if (defence.souls[i].getTimeOfDeath() <= currentTime) defence.remove(i);
+        }
+
+        damage.apply(currentTime);
+    }
+
+    /** @return the number of active effects */
+    public synchronized int size() {
+        return damage.size + defence.size;
+    }
+
+    private long scheduleExpiry(Pool pool, int kind, int slot) {
+        long handle = pool.handleOf(slot) | ((long) kind << Pool.KIND_SHIFT);
+        float endTime = pool.endTimes[slot];
+
+        if (endTime < Float.POSITIVE_INFINITY && game != null) {
+            game.ifAvailable(EventLoop.class, loop -> loop.addEvent(new ExpiryEvent(game, this, endTime, handle)));
+        }
+
+        return handle;
+    }
+
+    @Override
+    public synchronized void cleanup() {
+        while (damage.size > 0) damage.remove(damage.size - 1);
+        while (defence.size > 0) defence.remove(defence.size - 1);
+    }
+
+    /**
+     * writes the effects of the given system that act on the given souls. Effects on other souls are not written.
+     * @param out     the output to write to
+     * @param effects the effects to write, or null if there are none
+     * @param souls   the souls to write the effects of, which are written by index in this list
+     * @see #read(DataInput, List)
+     */
+    public static void write(DataOutput out, EffectSystem effects, List<MonsterSoul> souls) throws IOException {
+        if (effects == null) {
+            out.writeInt(0);
+            out.writeInt(0);
+            return;
+        }
+
+        Map<MonsterSoul, Integer> indices = new IdentityHashMap<>();
+        for (int i = 0; i < souls.size(); i++) {
+            indices.put(souls.get(i), i);
+        }
+
+        synchronized (effects) {
+            DamageOverTime damage = effects.damage;
+            damage.write(out, indices);
+            for (int i = 0; i < damage.size; i++) {
+                if (!indices.containsKey(damage.souls[i])) continue;
+                out.writeFloat(damage.rates[i]);
+                out.writeFloat(damage.lastTimes[i]);
+                out.writeFloat(damage.pending[i]);
+            }
+
+            DefenceMultiplier defence = effects.defence;
+            defence.write(out, indices);
+            for (int i = 0; i < defence.size; i++) {
+                if (!indices.containsKey(defence.souls[i])) continue;
+                out.writeFloat(defence.multipliers[i]);
+            }
+        }
+    }
+
+    /**
+     * reads effects written by {@link #write(DataOutput, EffectSystem, List)}
+     * @param in    the input to read from
+     * @param souls the souls that were written, in the same order. A soul may be null to drop its effects.
+     * @return the effects, to be restored with {@link Restore#restoreTo(EffectSystem, float)}
+     */
+    public static Restore read(DataInput in, List<MonsterSoul> souls) throws IOException {
+        Restore restore = new Restore();
+
+        restore.damage.read(in, souls);
+        for (int i = 0; i < restore.damage.size; i++) {
+            restore.damage.rates[i] = in.readFloat();
+            restore.damage.lastTimes[i] = in.readFloat();
+            restore.damage.pending[i] = in.readFloat();
+        }
+
+        restore.defence.read(in, souls);
+        for (int i = 0; i < restore.defence.size; i++) {
+            restore.defence.multipliers[i] = in.readFloat();
+        }
+
+        return restore;
+    }
+
+    @Override
+    public synchronized void writeExternal(ObjectOutput out) throws IOException {
+        // each soul once, in the order of its first effect
+        Set<MonsterSoul> soulSet = new LinkedHashSet<>();
+        for (int i = 0; i < damage.size; i++) {
+            soulSet.add(damage.souls[i]);
+        }
+        for (int i = 0; i < defence.size; i++) {
+            soulSet.add(defence.souls[i]);
+        }
+        List<MonsterSoul> souls = new ArrayList<>(soulSet);
+
+        out.writeInt(souls.size());
+        for (MonsterSoul soul : souls) {
+            out.writeLong(soul.getId());
+        }
+
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        write(new DataOutputStream(block), this, souls);
+        out.writeInt(block.size());
+        out.write(block.toByteArray());
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        int nofSouls = in.readInt();
+        if (nofSouls < 0) throw new IOException("Negative number of souls " + nofSouls);
+        savedSoulIds = new long[nofSouls];
+        for (int i = 0; i < nofSouls; i++) {
+            savedSoulIds[i] = in.readLong();
+        }
+
+        int nofBytes = in.readInt();
+        if (nofBytes < 0) throw new IOException("Negative number of bytes " + nofBytes);
+        savedEffects = new byte[nofBytes];
+        in.readFully(savedEffects);
+    }
+
+    /** effects that were read, but not yet added to a system */
+    public static class Restore {
+        private final DamageOverTime damage = new DamageOverTime();
+        private final DefenceMultiplier defence = new DefenceMultiplier();
+
+        /**
+         * replaces the effects of the given system with these effects. This must be called after the system is
+         * initialized, such that the expiry of the effects is scheduled. Effects on souls that were read as null are
+         * not restored.
+         * @param target      the system to restore the effects to
+         * @param currentTime the current game time. Effects that ended before this time are not restored.
+         */
+        public void restoreTo(EffectSystem target, float currentTime) {
+            synchronized (target) {
+                target.cleanup();
+
+                for (int i = 0; i < damage.size; i++) {
+                    float endTime = damage.endTimes[i];
+                    if (endTime <= currentTime || damage.souls[i] == null) continue;
+
+                    int slot = target.damage.allocate(damage.souls[i], DAMAGE_TYPES[damage.types[i]], endTime);
+                    target.damage.rates[slot] = damage.rates[i];
+                    target.damage.lastTimes[slot] = damage.lastTimes[i];
+                    target.damage.pending[slot] = damage.pending[i];
+                    target.scheduleExpiry(target.damage, KIND_DAMAGE, slot);
+                }
+
+                for (int i = 0; i < defence.size; i++) {
+                    float endTime = defence.endTimes[i];
+                    if (endTime <= currentTime || defence.souls[i] == null) continue;
+
+                    MonsterSoul soul = defence.souls[i];
+                    int type = defence.types[i];
+                    int slot = target.defence.allocate(soul, DAMAGE_TYPES[type], endTime);
+                    target.defence.multipliers[slot] = defence.multipliers[i];
+                    soul.defenceMultipliers[type] *= defence.multipliers[i];
+                    soul.nofDefenceMultipliers[type]++;
+                    target.scheduleExpiry(target.defence, KIND_DEFENCE, slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * removes an effect at the end of its duration. The system is not saved with the event: an event that was saved
+     * does nothing, as restoring the effects schedules new events.
+     */
+    static class ExpiryEvent extends Event {
+        private final transient EffectSystem system;
+        private final long handle;
+
+        ExpiryEvent(Game game, EffectSystem system, float eventTime, long handle) {
+            super(game, eventTime);
+            this.system = system;
+            this.handle = handle;
+        }
+
+        @Override
+        public void run() {
+            // the state is updated up to the event time before the event runs
+            if (system != null) system.remove(handle);
+        }
+
+        @Override
+        protected void restoreFields(Game game) {
+        }
+    }
+
+    /**
+     * a dense array of effects of one kind. A removed effect is replaced by the last effect, and the handle of each
+     * effect maps to its current slot. A handle consists of an index in the handle table and the generation of that
+     * index, which is increased on each removal.
+     */
+    private abstract static class Pool {
+        static final int GENERATION_SHIFT = 32;
+        static final long GENERATION_MASK = (1L << 30) - 1;
+        static final int KIND_SHIFT = 62;
+
+        MonsterSoul[] souls = new MonsterSoul[16];
+        byte[] types = new byte[16];
+        float[] endTimes = new float[16];
+        int size = 0;
+
+        /** per slot, the index of its handle */
+        private int[] handleOfSlot = new int[16];
+        /** per handle index, the slot, or the next free handle index if the handle is free */
+        private int[] slotOfHandle = new int[16];
+        private int[] generations = new int[16];
+        private int nofHandles = 0;
+        private int freeHandle = -1;
+
+        /** @return the slot of a new effect on the given soul */
+        int allocate(MonsterSoul soul, DamageType type, float endTime) {
+            if (size == souls.length) grow(size * 2);
+
+            int index;
+            if (freeHandle >= 0) {
+                index = freeHandle;
+                freeHandle = slotOfHandle[index];
+
+            } else {
+                if (nofHandles == slotOfHandle.length) {
+                    slotOfHandle = Arrays.copyOf(slotOfHandle, nofHandles * 2);
+                    generations = Arrays.copyOf(generations, nofHandles * 2);
+                }
+                index = nofHandles++;
+            }
+
+            int slot = size++;
+            souls[slot] = soul;
+            types[slot] = (byte) type.ordinal();
+            endTimes[slot] = endTime;
+            slotOfHandle[index] = slot;
+            handleOfSlot[slot] = index;
+            return slot;
+        }
+
+        long handleOf(int slot) {
+            int index = handleOfSlot[slot];
+            return index | ((long) generations[index] << GENERATION_SHIFT);
+        }
+
+        /** @return the slot of the effect of the given handle, or -1 if the effect was removed */
+        int slotOf(long handle) {
+            int index = (int) handle;
+            long generation = (handle >>> GENERATION_SHIFT) & GENERATION_MASK;
+            if (index < 0 || index >= nofHandles || generations[index] != generation) return -1;
+            return slotOfHandle[index];
+        }
+
+        void remove(int slot) {
+            onRemove(slot);
+
+            int index = handleOfSlot[slot];
+            generations[index] = (int) ((generations[index] + 1) & GENERATION_MASK);
+            slotOfHandle[index] = freeHandle;
+            freeHandle = index;
+
+            int last = --size;
+            if (slot != last) {
+                move(last, slot);
+                souls[slot] = souls[last];
+                types[slot] = types[last];
+                endTimes[slot] = endTimes[last];
+                handleOfSlot[slot] = handleOfSlot[last];
+                slotOfHandle[handleOfSlot[slot]] = slot;
+            }
+            souls[last] = null;
+        }
+
+        void grow(int capacity) {
+            souls = Arrays.copyOf(souls, capacity);
+            types = Arrays.copyOf(types, capacity);
+            endTimes = Arrays.copyOf(endTimes, capacity);
+            handleOfSlot = Arrays.copyOf(handleOfSlot, capacity);
+        }
+
+        /** writes the number of effects on the given souls, and for each its soul, type and end time */
+        void write(DataOutput out, Map<MonsterSoul, Integer> soulIndices) throws IOException {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (soulIndices.containsKey(souls[i])) count++;
+            }
+
+            out.writeInt(count);
+            for (int i = 0; i < size; i++) {
+                Integer index = soulIndices.get(souls[i]);
+                if (index == null) continue;
+                out.writeInt(index);
+                out.writeByte(types[i]);
+                out.writeFloat(endTimes[i]);
+            }
+        }
+
+        /** reads the effects written by {@link #write(DataOutput, Map)} as new slots, without handles */
+        void read(DataInput in, List<MonsterSoul> soulList) throws IOException {
+            int count = in.readInt();
+            if (count < 0) throw new IOException("Negative number of effects " + count);
+
+            for (int i = 0; i < count; i++) {
+                int soulIndex = in.readInt();
+                int type = in.readByte();
+                if (soulIndex < 0 || soulIndex >= soulList.size()) throw new IOException("Missing soul " + soulIndex);
+                if (type < 0 || type >= DAMAGE_TYPES.length) throw new IOException("Unknown damage type " + type);
+
+                if (size == souls.length) grow(size * 2);
+                souls[size] = soulList.get(soulIndex);
+                types[size] = (byte) type;
+                endTimes[size] = in.readFloat();
+                size++;
+            }
+        }
+
+        /** called before the effect in the given slot is removed */
+        abstract void onRemove(int slot);
+
+        /** moves the kind-specific values of one slot to another */
+        abstract void move(int from, int to);
+    }
+
+    private static class DamageOverTime extends Pool {
+        float[] rates = new float[16];
+        float[] lastTimes = new float[16];
+        /** damage dealt but not yet applied, as hitpoints are whole numbers */
+        float[] pending = new float[16];
+
+        void apply(float currentTime) {
+            for (int i = 0; i < size; i++) {
+                float time = Math.min(currentTime, endTimes[i]);
+                float deltaTime = time - lastTimes[i];
+                if (deltaTime <= 0) continue;
+
+                float power = pending[i] + rates[i] * deltaTime;
+                float whole = (float) Math.floor(power);
+                pending[i] = power - whole;
+                lastTimes[i] = time;
+
+                if (whole > 0) souls[i].applyDamage(DAMAGE_TYPES[types[i]], whole, time);
+            }
+        }
+
+        @Override
+        void onRemove(int slot) {
+        }
+
+        @Override
+        void move(int from, int to) {
+            rates[to] = rates[from];
+            lastTimes[to] = lastTimes[from];
+            pending[to] = pending[from];
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            rates = Arrays.copyOf(rates, capacity);
+            lastTimes = Arrays.copyOf(lastTimes, capacity);
+            pending = Arrays.copyOf(pending, capacity);
+        }
+    }
+
+    private static class DefenceMultiplier extends Pool {
+        float[] multipliers = new float[16];
+
+        @Override
+        void onRemove(int slot) {
+            // dividing accumulates rounding errors, but only until the last multiplier of the type is removed
+            MonsterSoul soul = souls[slot];
+            int type = types[slot];
+            if (--soul.nofDefenceMultipliers[type] == 0) {
+                soul.defenceMultipliers[type] = 1;
+
+            } else {
+                soul.defenceMultipliers[type] /= multipliers[slot];
+            }
+        }
+
+        @Override
+        void move(int from, int to) {
+            multipliers[to] = multipliers[from];
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            multipliers = Arrays.copyOf(multipliers, capacity);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package NG.Living;
 
 import NG.Tools.Toolbox;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.*;
 import java.util.regex.Pattern;
@@ -19,12 +21,25 @@ public enum Emotion {
     /** Deep emotions */
     SELF_CONFIDENCE, STRESS;
 
-    private static final float PROCESS_DELTA = 1f; // update interval in seconds
+    static final float PROCESS_DELTA = 1f; // update interval in seconds
     private static final Emotion[] VALUES = values();
     public static final int count = VALUES.length;
     private static final short MAX_VALUE = Short.MAX_VALUE;
     private static final short MIN_VALUE = 0;
     private static final Pattern PIPES = Pattern.compile("\\|");
+    /** the number of steps from which processing uses the powers of the step matrix */
+    static final int CATCH_UP_STEPS = 8;
+    /** the average amount lost by truncating a value to a short */
+    private static final float EXPECTED_TRUNCATION = 0.5f;
+    /** the size of the affine matrix of a step, with one extra dimension for the constant */
+    private static final int AFFINE_SIZE = count + 1;
+
+    /** reads an emotion written as its ordinal */
+    static Emotion read(SoulCodec.Input in) throws IOException {
+        int ordinal = in.readByte();
+        if (ordinal < 0 || ordinal >= count) throw new IOException("Unknown emotion " + ordinal);
+        return VALUES[ordinal];
+    }
 
     /**
      * a translation that can be applied on a emotion collection
@@ -48,7 +63,27 @@ public enum Emotion {
             content.forEach((target, value) -> emotions.add(target, (int) (value * multiplier)));
         }
 
-        public float calculateValue(EnumMap<Emotion, Float> values) {
+        /** writes this translation, see {@link SoulCodec} */
+        void write(SoulCodec.Output out) throws IOException {
+            out.writeVarInt(content.size());
+            for (Map.Entry<Emotion, Integer> entry : content.entrySet()) {
+                out.writeByte(entry.getKey().ordinal());
+                out.writeSignedVarInt(entry.getValue());
+            }
+        }
+
+        /** reads a translation written by {@link #write(SoulCodec.Output)} */
+        static Translation read(SoulCodec.Input in) throws IOException {
+            Translation translation = new Translation();
+            int size = in.readVarInt();
+            for (int i = 0; i < size; i++) {
+                Emotion target = Emotion.read(in);
+                translation.set(target, in.readSignedVarInt());
+            }
+            return translation;
+        }
+
+        public float calculateValue(Map<Emotion, Float> values) {
             float acc = 0;
             for (Emotion emotion : content.keySet()) {
                 if (values.containsKey(emotion)) {
@@ -67,18 +102,31 @@ public enum Emotion {
         private final float[][] transformationMatrix; // row-major
         private final short[] values;
         private float stateTime = PROCESS_DELTA;
+        /** the matrices of 2^i steps, computed when first needed and shared with copies of this collection */
+        private transient StepPowers stepPowers;
+        /** if not null, the values are stored and processed in this group instead */
+        transient EmotionSystem.Group group;
+        /** the index of this collection in its group */
+        transient int slot;
 
         public ECollection(Scanner reader) {
+            this(readBlock(reader));
+        }
+
+        /**
+         * reads a collection from the lines of an emotion block, without the closing {@code end}
+         * @param lines the lines of the block
+         */
+        public ECollection(List<String> lines) {
             transformationMatrix = new float[Emotion.count][Emotion.count];
             values = new short[Emotion.count];
+            stepPowers = new StepPowers();
 
             List<Emotion> seen = new ArrayList<>(count);
             List<float[]> tgtMatrix = new ArrayList<>();
 
-            String line;
-            while (reader.hasNext()) {
-                line = reader.nextLine().trim();
-                if (line.equals("end")) break;
+            for (String block : lines) {
+                String line = block.trim();
                 if (line.isEmpty() || line.charAt(0) == '#') continue;
 
                 line = PIPES.matcher(line).replaceAll("");
@@ -110,30 +158,287 @@ public enum Emotion {
 //            Logger.DEBUG.print("Transformation matrix:\n" + asMatrix());
         }
 
+        private static List<String> readBlock(Scanner reader) {
+            List<String> lines = new ArrayList<>();
+            while (reader.hasNext()) {
+                String line = reader.nextLine();
+                if (line.trim().equals("end")) break;
+                lines.add(line);
+            }
+            return lines;
+        }
+
+        /**
+         * creates a new collection with the same transformation and current values as the given collection. The
+         * transformation is shared, such that the two collections can be processed in the same {@link EmotionSystem}
+         * group.
+         * @param prototype the collection to copy
+         */
+        public ECollection(ECollection prototype) {
+            transformationMatrix = prototype.transformationMatrix;
+            values = new short[Emotion.count];
+            for (int i = 0; i < Emotion.count; i++) {
+                values[i] = prototype.get(VALUES[i]);
+            }
+            stateTime = (prototype.group != null) ? prototype.group.stateTime : prototype.stateTime;
+            stepPowers = prototype.stepPowers;
+        }
+
+        private ECollection(float[][] transformationMatrix, short[] values, float stateTime) {
+            this.transformationMatrix = transformationMatrix;
+            this.values = values;
+            this.stateTime = stateTime;
+        }
+
+        /**
+         * processes the mutual influence of the emotions up to the given time, in steps of {@code PROCESS_DELTA}
+         * seconds. Short gaps are processed one step at a time, truncating and clamping the values after every step.
+         * Longer gaps are processed with precomputed powers of two of the matrix of one step, in a number of matrix
+         * multiplications logarithmic in the gap. There, the truncation of each step is replaced by its expected value,
+         * and the values are only clamped at the end. The result is then within a few tenths of a percent of the
+         * largest value from the stepwise result.
+         * @param currentTime the time to process to
+         */
         public void process(float currentTime) {
-            while (stateTime < currentTime) {
-                for (int i = 0; i < Emotion.count; i++) {
-                    float newValue = 0;
+            if (group != null || stateTime >= currentTime) return;
+
+            int nofSteps = (int) Math.ceil((currentTime - stateTime) / PROCESS_DELTA);
+            if (nofSteps < CATCH_UP_STEPS) {
+                for (int i = 0; i < nofSteps; i++) {
+                    step();
+                }
 
-                    for (int j = 0; j < Emotion.count; j++) {
-                        newValue += values[j] * transformationMatrix[i][j];
+            } else {
+                catchUp(nofSteps);
+            }
+
+            stateTime += nofSteps * PROCESS_DELTA;
+        }
+
+        /** applies one step of {@code PROCESS_DELTA} seconds */
+        private void step() {
+            for (int i = 0; i < Emotion.count; i++) {
+                float newValue = 0;
+
+                for (int j = 0; j < Emotion.count; j++) {
+                    newValue += values[j] * transformationMatrix[i][j];
+                }
+
+                values[i] = clamp(newValue * PROCESS_DELTA);
+            }
+        }
+
+        /** applies the given number of steps at once, using the binary representation of nofSteps */
+        private void catchUp(int nofSteps) {
+            double[] vector = new double[AFFINE_SIZE];
+            double[] buffer = new double[AFFINE_SIZE];
+            for (int i = 0; i < Emotion.count; i++) {
+                vector[i] = values[i];
+            }
+            vector[Emotion.count] = 1;
+
+            for (int power = 0; nofSteps > 0; power++, nofSteps >>>= 1) {
+                if ((nofSteps & 1) == 0) continue;
+
+                double[][] matrix = getStepPower(power);
+                for (int i = 0; i < AFFINE_SIZE; i++) {
+                    double newValue = 0;
+                    for (int j = 0; j < AFFINE_SIZE; j++) {
+                        newValue += matrix[i][j] * vector[j];
                     }
+                    buffer[i] = newValue;
+                }
 
-                    values[i] = (short) (newValue * PROCESS_DELTA);
+                double[] swap = vector;
+                vector = buffer;
+                buffer = swap;
+            }
+
+            for (int i = 0; i < Emotion.count; i++) {
+                values[i] = clamp((float) vector[i]);
+            }
+        }
+
+        /**
+         * @param power the power of two
+         * @return the matrix of 2^power steps
+         */
+        private double[][] getStepPower(int power) {
+            if (stepPowers == null) stepPowers = new StepPowers();
+
+            // the powers only grow, such that powers that are known can be read without locking
+            double[][][] powers = stepPowers.powers;
+            if (power < powers.length) return powers[power];
+
+            // the powers may be shared with copies on other threads
+            synchronized (stepPowers) {
+                powers = stepPowers.powers;
+                if (power < powers.length) return powers[power];
+
+                int nofKnown = powers.length;
+                powers = Arrays.copyOf(powers, power + 1);
+                if (nofKnown == 0) powers[nofKnown++] = stepMatrix();
+
+                for (int i = nofKnown; i <= power; i++) {
+                    powers[i] = multiply(powers[i - 1], powers[i - 1]);
                 }
 
-                stateTime += PROCESS_DELTA;
+                stepPowers.powers = powers;
+                return powers[power];
             }
         }
 
+        /**
+         * @return the affine matrix of one step, with the constant in the last column. As a step updates the values in
+         * order, each value uses the new values of the emotions before it. The truncation of each new value is modelled
+         * as subtracting its expected value.
+         */
+        private double[][] stepMatrix() {
+            double[][] step = new double[AFFINE_SIZE][AFFINE_SIZE];
+            step[Emotion.count][Emotion.count] = 1;
+
+            // column j is the result of one step on the j-th unit vector
+            double[] vector = new double[AFFINE_SIZE];
+            for (int j = 0; j < AFFINE_SIZE; j++) {
+                Arrays.fill(vector, 0);
+                vector[j] = 1;
+
+                for (int i = 0; i < Emotion.count; i++) {
+                    double newValue = 0;
+                    for (int k = 0; k < Emotion.count; k++) {
+                        newValue += vector[k] * transformationMatrix[i][k];
+                    }
+                    vector[i] = newValue * PROCESS_DELTA - vector[Emotion.count] * EXPECTED_TRUNCATION;
+                }
+
+                for (int i = 0; i < Emotion.count; i++) {
+                    step[i][j] = vector[i];
+                }
+            }
+
+            return step;
+        }
+
+        private static double[][] multiply(double[][] a, double[][] b) {
+            double[][] result = new double[AFFINE_SIZE][AFFINE_SIZE];
+            for (int i = 0; i < AFFINE_SIZE; i++) {
+                for (int j = 0; j < AFFINE_SIZE; j++) {
+                    double sum = 0;
+                    for (int k = 0; k < AFFINE_SIZE; k++) {
+                        sum += a[i][k] * b[k][j];
+                    }
+                    result[i][j] = sum;
+                }
+            }
+            return result;
+        }
+
+        static short clamp(float value) {
+            return (short) Math.max(Math.min(value, MAX_VALUE), MIN_VALUE);
+        }
+
         public short get(Emotion type) {
+            if (group != null) return (short) group.values[type.ordinal()][slot];
             return values[type.ordinal()];
         }
 
         public void add(Emotion target, int value) {
             int index = target.ordinal();
-            int newValue = values[index] + value;
-            values[index] = (short) Math.max(Math.min(newValue, MAX_VALUE), MIN_VALUE);
+            int newValue = get(target) + value;
+            short clamped = (short) Math.max(Math.min(newValue, MAX_VALUE), MIN_VALUE);
+
+            if (group != null) {
+                group.values[index][slot] = clamped;
+
+            } else {
+                values[index] = clamped;
+            }
+        }
+
+        /** moves the values of this collection into the given group, at the given index */
+        void attach(EmotionSystem.Group group, int slot) {
+            process(group.stateTime);
+            for (int i = 0; i < Emotion.count; i++) {
+                group.values[i][slot] = values[i];
+            }
+            this.group = group;
+            this.slot = slot;
+        }
+
+        /** moves the values of this collection out of its group */
+        void detach() {
+            for (int i = 0; i < Emotion.count; i++) {
+                values[i] = (short) group.values[i][slot];
+            }
+            stateTime = group.stateTime;
+            group = null;
+        }
+
+        /** applies the given number of steps on the values in the group at once */
+        void catchUpInGroup(int nofSteps) {
+            for (int i = 0; i < Emotion.count; i++) {
+                values[i] = (short) group.values[i][slot];
+            }
+            catchUp(nofSteps);
+            for (int i = 0; i < Emotion.count; i++) {
+                group.values[i][slot] = values[i];
+            }
+        }
+
+        float[][] getTransformationMatrix() {
+            return transformationMatrix;
+        }
+
+        float getStateTime() {
+            return stateTime;
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            if (group != null) {
+                // the values in the group are the current values
+                for (int i = 0; i < Emotion.count; i++) {
+                    values[i] = (short) group.values[i][slot];
+                }
+                stateTime = group.stateTime;
+            }
+            out.defaultWriteObject();
+        }
+
+        /**
+         * writes the transformation as a reference to the tables of the output, followed by the state time and the raw
+         * values. See {@link SoulCodec}
+         * @param out the record to write to
+         */
+        public void write(SoulCodec.Output out) throws IOException {
+            out.writeMatrix(transformationMatrix);
+            if (group != null) {
+                out.writeFloat(group.stateTime);
+                for (int i = 0; i < Emotion.count; i++) {
+                    out.writeShort((short) group.values[i][slot]);
+                }
+
+            } else {
+                out.writeFloat(stateTime);
+                for (short value : values) {
+                    out.writeShort(value);
+                }
+            }
+        }
+
+        /**
+         * reads a collection written by {@link #write(SoulCodec.Output)}. Collections that were written with the same
+         * transformation share it again.
+         * @param in the record to read from
+         * @return a new collection, not attached to any {@link EmotionSystem}
+         */
+        public static ECollection read(SoulCodec.Input in) throws IOException {
+            float[][] matrix = in.readMatrix();
+            float stateTime = in.readFloat();
+            short[] values = new short[Emotion.count];
+            for (int i = 0; i < Emotion.count; i++) {
+                values[i] = in.readShort();
+            }
+            return new ECollection(matrix, values, stateTime);
         }
 
         /**
@@ -162,17 +467,23 @@ public enum Emotion {
          * @param judgement
          * @return the emotions of this collection, each multiplied with the given mapping and summed
          */
-        public float calculateJoy(EnumMap<Emotion, Float> judgement) {
+        public float calculateJoy(Map<Emotion, Float> judgement) {
             float acc = 0;
             for (int i = 0; i < count; i++) {
                 Emotion tgt = VALUES[i];
 
                 if (judgement.containsKey(tgt)) {
-                    acc += values[i] * judgement.get(tgt);
+                    acc += get(tgt) * judgement.get(tgt);
                 }
             }
 
             return acc;
         }
+
+        /** the powers of the step matrix of collections that share a transformation */
+        private static class StepPowers {
+            /** the matrix of 2^i steps at index i. Replaced by a longer array when more powers are needed */
+            volatile double[][][] powers = new double[0][][];
+        }
     }
 }
@@ -0,0 +1,257 @@
+package NG.Living;
+
+import NG.Core.Game;
+import NG.Core.GameSystem;
+import NG.Entities.Entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Processes the emotions of many monsters together. Emotion collections that share a transformation matrix (see {@link
+ * Emotion.ECollection#ECollection(Emotion.ECollection)}) are placed in one group, which stores the values of all its
+ * collections as one array per emotion. Each step of a group then updates one emotion of all its collections in a
+ * single loop, instead of processing each collection separately.
+ * <p>
+ * Attached collections are not processed by {@link Emotion.ECollection#process(float)}, but by {@link #process(float)},
+ * which is called on each update of this system by the game loop. Collections of monsters that died or despawned are
+ * detached on the first update after that, and groups without collections are dropped.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class EmotionSystem implements GameSystem {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final float MIN_VALUE = 0;
+    private static final float MAX_VALUE = Short.MAX_VALUE;
+
+    private final Map<float[][], Group> groups = new IdentityHashMap<>();
+    private final List<Group> groupList = new ArrayList<>();
+
+    @Override
+    public void init(Game game) {
+    }
+
+    @Override
+    public void update(float gameTime) {
+        process(gameTime);
+    }
+
+    /**
+     * moves the given collection into this system. From now on, the collection is processed on each call to {@link
+     * #process(float)} until it is detached.
+     * @param emotions the collection to attach
+     */
+    public void attach(Emotion.ECollection emotions) {
+        attach(emotions, null);
+    }
+
+    /**
+     * moves the given collection of a monster into this system. From now on, the collection is processed on each call
+     * to {@link #process(float)} until it is detached, or until the monster dies or its entity despawns.
+     * @param emotions the collection to attach
+     * @param soul     the monster of the collection, or null if the collection is only removed by {@link
+     *                 #detach(Emotion.ECollection)}
+     */
+    public synchronized void attach(Emotion.ECollection emotions, MonsterSoul soul) {
+        if (emotions.group != null) throw new IllegalArgumentException("Emotions are already attached");
+
+        Group group = groups.computeIfAbsent(emotions.getTransformationMatrix(), matrix -> {
+            Group newGroup = new Group(matrix, emotions.getStateTime());
+            groupList.add(newGroup);
+            return newGroup;
+        });
+
+        group.add(emotions, soul);
+    }
+
+    /**
+     * moves the given collection out of this system, after which it is processed by itself again. Does nothing if the
+     * collection was already detached, such as when its monster died.
+     * @param emotions a collection previously attached to this system
+     */
+    public synchronized void detach(Emotion.ECollection emotions) {
+        Group group = emotions.group;
+        if (group == null) return;
+        if (groups.get(group.matrix) != group) {
+            throw new IllegalArgumentException("Emotions are not attached to this system");
+        }
+
+        remove(group, emotions);
+    }
+
+    /**
+     * processes all attached collections up to the given time, after detaching the collections of monsters that are
+     * dead or despawned at that time
+     * @param currentTime the time to process to
+     */
+    public synchronized void process(float currentTime) {
+        // backwards, as removing the last member of a group also removes the group
+        for (int g = groupList.size() - 1; g >= 0; g--) {
+            Group group = groupList.get(g);
+
+            for (int m = group.size - 1; m >= 0; m--) {
+                MonsterSoul soul = group.souls[m];
+                if (soul != null && isGone(soul, currentTime)) remove(group, group.members[m]);
+            }
+        }
+
+        for (Group group : groupList) {
+            group.process(currentTime);
+        }
+    }
+
+    /** @return true iff the given monster is dead or despawned at the given time */
+    private static boolean isGone(MonsterSoul soul, float gameTime) {
+        if (soul.getTimeOfDeath() <= gameTime) return true;
+        Entity entity = soul.entity();
+        return entity != null && entity.isDespawnedAt(gameTime);
+    }
+
+    /** removes the given member from its group, and drops the group if it becomes empty */
+    private void remove(Group group, Emotion.ECollection emotions) {
+        group.remove(emotions);
+
+        if (group.size == 0) {
+            groups.remove(group.matrix);
+            groupList.remove(group);
+        }
+    }
+
+    /** @return the number of attached collections */
+    public synchronized int size() {
+        int size = 0;
+        for (Group group : groupList) {
+            size += group.size;
+        }
+        return size;
+    }
+
+    /** @return the number of groups, each with at least one collection */
+    synchronized int nofGroups() {
+        return groupList.size();
+    }
+
+    @Override
+    public synchronized void cleanup() {
+        for (Group group : groupList) {
+            while (group.size > 0) {
+                group.remove(group.members[group.size - 1]);
+            }
+        }
+        groups.clear();
+        groupList.clear();
+    }
+
+    /**
+     * the collections sharing one transformation matrix
+     */
+    static class Group {
+        private final float[][] matrix;
+        /** for each emotion, the value of each member. These are whole numbers, stored as floats to process faster */
+        float[][] values;
+        float stateTime;
+
+        private Emotion.ECollection[] members = new Emotion.ECollection[INITIAL_CAPACITY];
+        /** the monster of each member, or null if the member is only removed on request */
+        private MonsterSoul[] souls = new MonsterSoul[INITIAL_CAPACITY];
+        private float[] newValues = new float[INITIAL_CAPACITY];
+        private int size = 0;
+
+        Group(float[][] matrix, float stateTime) {
+            this.matrix = matrix;
+            this.stateTime = stateTime;
+            this.values = new float[Emotion.count][INITIAL_CAPACITY];
+        }
+
+        void add(Emotion.ECollection emotions, MonsterSoul soul) {
+            if (size == members.length) {
+                int capacity = size * 2;
+                members = Arrays.copyOf(members, capacity);
+                souls = Arrays.copyOf(souls, capacity);
+                newValues = new float[capacity];
+                for (int i = 0; i < Emotion.count; i++) {
+                    values[i] = Arrays.copyOf(values[i], capacity);
+                }
+            }
+
+            members[size] = emotions;
+            souls[size] = soul;
+            emotions.attach(this, size);
+            size++;
+        }
+
+        void remove(Emotion.ECollection emotions) {
+            int slot = emotions.slot;
+            emotions.detach();
+
+            // move the last member into the empty slot
+            int last = --size;
+            if (slot != last) {
+                Emotion.ECollection moved = members[last];
+                for (int i = 0; i < Emotion.count; i++) {
+                    values[i][slot] = values[i][last];
+                }
+                members[slot] = moved;
+                souls[slot] = souls[last];
+                moved.slot = slot;
+            }
+            members[last] = null;
+            souls[last] = null;
+        }
+
+        void process(float currentTime) {
+            if (stateTime >= currentTime) return;
+
+            int nofSteps = (int) Math.ceil((currentTime - stateTime) / Emotion.PROCESS_DELTA);
+            if (nofSteps < Emotion.CATCH_UP_STEPS) {
+                for (int i = 0; i < nofSteps; i++) {
+                    step();
+                }
+
+            } else {
+                for (int m = 0; m < size; m++) {
+                    members[m].catchUpInGroup(nofSteps);
+                }
+            }
+
+            stateTime += nofSteps * Emotion.PROCESS_DELTA;
+        }
+
+        /**
+         * applies one step to all members, with the same result as {@link Emotion.ECollection#process(float)} on each
+         * member separately. Emotions are updated in order, such that each emotion uses the new values of the emotions
+         * before it.
+         */
+        private void step() {
+            float[] newValues = this.newValues;
+            int size = this.size;
+
+            for (int i = 0; i < Emotion.count; i++) {
+                float[] row = matrix[i];
+                float first = row[0];
+                float[] firstSource = values[0];
+                for (int m = 0; m < size; m++) {
+                    newValues[m] = firstSource[m] * first;
+                }
+
+                for (int j = 1; j < Emotion.count; j++) {
+                    float factor = row[j];
+                    float[] source = values[j];
+
+                    for (int m = 0; m < size; m++) {
+                        newValues[m] += source[m] * factor;
+                    }
+                }
+
+                // truncates and clamps as a short, like ECollection does
+                float[] target = values[i];
+                for (int m = 0; m < size; m++) {
+                    float value = Math.min(Math.max(newValues[m] * Emotion.PROCESS_DELTA, MIN_VALUE), MAX_VALUE);
+                    target[m] = (int) value;
+                }
+            }
+        }
+    }
+}
@@ -11,15 +11,38 @@ public class EnvironmentalStimulus implements Stimulus {
     private final StimulusType type;
     private final Vector3fc position;
     private final float magnitude;
+    private final float time;
 
     /**
      * create a stimulus with the given parameters
      * @param magnitude the magnitude on one unit distance.
      */
     protected EnvironmentalStimulus(StimulusType type, Vector3fc position, float magnitude) {
+        this(type, position, magnitude, 0);
+    }
+
+    /**
+     * create a stimulus with the given parameters
+     * @param type      the type of stimulus
+     * @param position  the origin of the stimulus
+     * @param magnitude the magnitude on one unit distance.
+     * @param time      the moment the stimulus happened
+     */
+    public EnvironmentalStimulus(StimulusType type, Vector3fc position, float magnitude, float time) {
         this.type = type;
         this.position = position;
         this.magnitude = magnitude;
+        this.time = time;
+    }
+
+    @Override
+    public StimulusType getType() {
+        return type;
+    }
+
+    @Override
+    public float getTime() {
+        return time;
     }
 
     /**
@@ -34,6 +57,11 @@ public class EnvironmentalStimulus implements Stimulus {
         return magnitude / (position.distance(entityPosition) + 1);
     }
 
+    @Override
+    public float getRange(float minimumMagnitude) {
+        return Math.max(magnitude / minimumMagnitude - 1, 0);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof EnvironmentalStimulus) {
@@ -0,0 +1,228 @@
+package NG.Living;
+
+import NG.Camera.Camera;
+import NG.CollisionDetection.GameState;
+import NG.Core.Game;
+import NG.Core.GameSystem;
+import NG.DataStructures.Generic.PointGrid;
+import NG.Entities.Entity;
+import NG.Entities.MonsterEntity;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decides which monsters think in each game tick, based on their level of detail. Monsters close to the camera focus or
+ * to a monster owned by a player, and monsters that recently perceived a stimulus, think every tick. Monsters further
+ * away think once every few ticks, and far monsters share a fixed budget per tick, such that the cost of thinking stays
+ * about the same when the population grows. Monsters that skip a tick catch up on their next update, as {@link
+ * MonsterSoul#think(float)} receives the current game time.
+ * <p>
+ * The scheduler is updated before the game state in each tick. It marks the souls of the monsters that skip the tick,
+ * and {@link MonsterSoul#think(float)} does nothing for these souls.
+ * <p>
+ * Each monster gets a fixed bucket when first scheduled. A monster with an interval of {@code k} ticks thinks on the
+ * ticks where the bucket matches the tick number modulo {@code k}, which spreads the monsters of a level evenly over
+ * the ticks.
+ * <p>
+ * The focus points are sorted into a grid of cells at least as large as the far distance, such that the level of a
+ * monster only depends on the focus points in the cells around it. This keeps scheduling linear in the number of
+ * monsters, also when many monsters are owned.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class MindScheduler implements GameSystem {
+    /** the largest distance to a focus point of each level that is not far, in world units */
+    private static final float[] LEVEL_DISTANCES = {20f, 40f, 80f};
+    /** the update interval in ticks of each level that is not far */
+    private static final int[] LEVEL_INTERVALS = {1, 2, 4};
+    /** the level of monsters that are further away than all of {@link #LEVEL_DISTANCES} */
+    static final int FAR_LEVEL = LEVEL_DISTANCES.length;
+    /** the smallest update interval in ticks of far monsters */
+    static final int FAR_MINIMUM_INTERVAL = 8;
+    /** the number of far monsters that think per tick, if there are enough far monsters */
+    static final int FAR_BUDGET = 32;
+    /** the number of seconds after perceiving a stimulus in which a monster thinks every tick */
+    private static final float STIMULUS_MEMORY = 5f;
+    /** the distance beyond which monsters are far */
+    private static final float FAR_DISTANCE = LEVEL_DISTANCES[LEVEL_DISTANCES.length - 1];
+
+    private Game game;
+    private int tick = 0;
+    private int nextBucket = 0;
+
+    private int[] levels = new int[0];
+    private int[] buckets = new int[0];
+    private float[] focusPoints = new float[0]; // x, y per point, in order of collection
+    private int nofFocusPoints;
+    /** the grid of the focus points, only accessed by the simulation thread */
+    private final PointGrid focusGrid = new PointGrid();
+
+    private final Vector3f position = new Vector3f();
+    // the entities and the results of the current update
+    private final List<Entity> entities = new ArrayList<>();
+    private boolean[] due = new boolean[0];
+
+    @Override
+    public void init(Game game) {
+        this.game = game;
+    }
+
+    @Override
+    public void update(float gameTime) {
+        entities.addAll(game.get(GameState.class).entities());
+        int n = entities.size();
+        if (due.length < n) due = new boolean[n];
+
+        schedule(gameTime, entities, due);
+
+        for (int i = 0; i < n; i++) {
+            Entity entity = entities.get(i);
+            if (entity instanceof MonsterEntity) ((MonsterEntity) entity).getController().isDue = due[i];
+        }
+        entities.clear();
+    }
+
+    /**
+     * determines which of the given entities must think in this tick. Entities that are not monsters always think.
+     * Each call advances the schedule by one tick.
+     * @param gameTime the current game time
+     * @param entities the entities that could think
+     * @param due      receives for each entity whether it must think in this tick. Must be at least as long as the
+     *                 number of entities.
+     * @return the number of entities that must think
+     */
+    public int schedule(float gameTime, List<? extends Entity> entities, boolean[] due) {
+        int n = entities.size();
+        if (levels.length < n) {
+            levels = new int[n];
+            buckets = new int[n];
+        }
+
+        collectFocusPoints(gameTime, entities);
+
+        for (int i = 0; i < n; i++) {
+            Entity entity = entities.get(i);
+            if (!(entity instanceof MonsterEntity) || entity.isDespawnedAt(gameTime)) {
+                levels[i] = 0;
+                buckets[i] = 0;
+                continue;
+            }
+
+            MonsterEntity monster = (MonsterEntity) entity;
+            MonsterSoul soul = monster.getController();
+            if (soul.scheduleBucket == 0) soul.scheduleBucket = ++nextBucket;
+            buckets[i] = soul.scheduleBucket;
+
+            if (gameTime - soul.getLastStimulusTime() < STIMULUS_MEMORY) {
+                levels[i] = 0;
+
+            } else {
+                monster.getPositionAt(gameTime, position);
+                levels[i] = levelOf(position.x, position.y);
+            }
+        }
+
+        return select(levels, buckets, n, due);
+    }
+
+    /**
+     * determines which minds must think in this tick, and advances the schedule to the next tick
+     * @param levels  the level of detail of each mind
+     * @param buckets the bucket of each mind
+     * @param n       the number of minds
+     * @param due     receives for each mind whether it must think in this tick
+     * @return the number of minds that must think
+     */
+    int select(int[] levels, int[] buckets, int n, boolean[] due) {
+        int nofFar = 0;
+        for (int i = 0; i < n; i++) {
+            if (levels[i] == FAR_LEVEL) nofFar++;
+        }
+
+        int farInterval = Math.max(FAR_MINIMUM_INTERVAL, (nofFar + FAR_BUDGET - 1) / FAR_BUDGET);
+        int nofDue = 0;
+
+        for (int i = 0; i < n; i++) {
+            int level = levels[i];
+            int interval = (level == FAR_LEVEL) ? farInterval : LEVEL_INTERVALS[level];
+            boolean isDue = (interval == 1) || Math.floorMod(buckets[i] - tick, interval) == 0;
+
+            due[i] = isDue;
+            if (isDue) nofDue++;
+        }
+
+        tick++;
+        return nofDue;
+    }
+
+    /** @return the level of detail of a monster on the given position */
+    int levelOf(float x, float y) {
+        int xMin = focusGrid.firstColumn(x - FAR_DISTANCE);
+        int xMax = focusGrid.lastColumn(x + FAR_DISTANCE);
+        int yMax = focusGrid.lastRow(y + FAR_DISTANCE);
+
+        float minDistanceSq = Float.POSITIVE_INFINITY;
+        for (int row = focusGrid.firstRow(y - FAR_DISTANCE); row <= yMax; row++) {
+            int to = focusGrid.rowEnd(row, xMax);
+
+            for (int slot = focusGrid.rowStart(row, xMin); slot < to; slot++) {
+                int p = focusGrid.pointAt(slot);
+                float dx = focusPoints[2 * p] - x;
+                float dy = focusPoints[2 * p + 1] - y;
+                minDistanceSq = Math.min(minDistanceSq, dx * dx + dy * dy);
+            }
+        }
+
+        for (int level = 0; level < LEVEL_DISTANCES.length; level++) {
+            float distance = LEVEL_DISTANCES[level];
+            if (minDistanceSq <= distance * distance) return level;
+        }
+
+        return FAR_LEVEL;
+    }
+
+    /** collects the focus of the camera and the positions of all owned monsters, and sorts them into the grid */
+    private void collectFocusPoints(float gameTime, List<? extends Entity> entities) {
+        nofFocusPoints = 0;
+        game.ifAvailable(Camera.class, camera -> {
+            Vector3fc focus = camera.getFocus();
+            addFocusPoint(focus.x(), focus.y());
+        });
+
+        for (Entity entity : entities) {
+            if (!(entity instanceof MonsterEntity) || entity.isDespawnedAt(gameTime)) continue;
+            MonsterEntity monster = (MonsterEntity) entity;
+            if (monster.getController().getOwner() == null) continue;
+
+            monster.getPositionAt(gameTime, position);
+            addFocusPoint(position.x, position.y);
+        }
+
+        buildFocusGrid();
+    }
+
+    void addFocusPoint(float x, float y) {
+        if (focusPoints.length < 2 * (nofFocusPoints + 1)) {
+            focusPoints = Arrays.copyOf(focusPoints, 2 * (nofFocusPoints + 4));
+        }
+
+        focusPoints[2 * nofFocusPoints] = x;
+        focusPoints[2 * nofFocusPoints + 1] = y;
+        nofFocusPoints++;
+    }
+
+    /** sorts the collected focus points into the grid, with cells at least as large as the far distance */
+    void buildFocusGrid() {
+        focusGrid.build(focusPoints, 2, nofFocusPoints, FAR_DISTANCE);
+    }
+
+    @Override
+    public void cleanup() {
+        nofFocusPoints = 0;
+        buildFocusGrid();
+        tick = 0;
+    }
+}
@@ -0,0 +1,201 @@
+package NG.Living.MonsterMind;
+
+import NG.Living.Associator;
+import NG.Living.CommandSType;
+import NG.Living.Emotion;
+import NG.Living.StimulusType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Predicts how executing each of a number of candidate actions makes a mind feel a few seconds later. Each candidate is
+ * rolled out on a copy of the emotions of the mind: the effect of the action is applied, and then for a number of steps
+ * the effects of the stimuli that the mind associates with the most relevant stimulus of the previous step, weighted by
+ * their share of the relevance. The result is the {@link Emotion.ECollection#calculateJoy(Map) joy} after each step
+ * summed, relative to a rollout where no action is executed. Summing rewards actions that feel good soon, as the
+ * emotions of a soul tend to a rest state within a few steps.
+ * <p>
+ * A rollout only reads an immutable copy of the state of the mind, taken on creation. The candidates of all minds are
+ * evaluated in parallel on a shared pool, while the game continues. The work of a rollout is fixed: {@link #DEPTH}
+ * steps for each candidate and for the baseline, each step applying at most {@link
+ * MonsterMindAssociator#PREDICITON_BRANCH_SIZE} predictions. The result therefore only depends on the state of the
+ * mind, and not on the load of the machine. How long the mind waits for the result is up to the mind.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+class ActionRollout {
+    /** the number of steps predicted after executing the action */
+    static final int DEPTH = 3;
+    /** the time between two steps of a rollout, in seconds */
+    private static final float STEP_DELTA = 1f;
+    /** the pool evaluating the rollouts of all minds */
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2), r -> {
+                Thread thread = new Thread(r, "Action rollout");
+                thread.setDaemon(true);
+                return thread;
+            }
+    );
+
+    private final Emotion.ECollection emotions;
+    private final Map<StimulusType, Emotion.Translation> stimulusEffects;
+    private final Map<Emotion, Float> emotionValues;
+    private final Map<StimulusType, Prediction> predictions = new HashMap<>();
+    private final float startTime;
+
+    /**
+     * copies the state of a mind that is needed to roll out the given candidates. This must be called on the thread
+     * that modifies the mind.
+     * @param emotions        the current emotions of the mind
+     * @param associations    the associations between stimuli of the mind
+     * @param stimulusEffects the effect of each stimulus on the emotions, which is not modified afterwards
+     * @param emotionValues   the valuation of each emotion, which is not modified afterwards
+     * @param candidates      the actions to roll out
+     * @param nofCandidates   the number of elements of candidates to use
+     * @param startTime       the current game time
+     */
+    ActionRollout(
+            Emotion.ECollection emotions, Associator<StimulusType> associations,
+            Map<StimulusType, Emotion.Translation> stimulusEffects, Map<Emotion, Float> emotionValues,
+            CommandSType[] candidates, int nofCandidates, float startTime
+    ) {
+        this.emotions = new Emotion.ECollection(emotions);
+        this.stimulusEffects = stimulusEffects;
+        this.emotionValues = emotionValues;
+        this.startTime = startTime;
+
+        // a rollout follows the most relevant prediction of each step
+        for (int i = 0; i < nofCandidates; i++) {
+            StimulusType current = candidates[i];
+
+            for (int step = 0; step < DEPTH && current != null; step++) {
+                Prediction prediction = predictions.get(current);
+                if (prediction == null) {
+                    prediction = new Prediction(associations, current);
+                    predictions.put(current, prediction);
+                }
+
+                current = prediction.mostRelevant();
+            }
+        }
+    }
+
+    /**
+     * evaluates the rollouts of the given candidates in parallel, and selects the best.
+     * @param candidates    the actions to choose from, which must have been given to the constructor
+     * @param relevances    for each candidate, how likely it is to have the associated effects
+     * @param nofCandidates the number of candidates
+     * @param minimumGain   the gain that the selected action must exceed
+     * @return a future of the candidate with the highest gain, or of null if no candidate exceeds the minimum gain. Of
+     * candidates with equal gain, the first is selected.
+     */
+    CompletableFuture<CommandSType> selectBest(
+            CommandSType[] candidates, float[] relevances, int nofCandidates, float minimumGain
+    ) {
+        CommandSType[] actions = new CommandSType[nofCandidates];
+        List<CompletableFuture<Float>> gains = new ArrayList<>(nofCandidates);
+
+        CompletableFuture<Float> baselineGain = CompletableFuture.supplyAsync(() -> evaluate(null, 0), POOL);
+        for (int i = 0; i < nofCandidates; i++) {
+            CommandSType action = candidates[i];
+            float relevance = relevances[i];
+            actions[i] = action;
+            gains.add(CompletableFuture.supplyAsync(() -> evaluate(action, relevance), POOL));
+        }
+
+        CompletableFuture<?>[] all = gains.toArray(new CompletableFuture<?>[nofCandidates + 1]);
+        all[nofCandidates] = baselineGain;
+
+        return CompletableFuture.allOf(all).thenApply(v -> {
+            float baseline = baselineGain.join();
+
+            CommandSType best = null;
+            float max = minimumGain;
+            for (int i = 0; i < nofCandidates; i++) {
+                float gain = gains.get(i).join() - baseline;
+                if (gain > max) {
+                    max = gain;
+                    best = actions[i];
+                }
+            }
+
+            return best;
+        }).exceptionally(ex -> null);
+    }
+
+    /**
+     * rolls out the given action on a copy of the emotions
+     * @param action    the action to execute, or null to execute nothing
+     * @param relevance how likely the action is to have its associated effects
+     * @return the joy of the mind summed over the steps of the rollout
+     */
+    private float evaluate(CommandSType action, float relevance) {
+        Emotion.ECollection future = new Emotion.ECollection(emotions);
+        future.process(startTime);
+
+        StimulusType current = action;
+        float currentRelevance = relevance;
+        if (action != null) apply(action, relevance, future);
+        float joy = future.calculateJoy(emotionValues);
+
+        for (int step = 1; step <= DEPTH; step++) {
+            Prediction prediction = (current == null) ? null : predictions.get(current);
+
+            future.process(startTime + step * STEP_DELTA);
+            if (prediction != null) {
+                for (int i = 0; i < prediction.size; i++) {
+                    apply(prediction.types[i], currentRelevance * prediction.relevances[i], future);
+                }
+            }
+            joy += future.calculateJoy(emotionValues);
+
+            if (prediction == null || prediction.size == 0) {
+                current = null;
+
+            } else {
+                currentRelevance *= prediction.relevances[prediction.mostRelevant];
+                current = prediction.mostRelevant();
+            }
+        }
+
+        return joy;
+    }
+
+    private void apply(StimulusType type, float relevance, Emotion.ECollection target) {
+        Emotion.Translation effect = stimulusEffects.get(type);
+        if (effect != null) effect.addTo(target, relevance);
+    }
+
+    /** the stimuli associated with one stimulus, with relevances normalized to sum to 1 */
+    private static class Prediction {
+        final StimulusType[] types = new StimulusType[MonsterMindAssociator.PREDICITON_BRANCH_SIZE];
+        final float[] relevances = new float[MonsterMindAssociator.PREDICITON_BRANCH_SIZE];
+        final int size;
+        final int mostRelevant;
+
+        Prediction(Associator<StimulusType> associations, StimulusType source) {
+            size = associations.query(source, types, relevances);
+
+            float sum = 0;
+            int max = 0;
+            for (int i = 0; i < size; i++) {
+                sum += relevances[i];
+                if (relevances[i] > relevances[max]) max = i;
+            }
+            for (int i = 0; i < size; i++) {
+                relevances[i] /= sum;
+            }
+            mostRelevant = max;
+        }
+
+        /** @return the most relevant associated stimulus, or null if there is none */
+        StimulusType mostRelevant() {
+            return size > 0 ? types[mostRelevant] : null;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package NG.Living.MonsterMind;
 
+import NG.Actions.ActionCursor;
 import NG.Actions.ActionJump;
 import NG.Actions.ActionWalk;
 import NG.Actions.BrokenMovementException;
@@ -7,14 +8,15 @@ import NG.Actions.Commands.Command;
 import NG.Actions.EntityAction;
 import NG.Core.AbstractGameObject;
 import NG.Core.Game;
-import NG.DataStructures.Generic.Pair;
 import NG.Entities.Entity;
 import NG.Entities.MonsterEntity;
 import NG.InputHandling.MouseTools.CommandProvider;
 import NG.Living.MonsterSoul;
+import NG.Living.SoulCodec;
 import NG.Living.Stimulus;
 import org.joml.Vector3f;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -50,6 +52,34 @@ public abstract class MonsterMind extends AbstractGameObject {
         this.entity = entityToControl;
     }
 
+    /**
+     * releases the resources of this mind when its soul replaces it by another mind. The mind is not used afterwards.
+     */
+    public void discard() {
+    }
+
+    /**
+     * sets the entity of a mind that was read without its entity, such as by {@link NG.Living.SoulCodec}
+     * @param entity the entity controlled by this mind
+     */
+    public void restoreEntity(MonsterEntity entity) {
+        this.entity = entity;
+    }
+
+    /**
+     * writes the state of this mind that is not determined by its type and soul, see {@link NG.Living.SoulCodec}
+     * @param out the record to write to
+     */
+    public void writeState(SoulCodec.Output out) throws IOException {
+    }
+
+    /**
+     * restores the state written by {@link #writeState(SoulCodec.Output)} into this new mind
+     * @param in the record to read from
+     */
+    public void readState(SoulCodec.Input in) throws IOException {
+    }
+
     @Override
     public void restoreFields(Game game) {
         entity.restore(game);
@@ -67,20 +97,35 @@ public abstract class MonsterMind extends AbstractGameObject {
         }
 
         // this is executing a command
-        Pair<EntityAction, Float> action = entity.getActionAt(gameTime);
-        EntityAction previous = action.left;
-        Vector3f position = previous.getPositionAt(action.right);
+        ActionCursor action = entity.getActionAt(gameTime, new ActionCursor());
+        EntityAction previous = action.action;
+        Vector3f position = previous.getPositionAt(action.timeSinceStart);
 
         EntityAction next = executionTarget.getAction(game, entity, position, gameTime);
 
         if (next != null && next != previous && !next.getStartPosition().equals(position)) {
-            throw new BrokenMovementException(previous, next, action.right);
+            throw new BrokenMovementException(previous, next, action.timeSinceStart);
         }
 
         return next;
     }
 
-    public abstract void update(float gametime);
+    /**
+     * updates this mind and executes the resulting changes
+     * @param gametime the current game time
+     */
+    public void update(float gametime) {
+        Runnable intent = think(gametime);
+        if (intent != null) intent.run();
+    }
+
+    /**
+     * Updates the state of this mind, and returns the changes it wants to make to the entity and the world. This may
+     * be called in parallel with other minds, and may only read the state of the game.
+     * @param gametime the current game time
+     * @return the changes to execute, or null if there are none
+     */
+    public abstract Runnable think(float gametime);
 
     /**
      * pass a signal to this AI.
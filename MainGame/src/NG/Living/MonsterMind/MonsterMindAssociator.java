@@ -1,43 +1,124 @@
 package NG.Living.MonsterMind;
 
 import NG.Actions.Commands.Command;
-import NG.DataStructures.Generic.PairList;
+import NG.Core.Game;
 import NG.Entities.Entity;
+import NG.Entities.MonsterEntity;
 import NG.Living.*;
 
-import java.util.EnumMap;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public class MonsterMindAssociator extends MonsterMind {
     private static final int ASSOCIATION_SIZE = 10;
     private static final int ACTION_CONSIDERATION_SIZE = 4;
-    private static final int PREDICITON_BRANCH_SIZE = 4;
+    static final int PREDICITON_BRANCH_SIZE = 4;
 
     private static final float MINIMUM_NOTICE_MAGNITUDE = 1e-3f;
+    /** the time the rollouts of a stimulus may take, after which the most relevant action is selected instead */
+    private static final long ROLLOUT_BUDGET_MILLIS = 2;
     private static final int ATTENTION_SIZE = 6;
-    private final Emotion.ECollection emotions;
-    private final Associator<StimulusType> associationStimuli;
-    private final Associator<CommandSType> actionAssociator;
+    private final SoulDescription description;
+    private Emotion.ECollection emotions;
+    private Associator<StimulusType> associationStimuli;
+    private Associator<CommandSType> actionAssociator;
     // mapping from stimulus to the perceived importance of the stimulus, as [0 ... 1]
-    private final Map<StimulusType, Float> importance;
+    // shared with the description until this mind judges a new stimulus
+    private Map<StimulusType, Float> importance;
+    private boolean ownsImportance = false;
     private final Map<StimulusType, Emotion.Translation> stimulusEffects;
-    private final EnumMap<Emotion, Float> emotionValues;
+    private final Map<Emotion, Float> emotionValues;
     private Living commandFocus;
     private float focusRelevance = 0;
+    /** the action selected by the rollouts of the last considered stimulus, and that stimulus */
+    private transient CompletableFuture<CommandSType> decision;
+    private transient Stimulus decisionCause;
+
+    /** buffers for the actions considered for a stimulus, with one place for the command of the stimulus itself */
+    private final CommandSType[] consideredActions = new CommandSType[ACTION_CONSIDERATION_SIZE + 1];
+    private final float[] actionRelevances = new float[ACTION_CONSIDERATION_SIZE + 1];
+    /** buffers for the results of querying the action associator */
+    private final CommandSType[] queriedActions = new CommandSType[ACTION_CONSIDERATION_SIZE];
+    private final float[] queriedRelevances = new float[ACTION_CONSIDERATION_SIZE];
 
     public MonsterMindAssociator(MonsterSoul owner, SoulDescription soulDescription) {
         super(owner);
+        this.description = soulDescription;
         this.associationStimuli = new Associator<>(StimulusType.class, MonsterMindAssociator.ATTENTION_SIZE, ASSOCIATION_SIZE);
         this.actionAssociator = new Associator<>(CommandSType.class, MonsterMindAssociator.ATTENTION_SIZE, 4);
         this.importance = soulDescription.importance;
         this.stimulusEffects = soulDescription.stimulusEffects;
         this.emotionValues = soulDescription.emotionValues;
-        this.emotions = soulDescription.emotions;
+        this.emotions = new Emotion.ECollection(soulDescription.emotions);
+    }
+
+    @Override
+    public void setEntity(MonsterEntity entityToControl, Game game) {
+        Game previous = this.game;
+        super.setEntity(entityToControl, game);
+
+        if (previous != game) {
+            if (previous != null) previous.ifAvailable(EmotionSystem.class, system -> system.detach(emotions));
+            if (game != null) game.ifAvailable(EmotionSystem.class, system -> system.attach(emotions, owner));
+        }
+    }
+
+    @Override
+    public void discard() {
+        if (game != null) game.ifAvailable(EmotionSystem.class, system -> system.detach(emotions));
     }
 
     @Override
-    public void update(float gametime) {
+    public Runnable think(float gametime) {
+        // does nothing if the emotions are processed by an EmotionSystem
         emotions.process(gametime);
+
+        // the decision completes within the budget of the rollouts, until then we keep it for a later think
+        CompletableFuture<CommandSType> pending = decision;
+        if (pending == null || !pending.isDone()) return null;
+
+        Stimulus cause = decisionCause;
+        decision = null;
+        decisionCause = null;
+
+        CommandSType best = pending.join();
+        if (best == null) return null;
+
+        return () -> {
+            Command command = best.generateNew(entity, cause, gametime);
+            if (command != null) executeCommand(command, gametime);
+        };
+    }
+
+    /** @return the importance of each type of stimulus, which is the table of the description until this mind judges */
+    Map<StimulusType, Float> getImportance() {
+        return importance;
+    }
+
+    /**
+     * returns the importance of the given type of stimulus. A type is judged when it is first perceived, and the
+     * judgement is stored in a copy of the importance of the description, such that other minds are not affected.
+     * @param sType a type of stimulus
+     * @return the importance of the stimulus as [0 ... 1]
+     */
+    float judge(StimulusType sType) {
+        Float judgement = importance.get(sType);
+        if (judgement != null) return judgement;
+
+        // initial judgement of importance depends on emotional influence
+        judgement = stimulusEffects.containsKey(sType) ?
+                1 - (0.9f / (1 + Math.abs(stimulusEffects.get(sType).calculateValue(emotionValues)))) :
+                0.1f;
+
+        if (!ownsImportance) {
+            importance = new HashMap<>(importance);
+            ownsImportance = true;
+        }
+        importance.put(sType, judgement);
+        return judgement;
     }
 
     @Override
@@ -50,13 +131,7 @@ public class MonsterMindAssociator extends MonsterMind {
         if (realMagnitude < MINIMUM_NOTICE_MAGNITUDE) return;
 
         // calculate projected gain for a number of target actions
-        float mainJudge = importance.computeIfAbsent(sType, s ->
-                // initial judgement of importance depends on emotional influence
-                stimulusEffects.containsKey(s) ?
-                        1 - (0.9f / (1 + Math.abs(stimulusEffects.get(s).calculateValue(emotionValues)))) :
-                        0.1f
-        );
-        float relativeMagnitude = realMagnitude * realMagnitude * mainJudge;
+        float relativeMagnitude = realMagnitude * realMagnitude * judge(sType);
 
         Emotion.Translation sEffect = stimulusEffects.get(sType);
         sEffect.addTo(emotions, realMagnitude);
@@ -86,83 +161,80 @@ public class MonsterMindAssociator extends MonsterMind {
         // if all actions dont pass the MINIMUM_NOTICE_MAGNITUDE
         if (relativeMagnitude < MINIMUM_NOTICE_MAGNITUDE) return;
 
-        // calculate projected gain for a number of target actions
-        CommandSType best = getDesiredAction(stimulus, relativeMagnitude, owner);
-        // if all actions dont pass the MINIMUM_NOTICE_MAGNITUDE
-        if (best == null) return;
-
-        // otherwise, execute action
-        Command command = best.generateNew(entity, stimulus, gametime);
-        executeCommand(command, gametime);
+        // calculate projected gain for a number of target actions, the result is executed in a later think
+        considerActions(stimulus, relativeMagnitude, owner, gametime);
     }
 
     /**
-     * Evaluates the current state of mind and returns the command it wants to execute
+     * Starts evaluating the actions the current state of mind associates with the given stimulus. Each action is rolled
+     * out a few steps ahead in parallel, after which the action with the highest emotional gain is selected by the first
+     * call to {@link #think(float)} after the rollouts complete. If the rollouts take longer than {@link
+     * #ROLLOUT_BUDGET_MILLIS}, the most relevant action is selected instead. This replaces any previous evaluation that
+     * was not yet used.
      * @param stimulus          the stimulus that caused the consideration
      * @param relativeMagnitude relative magnitude of the stimulus
-     * @param thisSoul
-     * @return the type of command to execute.
+     * @param thisSoul          the soul of this mind
+     * @param gametime          the current game time
      */
-    private CommandSType getDesiredAction(Stimulus stimulus, float relativeMagnitude, Living thisSoul) {
-        PairList<CommandSType, Float> actions =
-                actionAssociator.query(stimulus.getType(), ACTION_CONSIDERATION_SIZE).asPairList();
-
-        float max = MINIMUM_NOTICE_MAGNITUDE;
-        CommandSType best = null;
+    private void considerActions(Stimulus stimulus, float relativeMagnitude, Living thisSoul, float gametime) {
+        int nofActions = actionAssociator.query(stimulus.getType(), queriedActions, queriedRelevances);
+        System.arraycopy(queriedActions, 0, consideredActions, 0, nofActions);
+        System.arraycopy(queriedRelevances, 0, actionRelevances, 0, nofActions);
 
         if (stimulus instanceof Command) {
             // consider executing the command
             Command command = (Command) stimulus;
             Living target = (Living) command;
             if (target != null && target.equals(thisSoul)) { // may be redundant
-
-                best = (CommandSType) stimulus.getType();
-                max = getGainOf(best, relativeMagnitude);
+                consideredActions[nofActions] = (CommandSType) stimulus.getType();
+                actionRelevances[nofActions] = relativeMagnitude;
+                nofActions++;
             }
         }
 
-        for (int i = 0; i < actions.size(); i++) {
-            CommandSType moveType = actions.left(i);
-            float relevance = actions.right(i);
+        if (nofActions == 0) return;
 
-            float value = getGainOf(moveType, relevance);
-            if (value > max) {
-                max = value;
-                best = moveType;
+        ActionRollout rollout = new ActionRollout(
+                emotions, associationStimuli, stimulusEffects, emotionValues,
+                consideredActions, nofActions, gametime
+        );
+        CommandSType mostRelevant = null;
+        float maxRelevance = MINIMUM_NOTICE_MAGNITUDE;
+        for (int i = 0; i < nofActions; i++) {
+            if (actionRelevances[i] > maxRelevance) {
+                maxRelevance = actionRelevances[i];
+                mostRelevant = consideredActions[i];
             }
         }
 
-        return best;
+        decision = rollout.selectBest(consideredActions, actionRelevances, nofActions, MINIMUM_NOTICE_MAGNITUDE)
+                .completeOnTimeout(mostRelevant, ROLLOUT_BUDGET_MILLIS, TimeUnit.MILLISECONDS);
+        decisionCause = stimulus;
     }
 
-    /**
-     * Calculate an 'emotional gain' value for the given stimulus, how 'good' it is. It uses associations to predict
-     * future effects. Can be used to evaluate a plan, by supplying a CType object.
-     * @param stimulusType the stimulus to evaluate
-     * @param relevance    how relevant the stimulus is, e.g. how likely it is to appear.
-     * @return a value that
-     */
-    private float getGainOf(StimulusType stimulusType, float relevance) {
-        Emotion.Translation moveEffect = stimulusEffects.get(stimulusType);
-        float moveGain = moveEffect.calculateValue(emotionValues);
-
-        PairList<StimulusType, Float> prediction =
-                associationStimuli.query(stimulusType, PREDICITON_BRANCH_SIZE).asPairList();
-
-        for (int i = 0; i < prediction.size(); i++) {
-            StimulusType elt = prediction.left(i);
-            float eltRel = prediction.right(i);
-            // may recurse here, on condition of relevance
-            Emotion.Translation eltEffect = stimulusEffects.get(elt);
-            moveGain += eltEffect.calculateValue(emotionValues) * eltRel;
-        }
+    @Override
+    public void reactEntityCollision(Entity other, float collisionTime) {
+    }
 
-        moveGain *= relevance;
+    /** @return the description of the soul this mind is based on */
+    public SoulDescription getDescription() {
+        return description;
+    }
 
-        return moveGain;
+    @Override
+    public void writeState(SoulCodec.Output out) throws IOException {
+        emotions.write(out);
+        associationStimuli.write(out);
+        actionAssociator.write(out);
+        out.writeFloat(focusRelevance);
     }
 
     @Override
-    public void reactEntityCollision(Entity other, float collisionTime) {
+    public void readState(SoulCodec.Input in) throws IOException {
+        assert game == null : "state must be read before the mind is attached to a game";
+        emotions = Emotion.ECollection.read(in);
+        associationStimuli = Associator.read(in, StimulusType.class);
+        actionAssociator = Associator.read(in, CommandSType.class);
+        focusRelevance = in.readFloat();
     }
 }
@@ -8,12 +8,14 @@ import NG.Entities.MonsterEntity;
 import NG.GameMap.GameMap;
 import NG.Living.BaseStimulus;
 import NG.Living.MonsterSoul;
+import NG.Living.SoulCodec;
 import NG.Living.Stimulus;
 import NG.Living.StimulusType;
 import NG.Tools.Logger;
 import org.joml.Vector2i;
 import org.joml.Vector3f;
 
+import java.io.IOException;
 import java.util.Random;
 
 /**
@@ -38,20 +40,23 @@ public class MonsterMindSimple extends MonsterMind {
     }
 
     @Override
-    public void update(float gameTime) {
+    public Runnable think(float gameTime) {
         switch (fearLevel) {
             case 0: // wander aimlessly
                 if (gameTime > timeUntilRandomMovement) {
+                    Runnable intent = null;
+
                     if (executionTarget == null) {
                         Vector3f ePos = entity.getPositionAt(gameTime);
                         Vector2i tgt = game.get(GameMap.class).getCoordinate(ePos);
                         tgt.add(rng.nextInt(5) - 2, rng.nextInt(5) - 2);
                         CommandWalk walk = new CommandWalk(owner, tgt);
 
-                        executeCommand(walk, gameTime);
+                        intent = () -> executeCommand(walk, gameTime);
                     }
 
                     timeUntilRandomMovement += rng.nextFloat() * 20;
+                    return intent;
                 }
                 break;
 
@@ -64,6 +69,8 @@ public class MonsterMindSimple extends MonsterMind {
             case 3: // fleeing
             default:
         }
+
+        return null;
     }
 
     @Override
@@ -117,4 +124,16 @@ public class MonsterMindSimple extends MonsterMind {
     public void reactEntityCollision(Entity other, float collisionTime) {
         fearLevel = 3;
     }
+
+    @Override
+    public void writeState(SoulCodec.Output out) throws IOException {
+        out.writeFloat(timeUntilRandomMovement);
+        out.writeByte(fearLevel);
+    }
+
+    @Override
+    public void readState(SoulCodec.Input in) throws IOException {
+        timeUntilRandomMovement = in.readFloat();
+        fearLevel = in.readByte();
+    }
 }
@@ -14,8 +14,8 @@ public class MonsterMindSlave extends MonsterMind {
     }
 
     @Override
-    public void update(float gametime) {
-
+    public Runnable think(float gametime) {
+        return null;
     }
 
     @Override
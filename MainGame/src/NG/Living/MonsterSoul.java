@@ -5,34 +5,51 @@ import NG.Core.Game;
 import NG.Entities.EntityProperties;
 import NG.Entities.MonsterEntity;
 import NG.Living.MonsterMind.MonsterMind;
+import NG.Living.MonsterMind.MonsterMindAssociator;
 import NG.Living.MonsterMind.MonsterMindSimple;
 import NG.Living.MonsterMind.MonsterMindSlave;
 import NG.Tools.ConsistentRandom;
 import org.joml.Vector2i;
 
-import java.util.ArrayList;
-import java.util.EnumMap;
-import java.util.List;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author Geert van Ieperen created on 4-2-2019.
  */
 public class MonsterSoul implements Living {
     private static final ConsistentRandom RNG = new ConsistentRandom(0);
+    private static final DamageType[] DAMAGE_TYPES = DamageType.values();
+    /** the tags of the types of mind in {@link SoulCodec} records */
+    private static final byte MIND_SIMPLE = 0;
+    private static final byte MIND_SLAVE = 1;
+    private static final byte MIND_ASSOCIATOR = 2;
     public final EntityProperties props;
 
     private String monsterName;
+    /** random, such that souls created in different runs of the game are unlikely to share an id */
+    private long id = ThreadLocalRandom.current().nextLong();
 
     private Player owner;
     private MonsterEntity entity;
     private MonsterMind mind;
 
-    private final Map<DamageType, Float> defences;
+    /** the defence against each type of damage, indexed by ordinal */
+    private final float[] defences;
+    /** the product of the active defence multipliers of each type of damage, maintained by {@link EffectSystem} */
+    final float[] defenceMultipliers = new float[DAMAGE_TYPES.length];
+    /** the number of active defence multipliers of each type of damage, maintained by {@link EffectSystem} */
+    final int[] nofDefenceMultipliers = new int[DAMAGE_TYPES.length];
     private int hitpoints;
-    private List<Effect> effects;
     private float lastUpdateTime = 0;
     private float getTimeOfDeath = Float.POSITIVE_INFINITY;
+    private float lastStimulusTime = Float.NEGATIVE_INFINITY;
+    /** the bucket of this soul in the {@link MindScheduler}, or 0 if not yet assigned */
+    transient int scheduleBucket = 0;
+    /** whether this soul thinks in the current tick, as decided by the {@link MindScheduler} */
+    transient boolean isDue = true;
 
     /**
      * read a monster description from the given file
@@ -42,18 +59,49 @@ public class MonsterSoul implements Living {
         this.props = props;
         this.owner = null;
 
-        this.effects = new ArrayList<>();
         this.mind = new MonsterMindSimple(this);
 
         this.hitpoints = (int) (props.hitPoints + (RNG.sqSigned() * props.deltaHitPoints));
         this.monsterName = "Wild " + props.name;
-        this.defences = new EnumMap<>(props.defences);
+        this.defences = new float[DAMAGE_TYPES.length];
+        Arrays.fill(defences, 1f);
+        for (Map.Entry<DamageType, Float> entry : props.defences.entrySet()) {
+            defences[entry.getKey().ordinal()] = entry.getValue();
+        }
+        Arrays.fill(defenceMultipliers, 1f);
+    }
+
+    /**
+     * creates a wild monster that learns from associations between stimuli
+     * @param props       the properties of the monster
+     * @param description the description of the soul of the monster
+     */
+    public MonsterSoul(EntityProperties props, SoulDescription description) {
+        this(props);
+        this.mind = new MonsterMindAssociator(this, description);
+    }
+
+    /** creates a soul without mind, to be completed by {@link #read(SoulCodec.Input)} */
+    private MonsterSoul(EntityProperties props, float[] defences) {
+        this.props = props;
+        this.defences = defences;
+        Arrays.fill(defenceMultipliers, 1f);
     }
 
     public void restore(Game game) {
         entity.restore(game);
     }
 
+    /**
+     * sets the entity of a soul that was read without its entity, such as by {@link SoulCodec}
+     * @param entity the entity of this soul
+     */
+    public void restoreEntity(MonsterEntity entity) {
+        this.entity = entity;
+        entity.restoreController(this);
+        mind.restoreEntity(entity);
+    }
+
     public MonsterEntity spawnEntity(Game game, Vector2i coordinate) {
         entity = new MonsterEntity(game, coordinate, this);
 
@@ -68,6 +116,8 @@ public class MonsterSoul implements Living {
 
     public void setOwner(Player owner, Game game) {
         this.owner = owner;
+        mind.discard();
+
         if (owner != null) {
             mind = new MonsterMindSlave(this);
             monsterName = props.name;
@@ -87,20 +137,39 @@ public class MonsterSoul implements Living {
     }
 
     public void update(float gametime) {
-        float deltaTime = gametime - lastUpdateTime;
-
-        effects.forEach(effect -> effect.apply(gametime, deltaTime));
         mind.update(gametime);
 
         lastUpdateTime = gametime;
     }
 
-    public void addEffect(Effect effect) {
-        effects.add(effect);
+    /**
+     * prepares an update of this soul, to be executed in parallel with other souls.
+     * @param gametime the current game time
+     * @return the changes of this update, which must be executed before the next update, or null if the {@link
+     * MindScheduler} decided that this soul skips the current tick.
+     * @see NG.Entities.Entity#think(float)
+     */
+    public Runnable think(float gametime) {
+        if (!isDue) return null;
+
+        Runnable intent = mind.think(gametime);
+        lastUpdateTime = gametime;
+        return intent;
+    }
+
+    /**
+     * passes the given stimulus to the mind of this soul
+     * @param stimulus the perceived stimulus
+     * @param gameTime the time of perceiving the stimulus
+     */
+    public void accept(Stimulus stimulus, float gameTime) {
+        lastStimulusTime = gameTime;
+        mind.accept(stimulus);
     }
 
     public void applyDamage(DamageType type, float power, float time) {
-        float multiplier = 1 / defences.getOrDefault(type, 1.0f);
+        int index = type.ordinal();
+        float multiplier = 1 / (defences[index] * defenceMultipliers[index]);
         hitpoints -= (multiplier * power);
 
         if (hitpoints <= 0) {
@@ -128,15 +197,104 @@ public class MonsterSoul implements Living {
         return entity;
     }
 
+    /**
+     * @return the identifier of this soul, which is kept when the soul is written by {@link SoulCodec}, such that other
+     * parts of a saved game can refer to it
+     */
+    public long getId() {
+        return id;
+    }
+
     public MonsterMind mind() {
         return mind;
     }
 
+    /** @return the player owning this monster, or null if this monster is wild */
+    public Player getOwner() {
+        return owner;
+    }
+
+    /** @return the last time this soul perceived a stimulus, or negative infinity if it never did */
+    public float getLastStimulusTime() {
+        return lastStimulusTime;
+    }
+
     public float getTimeOfDeath() {
         return getTimeOfDeath;
     }
 
-    interface Effect {
-        void apply(float currentTime, float deltaTime);
+    /**
+     * writes this soul and the state of its mind. The entity, the owner and the effects are not written.
+     * @see SoulCodec
+     */
+    void write(SoulCodec.Output out) throws IOException {
+        out.writeProperties(props);
+        out.writeUTF(monsterName);
+        out.writeSignedVarInt(hitpoints);
+
+        out.writeVarInt(defences.length);
+        for (float defence : defences) {
+            out.writeFloat(defence);
+        }
+
+        out.writeFloat(lastUpdateTime);
+        out.writeFloat(getTimeOfDeath);
+        out.writeFloat(lastStimulusTime);
+        out.writeLong(id);
+
+        if (mind instanceof MonsterMindAssociator) {
+            out.writeByte(MIND_ASSOCIATOR);
+            out.writeDescription(((MonsterMindAssociator) mind).getDescription());
+
+        } else if (mind instanceof MonsterMindSlave) {
+            out.writeByte(MIND_SLAVE);
+
+        } else if (mind instanceof MonsterMindSimple) {
+            out.writeByte(MIND_SIMPLE);
+
+        } else {
+            throw new IOException("Unsupported mind " + mind.getClass());
+        }
+        mind.writeState(out);
+    }
+
+    /** reads a soul written by {@link #write(SoulCodec.Output)} */
+    static MonsterSoul read(SoulCodec.Input in) throws IOException {
+        EntityProperties props = in.readProperties();
+        String name = in.readUTF();
+        int hitpoints = in.readSignedVarInt();
+
+        int nrOfDefences = in.readVarInt();
+        if (nrOfDefences != DAMAGE_TYPES.length) throw new IOException("Expected " + DAMAGE_TYPES.length + " defences");
+        float[] defences = new float[nrOfDefences];
+        for (int i = 0; i < nrOfDefences; i++) {
+            defences[i] = in.readFloat();
+        }
+
+        MonsterSoul soul = new MonsterSoul(props, defences);
+        soul.monsterName = name;
+        soul.hitpoints = hitpoints;
+        soul.lastUpdateTime = in.readFloat();
+        soul.getTimeOfDeath = in.readFloat();
+        soul.lastStimulusTime = in.readFloat();
+        soul.id = in.readLong();
+
+        byte mindType = in.readByte();
+        switch (mindType) {
+            case MIND_SIMPLE:
+                soul.mind = new MonsterMindSimple(soul);
+                break;
+            case MIND_SLAVE:
+                soul.mind = new MonsterMindSlave(soul);
+                break;
+            case MIND_ASSOCIATOR:
+                soul.mind = new MonsterMindAssociator(soul, in.readDescription());
+                break;
+            default:
+                throw new IOException("Unknown mind type " + mindType);
+        }
+        soul.mind.readState(in);
+
+        return soul;
     }
 }
@@ -0,0 +1,488 @@
+package NG.Living;
+
+import NG.Entities.EntityProperties;
+
+import java.io.*;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Reads and writes {@link MonsterSoul} instances and the state of their minds in a compact binary format. A block of
+ * souls consists of
+ * <ol>
+ * <li>the magic number {@link #MAGIC} and the format version</li>
+ * <li>a table of the names of the entity properties of the souls</li>
+ * <li>a table of the stimulus types used by the souls and their minds</li>
+ * <li>a table of the transformation matrices of the emotions of the minds</li>
+ * <li>a table of the soul descriptions of the minds, each either the name of a soul of the {@link SpeciesRegistry}
+ * or the encoded description</li>
+ * <li>for each soul, the length of its record followed by the record</li>
+ * </ol>
+ * Objects that are shared between souls are written once in a table, and referred to by their index, such that they
+ * are shared again after reading. Records use variable-length integers for counts and indices, and store emotions as
+ * their raw short values. Records only refer to the tables, such that they are decoded in parallel. Only the stimulus
+ * types of the game itself, {@link BaseStimulus} and {@link CommandSType}, can be written, as well as the null type of
+ * names that could not be resolved.
+ * <p>
+ * Entity properties and registered soul descriptions are resolved through the registry of the game, and matrices that
+ * equal a matrix of the registry are replaced by that matrix. Read souls thereby share these tables with the souls
+ * that the registry creates, and with each other.
+ * <p>
+ * The entity of a soul, its owner and its active effects are not written. Entities are linked to their soul with
+ * {@link MonsterSoul#restoreEntity(NG.Entities.MonsterEntity)}.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public final class SoulCodec {
+    /** "MGS" followed by a zero byte */
+    public static final int MAGIC = 0x4D475300;
+    public static final short VERSION = 2;
+
+    private static final byte TYPE_BASE = 0;
+    private static final byte TYPE_COMMAND = 1;
+    /** the type of stimulus names that could not be resolved, see {@link Stimulus#getByName(String)} */
+    private static final byte TYPE_NONE = 2;
+
+    private SoulCodec() {
+    }
+
+    /**
+     * writes the given souls to the given stream, in a format that can be read with {@link #read(InputStream,
+     * SpeciesRegistry)}
+     * @param souls    the souls to write
+     * @param stream   the stream to write to. It is not closed.
+     * @param registry the registry of the species and souls of the game
+     */
+    public static void write(
+            Collection<MonsterSoul> souls, OutputStream stream, SpeciesRegistry registry
+    ) throws IOException {
+        write(souls, (DataOutput) new DataOutputStream(stream), registry);
+        stream.flush();
+    }
+
+    /**
+     * writes the given souls to the given output, in a format that can be read with {@link #read(DataInput,
+     * SpeciesRegistry)}
+     * @param souls    the souls to write
+     * @param out      the output to write to
+     * @param registry the registry of the species and souls of the game
+     */
+    public static void write(
+            Collection<MonsterSoul> souls, DataOutput out, SpeciesRegistry registry
+    ) throws IOException {
+        // encode the records first, which collects the tables
+        Tables tables = new Tables(registry);
+        List<byte[]> records = new ArrayList<>(souls.size());
+        for (MonsterSoul soul : souls) {
+            Output record = new Output(tables);
+            soul.write(record);
+            records.add(record.toByteArray());
+        }
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+
+        out.writeInt(tables.properties.size());
+        for (EntityProperties properties : tables.properties.elements) {
+            out.writeUTF(properties.name);
+        }
+
+        out.writeInt(tables.types.size());
+        for (byte[] type : tables.types.encoded) {
+            out.write(type);
+        }
+
+        out.writeInt(Emotion.count);
+        out.writeInt(tables.matrices.size());
+        for (float[][] matrix : tables.matrices.elements) {
+            for (float[] row : matrix) {
+                for (float value : row) {
+                    out.writeFloat(value);
+                }
+            }
+        }
+
+        out.writeInt(tables.descriptions.size());
+        for (int i = 0; i < tables.descriptions.size(); i++) {
+            byte[] description = tables.descriptions.encoded.get(i);
+            // registered descriptions are not encoded
+            out.writeBoolean(description == null);
+            if (description == null) {
+                out.writeUTF(registry.getSoulName(tables.descriptions.elements.get(i)));
+
+            } else {
+                out.writeInt(description.length);
+                out.write(description);
+            }
+        }
+
+        out.writeInt(records.size());
+        for (byte[] record : records) {
+            out.writeInt(record.length);
+            out.write(record);
+        }
+    }
+
+    /**
+     * reads the souls written by {@link #write(Collection, OutputStream, SpeciesRegistry)}
+     * @param stream   the stream to read. It is not closed.
+     * @param registry the registry of the species and souls of the game
+     * @return the souls in the order they were written, without entity.
+     */
+    public static List<MonsterSoul> read(InputStream stream, SpeciesRegistry registry) throws IOException {
+        return read((DataInput) new DataInputStream(stream), registry);
+    }
+
+    /**
+     * reads the souls written by {@link #write(Collection, DataOutput, SpeciesRegistry)}
+     * @param in       the input to read
+     * @param registry the registry of the species and souls of the game
+     * @return the souls in the order they were written, without entity.
+     * @throws IOException if the souls refer to a species or a soul that is not in the given registry
+     */
+    public static List<MonsterSoul> read(DataInput in, SpeciesRegistry registry) throws IOException {
+        int magic = in.readInt();
+        if (magic != MAGIC) throw new IOException("Not a soul block");
+        short version = in.readShort();
+        if (version != VERSION) throw new IOException("Unsupported soul block version " + version);
+
+        Tables tables = new Tables(registry);
+
+        int nrOfProperties = readCount(in);
+        for (int i = 0; i < nrOfProperties; i++) {
+            String name = in.readUTF();
+            EntityProperties properties = registry.getSpecies(name);
+            if (properties == null) throw new IOException("Unknown type of monster " + name);
+            tables.properties.elements.add(properties);
+        }
+
+        int nrOfTypes = readCount(in);
+        for (int i = 0; i < nrOfTypes; i++) {
+            tables.types.elements.add(readType(in));
+        }
+
+        int nrOfEmotions = in.readInt();
+        if (nrOfEmotions != Emotion.count) {
+            throw new IOException("Expected " + Emotion.count + " emotions, but got " + nrOfEmotions);
+        }
+        int nrOfMatrices = readCount(in);
+        for (int i = 0; i < nrOfMatrices; i++) {
+            float[][] matrix = new float[Emotion.count][Emotion.count];
+            for (float[] row : matrix) {
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = in.readFloat();
+                }
+            }
+            tables.matrices.elements.add(registry.getSharedTransformation(matrix));
+        }
+
+        // descriptions may only refer to earlier tables
+        int nrOfDescriptions = readCount(in);
+        for (int i = 0; i < nrOfDescriptions; i++) {
+            if (in.readBoolean()) {
+                String name = in.readUTF();
+                SoulDescription description = registry.getSoul(name);
+                if (description == null) throw new IOException("Unknown soul " + name);
+                tables.descriptions.elements.add(description);
+
+            } else {
+                byte[] data = new byte[readCount(in)];
+                in.readFully(data);
+                tables.descriptions.elements.add(SoulDescription.read(new Input(data, tables)));
+            }
+        }
+
+        int nrOfSouls = readCount(in);
+        byte[][] records = new byte[nrOfSouls][];
+        for (int i = 0; i < nrOfSouls; i++) {
+            records[i] = new byte[readCount(in)];
+            in.readFully(records[i]);
+        }
+
+        MonsterSoul[] souls = new MonsterSoul[nrOfSouls];
+        try {
+            IntStream.range(0, nrOfSouls).parallel().forEach(i -> {
+                try {
+                    souls[i] = MonsterSoul.read(new Input(records[i], tables));
+
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        return Arrays.asList(souls);
+    }
+
+    /** reads a number of elements or bytes of the block */
+    private static int readCount(DataInput in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) throw new IOException("Negative count " + count);
+        return count;
+    }
+
+    private static byte[] encodeType(StimulusType type) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        if (type == null) {
+            out.writeByte(TYPE_NONE);
+
+        } else if (type instanceof BaseStimulus) {
+            out.writeByte(TYPE_BASE);
+            out.writeUTF(((BaseStimulus) type).name());
+
+        } else if (type.getClass() == CommandSType.class) {
+            out.writeByte(TYPE_COMMAND);
+            out.writeBoolean(((CommandSType) type).isTarget());
+
+        } else {
+            throw new IOException("Stimulus type " + type + " of " + type.getClass() + " can not be written");
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static StimulusType readType(DataInput in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TYPE_BASE:
+                String name = in.readUTF();
+                try {
+                    return BaseStimulus.valueOf(name);
+
+                } catch (IllegalArgumentException ex) {
+                    throw new IOException("Unknown stimulus " + name, ex);
+                }
+
+            case TYPE_COMMAND:
+                return new CommandSType(in.readBoolean());
+
+            case TYPE_NONE:
+                return null;
+
+            default:
+                throw new IOException("Unknown stimulus type tag " + tag);
+        }
+    }
+
+    /**
+     * writes a record. Shared objects are added to the tables of the block, and written as their index.
+     */
+    public static final class Output {
+        private final Tables tables;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        private Output(Tables tables) {
+            this.tables = tables;
+        }
+
+        public void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+
+        /** writes a signed value using zigzag encoding, such that small negative values are small as well */
+        public void writeSignedVarInt(int value) throws IOException {
+            writeVarInt((value << 1) ^ (value >> 31));
+        }
+
+        public void writeFloat(float value) throws IOException {
+            out.writeFloat(value);
+        }
+
+        public void writeLong(long value) throws IOException {
+            out.writeLong(value);
+        }
+
+        public void writeShort(short value) throws IOException {
+            out.writeShort(value);
+        }
+
+        public void writeBoolean(boolean value) throws IOException {
+            out.writeBoolean(value);
+        }
+
+        public void writeByte(int value) throws IOException {
+            out.writeByte(value);
+        }
+
+        public void writeUTF(String value) throws IOException {
+            out.writeUTF(value);
+        }
+
+        public void writeType(StimulusType type) throws IOException {
+            int index = tables.types.indexOf(type);
+            if (index < 0) index = tables.types.add(type, encodeType(type));
+            writeVarInt(index);
+        }
+
+        public void writeMatrix(float[][] matrix) throws IOException {
+            int index = tables.matrices.indexOf(matrix);
+            if (index < 0) index = tables.matrices.add(matrix, null);
+            writeVarInt(index);
+        }
+
+        public void writeProperties(EntityProperties properties) throws IOException {
+            int index = tables.properties.indexOf(properties);
+            if (index < 0) index = tables.properties.add(properties, null);
+            writeVarInt(index);
+        }
+
+        public void writeDescription(SoulDescription description) throws IOException {
+            int index = tables.descriptions.indexOf(description);
+            if (index < 0 && tables.registry.getSoulName(description) != null) {
+                index = tables.descriptions.add(description, null);
+
+            } else if (index < 0) {
+                Output encoded = new Output(tables);
+                description.write(encoded);
+                index = tables.descriptions.add(description, encoded.toByteArray());
+            }
+            writeVarInt(index);
+        }
+
+        private byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * reads a record. References to shared objects are resolved with the tables of the block. Inputs of different
+     * records may be used in parallel.
+     */
+    public static final class Input {
+        private final Tables tables;
+        private final DataInputStream in;
+
+        private Input(byte[] data, Tables tables) {
+            this.tables = tables;
+            this.in = new DataInputStream(new ByteArrayInputStream(data));
+        }
+
+        /**
+         * reads a count or index written by {@link Output#writeVarInt(int)}
+         * @return a non-negative value
+         * @throws IOException if the value is negative, or does not fit in an int
+         */
+        public int readVarInt() throws IOException {
+            int value = readRawVarInt();
+            if (value < 0) throw new IOException("Negative count or index " + value);
+            return value;
+        }
+
+        public int readSignedVarInt() throws IOException {
+            int zigzag = readRawVarInt();
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        /** reads the 32 bits of a variable-length integer of at most 5 bytes */
+        private int readRawVarInt() throws IOException {
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                if (shift > 28) throw new IOException("Variable-length integer is too long");
+                b = in.readUnsignedByte();
+                // the fifth byte holds the highest 4 bits
+                if (shift == 28 && (b & 0x70) != 0) throw new IOException("Variable-length integer is too large");
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        public float readFloat() throws IOException {
+            return in.readFloat();
+        }
+
+        public long readLong() throws IOException {
+            return in.readLong();
+        }
+
+        public short readShort() throws IOException {
+            return in.readShort();
+        }
+
+        public boolean readBoolean() throws IOException {
+            return in.readBoolean();
+        }
+
+        public byte readByte() throws IOException {
+            return in.readByte();
+        }
+
+        public String readUTF() throws IOException {
+            return in.readUTF();
+        }
+
+        public StimulusType readType() throws IOException {
+            return tables.types.get(readVarInt());
+        }
+
+        public float[][] readMatrix() throws IOException {
+            return tables.matrices.get(readVarInt());
+        }
+
+        public EntityProperties readProperties() throws IOException {
+            return tables.properties.get(readVarInt());
+        }
+
+        public SoulDescription readDescription() throws IOException {
+            return tables.descriptions.get(readVarInt());
+        }
+    }
+
+    private static class Tables {
+        final SpeciesRegistry registry;
+        final Table<EntityProperties> properties = new Table<>(true);
+        final Table<StimulusType> types = new Table<>(false);
+        final Table<float[][]> matrices = new Table<>(true);
+        final Table<SoulDescription> descriptions = new Table<>(true);
+
+        Tables(SpeciesRegistry registry) {
+            this.registry = registry;
+        }
+    }
+
+    /** the elements of a table in order of index, with their encoding when writing */
+    private static class Table<T> {
+        final List<T> elements = new ArrayList<>();
+        final List<byte[]> encoded = new ArrayList<>();
+        private final Map<T, Integer> indices;
+
+        /** @param byIdentity whether elements are the same when they are the same instance, or when they are equal */
+        Table(boolean byIdentity) {
+            this.indices = byIdentity ? new IdentityHashMap<>() : new HashMap<>();
+        }
+
+        int indexOf(T element) {
+            return indices.getOrDefault(element, -1);
+        }
+
+        int add(T element, byte[] encoding) {
+            int index = elements.size();
+            elements.add(element);
+            encoded.add(encoding);
+            indices.put(element, index);
+            return index;
+        }
+
+        T get(int index) throws IOException {
+            if (index < 0 || index >= elements.size()) {
+                throw new IOException("Reference to missing table element " + index);
+            }
+            return elements.get(index);
+        }
+
+        int size() {
+            return elements.size();
+        }
+    }
+}
@@ -2,91 +2,194 @@ package NG.Living;
 
 import NG.Tools.Toolbox;
 
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
-import java.util.regex.Pattern;
 
 /**
+ * The description of the soul of a species of monster. A description is shared by all monsters of its species, and is
+ * not modified after it is read; minds that learn copy what they change. See {@link SpeciesRegistry}.
  * @author Geert van Ieperen created on 7-4-2019.
  */
 public class SoulDescription {
-    public Map<StimulusType, Float> importance = new HashMap<>();
-    public Map<StimulusType, Emotion.Translation> stimulusEffects = new HashMap<>();
-    public Emotion.ECollection emotions = null;
-    public EnumMap<Emotion, Float> emotionValues = new EnumMap<>(Emotion.class);
+    public final Map<StimulusType, Float> importance;
+    public final Map<StimulusType, Emotion.Translation> stimulusEffects;
+    /** the emotions of a new monster, of which each monster gets a copy */
+    public final Emotion.ECollection emotions;
+    /** the valuation of each emotion */
+    public final Map<Emotion, Float> emotionValues;
 
-    public String name = "Generic Monster";
+    public final String name;
+
+    private SoulDescription(
+            String name, Map<StimulusType, Float> importance, Map<StimulusType, Emotion.Translation> stimulusEffects,
+            EnumMap<Emotion, Float> emotionValues, Emotion.ECollection emotions
+    ) {
+        this.name = name;
+        this.importance = Collections.unmodifiableMap(importance);
+        this.stimulusEffects = Collections.unmodifiableMap(stimulusEffects);
+        this.emotionValues = Collections.unmodifiableMap(emotionValues);
+        this.emotions = emotions;
+    }
 
     public SoulDescription(File description) throws IOException {
-        try (Scanner reader = new Scanner(new FileInputStream(description))) {
-            while (reader.hasNext()) {
-                String line = reader.nextLine().trim();
-                if (line.isEmpty() || line.charAt(0) == '#') continue; // ignore comments and blank lines
-
-                switch (line) {
-                    case "stimulus:":
-                        // sets importance and stimulusEffects
-                        readStimulusValues(reader);
-                        break;
-                    case "emotion:":
-                        // sets emotions
-                        emotions = new Emotion.ECollection(reader);
-                        break;
-                    case "value:":
-                        // sets emotionValue
-                        readEmotionValues(reader);
-                        break;
-                    case "name:":
-                        name = reader.nextLine().trim();
-                    default:
-                        throw new IllegalStateException("Unexpected input: " + line);
+        this(new Parser(description));
+    }
+
+    private SoulDescription(Parser parsed) {
+        this(parsed.name, parsed.importance, parsed.stimulusEffects, parsed.emotionValues, parsed.emotions);
+    }
+
+    /** reads the blocks of a soul file */
+    private static class Parser {
+        String name = "Generic Monster";
+        final Map<StimulusType, Float> importance = new HashMap<>();
+        final Map<StimulusType, Emotion.Translation> stimulusEffects = new HashMap<>();
+        final EnumMap<Emotion, Float> emotionValues = new EnumMap<>(Emotion.class);
+        Emotion.ECollection emotions = null;
+
+        Parser(File description) throws IOException {
+            try (BufferedReader reader = Files.newBufferedReader(description.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.charAt(0) == '#') continue; // ignore comments and blank lines
+
+                    switch (line) {
+                        case "stimulus:":
+                            // sets importance and stimulusEffects
+                            readStimulusValues(readBlock(reader));
+                            break;
+                        case "emotion:":
+                            // sets emotions
+                            emotions = new Emotion.ECollection(readBlock(reader));
+                            break;
+                        case "value:":
+                            // sets emotionValue
+                            readEmotionValues(readBlock(reader));
+                            break;
+                        case "name:":
+                            String nameLine = reader.readLine();
+                            if (nameLine == null) throw new IllegalStateException("Missing name");
+                            name = nameLine.trim();
+                            break;
+                        default:
+                            throw new IllegalStateException("Unexpected input: " + line);
+                    }
                 }
 
+            } catch (Exception ex) {
+                String message = "Error while loading file " + description;
+                throw new IOException(message, ex);
             }
-        } catch (Exception ex) {
-            String message = "Error while loading file";
-            throw new IOException(message, ex);
         }
-    }
 
-    private void readStimulusValues(Scanner reader) {
-        Pattern colonMark = Pattern.compile(":");
-        String line;
-        while (!(line = reader.nextLine()).equals("end")) {
-            if (line.isEmpty() || line.charAt(0) == '#') continue;
-            String[] elts = Toolbox.WHITESPACE_PATTERN.split(line.trim());
+        /** @return the lines up to the next line {@code end}, which must exist */
+        private static List<String> readBlock(BufferedReader reader) throws IOException {
+            List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().equals("end")) return lines;
+                lines.add(line);
+            }
+            throw new IllegalStateException("Missing end of block");
+        }
+
+        private void readStimulusValues(List<String> lines) {
+            for (String line : lines) {
+                if (line.isEmpty() || line.charAt(0) == '#') continue;
+                String[] elts = Toolbox.WHITESPACE_PATTERN.split(line.trim());
 
-            StimulusType slt = Stimulus.getByName(elts[0]);
-            float value = Float.parseFloat(elts[1]);
-            importance.put(slt, value);
+                StimulusType slt = Stimulus.getByName(elts[0]);
+                float value = Float.parseFloat(elts[1]);
+                importance.put(slt, value);
 
-            Emotion.Translation mapping = new Emotion.Translation();
-            for (int i = 2; i < elts.length; i++) {
-                String[] pair = colonMark.split(elts[i]);
-                Emotion emotion = Emotion.valueOf(pair[0]);
-                int change = Integer.parseInt(pair[1]);
+                Emotion.Translation mapping = new Emotion.Translation();
+                for (int i = 2; i < elts.length; i++) {
+                    String pair = elts[i];
+                    int colon = pair.indexOf(':');
+                    Emotion emotion = Emotion.valueOf(pair.substring(0, colon));
+                    int change = Integer.parseInt(pair.substring(colon + 1));
 
-                mapping.set(emotion, change);
+                    mapping.set(emotion, change);
+                }
+
+                stimulusEffects.put(slt, mapping);
             }
+        }
+
+        private void readEmotionValues(List<String> lines) {
+            for (String line : lines) {
+                if (line.isEmpty() || line.charAt(0) == '#') continue;
+                String[] elts = Toolbox.WHITESPACE_PATTERN.split(line.trim());
 
-            stimulusEffects.put(slt, mapping);
+                Emotion emotion = Emotion.valueOf(elts[0]);
+                float value = Float.parseFloat(elts[1]);
+                emotionValues.put(emotion, value);
+            }
         }
     }
 
-    private void readEmotionValues(Scanner reader) {
-        String line;
-        while (!(line = reader.nextLine()).equals("end")) {
-            if (line.isEmpty() || line.charAt(0) == '#') continue;
-            String[] elts = Toolbox.WHITESPACE_PATTERN.split(line.trim());
+    /** writes this description, see {@link SoulCodec} */
+    void write(SoulCodec.Output out) throws IOException {
+        out.writeUTF(name);
+
+        out.writeVarInt(importance.size());
+        for (Map.Entry<StimulusType, Float> entry : importance.entrySet()) {
+            out.writeType(entry.getKey());
+            out.writeFloat(entry.getValue());
+        }
+
+        out.writeVarInt(stimulusEffects.size());
+        for (Map.Entry<StimulusType, Emotion.Translation> entry : stimulusEffects.entrySet()) {
+            out.writeType(entry.getKey());
+            entry.getValue().write(out);
+        }
 
-            Emotion emotion = Emotion.valueOf(elts[0]);
-            float value = Float.parseFloat(elts[1]);
-            emotionValues.put(emotion, value);
+        out.writeVarInt(emotionValues.size());
+        for (Map.Entry<Emotion, Float> entry : emotionValues.entrySet()) {
+            out.writeByte(entry.getKey().ordinal());
+            out.writeFloat(entry.getValue());
         }
+
+        out.writeBoolean(emotions != null);
+        if (emotions != null) emotions.write(out);
+    }
+
+    /** reads a description written by {@link #write(SoulCodec.Output)} */
+    static SoulDescription read(SoulCodec.Input in) throws IOException {
+        String name = in.readUTF();
+
+        Map<StimulusType, Float> importance = new HashMap<>();
+        int nrOfImportances = in.readVarInt();
+        for (int i = 0; i < nrOfImportances; i++) {
+            StimulusType type = in.readType();
+            importance.put(type, in.readFloat());
+        }
+
+        Map<StimulusType, Emotion.Translation> stimulusEffects = new HashMap<>();
+        int nrOfEffects = in.readVarInt();
+        for (int i = 0; i < nrOfEffects; i++) {
+            StimulusType type = in.readType();
+            stimulusEffects.put(type, Emotion.Translation.read(in));
+        }
+
+        EnumMap<Emotion, Float> emotionValues = new EnumMap<>(Emotion.class);
+        int nrOfValues = in.readVarInt();
+        for (int i = 0; i < nrOfValues; i++) {
+            Emotion emotion = Emotion.read(in);
+            emotionValues.put(emotion, in.readFloat());
+        }
+
+        Emotion.ECollection emotions = in.readBoolean() ? Emotion.ECollection.read(in) : null;
+        return new SoulDescription(name, importance, stimulusEffects, emotionValues, emotions);
     }
 }
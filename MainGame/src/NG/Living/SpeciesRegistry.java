@@ -0,0 +1,205 @@
+package NG.Living;
+
+import NG.Core.Game;
+import NG.Core.GameAspect;
+import NG.Entities.EntityProperties;
+import NG.Tools.Directory;
+import NG.Tools.Logger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads the descriptions of all species of monsters once, and creates the souls of new monsters from them. Each soul
+ * file and each monster description is parsed in parallel on initialisation into shared tables, which are not
+ * modified afterwards. A new soul refers to these tables instead of copying them: the emotions of the soul share the
+ * transformation of its description, and a mind only copies a table when it changes it.
+ * <p>
+ * Souls are identified by the name of their file without extension. Species are identified by the names in their
+ * {@code description.json}, of which each monster directory has one. Files that cannot be read are skipped. The
+ * properties of {@link EntityProperties#EntityProperties()} are always available as {@link
+ * EntityProperties#DEFAULT_NAME}, unless a file defines a species of that name.
+ * <p>
+ * Saved souls refer to the tables of this registry by name, see {@link SoulCodec}, such that loaded monsters share
+ * them with new monsters.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class SpeciesRegistry implements GameAspect {
+    private static final String SOUL_EXTENSION = ".txt";
+    private static final String SPECIES_FILE = "description.json";
+
+    private Map<String, SoulDescription> souls = Collections.emptyMap();
+    private Map<String, EntityProperties> species = Collections.emptyMap();
+    /** the name of each loaded soul description */
+    private Map<SoulDescription, String> soulNames = Collections.emptyMap();
+    /** the distinct transformation matrices of the loaded souls */
+    private List<float[][]> transformations = Collections.emptyList();
+    private boolean isLoaded = false;
+
+    /**
+     * loads the species of the game directories, unless this registry was loaded before. A registry may be shared by
+     * multiple games.
+     */
+    @Override
+    public synchronized void init(Game game) {
+        if (isLoaded) return;
+        load(Directory.souls.getDirectory(), Directory.monsters.getDirectory());
+    }
+
+    /**
+     * replaces the contents of this registry with the souls and species in the given directories
+     * @param soulDirectory    a directory of soul files
+     * @param monsterDirectory a directory with a subdirectory per monster, each with a description file
+     */
+    public synchronized void load(File soulDirectory, File monsterDirectory) {
+        Map<String, SoulDescription> newSouls = new ConcurrentHashMap<>();
+        Map<String, EntityProperties> newSpecies = new ConcurrentHashMap<>();
+
+        File[] soulFiles = soulDirectory.listFiles((dir, name) -> name.endsWith(SOUL_EXTENSION));
+        File[] monsterDirs = monsterDirectory.listFiles(File::isDirectory);
+        List<Runnable> tasks = new ArrayList<>();
+
+        if (soulFiles != null) {
+            for (File file : soulFiles) {
+                tasks.add(() -> loadSoul(file, newSouls));
+            }
+        }
+        if (monsterDirs != null) {
+            for (File dir : monsterDirs) {
+                tasks.add(() -> loadSpecies(new File(dir, SPECIES_FILE), newSpecies));
+            }
+        }
+
+        tasks.parallelStream().forEach(Runnable::run);
+        newSpecies.computeIfAbsent(EntityProperties.DEFAULT_NAME, name -> new EntityProperties());
+
+        Map<SoulDescription, String> newSoulNames = new IdentityHashMap<>();
+        List<float[][]> newTransformations = new ArrayList<>();
+        newSouls.forEach((name, description) -> {
+            newSoulNames.put(description, name);
+            if (description.emotions == null) return;
+
+            float[][] matrix = description.emotions.getTransformationMatrix();
+            if (newTransformations.stream().noneMatch(m -> Arrays.deepEquals(m, matrix))) {
+                newTransformations.add(matrix);
+            }
+        });
+
+        souls = Collections.unmodifiableMap(new HashMap<>(newSouls));
+        species = Collections.unmodifiableMap(new HashMap<>(newSpecies));
+        soulNames = newSoulNames;
+        transformations = newTransformations;
+        isLoaded = true;
+        Logger.INFO.print("Loaded " + souls.size() + " souls and " + species.size() + " species");
+    }
+
+    private static void loadSoul(File file, Map<String, SoulDescription> target) {
+        String name = file.getName();
+        name = name.substring(0, name.length() - SOUL_EXTENSION.length());
+
+        try {
+            target.put(name, new SoulDescription(file));
+
+        } catch (IOException ex) {
+            Logger.WARN.print("Could not load soul " + name + ": " + ex.getCause());
+        }
+    }
+
+    private static void loadSpecies(File file, Map<String, EntityProperties> target) {
+        if (!file.exists()) return;
+
+        try {
+            JsonNode root = new ObjectMapper().readTree(file);
+            Iterator<Map.Entry<String, JsonNode>> fields = root.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                target.put(field.getKey(), new EntityProperties(field.getValue(), field.getKey()));
+            }
+
+        } catch (IOException | RuntimeException ex) {
+            Logger.WARN.print("Could not load species of " + file + ": " + ex);
+        }
+    }
+
+    /**
+     * @param name the name of a soul file, without extension
+     * @return the description of the soul, or null if no such soul is loaded
+     */
+    public SoulDescription getSoul(String name) {
+        return souls.get(name);
+    }
+
+    /**
+     * @param name the name of a species
+     * @return the properties of the species, or null if no such species is loaded
+     */
+    public EntityProperties getSpecies(String name) {
+        return species.get(name);
+    }
+
+    /**
+     * @param description a soul description
+     * @return the name of the given description if it is loaded by this registry, or null if it is not
+     */
+    public String getSoulName(SoulDescription description) {
+        return soulNames.get(description);
+    }
+
+    /**
+     * @param matrix a transformation matrix of emotions
+     * @return the matrix of a loaded soul that is equal to the given matrix, or the given matrix if there is none
+     */
+    float[][] getSharedTransformation(float[][] matrix) {
+        for (float[][] transformation : transformations) {
+            if (Arrays.deepEquals(transformation, matrix)) return transformation;
+        }
+        return matrix;
+    }
+
+    /** @return the names of all loaded souls */
+    public Set<String> getSoulNames() {
+        return souls.keySet();
+    }
+
+    /** @return the names of all loaded species */
+    public Set<String> getSpeciesNames() {
+        return species.keySet();
+    }
+
+    /**
+     * creates the soul of a new wild monster, which shares the tables of its species and soul description
+     * @param speciesName the name of the species of the monster
+     * @param soulName    the name of the soul of the monster
+     * @return a new soul
+     * @throws IllegalArgumentException if the species or the soul is not loaded
+     */
+    public MonsterSoul createSoul(String speciesName, String soulName) {
+        EntityProperties properties = species.get(speciesName);
+        if (properties == null) throw new IllegalArgumentException("Unknown species " + speciesName);
+
+        return createSoul(properties, soulName);
+    }
+
+    /**
+     * creates the soul of a new wild monster with the given properties, which shares the tables of its soul
+     * description
+     * @param properties the properties of the monster, such as of a species that is not loaded from a file
+     * @param soulName   the name of the soul of the monster
+     * @return a new soul
+     * @throws IllegalArgumentException if the soul is not loaded
+     */
+    public MonsterSoul createSoul(EntityProperties properties, String soulName) {
+        SoulDescription description = souls.get(soulName);
+        if (description == null) throw new IllegalArgumentException("Unknown soul " + soulName);
+
+        return new MonsterSoul(properties, description);
+    }
+
+    @Override
+    public void cleanup() {
+    }
+}
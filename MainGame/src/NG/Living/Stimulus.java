@@ -29,6 +29,15 @@ public interface Stimulus {
         return 1;
     }
 
+    /**
+     * @param minimumMagnitude a positive magnitude
+     * @return the largest distance from {@link #getPosition()} where {@link #getMagnitude(Vector3fc)} is at least the
+     * given magnitude, or infinity if this is not bounded.
+     */
+    default float getRange(float minimumMagnitude) {
+        return Float.POSITIVE_INFINITY;
+    }
+
     default float getTime() {
         return 0;
     }
@@ -0,0 +1,163 @@
+package NG.Living;
+
+import NG.Actions.ActionCursor;
+import NG.CollisionDetection.GameState;
+import NG.Core.Game;
+import NG.Core.GameSystem;
+import NG.DataStructures.Generic.PointGrid;
+import NG.Entities.Entity;
+import NG.Entities.MonsterEntity;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Delivers stimuli to the minds of the monsters that can perceive them. Stimuli can be emitted at any moment and from
+ * any thread, and are delivered together on the next update of the bus, before the monsters think. Each stimulus is
+ * only offered to the monsters within its range (see {@link Stimulus#getRange(float)}), which are found using a grid of
+ * the monster positions that is built once per tick.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class StimulusBus implements GameSystem {
+    /** the magnitude below which stimuli are not delivered, which is 'almost negligible' as by {@link Stimulus} */
+    public static final float DEFAULT_MINIMUM_MAGNITUDE = 1f;
+    /** the smallest size of a cell of the grid, in world units */
+    private static final float MINIMUM_CELL_SIZE = 4f;
+
+    private final float minimumMagnitude;
+    private List<Stimulus> pending = new ArrayList<>();
+    private List<Stimulus> delivering = new ArrayList<>();
+
+    // the monsters of the current tick, and the grid of their positions
+    private MonsterEntity[] monsters = new MonsterEntity[0];
+    private float[] positions = new float[0]; // x, y, z per monster
+    private int nofMonsters;
+    private final PointGrid grid = new PointGrid();
+
+    private final ActionCursor cursor = new ActionCursor();
+    private final Vector3f position = new Vector3f();
+    private Game game;
+
+    public StimulusBus() {
+        this(DEFAULT_MINIMUM_MAGNITUDE);
+    }
+
+    /**
+     * @param minimumMagnitude the magnitude a stimulus must have on the position of a monster to be delivered to it
+     */
+    public StimulusBus(float minimumMagnitude) {
+        this.minimumMagnitude = minimumMagnitude;
+    }
+
+    @Override
+    public void init(Game game) {
+        this.game = game;
+    }
+
+    /** delivers the stimuli emitted since the previous update to the monsters of the game state */
+    @Override
+    public void update(float gameTime) {
+        boolean hasPending;
+        synchronized (this) {
+            hasPending = !pending.isEmpty();
+        }
+
+        if (hasPending) deliver(gameTime, game.get(GameState.class).entities());
+    }
+
+    /**
+     * queues the stimulus to be delivered on the next update of this bus. This method is thread-safe.
+     * @param stimulus the stimulus to deliver
+     */
+    public void emit(Stimulus stimulus) {
+        synchronized (this) {
+            pending.add(stimulus);
+        }
+    }
+
+    /**
+     * delivers all stimuli emitted since the last call to the monsters among the given entities that perceive them.
+     * Stimuli emitted during delivery are delivered on the next call.
+     * @param gameTime the current game time, which determines the positions of the entities
+     * @param entities the entities of the world
+     */
+    public void deliver(float gameTime, Collection<? extends Entity> entities) {
+        List<Stimulus> stimuli;
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            stimuli = pending;
+            pending = delivering;
+            delivering = stimuli;
+        }
+
+        buildGrid(gameTime, entities);
+
+        for (Stimulus stimulus : stimuli) {
+            deliver(stimulus, gameTime);
+        }
+
+        stimuli.clear();
+        Arrays.fill(monsters, 0, nofMonsters, null);
+    }
+
+    private void deliver(Stimulus stimulus, float gameTime) {
+        Vector3fc origin = stimulus.getPosition();
+        float range = stimulus.getRange(minimumMagnitude);
+
+        // an infinite range covers the whole grid
+        int xMin = grid.firstColumn(origin.x() - range);
+        int xMax = grid.lastColumn(origin.x() + range);
+        int yMax = grid.lastRow(origin.y() + range);
+
+        for (int row = grid.firstRow(origin.y() - range); row <= yMax; row++) {
+            int to = grid.rowEnd(row, xMax);
+
+            for (int slot = grid.rowStart(row, xMin); slot < to; slot++) {
+                int i = grid.pointAt(slot);
+                position.set(positions[3 * i], positions[3 * i + 1], positions[3 * i + 2]);
+                if (stimulus.getMagnitude(position) < minimumMagnitude) continue;
+
+                monsters[i].getController().accept(stimulus, gameTime);
+            }
+        }
+    }
+
+    /** collects the monsters and their positions, and sorts them into a grid that covers all monsters */
+    private void buildGrid(float gameTime, Collection<? extends Entity> entities) {
+        if (monsters.length < entities.size()) {
+            monsters = new MonsterEntity[entities.size()];
+            positions = new float[entities.size() * 3];
+        }
+
+        int n = 0;
+        for (Entity entity : entities) {
+            if (!(entity instanceof MonsterEntity) || entity.isDespawnedAt(gameTime)) continue;
+            MonsterEntity monster = (MonsterEntity) entity;
+
+            monster.getActionAt(gameTime, cursor);
+            cursor.action.getPositionAt(cursor.timeSinceStart, position);
+
+            monsters[n] = monster;
+            positions[3 * n] = position.x;
+            positions[3 * n + 1] = position.y;
+            positions[3 * n + 2] = position.z;
+            n++;
+        }
+
+        nofMonsters = n;
+        grid.build(positions, 3, n, MINIMUM_CELL_SIZE);
+    }
+
+    @Override
+    public void cleanup() {
+        synchronized (this) {
+            pending.clear();
+        }
+        Arrays.fill(monsters, null);
+        nofMonsters = 0;
+    }
+}
@@ -65,6 +65,19 @@ public abstract class AbstractMesh implements Mesh {
         glBufferData(GL_ELEMENT_ARRAY_BUFFER, indices, GL_STATIC_DRAW);
     }
 
+    /**
+     * loads an index buffer for indexed rendering
+     * @param indices a buffer of indices, from its position to its limit. The buffer is not modified nor cached.
+     */
+    public void createIndexBuffer(IntBuffer indices) {
+        assert EBO_ID == 0;
+        EBO_ID = glGenBuffers();
+        setElementCount(indices.remaining());
+
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, EBO_ID);
+        glBufferData(GL_ELEMENT_ARRAY_BUFFER, indices, GL_STATIC_DRAW);
+    }
+
     /**
      * Initiates the creation of a mesh on the GPU. Creates a VAO and initializes 5 VBO's to 0
      */
@@ -139,6 +152,28 @@ public abstract class AbstractMesh implements Mesh {
         }
     }
 
+    /**
+     * Creates a buffer object from a direct buffer that has already been filled, for instance on another thread. The
+     * reference to the resulting VBO is placed at VBOIndices[index].
+     * @param data  data to transfer, from its position to its limit. The buffer is not modified nor cached.
+     * @param index index of the VBO, one of the constants given in {@link NG.Rendering.Shaders.ShaderProgram}
+     * @param size  number of elements in each attribute
+     */
+    public void createVBO(FloatBuffer data, int index, int size) {
+        if (index < 0 || index >= VBOIndices.length) {
+            throw new IndexOutOfBoundsException(
+                    "Given index out of bounds: " + index + " on size " + VBOIndices.length);
+        }
+
+        int vboId = glGenBuffers();
+
+        glBindBuffer(GL_ARRAY_BUFFER, vboId);
+        glBufferData(GL_ARRAY_BUFFER, data, GL_STATIC_DRAW);
+        glVertexAttribPointer(index, size, GL_FLOAT, false, 0, 0);
+
+        VBOIndices[index] = vboId;
+    }
+
     /**
      * Creates a buffer object to transfer data to the GPU. The reference to the resulting VBO is placed at
      * VBOIndices[index].
@@ -0,0 +1,48 @@
+package NG.Rendering.MeshLoading;
+
+import NG.Rendering.Shaders.ShaderProgram;
+import NG.Tools.Toolbox;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER;
+import static org.lwjgl.opengl.GL15.glBindBuffer;
+import static org.lwjgl.opengl.GL30.glBindVertexArray;
+
+/**
+ * An indexed mesh of which the data is prepared in direct buffers beforehand, possibly on another thread, such that
+ * creating the mesh only uploads the buffers.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class BufferedMesh extends AbstractMesh {
+
+    /**
+     * Creates a mesh from the given buffers. This may only be called on the main thread. All buffers are read from
+     * their position to their limit, and are not modified.
+     * @param positions the vertices, in groups of 3
+     * @param normals   the normals of the vertices, in groups of 3
+     * @param texCoords the texture coordinates of the vertices, in groups of 2. May be null.
+     * @param indices   the indices of the vertices of each triangle, in groups of 3
+     */
+    public BufferedMesh(FloatBuffer positions, FloatBuffer normals, FloatBuffer texCoords, IntBuffer indices) {
+        if (!indices.hasRemaining()) return;
+        assert positions.remaining() == normals.remaining();
+        assert texCoords == null || texCoords.remaining() * 3 == positions.remaining() * 2;
+
+        initMesh();
+
+        glBindVertexArray(getVAO());
+
+        createIndexBuffer(indices);
+        createVBO(positions, ShaderProgram.VERTEX_LOCATION, 3);
+        createVBO(normals, ShaderProgram.NORMAL_LOCATION, 3);
+        if (texCoords != null) {
+            createVBO(texCoords, ShaderProgram.TEXTURE_LOCATION, 2);
+        }
+
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glBindVertexArray(0);
+        Toolbox.checkGLError(toString());
+    }
+}
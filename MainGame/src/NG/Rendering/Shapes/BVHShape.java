@@ -0,0 +1,215 @@
+package NG.Rendering.Shapes;
+
+import NG.Rendering.Shapes.Primitives.Plane;
+import org.joml.AABBf;
+import org.joml.Vector3fc;
+
+import java.util.*;
+
+/**
+ * A shape that stores its planes in a bounding volume hierarchy, such that {@link #getIntersectionScalar(Vector3fc,
+ * Vector3fc)} only tests the planes of which the bounding box is hit by the ray. The hierarchy is stored in flat arrays,
+ * and is immutable after construction.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class BVHShape implements Shape {
+    /** maximum number of planes in a leaf node */
+    private static final int LEAF_SIZE = 4;
+    /** margin added to the bounds of each node, to catch rays that hit planes exactly on the edge of a box */
+    private static final float MARGIN = 1e-4f;
+
+    private final AABBf boundingBox;
+    private final List<Vector3fc> points;
+    /** all planes, ordered such that every node refers to a contiguous section */
+    private final Plane[] planes;
+    /** per node 6 values: minX, minY, minZ, maxX, maxY, maxZ */
+    private float[] bounds;
+    /**
+     * per node 2 values. For leaf nodes: index of first plane, number of planes. For other nodes: index of second
+     * child, 0. The first child of a node is always the next node.
+     */
+    private int[] nodes;
+    private int nrOfNodes = 0;
+
+    /**
+     * creates a hierarchy of the given planes
+     * @param source the planes of the new shape
+     */
+    public BVHShape(Collection<? extends Plane> source) {
+        this.planes = source.toArray(new Plane[0]);
+
+        int n = planes.length;
+        float[] planeBounds = new float[n * 6];
+        Set<Vector3fc> pointSet = new HashSet<>();
+        AABBf box = new AABBf();
+
+        for (int i = 0; i < n; i++) {
+            float[] b = {
+                    Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                    Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY
+            };
+
+            for (Vector3fc p : planes[i].getBorder()) {
+                b[0] = Math.min(b[0], p.x());
+                b[1] = Math.min(b[1], p.y());
+                b[2] = Math.min(b[2], p.z());
+                b[3] = Math.max(b[3], p.x());
+                b[4] = Math.max(b[4], p.y());
+                b[5] = Math.max(b[5], p.z());
+                pointSet.add(p);
+                box.union(p);
+            }
+
+            System.arraycopy(b, 0, planeBounds, i * 6, 6);
+        }
+
+        this.boundingBox = box;
+        this.points = Collections.unmodifiableList(new ArrayList<>(pointSet));
+
+        int maxNodes = Math.max(1, 2 * n);
+        this.bounds = new float[maxNodes * 6];
+        this.nodes = new int[maxNodes * 2];
+
+        Integer[] order = new Integer[n];
+        Arrays.setAll(order, i -> i);
+        build(order, 0, n, planeBounds);
+
+        Plane[] sorted = new Plane[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = planes[order[i]];
+        }
+        System.arraycopy(sorted, 0, planes, 0, n);
+
+        bounds = Arrays.copyOf(bounds, nrOfNodes * 6);
+        nodes = Arrays.copyOf(nodes, nrOfNodes * 2);
+    }
+
+    /** builds the node of the planes order[from] to order[to - 1], and returns the index of this node */
+    private int build(Integer[] order, int from, int to, float[] planeBounds) {
+        int node = nrOfNodes++;
+
+        // bounds of this node, and bounds of the centers of the planes
+        float[] b = new float[6];
+        float[] c = new float[6];
+        Arrays.fill(b, 0, 3, Float.POSITIVE_INFINITY);
+        Arrays.fill(b, 3, 6, Float.NEGATIVE_INFINITY);
+        Arrays.fill(c, 0, 3, Float.POSITIVE_INFINITY);
+        Arrays.fill(c, 3, 6, Float.NEGATIVE_INFINITY);
+
+        for (int i = from; i < to; i++) {
+            int pb = order[i] * 6;
+            for (int axis = 0; axis < 3; axis++) {
+                float min = planeBounds[pb + axis];
+                float max = planeBounds[pb + axis + 3];
+                float center = (min + max) / 2;
+                b[axis] = Math.min(b[axis], min);
+                b[axis + 3] = Math.max(b[axis + 3], max);
+                c[axis] = Math.min(c[axis], center);
+                c[axis + 3] = Math.max(c[axis + 3], center);
+            }
+        }
+
+        for (int axis = 0; axis < 3; axis++) {
+            bounds[node * 6 + axis] = b[axis] - MARGIN;
+            bounds[node * 6 + axis + 3] = b[axis + 3] + MARGIN;
+        }
+
+        if (to - from <= LEAF_SIZE) {
+            nodes[node * 2] = from;
+            nodes[node * 2 + 1] = to - from;
+            return node;
+        }
+
+        // split on the median of the longest axis of centers
+        int axis = 0;
+        for (int a = 1; a < 3; a++) {
+            if (c[a + 3] - c[a] > c[axis + 3] - c[axis]) axis = a;
+        }
+
+        final int splitAxis = axis;
+        Arrays.sort(order, from, to, Comparator.comparingDouble(i ->
+                planeBounds[i * 6 + splitAxis] + planeBounds[i * 6 + splitAxis + 3]
+        ));
+
+        int middle = (from + to) / 2;
+        build(order, from, middle, planeBounds);
+        int second = build(order, middle, to, planeBounds);
+
+        nodes[node * 2] = second;
+        nodes[node * 2 + 1] = 0;
+        return node;
+    }
+
+    @Override
+    public float getIntersectionScalar(Vector3fc origin, Vector3fc direction) {
+        if (planes.length == 0) return Float.POSITIVE_INFINITY;
+        return intersect(0, origin, direction, Float.POSITIVE_INFINITY);
+    }
+
+    private float intersect(int node, Vector3fc origin, Vector3fc direction, float least) {
+        if (!hitsNode(node, origin, direction, least)) return least;
+
+        int count = nodes[node * 2 + 1];
+        if (count > 0) {
+            int first = nodes[node * 2];
+            for (int i = first; i < first + count; i++) {
+                float scalar = planes[i].getIntersectionScalar(origin, direction);
+                if (scalar < least) least = scalar;
+            }
+            return least;
+        }
+
+        least = intersect(node + 1, origin, direction, least);
+        return intersect(nodes[node * 2], origin, direction, least);
+    }
+
+    /** slab test of the ray against the bounds of the given node, only accepting hits before maximum */
+    private boolean hitsNode(int node, Vector3fc origin, Vector3fc direction, float maximum) {
+        int b = node * 6;
+        float tNear = 0;
+        float tFar = maximum;
+
+        for (int axis = 0; axis < 3; axis++) {
+            float o = origin.get(axis);
+            float d = direction.get(axis);
+            float min = bounds[b + axis];
+            float max = bounds[b + axis + 3];
+
+            if (d == 0) {
+                if (o < min || o > max) return false;
+
+            } else {
+                float inv = 1f / d;
+                float t1 = (min - o) * inv;
+                float t2 = (max - o) * inv;
+
+                if (t1 > t2) {
+                    float t = t1;
+                    t1 = t2;
+                    t2 = t;
+                }
+
+                if (t1 > tNear) tNear = t1;
+                if (t2 < tFar) tFar = t2;
+                if (tNear > tFar) return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public Collection<? extends Plane> getPlanes() {
+        return Collections.unmodifiableList(Arrays.asList(planes));
+    }
+
+    @Override
+    public Collection<Vector3fc> getPoints() {
+        return points;
+    }
+
+    @Override
+    public AABBf getBoundingBox() {
+        return boundingBox;
+    }
+}
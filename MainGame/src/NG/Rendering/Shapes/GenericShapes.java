@@ -30,23 +30,31 @@ public enum GenericShapes implements Mesh, Shape {
     ;
 
     private Resource<Mesh> mesh;
+    private Resource<MeshFile> meshFile;
     private Shape shape; // we use the actual shape as this is an enum
 
     GenericShapes(String... path) {
         Resource<MeshFile> pars = MeshFile.createResource(Directory.meshes, path);
         shape = pars.get().getShape();
         mesh = Resource.derive(pars, MeshFile::getMesh, Mesh::dispose);
+        meshFile = pars;
     }
 
     GenericShapes(CustomShape frame) {
         shape = frame.toShape();
         mesh = new GeneratorResource<>(frame::toFlatMesh, Mesh::dispose);
+        meshFile = new GeneratorResource<>(frame::toMeshFile, null);
     }
 
     public Resource<Mesh> meshResource() {
         return mesh;
     }
 
+    /** @return the vertex data of this shape, as used to create its mesh */
+    public Resource<MeshFile> meshFileResource() {
+        return meshFile;
+    }
+
     public Resource<Shape> shapeResource() {
         return new GeneratorResource<>(() -> shape, null);
     }
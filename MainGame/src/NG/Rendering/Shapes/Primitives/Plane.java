@@ -16,6 +16,8 @@ import java.util.List;
  */
 public abstract class Plane {
     private static final float EPSILON = 1e-4f;
+    /** the hit positions of {@link #getIntersectionScalar(Vector3fc, Vector3fc)}, one for each thread */
+    private static final ThreadLocal<Vector3f> HIT_POSITION = ThreadLocal.withInitial(Vector3f::new);
 
     /** normalized */
     protected final Vector3fc normal;
@@ -49,7 +51,7 @@ public abstract class Plane {
 
         if (scalar < 0) return Float.POSITIVE_INFINITY;
 
-        Vector3fc hitPos = new Vector3f(direction).mul(scalar).add(origin);
+        Vector3fc hitPos = HIT_POSITION.get().set(direction).mul(scalar).add(origin);
         return this.encapsulates(hitPos) ? scalar : Float.POSITIVE_INFINITY;
 
     }
@@ -63,6 +65,22 @@ public abstract class Plane {
      */
     protected abstract boolean encapsulates(Vector3fc hitPos);
 
+    /**
+     * computes on which side of the edge from {@code from} to {@code to} the given point lies, relative to a reference
+     * vector. This uses no temporary vectors, such that planes can be queried from multiple threads.
+     * @return the dot product of {@code ref} with (to - from) x (hitPos - from)
+     */
+    protected static float edgeSide(Vector3fc from, Vector3fc to, Vector3fc hitPos, Vector3fc ref) {
+        float ex = to.x() - from.x();
+        float ey = to.y() - from.y();
+        float ez = to.z() - from.z();
+        float hx = hitPos.x() - from.x();
+        float hy = hitPos.y() - from.y();
+        float hz = hitPos.z() - from.z();
+
+        return ref.x() * (ey * hz - ez * hy) + ref.y() * (ez * hx - ex * hz) + ref.z() * (ex * hy - ey * hx);
+    }
+
     /**
      * @return a stream of the vertices of this object in counterclockwise order
      */
@@ -99,6 +117,40 @@ public abstract class Plane {
         return middle;
     }
 
+    /**
+     * creates a copy of this plane, rotated counterclockwise around the z-axis. This is the same rotation as {@link
+     * NG.Rendering.MatrixStack.MatrixStack#rotateQuarter(int, int, int)} on the z-axis.
+     * @param quarters the number of quarter turns to rotate
+     * @return a new plane of the same type as this plane
+     */
+    public Plane rotateQuarter(int quarters) {
+        Vector3fc[] border = new Vector3fc[boundary.length];
+        Arrays.setAll(border, i -> rotateQuarter(boundary[i], quarters));
+        Vector3f newNormal = rotateQuarter(normal, quarters);
+
+        switch (border.length) {
+            case 3:
+                return Triangle.createTriangle(border[0], border[1], border[2], newNormal);
+            case 4:
+                return Quad.createQuad(border[0], border[1], border[2], border[3], newNormal);
+            default:
+                throw new UnsupportedOperationException("polygons with " + border.length + " edges are not supported");
+        }
+    }
+
+    private static Vector3f rotateQuarter(Vector3fc vector, int quarters) {
+        switch (((quarters % 4) + 4) % 4) {
+            case 1:
+                return new Vector3f(-vector.y(), vector.x(), vector.z());
+            case 2:
+                return new Vector3f(-vector.x(), -vector.y(), vector.z());
+            case 3:
+                return new Vector3f(vector.y(), -vector.x(), vector.z());
+            default:
+                return new Vector3f(vector);
+        }
+    }
+
     /**
      * creates a plane object, using the indices on the given lists
      * @param face     the face to create into a plane
@@ -13,14 +13,13 @@ public class Quad extends Plane {
     /** ABRef, BCRef, CDRef, DARef are four reference vectors for collision detection */
     private Vector3fc ABRef, BCRef, CDRef, DARef;
 
-    private Vector3f tempAlpha = new Vector3f();
-    private Vector3f tempBeta = new Vector3f();
-
     /**
      * the vectors must be supplied in counterclockwise ordering
      */
     public Quad(Vector3fc A, Vector3fc B, Vector3fc C, Vector3fc D, Vector3fc normal) {
         super(new Vector3fc[]{A, B, C, D}, normal);
+        Vector3f tempAlpha = new Vector3f();
+        Vector3f tempBeta = new Vector3f();
 
         ABRef = B.sub(A, tempAlpha).cross(D.sub(A, tempBeta), new Vector3f());
         BCRef = C.sub(B, tempAlpha).cross(A.sub(B, tempBeta), new Vector3f());
@@ -45,19 +44,9 @@ public class Quad extends Plane {
         Vector3fc C = boundary[2];
         Vector3fc D = boundary[3];
 
-        Vector3f cross = new Vector3f();
-        B.sub(A, tempAlpha).cross(hitPos.sub(A, tempBeta), cross);
-
-        if (ABRef.dot(cross) >= 0) {
-            C.sub(B, tempAlpha).cross(hitPos.sub(B, tempBeta), cross);
-            if (BCRef.dot(cross) >= 0) {
-                D.sub(C, tempAlpha).cross(hitPos.sub(C, tempBeta), cross);
-                if (CDRef.dot(cross) >= 0) {
-                    A.sub(D, tempAlpha).cross(hitPos.sub(D, tempBeta), cross);
-                    return DARef.dot(cross) >= 0;
-                }
-            }
-        }
-        return false;
+        return edgeSide(A, B, hitPos, ABRef) >= 0
+                && edgeSide(B, C, hitPos, BCRef) >= 0
+                && edgeSide(C, D, hitPos, CDRef) >= 0
+                && edgeSide(D, A, hitPos, DARef) >= 0;
     }
 }
@@ -12,16 +12,13 @@ public class Triangle extends Plane {
     /** ABRef, BCRef, CARef are three reference vectors for collision detection */
     private Vector3fc ABRef, BCRef, CARef;
 
-    /** reserved space for collision detection */
-    private Vector3f tempAlpha = new Vector3f();
-    private Vector3f tempBeta = new Vector3f();
-    private Vector3f cross = new Vector3f();
-
     /**
      * the vectors must be supplied in counterclockwise ordering
      */
     public Triangle(Vector3fc A, Vector3fc B, Vector3fc C, Vector3fc normal) {
         super(new Vector3fc[]{A, B, C}, normal);
+        Vector3f tempAlpha = new Vector3f();
+        Vector3f tempBeta = new Vector3f();
 
         ABRef = B.sub(A, tempAlpha).cross(C.sub(A, tempBeta), new Vector3f());
         BCRef = C.sub(B, tempAlpha).cross(A.sub(B, tempBeta), new Vector3f());
@@ -50,15 +47,8 @@ public class Triangle extends Plane {
         Vector3fc B = boundary[1];
         Vector3fc C = boundary[2];
 
-        B.sub(A, tempAlpha).cross(hitPos.sub(A, tempBeta), cross);
-
-        if (ABRef.dot(cross) >= 0) {
-            C.sub(B, tempAlpha).cross(hitPos.sub(B, tempBeta), cross);
-            if (BCRef.dot(cross) >= 0) {
-                A.sub(C, tempAlpha).cross(hitPos.sub(C, tempBeta), cross);
-                return CARef.dot(cross) >= 0;
-            }
-        }
-        return false;
+        return edgeSide(A, B, hitPos, ABRef) >= 0
+                && edgeSide(B, C, hitPos, BCRef) >= 0
+                && edgeSide(C, A, hitPos, CARef) >= 0;
     }
 }
@@ -18,6 +18,7 @@ public class Settings {
 
     // game engine settings
     public int TARGET_TPS = 60;
+    public int BACKGROUND_TPS = TARGET_TPS / 4; // of the world that is not shown
     public static final int CHUNK_SIZE = 16; // number of tiles in a chunk
     public static final float TILE_SIZE = 2f;
     public static final float TILE_SIZE_Z = 0.5f;
@@ -19,6 +19,7 @@ public enum Directory {
     mapTileModels(true, "res", "mapTiles"),
     savedMaps(false, "Saved maps"),
     souls(true, "res", "soul_jar"),
+    monsters(true, "res", "monsters"),
     rawFiles(false, "res", "colladaFiles"),
     skeletons(true, "res", "skeletons"),
     animations(true, "res", "animations"),
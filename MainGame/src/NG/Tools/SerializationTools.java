@@ -80,8 +80,8 @@ public final class SerializationTools {
         int nrOfBytes = in.readInt();
         // first try reading
         byte[] bytes = new byte[nrOfBytes];
-        int nrRead = in.read(bytes);
-        if (nrRead < nrOfBytes) throw new IOException("Input did not contain the entire box");
+        // a single read may return only part of a large box
+        in.readFully(bytes);
 
         try {
             // then parse the read bytes
@@ -21,6 +21,7 @@ import java.nio.file.Path;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 import java.util.regex.Pattern;
 
 import static org.lwjgl.openal.AL10.*;
@@ -206,7 +207,7 @@ public final class Toolbox {
      * @param items the array to sort
      * @param map   maps a moving source to the value to be sorted upon
      */
-    public static <Type> void insertionSort(Type[] items, Function<Type, Float> map) {
+    public static <Type> void insertionSort(Type[] items, ToDoubleFunction<Type> map) {
         // iterate incrementally over the array
         for (int head = 1; head < items.length; head++) {
             Type subject = items[head];
@@ -217,7 +218,7 @@ public final class Toolbox {
             while (empty > 0) {
                 Type target = items[empty - 1];
 
-                if (map.apply(target) > map.apply(subject)) {
+                if (map.applyAsDouble(target) > map.applyAsDouble(subject)) {
                     items[empty] = target;
                     empty--;
                 } else {
@@ -411,6 +412,18 @@ public final class Toolbox {
         return b == 0 ? a : gcd(b, a % b);
     }
 
+    /**
+     * @param args         the command-line arguments
+     * @param flag         the flag to look for, such as {@code -size}
+     * @param defaultValue the value if the flag is absent
+     * @return the integer following the given flag in args, or the default value if the flag is absent
+     */
+    public static int intArgument(List<String> args, String flag, int defaultValue) {
+        int index = args.indexOf(flag);
+        if (index < 0 || index + 1 >= args.size()) return defaultValue;
+        return Integer.parseInt(args.get(index + 1));
+    }
+
     public static float interpolate(float a, float b, float fraction) {
         return ((b - a) * fraction) + a;
     }
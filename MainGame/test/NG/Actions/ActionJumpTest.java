@@ -0,0 +1,35 @@
+package NG.Actions;
+
+import NG.Settings.Settings;
+import org.joml.Vector3f;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class ActionJumpTest {
+    private static final float JUMP_SPEED = 5f;
+
+    /** a jump to the tile the monster is on goes straight up and lands where it started */
+    @Test
+    public void testJumpInPlace() {
+        Vector3f start = new Vector3f(3, 4, 2);
+        ActionJump jump = new ActionJump(start, new Vector3f(start), JUMP_SPEED);
+
+        float duration = jump.duration();
+        assertTrue("duration " + duration, duration > 0 && Float.isFinite(duration));
+        // up at full speed and back down
+        assertEquals(2 * JUMP_SPEED / Settings.GRAVITY_CONSTANT, duration, 1e-4f);
+
+        Vector3f top = jump.getPositionAt(duration / 2);
+        assertEquals(start.x, top.x, 0f);
+        assertEquals(start.y, top.y, 0f);
+        assertTrue("top " + top, top.z > start.z);
+
+        Vector3f landing = jump.getPositionAt(duration);
+        assertEquals(start.z, landing.z, 1e-3f);
+    }
+}
@@ -0,0 +1,119 @@
+package NG.Actions;
+
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class ActionQueueTest {
+    private static final Vector3fc POSITION = new Vector3f(1, 2, 3);
+    private static final float EPSILON = 1e-6f;
+    private ActionQueue queue;
+    private EntityAction[] actions;
+
+    /** a queue of 20 actions of 1 second each, where action i starts at time i */
+    @Before
+    public void setUp() {
+        actions = new EntityAction[20];
+        actions[0] = new ActionIdle(POSITION, 1);
+        queue = new ActionQueue(actions[0], 0);
+
+        for (int i = 1; i < actions.length; i++) {
+            actions[i] = new ActionIdle(POSITION, 1);
+            queue.offer(actions[i], i);
+        }
+    }
+
+    @Test
+    public void testGetActionAt() {
+        ActionCursor cursor = new ActionCursor();
+
+        for (int i = 0; i < actions.length; i++) {
+            queue.getActionAt(i + 0.5f, cursor);
+            assertSame(actions[i], cursor.action);
+            assertEquals(0.5f, cursor.timeSinceStart, EPSILON);
+        }
+
+        // an action is executing until the next one starts
+        queue.getActionAt(3, cursor);
+        assertSame(actions[2], cursor.action);
+        assertEquals(1, cursor.timeSinceStart, EPSILON);
+
+        // the last action continues
+        queue.getActionAt(25, cursor);
+        assertSame(actions[19], cursor.action);
+        assertEquals(6, cursor.timeSinceStart, EPSILON);
+    }
+
+    /** threads that query positions at the same time do not share a cursor */
+    @Test
+    public void testGetPositionAtFromManyThreads() {
+        ActionQueue moves = new ActionQueue(new ActionLinearMove(new Vector3f(0, 0, 0), new Vector3f(1, 0, 0), 1), 0);
+        moves.offer(new ActionLinearMove(new Vector3f(1, 0, 0), new Vector3f(1, 1, 0), 1), 1);
+
+        IntStream.range(0, 100_000).parallel().forEach(i -> {
+            float time = (i % 200) * 0.01f;
+            Vector3f position = moves.getPositionAt(time, new Vector3f());
+
+            if (time <= 1) {
+                assertEquals(time, position.x, EPSILON);
+                assertEquals(0, position.y, EPSILON);
+
+            } else {
+                assertEquals(1, position.x, EPSILON);
+                assertEquals(time - 1, position.y, EPSILON);
+            }
+        });
+    }
+
+    @Test
+    public void testRemoveAndWrapAround() {
+        queue.removeUntil(10.5f);
+        assertEquals(10, queue.size());
+        assertEquals(10, queue.firstActionStart(), EPSILON);
+
+        // add more actions than removed, such that the buffer wraps around and grows
+        EntityAction[] more = new EntityAction[30];
+        for (int i = 0; i < more.length; i++) {
+            more[i] = new ActionIdle(POSITION, 1);
+            queue.offer(more[i], 20 + i);
+        }
+        assertEquals(40, queue.size());
+
+        ActionCursor cursor = new ActionCursor();
+        for (int i = 10; i < 50; i++) {
+            queue.getActionAt(i + 0.25f, cursor);
+            assertSame(i < 20 ? actions[i] : more[i - 20], cursor.action);
+            assertEquals(0.25f, cursor.timeSinceStart, EPSILON);
+        }
+    }
+
+    @Test
+    public void testInsert() {
+        EntityAction interrupt = new ActionIdle(POSITION);
+        queue.insert(interrupt, 12.5f);
+
+        // actions 0 to 12 remain, followed by the interrupt
+        assertEquals(14, queue.size());
+        ActionCursor cursor = queue.getActionAt(12.25f, new ActionCursor());
+        assertSame(actions[12], cursor.action);
+
+        queue.getActionAt(100, cursor);
+        assertSame(interrupt, cursor.action);
+        assertEquals(87.5f, cursor.timeSinceStart, EPSILON);
+
+        // inserting before the first action replaces everything
+        EntityAction replacement = new ActionIdle(POSITION);
+        queue.insert(replacement, -1);
+        assertEquals(1, queue.size());
+        assertSame(replacement, queue.firstAction());
+    }
+}
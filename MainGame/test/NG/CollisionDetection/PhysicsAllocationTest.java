@@ -0,0 +1,127 @@
+package NG.CollisionDetection;
+
+import NG.Actions.Commands.CommandWalk;
+import NG.Core.HeadlessGame;
+import NG.Entities.EntityProperties;
+import NG.Entities.MonsterEntity;
+import NG.GameMap.FixedMapGenerator;
+import NG.GameMap.GameMap;
+import NG.GameMap.MapTiles;
+import NG.Living.MonsterSoul;
+import NG.Living.Player;
+import NG.Settings.Settings;
+import NG.Tools.Logger;
+import org.joml.Vector2i;
+import org.joml.Vector3f;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks that a steady-state tick of the physics engine does not allocate per monster once the JIT has warmed up. The
+ * monsters walk in parallel lanes over a flat map, such that they do not collide and do not need to plan.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class PhysicsAllocationTest {
+    private static final int NOF_MONSTERS = 500;
+    private static final int MONSTERS_PER_LANE = 20;
+    private static final int WALK_DISTANCE = 60;
+    private static final int WARMUP_TICKS = 3_000;
+    private static final int MEASURED_TICKS = 1_000;
+    /** short ticks, such that the monsters are still walking after warming up */
+    private static final float TICK_TIME = 0.001f;
+    /**
+     * average bytes per tick that are accepted for all monsters together. This allows for the parallel tasks of the
+     * think phase and the invariant checks that run with assertions, but not for a single object per monster.
+     */
+    private static final long MAX_BYTES_PER_TICK = 8 * 1024;
+
+    private HeadlessGame game;
+    private PhysicsEngine engine;
+    private MonsterEntity[] monsters;
+    private float gameTime = 0;
+
+    @Before
+    public void setUp() throws Exception {
+        Logger.setLoggingLevel(Logger.ERROR);
+        game = new HeadlessGame(new Settings());
+        game.init();
+
+        int nofLanes = NOF_MONSTERS / MONSTERS_PER_LANE;
+        MapTiles.readTileSetFile("Hitbox", "tileSetHitbox.txt");
+        float[][] heightMap = new float[3 * MONSTERS_PER_LANE + WALK_DISTANCE + 2][2 * nofLanes + 2];
+        game.get(GameMap.class).generateNew(new FixedMapGenerator(heightMap));
+
+        engine = game.get(PhysicsEngine.class);
+        Player player = game.get(Player.class);
+        EntityProperties properties = new EntityProperties();
+        MonsterSoul[] souls = new MonsterSoul[NOF_MONSTERS];
+        monsters = new MonsterEntity[NOF_MONSTERS];
+
+        for (int i = 0; i < NOF_MONSTERS; i++) {
+            souls[i] = new MonsterSoul(properties);
+            monsters[i] = souls[i].spawnEntity(game, start(i));
+            engine.addEntity(monsters[i]);
+            player.addToTeam(souls[i], game);
+        }
+
+        tick();
+        for (int i = 0; i < NOF_MONSTERS; i++) {
+            Vector2i target = start(i).add(WALK_DISTANCE, 0);
+            souls[i].mind().executeCommand(new CommandWalk(souls[i], target), gameTime);
+        }
+    }
+
+    /** @return the coordinate where monster i starts walking */
+    private static Vector2i start(int i) {
+        return new Vector2i(1 + 3 * (i % MONSTERS_PER_LANE), 1 + 2 * (i / MONSTERS_PER_LANE));
+    }
+
+    @After
+    public void tearDown() {
+        game.cleanup();
+    }
+
+    @Test
+    public void testSteadyStateTickDoesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            tick();
+        }
+
+        Vector3f before = monsters[0].getPositionAt(gameTime);
+        long allocatedBefore = allocatedBytes(threads);
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            tick();
+        }
+        long allocated = allocatedBytes(threads) - allocatedBefore;
+        Vector3f after = monsters[0].getPositionAt(gameTime);
+
+        assertTrue("monsters stopped walking at " + after, after.x > before.x);
+        long bytesPerTick = allocated / MEASURED_TICKS;
+        assertTrue(bytesPerTick + " bytes allocated per tick", bytesPerTick <= MAX_BYTES_PER_TICK);
+    }
+
+    private void tick() {
+        gameTime += TICK_TIME;
+        engine.update(gameTime);
+    }
+
+    /** @return the number of bytes allocated by all living threads, including those of the parallel think phase */
+    private static long allocatedBytes(com.sun.management.ThreadMXBean threads) {
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) total += bytes;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,119 @@
+package NG.CollisionDetection;
+
+import NG.Actions.ActionIdle;
+import NG.Actions.ActionJump;
+import NG.Actions.EntityAction;
+import NG.Core.HeadlessGame;
+import NG.DataStructures.Generic.Pair;
+import NG.Entities.Cube;
+import NG.GameMap.FixedMapGenerator;
+import NG.GameMap.GameMap;
+import NG.GameMap.MapTiles;
+import NG.Settings.Settings;
+import NG.Tools.Logger;
+import org.joml.Vector2i;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the collision of entities with the map, for intervals that contain the switch from one action to the next.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class PhysicsEngineTest {
+    private static final float JUMP_SPEED = 10f;
+    private static final float SWITCH_TIME = 10f;
+    private static final float DELTA = 0.01f;
+
+    private HeadlessGame game;
+    private PhysicsEngine engine;
+    private GameMap map;
+
+    @Before
+    public void setUp() throws Exception {
+        Logger.setLoggingLevel(Logger.ERROR);
+        game = new HeadlessGame(new Settings());
+        game.init();
+
+        // one flat chunk
+        MapTiles.readTileSetFile("Hitbox", "tileSetHitbox.txt");
+        map = game.get(GameMap.class);
+        map.generateNew(new FixedMapGenerator(new float[Settings.CHUNK_SIZE + 1][Settings.CHUNK_SIZE + 1]));
+        engine = game.get(PhysicsEngine.class);
+    }
+
+    @After
+    public void tearDown() {
+        game.cleanup();
+    }
+
+    /** an interval where a jump ends and an idle action starts checks the end of the jump */
+    @Test
+    public void testIntervalAfterFirstActionEnds() {
+        Vector3fc start = map.getPosition(new Vector2i(1, 1));
+        ActionJump jump = new ActionJump(start, map.getPosition(new Vector2i(2, 1)), JUMP_SPEED);
+        PlannedEntity entity = new PlannedEntity(jump, new ActionIdle(jump.getEndPosition()), jump.duration());
+
+        // the jump has run for much longer than the interval, and ends within it
+        Float landing = map.getActionCollision(jump, jump.duration() - DELTA, jump.duration());
+        assertNotNull("the jump must land on the ground", landing);
+
+        assertTrue(engine.entityWorldCollision(entity, jump.duration() - DELTA, jump.duration() + DELTA));
+        assertEquals(landing, entity.collisionTime, 1e-4f);
+    }
+
+    /** an interval that ends exactly where the next action starts has nothing to check of that action */
+    @Test
+    public void testIntervalEndingAtActionStart() {
+        Vector3fc start = map.getPosition(new Vector2i(1, 1));
+        ActionJump jump = new ActionJump(start, map.getPosition(new Vector2i(2, 1)), JUMP_SPEED);
+        PlannedEntity entity = new PlannedEntity(new ActionIdle(start), jump, SWITCH_TIME);
+
+        assertFalse(engine.entityWorldCollision(entity, SWITCH_TIME - DELTA, SWITCH_TIME));
+    }
+
+    /** a collision of the second action of an interval is reported at the game time of the collision */
+    @Test
+    public void testCollisionTimeOfSecondAction() {
+        Vector3fc start = map.getPosition(new Vector2i(1, 1));
+        ActionJump jump = new ActionJump(start, map.getPosition(new Vector2i(7, 1)), JUMP_SPEED);
+        Float collision = map.getActionCollision(jump, 0, jump.duration() - DELTA);
+        assertNotNull("the jump must hit the ground", collision);
+
+        PlannedEntity entity = new PlannedEntity(new ActionIdle(start), jump, SWITCH_TIME);
+        float endTime = SWITCH_TIME + jump.duration() - DELTA;
+
+        assertTrue(engine.entityWorldCollision(entity, SWITCH_TIME - 1, endTime));
+        assertEquals(SWITCH_TIME + collision, entity.collisionTime, 1e-3f);
+    }
+
+    /** an entity that executes one action, and then another from the given time on */
+    private static class PlannedEntity extends Cube {
+        private final EntityAction first;
+        private final EntityAction second;
+        private final float switchTime;
+        float collisionTime = Float.NaN;
+
+        PlannedEntity(EntityAction first, EntityAction second, float switchTime) {
+            super(new Vector3f(first.getStartPosition()));
+            this.first = first;
+            this.second = second;
+            this.switchTime = switchTime;
+        }
+
+        @Override
+        public Pair<EntityAction, Float> getActionAt(float gameTime) {
+            if (gameTime < switchTime) return new Pair<>(first, gameTime);
+            return new Pair<>(second, gameTime - switchTime);
+        }
+
+        @Override
+        public void collideWith(GameMap map, float collisionTime) {
+            this.collisionTime = collisionTime;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package NG.Core;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class AbstractGameLoopTest {
+    private static final long TIMEOUT_MILLIS = 5_000;
+    private RecordingLoop loop;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (loop == null) return;
+        loop.stopLoop();
+        loop.interrupt();
+        loop.join(TIMEOUT_MILLIS);
+    }
+
+    /** waking up a loop that waits for its next tick starts the tick directly */
+    @Test
+    public void testWakeUpStartsTick() throws InterruptedException {
+        loop = start(1);
+        long first = loop.nextUpdate();
+
+        // at one tick per second, the second tick would be a second after the first
+        Thread.sleep(50);
+        long wokenAt = System.nanoTime();
+        loop.wakeUp();
+        long second = loop.nextUpdate();
+
+        assertTrue(toMillis(second - first) + " ms", second - first < TimeUnit.MILLISECONDS.toNanos(500));
+        assertTrue(second - wokenAt >= 0);
+    }
+
+    /** a new tick rate applies to the tick after a wake-up */
+    @Test
+    public void testWakeUpAppliesTickRate() throws InterruptedException {
+        loop = start(1);
+        loop.nextUpdate();
+
+        loop.setTPS(100);
+        loop.wakeUp();
+        loop.nextUpdate();
+
+        // ten ticks at the new rate take about 100 ms, instead of 10 seconds
+        long from = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            loop.nextUpdate();
+        }
+        long duration = System.nanoTime() - from;
+        assertTrue(toMillis(duration) + " ms", duration < TimeUnit.MILLISECONDS.toNanos(1_000));
+    }
+
+    /** a tick that ends before the next deadline waits for that deadline, for either catch-up policy */
+    @Test
+    public void testDeadlineOnTime() {
+        RecordingLoop loop = new RecordingLoop(100);
+        for (AbstractGameLoop.CatchUp catchUp : AbstractGameLoop.CatchUp.values()) {
+            loop.setCatchUp(catchUp);
+            assertEquals(catchUp.toString(), 1_100, loop.nextDeadline(1_000, 1_050, 100));
+            assertEquals(catchUp.toString(), 1_100, loop.nextDeadline(1_000, 1_100, 100));
+        }
+    }
+
+    /** skipping drops the missed deadlines, and keeps the phase of the original deadlines */
+    @Test
+    public void testSkipDropsMissedTicks() {
+        RecordingLoop loop = new RecordingLoop(100);
+        loop.setCatchUp(AbstractGameLoop.CatchUp.SKIP);
+
+        assertEquals(1_400, loop.nextDeadline(1_000, 1_350, 100));
+        assertEquals(1_400, loop.nextDeadline(1_000, 1_399, 100));
+        assertEquals(1_500, loop.nextDeadline(1_000, 1_400, 100));
+        assertEquals(1_350, loop.nextDeadline(1_000, 1_350, 0));
+    }
+
+    /** bursting runs the missed ticks on their own deadlines, up to a limit */
+    @Test
+    public void testBurstCatchesUp() {
+        RecordingLoop loop = new RecordingLoop(100);
+        loop.setCatchUp(AbstractGameLoop.CatchUp.BURST);
+
+        // three ticks behind: the next deadline has passed, and is run directly
+        long deadline = 1_000;
+        int nofTicks = 0;
+        long now = 1_350;
+        while (deadline < now) {
+            deadline = loop.nextDeadline(deadline, now, 100);
+            nofTicks++;
+        }
+        assertEquals(4, nofTicks);
+        assertEquals(1_400, deadline);
+
+        // up to the limit, the oldest missed deadline is next. Beyond it, the missed ticks are dropped
+        long limit = 1_000 + 100 + AbstractGameLoop.MAX_BURST * 100;
+        assertEquals(1_100, loop.nextDeadline(1_000, limit, 100));
+        assertEquals(limit + 1, loop.nextDeadline(1_000, limit + 1, 100));
+    }
+
+    /** a precisely scheduled loop never starts a tick before its deadline, and keeps its tick rate */
+    @Test
+    public void testPreciseScheduling() throws InterruptedException {
+        loop = startWith(AbstractGameLoop.Scheduling.PRECISE, 100);
+        assertTickRate(100);
+        assertTrue(toMillis(loop.getJitter().percentile(0)) + " ms", loop.getJitter().percentile(0) >= 0);
+    }
+
+    /** a sleeping loop keeps its tick rate on average */
+    @Test
+    public void testSleepScheduling() throws InterruptedException {
+        loop = startWith(AbstractGameLoop.Scheduling.SLEEP, 100);
+        assertTickRate(100);
+    }
+
+    /** asserts that 20 ticks of the running loop take about as long as the given tick rate prescribes */
+    private void assertTickRate(int targetTps) throws InterruptedException {
+        int nofTicks = 20;
+        long expected = nofTicks * TimeUnit.SECONDS.toNanos(1) / targetTps;
+
+        long from = loop.nextUpdate();
+        long to = from;
+        for (int i = 0; i < nofTicks; i++) {
+            to = loop.nextUpdate();
+        }
+
+        long duration = to - from;
+        // a tick may start up to a millisecond early when sleeping, and late when the machine is busy
+        String message = toMillis(duration) + " ms instead of " + toMillis(expected);
+        assertTrue(message, duration > expected - TimeUnit.MILLISECONDS.toNanos(nofTicks));
+        assertTrue(message, duration < expected * 3);
+    }
+
+    static RecordingLoop startWith(AbstractGameLoop.Scheduling scheduling, int targetTps) {
+        RecordingLoop loop = new RecordingLoop(targetTps);
+        loop.setScheduling(scheduling);
+        loop.setDaemon(true);
+        loop.start();
+        loop.unPause();
+        return loop;
+    }
+
+    static RecordingLoop start(int targetTps) {
+        return startWith(AbstractGameLoop.Scheduling.PRECISE, targetTps);
+    }
+
+    static float toMillis(long nanos) {
+        return nanos / 1e6f;
+    }
+
+    /** records the start time of each update */
+    static class RecordingLoop extends AbstractGameLoop {
+        private final BlockingQueue<Long> updates = new LinkedBlockingQueue<>();
+
+        RecordingLoop(int targetTps) {
+            super("test loop", targetTps);
+        }
+
+        @Override
+        protected void update(float deltaTime) {
+            updates.add(System.nanoTime());
+        }
+
+        /** @return the start time of the next update that was not yet returned */
+        long nextUpdate() throws InterruptedException {
+            Long time = updates.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            assertNotNull("no update within " + TIMEOUT_MILLIS + " ms", time);
+            return time;
+        }
+
+        @Override
+        public void cleanup() {
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package NG.Core;
+
+import NG.GameEvent.GameEventQueueLoop;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class GameMultiplexerTest {
+    private GameEventQueueLoop firstLoop;
+    private GameEventQueueLoop secondLoop;
+    private Game.Multiplexer multiplexer;
+
+    @Before
+    public void setUp() {
+        firstLoop = new GameEventQueueLoop("first", 30);
+        secondLoop = new GameEventQueueLoop("second", 30);
+        Version version = new Version(0, 0);
+        String thread = Thread.currentThread().getName();
+
+        multiplexer = new Game.Multiplexer(0,
+                new GameService(version, thread, firstLoop),
+                new GameService(version, thread, secondLoop)
+        );
+    }
+
+    /** only the loop of the selected instance runs at the visible tick rate */
+    @Test
+    public void testTickRatesFollowSelection() {
+        multiplexer.setTickRates(60, 5);
+        assertEquals(60, firstLoop.getTPS());
+        assertEquals(5, secondLoop.getTPS());
+
+        multiplexer.select(1);
+        assertEquals(5, firstLoop.getTPS());
+        assertEquals(60, secondLoop.getTPS());
+
+        multiplexer.select(0);
+        assertEquals(60, firstLoop.getTPS());
+        assertEquals(5, secondLoop.getTPS());
+    }
+
+    /** without tick rates, selecting an instance leaves the loops alone */
+    @Test
+    public void testSelectWithoutTickRates() {
+        multiplexer.select(1);
+        assertEquals(30, firstLoop.getTPS());
+        assertEquals(30, secondLoop.getTPS());
+    }
+}
@@ -0,0 +1,119 @@
+package NG.Core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class GameServiceTest {
+    private GameService game;
+
+    @Before
+    public void setUp() {
+        game = new GameService(new Version(0, 0), Thread.currentThread().getName());
+    }
+
+    /** lookups find elements by any superclass or interface, in order of adding */
+    @Test
+    public void testLookupBySupertype() {
+        StringBuilder first = new StringBuilder();
+        String second = "second";
+        game.add(first);
+        game.add(second);
+
+        assertSame(first, game.get(CharSequence.class));
+        assertSame(second, game.get(String.class));
+        assertEquals(Arrays.asList(first, second), game.getAll(CharSequence.class));
+        assertTrue(game.has(Comparable.class));
+        assertFalse(game.has(Number.class));
+        assertTrue(game.getAll(Number.class).isEmpty());
+    }
+
+    /** an element that is removed is not found anymore, also not by a lookup that was done before */
+    @Test(expected = NoSuchElementException.class)
+    public void testRemoveUpdatesLookup() {
+        Integer element = 42;
+        game.add(element);
+        assertSame(element, game.get(Number.class));
+
+        assertTrue(game.remove(element));
+        assertFalse(game.has(Number.class));
+        game.get(Number.class);
+    }
+
+    /** a lookup that was cached before the game was cleaned up does not return the old elements */
+    @Test
+    public void testLookupAfterCleanup() {
+        game.add(1);
+        assertEquals(Arrays.asList(1), game.getAll(Integer.class));
+
+        game.cleanup();
+        game.add(2);
+        assertEquals(Arrays.asList(2), game.getAll(Integer.class));
+    }
+
+    /** iteration is unaffected by changes to the game, but removing through the iterator removes from the game */
+    @Test
+    public void testIteratorRemove() {
+        game.add(1);
+        game.add("a");
+        game.add(2);
+
+        Iterator<Object> iterator = game.iterator();
+        while (iterator.hasNext()) {
+            Object elt = iterator.next();
+            if (elt instanceof Integer) iterator.remove();
+            game.add(3.0); // not seen by this iteration
+        }
+
+        assertEquals(Arrays.asList("a"), game.getAll(String.class));
+        assertFalse(game.has(Integer.class));
+        assertEquals(3, game.getAll(Double.class).size());
+    }
+
+    /** elements added on one thread are found by lookups on another thread */
+    @Test
+    public void testConcurrentLookup() throws InterruptedException {
+        int nofElements = 1000;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread reader = new Thread(() -> {
+            try {
+                start.await();
+                int seen = 0;
+                while (seen < nofElements) {
+                    int size = game.getAll(Integer.class).size();
+                    assertTrue(size >= seen); // elements are never lost
+                    seen = size;
+                }
+
+            } catch (Throwable ex) {
+                failure.set(ex);
+            }
+        });
+
+        reader.start();
+        start.countDown();
+        for (int i = 0; i < nofElements; i++) {
+            game.add(i);
+        }
+        reader.join(10_000);
+
+        assertFalse(reader.isAlive());
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,89 @@
+package NG.DataStructures.Generic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class PercentileWindowTest {
+
+    @Test
+    public void testEmpty() {
+        PercentileWindow window = new PercentileWindow(4);
+        assertEquals(0, window.size());
+        assertEquals(0, window.percentile(0.5));
+        assertArrayEquals(new long[2], window.percentiles(0.5, 0.99));
+    }
+
+    /** the percentiles are the nearest-rank samples, independent of the order of adding */
+    @Test
+    public void testPercentiles() {
+        PercentileWindow window = new PercentileWindow(100);
+        for (int i = 0; i < 100; i++) {
+            // adds 1 to 100 in a shuffled order
+            window.add((i * 37) % 100 + 1);
+        }
+
+        assertEquals(100, window.size());
+        assertEquals(1, window.percentile(0));
+        assertEquals(1, window.percentile(0.01));
+        assertEquals(2, window.percentile(0.011));
+        assertEquals(50, window.percentile(0.5));
+        assertEquals(99, window.percentile(0.99));
+        assertEquals(100, window.percentile(1));
+        assertArrayEquals(new long[]{50, 99, 100}, window.percentiles(0.5, 0.99, 1));
+    }
+
+    @Test
+    public void testFewSamples() {
+        PercentileWindow window = new PercentileWindow(10);
+        window.add(30);
+        window.add(10);
+        window.add(20);
+
+        assertEquals(3, window.size());
+        assertEquals(10, window.percentile(0.33));
+        assertEquals(20, window.percentile(0.5));
+        assertEquals(30, window.percentile(0.99));
+    }
+
+    /** a full window replaces its oldest samples */
+    @Test
+    public void testRollover() {
+        PercentileWindow window = new PercentileWindow(4);
+        for (long sample : new long[]{100, 200, 300, 400}) {
+            window.add(sample);
+        }
+        assertEquals(400, window.percentile(1));
+
+        // replaces 100 and 200
+        window.add(1);
+        window.add(2);
+        assertEquals(4, window.size());
+        assertArrayEquals(new long[]{1, 2, 300, 400}, window.percentiles(0.25, 0.5, 0.75, 1));
+
+        // replaces all samples, and wraps around twice
+        for (int i = 0; i < 9; i++) {
+            window.add(1_000 + i);
+        }
+        assertEquals(4, window.size());
+        assertArrayEquals(new long[]{1_005, 1_008}, window.percentiles(0, 1));
+    }
+
+    @Test
+    public void testClear() {
+        PercentileWindow window = new PercentileWindow(3);
+        window.add(5);
+        window.add(6);
+        window.clear();
+        assertEquals(0, window.size());
+        assertEquals(0, window.percentile(1));
+
+        window.add(7);
+        assertEquals(1, window.size());
+        assertEquals(7, window.percentile(0));
+    }
+}
@@ -0,0 +1,82 @@
+package NG.DataStructures.Generic;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class PointGridTest {
+    private static final int NOF_POINTS = 500;
+    private static final float RANGE = 10f;
+
+    /** a query visits every point within range, and every point at most once */
+    @Test
+    public void testFindsPointsInRange() {
+        Random random = new Random(1);
+        float[] coordinates = new float[3 * NOF_POINTS];
+        for (int i = 0; i < coordinates.length; i++) {
+            coordinates[i] = random.nextFloat() * 200 - 100;
+        }
+
+        PointGrid grid = new PointGrid();
+        grid.build(coordinates, 3, NOF_POINTS, 4f);
+        assertEquals(NOF_POINTS, grid.size());
+
+        for (int q = 0; q < 100; q++) {
+            float x = random.nextFloat() * 300 - 150;
+            float y = random.nextFloat() * 300 - 150;
+            int[] visits = query(grid, x, y, RANGE);
+
+            for (int i = 0; i < NOF_POINTS; i++) {
+                assertTrue(visits[i] <= 1);
+                boolean inRange = Math.abs(coordinates[3 * i] - x) <= RANGE
+                        && Math.abs(coordinates[3 * i + 1] - y) <= RANGE;
+                if (inRange) assertEquals(1, visits[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testQueryOutsideGridIsEmpty() {
+        PointGrid grid = new PointGrid();
+        grid.build(new float[]{0, 0, 1, 1}, 2, 2, 1f);
+
+        assertEquals(0, count(query(grid, -1e6f, -1e6f, RANGE)));
+        assertEquals(0, count(query(grid, 1e6f, 1e6f, RANGE)));
+        assertEquals(2, count(query(grid, 0, 0, Float.POSITIVE_INFINITY)));
+    }
+
+    @Test
+    public void testEmptyGrid() {
+        PointGrid grid = new PointGrid();
+        grid.build(new float[0], 2, 0, 1f);
+
+        assertEquals(0, count(query(grid, 0, 0, Float.POSITIVE_INFINITY)));
+    }
+
+    /** @return for each point the number of times the query visited it */
+    private static int[] query(PointGrid grid, float x, float y, float range) {
+        int[] visits = new int[grid.size()];
+        int xMin = grid.firstColumn(x - range);
+        int xMax = grid.lastColumn(x + range);
+
+        for (int row = grid.firstRow(y - range); row <= grid.lastRow(y + range); row++) {
+            int to = grid.rowEnd(row, xMax);
+            for (int slot = grid.rowStart(row, xMin); slot < to; slot++) {
+                visits[grid.pointAt(slot)]++;
+            }
+        }
+        return visits;
+    }
+
+    private static int count(int[] visits) {
+        int total = 0;
+        for (int v : visits) total += v;
+        return total;
+    }
+}
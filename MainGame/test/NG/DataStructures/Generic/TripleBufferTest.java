@@ -0,0 +1,88 @@
+package NG.DataStructures.Generic;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class TripleBufferTest {
+    private TripleBuffer<int[]> buffer;
+
+    @Before
+    public void setUp() {
+        buffer = new TripleBuffer<>(() -> new int[1]);
+    }
+
+    /** nothing is acquired before the first publish, and a publish is acquired exactly once */
+    @Test
+    public void testAcquireOnce() {
+        assertFalse(buffer.acquire());
+
+        buffer.writeBuffer()[0] = 1;
+        buffer.publish();
+        assertTrue(buffer.hasUpdate());
+        assertTrue(buffer.acquire());
+        assertEquals(1, buffer.readBuffer()[0]);
+
+        assertFalse(buffer.hasUpdate());
+        assertFalse(buffer.acquire());
+        assertEquals(1, buffer.readBuffer()[0]);
+    }
+
+    /** when publishing faster than acquiring, the reader gets the latest value */
+    @Test
+    public void testAcquireLatest() {
+        for (int i = 1; i <= 5; i++) {
+            buffer.writeBuffer()[0] = i;
+            buffer.publish();
+            assertNotSame(buffer.writeBuffer(), buffer.readBuffer());
+        }
+
+        assertTrue(buffer.acquire());
+        assertEquals(5, buffer.readBuffer()[0]);
+        assertNotSame(buffer.writeBuffer(), buffer.readBuffer());
+    }
+
+    /** the reader never sees a buffer that is being written */
+    @Test
+    public void testConcurrentPublish() throws InterruptedException {
+        int nofUpdates = 100_000;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i <= nofUpdates; i++) {
+                int[] values = buffer.writeBuffer();
+                values[0] = -1; // marks the buffer as being written
+                values[0] = i;
+                buffer.publish();
+            }
+        });
+
+        writer.start();
+        int last = 0;
+        try {
+            while (last < nofUpdates) {
+                if (!buffer.acquire()) continue;
+
+                int value = buffer.readBuffer()[0];
+                assertTrue(value > last);
+                last = value;
+            }
+
+        } catch (Throwable ex) {
+            failure.set(ex);
+        }
+        writer.join(10_000);
+
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,125 @@
+package NG.Entities;
+
+import NG.Actions.ActionIdle;
+import NG.Actions.EntityAction;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class EntitySnapshotTest {
+    private static final float EPSILON = 1e-5f;
+    private static final Quaternionf NO_ROTATION = new Quaternionf();
+    private static final Quaternionf QUARTER_TURN = new Quaternionf().rotateZ((float) Math.PI / 2);
+
+    private Entity entity;
+    private EntityAction first;
+    private EntityAction second;
+    private EntitySnapshot previous;
+    private EntitySnapshot current;
+    private RenderRecord record;
+
+    @Before
+    public void setUp() {
+        entity = new Cube(new Vector3f());
+        first = new ActionIdle(new Vector3f());
+        second = new ActionIdle(new Vector3f());
+        previous = new EntitySnapshot();
+        current = new EntitySnapshot();
+        record = new RenderRecord();
+    }
+
+    /** between two snapshots, the position, rotation and action time are interpolated */
+    @Test
+    public void testInterpolation() {
+        capture(previous, 1f, new Vector3f(0, 0, 0), NO_ROTATION, first, 0.5f);
+        capture(current, 2f, new Vector3f(10, 0, 0), QUARTER_TURN, first, 1.5f);
+
+        current.read(0, previous, 1.5f, record);
+
+        assertEquals(new Vector3f(5, 0, 0), record.position);
+        Quaternionf eighthTurn = new Quaternionf().rotateZ((float) Math.PI / 4);
+        assertEquals(1f, Math.abs(record.rotation.dot(eighthTurn)), EPSILON);
+        assertSame(first, record.action);
+        assertEquals(1f, record.actionTime, EPSILON);
+    }
+
+    /** on or after the time of the latest snapshot, its state is returned unchanged */
+    @Test
+    public void testRenderTimeAfterSnapshot() {
+        capture(previous, 1f, new Vector3f(0, 0, 0), NO_ROTATION, first, 0.5f);
+        capture(current, 2f, new Vector3f(10, 0, 0), QUARTER_TURN, first, 1.5f);
+
+        current.read(0, previous, 2.5f, record);
+
+        assertEquals(new Vector3f(10, 0, 0), record.position);
+        assertEquals(1f, Math.abs(record.rotation.dot(QUARTER_TURN)), EPSILON);
+        assertEquals(1.5f, record.actionTime, 0f);
+    }
+
+    /** an entity that is not in the previous snapshot is not interpolated */
+    @Test
+    public void testNewEntity() {
+        previous.clear(1f);
+        capture(current, 2f, new Vector3f(10, 0, 0), NO_ROTATION, first, 1.5f);
+
+        current.read(0, previous, 1.5f, record);
+
+        assertEquals(new Vector3f(10, 0, 0), record.position);
+        assertEquals(1.5f, record.actionTime, 0f);
+    }
+
+    /** before the start of the current action, the record continues the action of the previous snapshot */
+    @Test
+    public void testBeforeActionSwitch() {
+        capture(previous, 1f, new Vector3f(), NO_ROTATION, first, 0.8f);
+        // the second action started at 1.8
+        capture(current, 2f, new Vector3f(), NO_ROTATION, second, 0.2f);
+
+        current.read(0, previous, 1.5f, record);
+
+        assertSame(first, record.action);
+        assertEquals(1.3f, record.actionTime, EPSILON);
+    }
+
+    /** after the start of the current action, the record gives the time since that start */
+    @Test
+    public void testAfterActionSwitch() {
+        capture(previous, 1f, new Vector3f(), NO_ROTATION, first, 0.8f);
+        capture(current, 2f, new Vector3f(), NO_ROTATION, second, 0.2f);
+
+        current.read(0, previous, 1.9f, record);
+
+        assertSame(second, record.action);
+        assertEquals(0.1f, record.actionTime, EPSILON);
+    }
+
+    /** the spawn and despawn times are those of the snapshot */
+    @Test
+    public void testLifetimeIsRecorded() {
+        previous.clear(1f);
+        current.clear(2f);
+        int index = current.add(entity, 0.5f, 3f);
+        current.setState(index, new Vector3f(), NO_ROTATION, first, 0);
+
+        current.read(index, previous, 2f, record);
+
+        assertEquals(0.5f, record.spawnTime, 0f);
+        assertEquals(3f, record.despawnTime, 0f);
+    }
+
+    private void capture(
+            EntitySnapshot snapshot, float gameTime, Vector3f position, Quaternionf rotation, EntityAction action,
+            float actionTime
+    ) {
+        snapshot.clear(gameTime);
+        int index = snapshot.add(entity, 0, Float.POSITIVE_INFINITY);
+        snapshot.setState(index, position, rotation, action, actionTime);
+    }
+}
@@ -0,0 +1,132 @@
+package NG.GameEvent;
+
+import NG.Core.Game;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class EventTimingWheelTest {
+    private static final float RESOLUTION = 1f / 60;
+    private EventTimingWheel wheel;
+
+    @Before
+    public void setUp() {
+        wheel = new EventTimingWheel(RESOLUTION);
+    }
+
+    /** events spread over all wheels and the overflow come out in order of time, then in order of adding */
+    @Test
+    public void testOrderEqualsSortedOrder() {
+        Random random = new Random(1);
+        List<Event> expected = new ArrayList<>();
+
+        for (int i = 0; i < 5000; i++) {
+            float time;
+            switch (i % 4) {
+                case 0:
+                    time = random.nextInt(100) * 0.5f; // many equal times
+                    break;
+                case 1:
+                    time = random.nextFloat() * 10;
+                    break;
+                case 2:
+                    time = random.nextFloat() * 10_000;
+                    break;
+                default:
+                    time = random.nextFloat() * 1_000_000; // beyond the top wheel
+            }
+
+            Event event = new TestEvent(time);
+            expected.add(event);
+            wheel.add(event);
+        }
+
+        // stable sort: equal times remain in order of adding
+        expected.sort(Comparator.comparing(Event::getTime));
+
+        List<Event> actual = new ArrayList<>();
+        float gameTime = 0;
+        while (actual.size() < expected.size()) {
+            gameTime = gameTime * 1.5f + 0.1f;
+
+            Event next;
+            while ((next = wheel.peek(gameTime)) != null) {
+                assertTrue(next.getTime() < gameTime);
+                assertSame(next, wheel.poll());
+                actual.add(next);
+            }
+        }
+
+        assertEquals(expected, actual);
+        assertTrue(wheel.isEmpty());
+    }
+
+    /** events added during extraction are returned within the same tick, in order */
+    @Test
+    public void testAddWhileExtracting() {
+        Event first = new TestEvent(1.0f);
+        Event last = new TestEvent(1.5f);
+        wheel.add(first);
+        wheel.add(last);
+
+        assertSame(first, wheel.peek(2));
+        wheel.poll();
+
+        // an event in the current tick, and one in a passed tick
+        Event inserted = new TestEvent(1.2f);
+        Event late = new TestEvent(1.0f);
+        wheel.add(inserted);
+        wheel.add(late);
+
+        assertSame(late, wheel.peek(2));
+        wheel.poll();
+        assertSame(inserted, wheel.peek(2));
+        wheel.poll();
+        assertSame(last, wheel.peek(2));
+        wheel.poll();
+        assertNull(wheel.peek(2));
+    }
+
+    /** an event is not returned before its time, even when its tick has been reached */
+    @Test
+    public void testPeekWithinTick() {
+        Event event = new TestEvent(10 + RESOLUTION / 2);
+        wheel.add(event);
+
+        assertNull(wheel.peek(10));
+        assertNull(wheel.peek(10 + RESOLUTION / 4));
+        assertSame(event, wheel.peek(10 + RESOLUTION));
+        assertTrue(!wheel.isEmpty());
+    }
+
+    private static class TestEvent extends Event {
+        TestEvent(float eventTime) {
+            super(null, eventTime);
+        }
+
+        @Override
+        public void run() {
+        }
+
+        @Override
+        protected void restoreFields(Game game) {
+        }
+
+        @Override
+        public String toString() {
+            return "Event at " + eventTime;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package NG.GameEvent;
+
+import NG.CollisionDetection.GameState;
+import NG.Core.Game;
+import NG.Core.GameSystem;
+import NG.DataStructures.Generic.Pair;
+import NG.Entities.Entity;
+import NG.Entities.MovingEntity;
+import NG.InputHandling.MouseTools.MouseTool;
+import NG.Rendering.MatrixStack.SGL;
+import NG.Settings.Settings;
+import org.joml.Vector3fc;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class GameEventQueueLoopTest {
+    private static final float EPSILON = 1e-3f;
+    private static final List<GameSystem> NO_SYSTEMS = Collections.emptyList();
+    private GameEventQueueLoop loop;
+    private RecordingState state;
+
+    @Before
+    public void setUp() {
+        loop = new GameEventQueueLoop("test", 10);
+        state = new RecordingState();
+    }
+
+    /** a gap of a few steps is simulated in steps of at most the collision delta time */
+    @Test
+    public void testFastForwardInSmallSteps() {
+        float time = 3.2f * Settings.MAX_COLLISION_DELTA_TIME;
+        loop.updateState(NO_SYSTEMS, state, time);
+
+        assertEquals(4, state.times.size());
+        assertIncreasingSteps(0, time, Settings.MAX_COLLISION_DELTA_TIME);
+    }
+
+    /** a jump far beyond the maximum number of steps is divided over that number of steps */
+    @Test
+    public void testLargeGapIsClamped() {
+        float time = 3600f;
+        loop.updateState(NO_SYSTEMS, state, time);
+
+        assertEquals(GameEventQueueLoop.MAX_FAST_FORWARD_STEPS, state.times.size());
+        assertIncreasingSteps(0, time, time / GameEventQueueLoop.MAX_FAST_FORWARD_STEPS);
+    }
+
+    /** an update at the time of the state does not fast-forward */
+    @Test
+    public void testNoGap() {
+        loop.updateState(NO_SYSTEMS, state, 1f);
+        state.times.clear();
+
+        loop.updateState(NO_SYSTEMS, state, 1f);
+        assertEquals(Collections.singletonList(1f), state.times);
+    }
+
+    /** in every step, the systems are updated to the time of the step before the state is */
+    @Test
+    public void testSystemsBeforeState() {
+        RecordingSystem system = new RecordingSystem(state);
+        float time = 2.5f * Settings.MAX_COLLISION_DELTA_TIME;
+        loop.updateState(Collections.singletonList(system), state, time);
+
+        assertEquals(state.times, system.times);
+        assertEquals(Arrays.asList(0, 1, 2), system.stateUpdatesBefore);
+    }
+
+    private void assertIncreasingSteps(float from, float to, float maxStep) {
+        float previous = from;
+        for (float time : state.times) {
+            assertTrue(previous + " -> " + time, time > previous && time - previous <= maxStep + EPSILON);
+            previous = time;
+        }
+        assertEquals(to, previous, 0f);
+    }
+
+    /** records the times of its updates, and how often the state was updated before each */
+    private static class RecordingSystem implements GameSystem {
+        final List<Float> times = new ArrayList<>();
+        final List<Integer> stateUpdatesBefore = new ArrayList<>();
+        private final RecordingState state;
+
+        RecordingSystem(RecordingState state) {
+            this.state = state;
+        }
+
+        @Override
+        public void update(float gameTime) {
+            times.add(gameTime);
+            stateUpdatesBefore.add(state.times.size());
+        }
+
+        @Override
+        public void init(Game game) {
+        }
+
+        @Override
+        public void cleanup() {
+        }
+    }
+
+    /** records the times of its updates */
+    private static class RecordingState implements GameState {
+        final List<Float> times = new ArrayList<>();
+
+        @Override
+        public void update(float gameTime) {
+            times.add(gameTime);
+        }
+
+        @Override
+        public void addEntity(MovingEntity entity) {
+        }
+
+        @Override
+        public void draw(SGL gl) {
+        }
+
+        @Override
+        public Pair<Entity, Float> getEntityByRay(Vector3fc origin, Vector3fc dir, float gameTime) {
+            return null;
+        }
+
+        @Override
+        public Collection<Entity> entities() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean checkMouseClick(MouseTool tool, int xSc, int ySc) {
+            return false;
+        }
+
+        @Override
+        public void init(Game game) {
+        }
+
+        @Override
+        public void cleanup() {
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package NG.GameEvent;
+
+import NG.Actions.ActionJump;
+import NG.Actions.Commands.Command;
+import NG.Actions.Commands.CommandWalk;
+import NG.CollisionDetection.GameState;
+import NG.CollisionDetection.PhysicsEngine;
+import NG.Core.GameSystem;
+import NG.Core.GameTimer;
+import NG.Core.HeadlessGame;
+import NG.DataStructures.Generic.PercentileWindow;
+import NG.Entities.EntityProperties;
+import NG.Entities.MonsterEntity;
+import NG.Entities.Projectiles.ProjectilePowerBall;
+import NG.GameMap.GameMap;
+import NG.InputHandling.MouseTools.CommandProvider;
+import NG.Living.EffectSystem;
+import NG.Living.EmotionSystem;
+import NG.Living.MindScheduler;
+import NG.Living.MonsterSoul;
+import NG.Living.Player;
+import NG.Living.SpeciesRegistry;
+import NG.Living.StimulusBus;
+import NG.Settings.Settings;
+import NG.Tools.Logger;
+import NG.Tools.Toolbox;
+import org.joml.Vector2i;
+import org.joml.Vector2ic;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Measures how many monsters a world can sustain. Generates a map with a fixed seed, spawns a number of monsters that
+ * walk, jump and fire projectiles on a fixed script, and runs the {@link GameEventQueueLoop} as fast as possible for a
+ * number of simulated seconds. Game time advances exactly one tick per update, so runs with equal arguments simulate
+ * the same world.
+ * <p>
+ * The results are appended as one line to a CSV file, such that results can be compared over time. Arguments (all
+ * optional): {@code -monsters N -owned K -seconds M -warmup W -seed S -size X -out file.csv}
+ * <p>
+ * By default all monsters are owned by the player, such that they only follow the script. With {@code -owned K} only
+ * the first K monsters are owned, and the other monsters are wild: they also follow the script, but react to what they
+ * perceive, and think less often when they are far from the owned monsters.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class LoadTestHarness {
+    private static final String CSV_HEADER = "date,seed,map size,monsters,simulated seconds,ticks,wall seconds," +
+            "ticks per second,p50 tick us,p99 tick us,p999 tick us," +
+            "collision us,think us,apply us,map us,snapshot us," +
+            "effects us,emotions us,stimuli us,minds us,events us," +
+            "allocated MB per second,allocated KB per tick," +
+            "entities at end,owned monsters";
+    /** simulated seconds between two commands of the same monster */
+    private static final float COMMAND_INTERVAL = 2f;
+    /** maximum distance in tiles of walks */
+    private static final int WALK_RANGE = 6;
+    private static final CommandProvider FIRE = ProjectilePowerBall.fireCommand();
+    /** the soul of all monsters */
+    private static final String SOUL = "soul1";
+    /** the systems of which the time is reported, in the order of the columns */
+    private static final List<Class<? extends GameSystem>> SYSTEMS = Arrays.asList(
+            EffectSystem.class, EmotionSystem.class, StimulusBus.class, MindScheduler.class
+    );
+
+    private final HeadlessGame game;
+    private final SteppedTimer timer;
+    private final PhysicsEngine engine;
+    private final float tickTime;
+    private final Random random;
+
+    private final List<MonsterSoul> souls = new ArrayList<>();
+    private float[] nextCommandTime;
+    private int[] nextCommandType;
+
+    public LoadTestHarness(int seed, int mapSize) throws Exception {
+        Settings settings = new Settings();
+        tickTime = 1f / settings.TARGET_TPS;
+        random = new Random(seed);
+
+        game = new HeadlessGame(settings);
+        game.remove(game.get(GameTimer.class));
+        timer = new SteppedTimer(settings.RENDER_DELAY);
+        game.add(timer);
+
+        game.init();
+        game.generateMap(seed, mapSize, mapSize);
+        engine = game.get(PhysicsEngine.class);
+    }
+
+    /**
+     * spawns monsters on random coordinates of the map. Owned monsters only follow the script, the other monsters are
+     * wild.
+     * @param nofMonsters the number of monsters to spawn
+     * @param nofOwned    the number of these monsters that is owned by the player
+     */
+    public void spawn(int nofMonsters, int nofOwned) {
+        GameState state = game.get(GameState.class);
+        Player player = game.get(Player.class);
+        Vector2ic size = game.get(GameMap.class).getSize();
+        SpeciesRegistry species = game.get(SpeciesRegistry.class);
+        EntityProperties properties = new EntityProperties();
+
+        nextCommandTime = new float[nofMonsters];
+        nextCommandType = new int[nofMonsters];
+
+        for (int i = 0; i < nofMonsters; i++) {
+            Vector2i coordinate = new Vector2i(random.nextInt(size.x()), random.nextInt(size.y()));
+            MonsterSoul soul = species.createSoul(properties, SOUL);
+            state.addEntity(soul.spawnEntity(game, coordinate));
+            if (i < nofOwned) player.addToTeam(soul, game);
+            souls.add(soul);
+
+            // spread the commands evenly over the interval
+            nextCommandTime[i] = (COMMAND_INTERVAL * i) / nofMonsters;
+            nextCommandType[i] = i % 3;
+        }
+    }
+
+    /**
+     * runs the simulation for the given number of simulated seconds, as fast as possible
+     * @param seconds simulated seconds to run
+     * @return the measurements of the run
+     */
+    public Report run(float seconds) throws Exception {
+        GameEventQueueLoop loop = game.getLoop();
+        int nofTicks = (int) Math.ceil(seconds / tickTime);
+        Report report = new Report(nofTicks);
+        PhysicsEngine.Phase[] phases = PhysicsEngine.Phase.values();
+
+        long[] phasesBefore = new long[phases.length];
+        for (PhysicsEngine.Phase phase : phases) {
+            phasesBefore[phase.ordinal()] = engine.getPhaseNanos(phase);
+        }
+        long[] systemsBefore = new long[SYSTEMS.size()];
+        for (int i = 0; i < SYSTEMS.size(); i++) {
+            systemsBefore[i] = loop.getSystemNanos(game.get(SYSTEMS.get(i)));
+        }
+
+        long allocatedBefore = allocatedBytes();
+        long runStart = System.nanoTime();
+        long updateNanos = 0;
+
+        for (int i = 0; i < nofTicks; i++) {
+            timer.step(tickTime);
+            issueCommands(timer.getGametime());
+
+            long tickStart = System.nanoTime();
+            loop.update(tickTime);
+            long tickNanos = System.nanoTime() - tickStart;
+
+            report.tickDurations.add(tickNanos);
+            updateNanos += tickNanos;
+        }
+
+        report.wallNanos = System.nanoTime() - runStart;
+        report.allocatedBytes = allocatedBytes() - allocatedBefore;
+        report.nofTicks = nofTicks;
+        report.simulatedSeconds = nofTicks * tickTime;
+        report.nofEntities = game.get(GameState.class).entities().size();
+
+        long measuredNanos = 0;
+        for (PhysicsEngine.Phase phase : phases) {
+            long nanos = engine.getPhaseNanos(phase) - phasesBefore[phase.ordinal()];
+            report.phaseNanos[phase.ordinal()] = nanos;
+            measuredNanos += nanos;
+        }
+        for (int i = 0; i < SYSTEMS.size(); i++) {
+            long nanos = loop.getSystemNanos(game.get(SYSTEMS.get(i))) - systemsBefore[i];
+            report.systemNanos[i] = nanos;
+            measuredNanos += nanos;
+        }
+        // everything of the loop that is not physics or a system: the timer and the event queue
+        report.eventNanos = Math.max(0, updateNanos - measuredNanos);
+
+        return report;
+    }
+
+    /** gives each monster whose turn it is the next command of the script */
+    private void issueCommands(float gameTime) {
+        GameMap map = game.get(GameMap.class);
+        Vector2ic size = map.getSize();
+
+        for (int i = 0; i < souls.size(); i++) {
+            if (nextCommandTime[i] > gameTime) continue;
+            nextCommandTime[i] += COMMAND_INTERVAL;
+
+            MonsterSoul soul = souls.get(i);
+            MonsterEntity entity = soul.entity();
+            if (soul.getTimeOfDeath() < gameTime) continue;
+
+            Vector2i position = map.getCoordinate(entity.getPositionAt(gameTime));
+            Command command;
+
+            switch (nextCommandType[i]) {
+                case 0:
+                    Vector2i target = new Vector2i(
+                            position.x + random.nextInt(2 * WALK_RANGE + 1) - WALK_RANGE,
+                            position.y + random.nextInt(2 * WALK_RANGE + 1) - WALK_RANGE
+                    );
+                    target.x = Math.max(0, Math.min(target.x, size.x() - 1));
+                    target.y = Math.max(0, Math.min(target.y, size.y() - 1));
+                    command = new CommandWalk(soul, target);
+                    break;
+
+                case 1:
+                    // one of the eight neighbouring tiles
+                    int direction = random.nextInt(8);
+                    if (direction >= 4) direction++;
+                    Vector2i jumpTarget = new Vector2i(position).add(direction % 3 - 1, direction / 3 - 1);
+                    jumpTarget.x = Math.max(0, Math.min(jumpTarget.x, size.x() - 1));
+                    jumpTarget.y = Math.max(0, Math.min(jumpTarget.y, size.y() - 1));
+                    command = ActionJump.JUMP_COMMAND.create(soul, jumpTarget);
+                    break;
+
+                default:
+                    MonsterEntity victim = souls.get(random.nextInt(souls.size())).entity();
+                    Vector2i fireTarget = map.getCoordinate(victim.getPositionAt(gameTime));
+                    command = FIRE.create(soul, fireTarget);
+            }
+
+            nextCommandType[i] = (nextCommandType[i] + 1) % 3;
+            soul.mind().executeCommand(command, gameTime);
+        }
+    }
+
+    public void cleanup() {
+        game.cleanup();
+    }
+
+    /**
+     * @return the number of bytes allocated by all living threads, or -1 if this is not supported. Bytes allocated by
+     * threads that terminated are not counted.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return -1;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) return -1;
+
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) total += bytes;
+        }
+        return total;
+    }
+
+    public static void main(String[] argArray) throws Exception {
+        List<String> args = Arrays.asList(argArray);
+        int nofMonsters = Toolbox.intArgument(args, "-monsters", 100);
+        int nofOwned = Toolbox.intArgument(args, "-owned", nofMonsters);
+        int seconds = Toolbox.intArgument(args, "-seconds", 60);
+        int warmup = Toolbox.intArgument(args, "-warmup", 10);
+        int seed = Toolbox.intArgument(args, "-seed", 0);
+        int size = Toolbox.intArgument(args, "-size", 64);
+        int outIndex = args.indexOf("-out");
+        File csv = new File(outIndex >= 0 && outIndex + 1 < args.size() ? args.get(outIndex + 1) : "loadtest.csv");
+
+        Logger.setLoggingLevel(Logger.ERROR);
+
+        LoadTestHarness harness = new LoadTestHarness(seed, size);
+        harness.spawn(nofMonsters, nofOwned);
+        harness.run(warmup);
+        Report report = harness.run(seconds);
+        harness.cleanup();
+
+        String line = report.toCsv(seed, size, nofMonsters) + ',' + Math.min(nofOwned, nofMonsters);
+        boolean isNew = !csv.exists();
+        try (PrintWriter out = new PrintWriter(new FileWriter(csv, true))) {
+            if (isNew) out.println(CSV_HEADER);
+            out.println(line);
+        }
+
+        System.out.println(CSV_HEADER);
+        System.out.println(line);
+    }
+
+    /** the measurements of one run */
+    public static class Report {
+        public final PercentileWindow tickDurations;
+        public final long[] phaseNanos = new long[PhysicsEngine.Phase.values().length];
+        public final long[] systemNanos = new long[SYSTEMS.size()];
+        public long eventNanos;
+        public long wallNanos;
+        public long allocatedBytes;
+        public int nofTicks;
+        public float simulatedSeconds;
+        public int nofEntities;
+
+        Report(int nofTicks) {
+            this.tickDurations = new PercentileWindow(nofTicks);
+        }
+
+        public double ticksPerSecond() {
+            return nofTicks / (wallNanos * 1e-9);
+        }
+
+        String toCsv(int seed, int mapSize, int nofMonsters) {
+            long[] p = tickDurations.percentiles(0.5, 0.99, 0.999);
+            double wallSeconds = wallNanos * 1e-9;
+
+            StringBuilder line = new StringBuilder();
+            line.append(LocalDateTime.now().withNano(0)).append(',')
+                    .append(seed).append(',')
+                    .append(mapSize).append(',')
+                    .append(nofMonsters).append(',')
+                    .append(simulatedSeconds).append(',')
+                    .append(nofTicks).append(',')
+                    .append(String.format(Locale.ROOT, "%.3f", wallSeconds)).append(',')
+                    .append(String.format(Locale.ROOT, "%.1f", ticksPerSecond())).append(',')
+                    .append(p[0] / 1000).append(',')
+                    .append(p[1] / 1000).append(',')
+                    .append(p[2] / 1000).append(',');
+
+            for (long nanos : phaseNanos) {
+                line.append(perTickMicros(nanos)).append(',');
+            }
+            for (long nanos : systemNanos) {
+                line.append(perTickMicros(nanos)).append(',');
+            }
+            line.append(perTickMicros(eventNanos)).append(',');
+
+            if (allocatedBytes < 0) {
+                line.append(",,");
+
+            } else {
+                double megabytesPerSecond = allocatedBytes / wallSeconds / (1 << 20);
+                double kilobytesPerTick = allocatedBytes / (double) nofTicks / (1 << 10);
+                line.append(String.format(Locale.ROOT, "%.1f", megabytesPerSecond)).append(',')
+                        .append(String.format(Locale.ROOT, "%.1f", kilobytesPerTick)).append(',');
+            }
+
+            line.append(nofEntities);
+            return line.toString();
+        }
+
+        private String perTickMicros(long nanos) {
+            return String.format(Locale.ROOT, "%.1f", nanos / 1000.0 / nofTicks);
+        }
+    }
+
+    /** a timer that only advances when told to, independent of the system clock */
+    private static class SteppedTimer extends GameTimer {
+        SteppedTimer(float renderDelay) {
+            super(renderDelay);
+        }
+
+        @Override
+        protected void updateTimer() {
+            // time only changes in step
+        }
+
+        void step(float deltaTime) {
+            currentInGameTime += deltaTime;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package NG.GameMap;
+
+import NG.Rendering.MeshLoading.Mesh;
+import NG.Rendering.MeshLoading.MeshFile;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.List;
+import java.util.Random;
+
+import static NG.Settings.Settings.TILE_SIZE;
+import static NG.Settings.Settings.TILE_SIZE_Z;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class ChunkMeshBuilderTest {
+    private static final int CHUNK_SIZE = 4;
+    private static final float EPSILON = 1e-5f;
+    private MapChunk chunk;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(1);
+        MapTile.Instance[][] tiles = new MapTile.Instance[CHUNK_SIZE][CHUNK_SIZE];
+
+        for (int x = 0; x < CHUNK_SIZE; x++) {
+            for (int y = 0; y < CHUNK_SIZE; y++) {
+                tiles[x][y] = new MapTile.Instance(random.nextInt(10) - 5, random.nextInt(4), MapTile.DEFAULT_TILE);
+            }
+        }
+
+        chunk = new MapChunkArray(tiles);
+    }
+
+    /** compares every triangle of the merged mesh with the triangle transformed like {@link MapTile.Instance#draw} */
+    @Test
+    public void testMergeEqualsTileTransform() {
+        List<ChunkMeshBuilder.Batch> batches = ChunkMeshBuilder.build(chunk, CHUNK_SIZE);
+        assertEquals(1, batches.size());
+
+        ChunkMeshBuilder.Batch batch = batches.get(0);
+        FloatBuffer positions = batch.getPositions();
+        FloatBuffer normals = batch.getNormals();
+        IntBuffer indices = batch.getIndices();
+
+        MeshFile file = MapTile.DEFAULT_TILE.getMeshFile();
+        List<Mesh.Face> faces = file.getFaces();
+        assertEquals(CHUNK_SIZE * CHUNK_SIZE * faces.size() * 3, indices.remaining());
+
+        int i = 0;
+        for (int x = 0; x < CHUNK_SIZE; x++) {
+            for (int y = 0; y < CHUNK_SIZE; y++) {
+                MapTile.Instance tile = chunk.get(x, y);
+                Matrix4f transform = new Matrix4f()
+                        .translate(x * TILE_SIZE, y * TILE_SIZE, tile.offset * TILE_SIZE_Z)
+                        .rotateZ((float) (tile.rotation * Math.PI / 2));
+
+                for (Mesh.Face face : faces) {
+                    for (int c = 0; c < 3; c++) {
+                        int index = indices.get(i++);
+
+                        Vector3f expected = transform.transformPosition(new Vector3f(file.getVertices().get(face.vert[c])));
+                        Vector3f actual = new Vector3f(index * 3, positions);
+                        assertTrue(expected + " != " + actual, expected.equals(actual, EPSILON));
+
+                        Vector3f expectedNormal = transform.transformDirection(new Vector3f(file.getNormals().get(face.norm[c])));
+                        Vector3f actualNormal = new Vector3f(index * 3, normals);
+                        assertTrue(expectedNormal + " != " + actualNormal, expectedNormal.equals(actualNormal, EPSILON));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package NG.GameMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class MapCodecTest {
+    private static final int CHUNK_SIZE = 4;
+    private TileMap map;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(1);
+        MapChunk[][] chunks = new MapChunk[3][2];
+
+        for (int mx = 0; mx < chunks.length; mx++) {
+            for (int my = 0; my < chunks[mx].length; my++) {
+                MapTile.Instance[][] tiles = new MapTile.Instance[CHUNK_SIZE][CHUNK_SIZE];
+
+                for (int x = 0; x < CHUNK_SIZE; x++) {
+                    for (int y = 0; y < CHUNK_SIZE; y++) {
+                        // some runs of equal tiles, some random tiles
+                        int offset = (y < 2) ? mx : random.nextInt(20) - 10;
+                        int rotation = (y < 2) ? 0 : random.nextInt(4);
+                        tiles[x][y] = new MapTile.Instance(offset, rotation, MapTile.DEFAULT_TILE);
+                    }
+                }
+
+                chunks[mx][my] = new MapChunkArray(tiles);
+            }
+        }
+
+        map = new TileMap(CHUNK_SIZE);
+        map.setChunks(CHUNK_SIZE, chunks);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MapCodec.write(map, out);
+
+        TileMap result = MapCodec.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEqualTiles(map, result);
+    }
+
+    /** a map written with Java serialization by earlier versions is read from file */
+    @Test
+    public void testReadLegacyFile() throws IOException {
+        File file = File.createTempFile("legacy", ".mgm");
+        try {
+            LegacyTileMap legacy = new LegacyTileMap();
+            legacy.setChunks(CHUNK_SIZE, map.snapshot().chunks);
+            try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
+                out.writeObject(legacy);
+            }
+
+            GameMap result = MapCodec.read(file);
+            assertTrue(result instanceof TileMap);
+            assertEqualTiles(map, (TileMap) result);
+
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    /** a run that refers to a tile type that is not in the table */
+    @Test(expected = IOException.class)
+    public void testUnknownTileType() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MapCodec.MAGIC);
+        out.writeShort(MapCodec.VERSION);
+        out.writeInt(1);
+        out.writeUTF(MapTile.DEFAULT_TILE.name);
+        out.writeInt(CHUNK_SIZE);
+        out.writeInt(1);
+        out.writeInt(1);
+
+        // one run of all tiles, with type index 5
+        byte[] chunk = compress(new byte[]{CHUNK_SIZE * CHUNK_SIZE, 5, 0, 0});
+        out.writeInt(chunk.length);
+        out.write(chunk);
+
+        MapCodec.read(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    /** a chunk that ends in the middle of a variable-length integer */
+    @Test(expected = IOException.class)
+    public void testTruncatedChunk() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MapCodec.MAGIC);
+        out.writeShort(MapCodec.VERSION);
+        out.writeInt(1);
+        out.writeUTF(MapTile.DEFAULT_TILE.name);
+        out.writeInt(CHUNK_SIZE);
+        out.writeInt(1);
+        out.writeInt(1);
+
+        byte[] chunk = compress(new byte[]{(byte) 0x81});
+        out.writeInt(chunk.length);
+        out.write(chunk);
+
+        MapCodec.read(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    private static byte[] compress(byte[] records) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(records);
+        deflater.finish();
+
+        byte[] buffer = new byte[256];
+        int length = deflater.deflate(buffer);
+        deflater.end();
+        return Arrays.copyOf(buffer, length);
+    }
+
+    private static void assertEqualTiles(TileMap expectedMap, TileMap actualMap) {
+        assertEquals(expectedMap.getSize(), actualMap.getSize());
+
+        for (int x = 0; x < expectedMap.getSize().x(); x++) {
+            for (int y = 0; y < expectedMap.getSize().y(); y++) {
+                MapTile.Instance expected = expectedMap.getTileData(x, y);
+                MapTile.Instance actual = actualMap.getTileData(x, y);
+
+                assertEquals(expected.type, actual.type);
+                assertEquals(expected.rotation, actual.rotation);
+                assertEquals(expected.offset, actual.offset);
+            }
+        }
+    }
+
+    /**
+     * a map that is written in the layout of earlier versions, but without the table of tile types, which would also
+     * contain the tiles registered by other tests. The default tile is not in this table either.
+     */
+    public static class LegacyTileMap extends TileMap {
+        public LegacyTileMap() {
+            super(CHUNK_SIZE);
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            TileMap.ChunkGrid grid = snapshot();
+            out.writeInt(0);
+            out.writeInt(grid.chunkSize);
+            out.writeInt(grid.xChunks);
+            out.writeInt(grid.yChunks);
+
+            for (MapChunk[] strip : grid.chunks) {
+                for (MapChunk chunk : strip) {
+                    chunk.writeToFile(out);
+                }
+            }
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package NG.GameMap;
 
+import NG.Rendering.Shapes.Shape;
 import org.joml.Vector3f;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Random;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Geert van Ieperen created on 10-2-2020.
@@ -43,4 +48,44 @@ public class MapTileTest {
         float f = instance.intersectFraction(new Vector3f(5, 5, 0), new Vector3f(-1, -1, 0));
         assertEquals(4, f, 1e-6);
     }
+
+    /** each rotation of a tile hits a ray like the unrotated tile hits the ray rotated the other way */
+    @Test
+    public void testRotatedHitboxes() {
+        MapTiles.readTileSetFile("Hitbox", "tileSetHitbox.txt");
+        // a tile with four different corner heights, which is not symmetric under rotation
+        MapTile tile = MapTiles.getByName("tile00120");
+        assertNotSame(MapTile.DEFAULT_TILE, tile);
+
+        Shape unrotated = tile.getHitbox(0);
+        Random random = new Random(1);
+        int nofDifferent = 0;
+
+        for (int rotation = 0; rotation < 4; rotation++) {
+            MapTile.Instance rotated = new MapTile.Instance(0, rotation, tile);
+
+            for (int i = 0; i < 100; i++) {
+                Vector3f origin = new Vector3f(random.nextFloat(), random.nextFloat(), random.nextFloat()).mul(6).sub(3, 3, 1);
+                Vector3f direction = new Vector3f(random.nextFloat(), random.nextFloat(), random.nextFloat()).sub(0.5f, 0.5f, 0.5f);
+
+                // rotate the ray instead of the shape
+                Vector3f localOrigin = new Vector3f(origin);
+                Vector3f localDirection = new Vector3f(direction);
+                for (int r = 0; r < rotation; r++) {
+                    localOrigin.set(localOrigin.y, -localOrigin.x, localOrigin.z);
+                    localDirection.set(localDirection.y, -localDirection.x, localDirection.z);
+                }
+                float expected = unrotated.getIntersectionScalar(localOrigin, localDirection);
+
+                float f = rotated.intersectFraction(origin, direction);
+                assertEquals(expected, f, 1e-4);
+
+                float unrotatedHit = unrotated.getIntersectionScalar(origin, direction);
+                if (Math.abs(unrotatedHit - f) > 1e-4) nofDifferent++;
+            }
+        }
+
+        // the rotations are actually different
+        assertTrue(nofDifferent > 0);
+    }
 }
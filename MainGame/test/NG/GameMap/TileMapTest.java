@@ -0,0 +1,115 @@
+package NG.GameMap;
+
+import NG.Core.HeadlessGame;
+import NG.Settings.Settings;
+import NG.Tools.Logger;
+import org.joml.Vector2i;
+import org.joml.Vector2ic;
+import org.joml.Vector3f;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks queries of a map that start on or outside the edge of the map.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class TileMapTest {
+    private HeadlessGame game;
+    private GameMap map;
+
+    @Before
+    public void setUp() throws Exception {
+        Logger.setLoggingLevel(Logger.ERROR);
+        game = new HeadlessGame(new Settings());
+        game.init();
+
+        MapTiles.readTileSetFile("Hitbox", "tileSetHitbox.txt");
+        map = game.get(GameMap.class);
+        map.generateNew(new FixedMapGenerator(new float[Settings.CHUNK_SIZE + 1][Settings.CHUNK_SIZE + 1]));
+    }
+
+    @After
+    public void tearDown() {
+        game.cleanup();
+    }
+
+    /** a ray that starts on the far edge of the map, where there is no tile, is cast without failing */
+    @Test
+    public void testRayFromEdge() {
+        Vector2ic size = map.getSize();
+        Vector3f origin = new Vector3f(size.x() * Settings.TILE_SIZE, size.y() * Settings.TILE_SIZE / 2f, 4);
+        Vector3f direction = new Vector3f(-8, 0, -8);
+
+        Float intersection = map.gridMapIntersection(origin, direction);
+        if (intersection != null) {
+            assertTrue("intersection " + intersection, intersection >= 0 && intersection <= 1);
+        }
+    }
+
+    /** a path from outside the map, such as after being launched by a collision, does not cross the edge */
+    @Test
+    public void testPathFromOutsideMap() {
+        Collection<Vector2i> path = map.findPath(new Vector2i(-1, 2), new Vector2i(3, 2), 3, 1);
+        assertNotNull(path);
+    }
+
+    /** the placeholder of a chunk that is not yet generated is at least as high as the highest tile of the chunk */
+    @Test
+    public void testPlaceholderBoundsChunk() throws IOException {
+        int size = Settings.CHUNK_SIZE;
+        File directory = Files.createTempDirectory("chunks").toFile();
+        ChunkStreamer streamer = new ChunkStreamer(
+                new TileMap(size), new FixedMapGenerator(), directory, size, 1, 1, 0, 0
+        );
+
+        try {
+            Random random = new Random(1);
+            for (int i = 0; i < 20; i++) {
+                // a hill in the middle of a flat chunk, which a sample of the corners would miss
+                float[][] heightmap = new float[size + 1][size + 1];
+                for (int x = size / 4; x < 3 * size / 4; x++) {
+                    for (int y = size / 4; y < 3 * size / 4; y++) {
+                        heightmap[x][y] = random.nextInt(4) + 4;
+                    }
+                }
+
+                MapChunk chunk = new MapChunkArray(size, heightmap, 0, 0, i);
+                float maximum = chunk.getMinMax().getMax() / Settings.TILE_SIZE_Z;
+                assertTrue(streamer.getMaximum(heightmap) + " < " + maximum, streamer.getMaximum(heightmap) >= maximum);
+            }
+
+        } finally {
+            streamer.cleanup();
+            //noinspection ResultOfMethodCallIgnored
+            directory.delete();
+        }
+    }
+
+    /** the maximum height of the generator bounds the heights it generates */
+    @Test
+    public void testGeneratorMaximum() {
+        SimpleMapGenerator generator = new SimpleMapGenerator(1);
+        float maximum = generator.getMaximumHeight();
+
+        for (float[] strip : generator.generateHeightMap(0, 0, 256, 256)) {
+            for (float height : strip) {
+                assertTrue(height + " > " + maximum, height <= maximum);
+            }
+        }
+
+        float[][] heightmap = new float[4][4];
+        heightmap[2][1] = 3.5f;
+        assertEquals(3.5f, new FixedMapGenerator(heightmap).getMaximumHeight(), 0f);
+    }
+}
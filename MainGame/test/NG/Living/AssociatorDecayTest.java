@@ -0,0 +1,240 @@
+package NG.Living;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Property tests comparing the lazy decay of {@link Associator} to a reference that multiplies every value on every
+ * stimulus, on random sequences of stimuli.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class AssociatorDecayTest {
+    private static final int NOF_SEQUENCES = 40;
+    private static final int NOF_OPERATIONS = 5000;
+    private static final float RELATIVE_TOLERANCE = 1e-3f;
+    private static final BaseStimulus[] STIMULI = BaseStimulus.values();
+
+    /** recording and noticing gives the same associations in the same order as decaying each value */
+    @Test
+    public void testSameAsEagerDecay() {
+        Random random = new Random(42);
+
+        for (int sequence = 0; sequence < NOF_SEQUENCES; sequence++) {
+            int attentionSize = 1 + random.nextInt(5);
+            int associationSize = 1 + random.nextInt(4);
+            // few types make the same pairs decay often, which renormalizes their scale
+            int nofTypes = 2 + random.nextInt(STIMULI.length - 1);
+
+            Associator<StimulusType> actual = new Associator<>(StimulusType.class, attentionSize, associationSize);
+            EagerAssociator expected = new EagerAssociator(attentionSize, associationSize);
+
+            for (int op = 0; op < NOF_OPERATIONS; op++) {
+                String step = "sequence " + sequence + " operation " + op;
+                BaseStimulus stimulus = STIMULI[random.nextInt(nofTypes)];
+                float importance = random.nextFloat();
+
+                // recording decays the pairs, noticing decays the attention
+                if (random.nextInt(4) == 0) {
+                    actual.notice(stimulus, importance);
+                    expected.notice(stimulus, importance);
+
+                } else {
+                    actual.record(stimulus, importance);
+                    expected.record(stimulus, importance);
+                }
+
+                assertEquals(step, expected.getNrOfAssociations(), actual.getNrOfAssociations());
+                for (int i = 0; i < nofTypes; i++) {
+                    assertSameQuery(step + " query " + STIMULI[i], expected, actual, STIMULI[i]);
+                }
+            }
+        }
+    }
+
+    private static void assertSameQuery(
+            String step, EagerAssociator expected, Associator<StimulusType> actual, StimulusType clue
+    ) {
+        StimulusType[] expectedElements = new StimulusType[STIMULI.length];
+        float[] expectedRelevances = new float[STIMULI.length];
+        StimulusType[] actualElements = new StimulusType[STIMULI.length];
+        float[] actualRelevances = new float[STIMULI.length];
+
+        int size = expected.query(clue, expectedElements, expectedRelevances);
+        assertEquals(step, size, actual.query(clue, actualElements, actualRelevances));
+
+        for (int i = 0; i < size; i++) {
+            assertSame(step, expectedElements[i], actualElements[i]);
+            float value = expectedRelevances[i];
+            assertEquals(step, value, actualRelevances[i], Math.abs(value) * RELATIVE_TOLERANCE + Float.MIN_NORMAL);
+        }
+    }
+
+    /** the associator as it was before its decay became lazy */
+    private static class EagerAssociator {
+        private static final float ATTENTION_REDUCTION = 0.05f;
+        private static final float ASSOCIATION_REDUCTION = 0.01f;
+
+        private final int attentionSize;
+        private final int associationSize;
+        private final Map<StimulusType, Integer> typeIds = new HashMap<>();
+        private final StimulusType[] types = new StimulusType[STIMULI.length];
+
+        private final int[] associationCounts;
+        private final int[] associationIds;
+        private final float[] associationValues;
+        private final int[] attentionIds;
+        private final float[] attentionValues;
+        private int attentionCount = 0;
+
+        EagerAssociator(int attentionSize, int associationSize) {
+            this.attentionSize = attentionSize;
+            this.associationSize = associationSize;
+
+            int nofPairs = STIMULI.length * (STIMULI.length + 1) / 2;
+            associationCounts = new int[nofPairs];
+            associationIds = new int[nofPairs * associationSize];
+            associationValues = new float[nofPairs * associationSize];
+            attentionIds = new int[attentionSize];
+            attentionValues = new float[attentionSize];
+        }
+
+        int query(StimulusType event, StimulusType[] elements, float[] relevances) {
+            Integer eventId = typeIds.get(event);
+            if (eventId == null) return 0;
+
+            int size = 0;
+            for (int a = 0; a < attentionCount; a++) {
+                int pair = pairIndex(eventId, attentionIds[a]);
+                int offset = pair * associationSize;
+
+                for (int i = offset; i < offset + associationCounts[pair]; i++) {
+                    size = addMaximum(elements, relevances, size, types[associationIds[i]], associationValues[i]);
+                }
+            }
+            return size;
+        }
+
+        void record(StimulusType event, float importance) {
+            int eventId = idOf(event);
+
+            for (int i = 0; i < attentionCount; i++) {
+                for (int j = 0; j < attentionCount; j++) {
+                    int pair = pairIndex(attentionIds[i], attentionIds[j]);
+                    int offset = pair * associationSize;
+                    int count = associationCounts[pair];
+
+                    for (int k = offset; k < offset + count; k++) {
+                        associationValues[k] *= (1 - ASSOCIATION_REDUCTION);
+                    }
+
+                    associationCounts[pair] = addSum(offset, count, eventId, importance);
+                }
+            }
+        }
+
+        void notice(StimulusType event, float importance) {
+            for (int i = 0; i < attentionCount; i++) {
+                attentionValues[i] *= (1 - ATTENTION_REDUCTION);
+            }
+
+            int eventId = idOf(event);
+            for (int i = 0; i < attentionCount; i++) {
+                if (attentionIds[i] == eventId) {
+                    attentionValues[i] = Math.max(attentionValues[i], importance);
+                    return;
+                }
+            }
+
+            if (attentionCount < attentionSize) {
+                attentionIds[attentionCount] = eventId;
+                attentionValues[attentionCount] = importance;
+                attentionCount++;
+                return;
+            }
+
+            int least = indexOfMinimum(attentionValues, 0, attentionCount);
+            if (importance >= attentionValues[least]) {
+                attentionIds[least] = eventId;
+                attentionValues[least] = importance;
+            }
+        }
+
+        int getNrOfAssociations() {
+            return Arrays.stream(associationCounts).sum();
+        }
+
+        private int addSum(int offset, int count, int id, float importance) {
+            int end = offset + count;
+            for (int i = offset; i < end; i++) {
+                if (associationIds[i] == id) {
+                    associationValues[i] += importance;
+                    return count;
+                }
+            }
+
+            if (count < associationSize) {
+                associationIds[end] = id;
+                associationValues[end] = importance;
+                return count + 1;
+            }
+
+            int least = indexOfMinimum(associationValues, offset, end);
+            if (importance >= associationValues[least]) {
+                associationIds[least] = id;
+                associationValues[least] = importance;
+            }
+            return count;
+        }
+
+        private static int addMaximum(
+                StimulusType[] elements, float[] relevances, int size, StimulusType element, float relevance
+        ) {
+            for (int i = 0; i < size; i++) {
+                if (elements[i] == element) {
+                    relevances[i] = Math.max(relevances[i], relevance);
+                    return size;
+                }
+            }
+
+            if (size < elements.length) {
+                elements[size] = element;
+                relevances[size] = relevance;
+                return size + 1;
+            }
+
+            int least = indexOfMinimum(relevances, 0, size);
+            if (relevance >= relevances[least]) {
+                elements[least] = element;
+                relevances[least] = relevance;
+            }
+            return size;
+        }
+
+        private static int indexOfMinimum(float[] values, int from, int to) {
+            int least = from;
+            for (int i = from + 1; i < to; i++) {
+                if (values[i] < values[least]) least = i;
+            }
+            return least;
+        }
+
+        private int idOf(StimulusType type) {
+            return typeIds.computeIfAbsent(type, t -> {
+                int id = typeIds.size();
+                types[id] = t;
+                return id;
+            });
+        }
+
+        private static int pairIndex(int a, int b) {
+            return (a > b) ? (a * (a + 1) / 2 + b) : (b * (b + 1) / 2 + a);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package NG.Living;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class AssociatorTest {
+    private static final int ASSOCIATION_SIZE = 2;
+    private Associator<StimulusType> associator;
+
+    @Before
+    public void setUp() {
+        associator = new Associator<>(StimulusType.class, 3, ASSOCIATION_SIZE);
+    }
+
+    /** a stimulus recorded while another is in attention is found when querying the other */
+    @Test
+    public void testQueryRecorded() {
+        associator.notice(BaseStimulus.FLASH, 1f);
+        associator.record(BaseStimulus.EXPLOSION, 1f);
+
+        StimulusType[] elements = new StimulusType[2];
+        float[] relevances = new float[2];
+        int size = associator.query(BaseStimulus.FLASH, elements, relevances);
+
+        assertEquals(1, size);
+        assertSame(BaseStimulus.EXPLOSION, elements[0]);
+        assertEquals(1f, relevances[0], 1e-6f);
+
+        assertEquals(0, associator.query(BaseStimulus.RUMBLE, elements, relevances));
+    }
+
+    /** the most important associations are kept, and each pair keeps a bounded number of associations */
+    @Test
+    public void testBoundedAssociations() {
+        associator.notice(BaseStimulus.FLASH, 1f);
+        associator.record(BaseStimulus.EXPLOSION, 0.5f);
+        associator.record(BaseStimulus.RUMBLE, 2f);
+        associator.record(BaseStimulus.FOOTSTEP, 1f);
+
+        assertEquals(ASSOCIATION_SIZE, associator.getNrOfAssociations());
+
+        StimulusType[] elements = new StimulusType[1];
+        float[] relevances = new float[1];
+        assertEquals(1, associator.query(BaseStimulus.FLASH, elements, relevances));
+        assertSame(BaseStimulus.RUMBLE, elements[0]);
+    }
+
+    /** pairs are unordered, and associations of different pairs are combined */
+    @Test
+    public void testSymmetricPairs() {
+        associator.notice(BaseStimulus.FLASH, 1f);
+        associator.notice(BaseStimulus.SHOUT, 1f);
+        associator.record(BaseStimulus.EXPLOSION, 1f);
+
+        // (FLASH, FLASH), (SHOUT, SHOUT) and (FLASH, SHOUT)
+        assertEquals(3, associator.getNrOfAssociations());
+
+        StimulusType[] elements = new StimulusType[4];
+        float[] relevances = new float[4];
+        assertEquals(1, associator.query(BaseStimulus.SHOUT, elements, relevances));
+        assertSame(BaseStimulus.EXPLOSION, elements[0]);
+        assertTrue(relevances[0] > 1f); // the mixed pair is strengthened in both orders
+    }
+}
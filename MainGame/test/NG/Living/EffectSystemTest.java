@@ -0,0 +1,154 @@
+package NG.Living;
+
+import NG.Actions.Attacks.DamageType;
+import NG.Entities.EntityProperties;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class EffectSystemTest {
+    private EffectSystem effects;
+    private MonsterSoul soul;
+
+    @Before
+    public void setUp() {
+        effects = new EffectSystem();
+        soul = new MonsterSoul(new EntityProperties());
+        soul.applyDamage(DamageType.TRUE, soul.getHitpoints() - 100, 0);
+    }
+
+    @Test
+    public void testDamageOverTimeAccumulates() {
+        effects.addDamageOverTime(soul, DamageType.TRUE, 2.5f, 0, Float.POSITIVE_INFINITY);
+
+        // a quarter of a second deals less than one hitpoint each time
+        for (int i = 1; i <= 16; i++) {
+            effects.process(i * 0.25f);
+        }
+
+        assertEquals(90, soul.getHitpoints());
+    }
+
+    @Test
+    public void testDamageStopsAtEndTime() {
+        effects.addDamageOverTime(soul, DamageType.TRUE, 10f, 0, 1f);
+        effects.process(5f);
+
+        assertEquals(90, soul.getHitpoints());
+    }
+
+    @Test
+    public void testDefenceMultiplierIsRemoved() {
+        long handle = effects.addDefenceMultiplier(soul, DamageType.TRUE, 2f, 0, Float.POSITIVE_INFINITY);
+        soul.applyDamage(DamageType.TRUE, 10, 0);
+        assertEquals(95, soul.getHitpoints());
+
+        effects.remove(handle);
+        soul.applyDamage(DamageType.TRUE, 10, 0);
+        assertEquals(85, soul.getHitpoints());
+        assertEquals(0, effects.size());
+    }
+
+    /** removing multipliers in any order leaves the product of the others, and exactly 1 after the last */
+    @Test
+    public void testMultipliersAreRemovedInAnyOrder() {
+        int type = DamageType.TRUE.ordinal();
+        long[] handles = new long[100];
+        for (int i = 0; i < handles.length; i++) {
+            float multiplier = (i % 2 == 0) ? 1.5f : 0.75f;
+            handles[i] = effects.addDefenceMultiplier(soul, DamageType.TRUE, multiplier, 0, Float.POSITIVE_INFINITY);
+        }
+
+        // keeps the first two, of which the product is 1.125
+        for (int i = handles.length - 1; i >= 2; i -= 2) {
+            effects.remove(handles[i]);
+        }
+        for (int i = handles.length - 2; i >= 2; i -= 2) {
+            effects.remove(handles[i]);
+        }
+        assertEquals(1.125f, soul.defenceMultipliers[type], 1e-3f);
+
+        effects.remove(handles[0]);
+        effects.remove(handles[1]);
+        assertEquals(1f, soul.defenceMultipliers[type], 0f);
+    }
+
+    @Test
+    public void testRemovedHandleIsNotReused() {
+        long first = effects.addDefenceMultiplier(soul, DamageType.TRUE, 2f, 0, Float.POSITIVE_INFINITY);
+        effects.remove(first);
+        effects.addDefenceMultiplier(soul, DamageType.TRUE, 4f, 0, Float.POSITIVE_INFINITY);
+
+        // the second effect takes the slot and handle index of the first
+        effects.remove(first);
+        assertEquals(1, effects.size());
+        soul.applyDamage(DamageType.TRUE, 20, 0);
+        assertEquals(95, soul.getHitpoints());
+    }
+
+    /** a handle stays invalid after its index is reused many times */
+    @Test
+    public void testGenerationsDoNotWrap() {
+        long first = effects.addDefenceMultiplier(soul, DamageType.TRUE, 2f, 0, Float.POSITIVE_INFINITY);
+        effects.remove(first);
+
+        for (int i = 0; i < 5000; i++) {
+            long handle = effects.addDefenceMultiplier(soul, DamageType.TRUE, 2f, 0, Float.POSITIVE_INFINITY);
+            effects.remove(first);
+            assertEquals(1, effects.size());
+            effects.remove(handle);
+        }
+    }
+
+    @Test
+    public void testEffectsAreRestored() throws IOException {
+        effects.addDamageOverTime(soul, DamageType.TRUE, 2f, 0, 10f);
+        effects.addDefenceMultiplier(soul, DamageType.TRUE, 2f, 0, 10f);
+        effects.addDefenceMultiplier(soul, DamageType.TRUE, 4f, 0, 1f);
+        List<MonsterSoul> souls = Collections.singletonList(soul);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EffectSystem.write(new DataOutputStream(bytes), effects, souls);
+        effects.cleanup();
+        assertEquals(1f, soul.defenceMultipliers[DamageType.TRUE.ordinal()], 0f);
+
+        DataInput in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        EffectSystem restored = new EffectSystem();
+        EffectSystem.read(in, souls).restoreTo(restored, 5f);
+
+        // the short multiplier ended before restoring
+        assertEquals(2, restored.size());
+        assertEquals(2f, soul.defenceMultipliers[DamageType.TRUE.ordinal()], 0f);
+
+        // damage continues from the time it was written
+        restored.process(5f);
+        assertEquals(95, soul.getHitpoints());
+    }
+
+    /** an expiry event can be saved with the event queue, and does nothing after loading */
+    @Test
+    public void testSavedExpiryIsInert() throws Exception {
+        long handle = effects.addDefenceMultiplier(soul, DamageType.TRUE, 2f, 0, Float.POSITIVE_INFINITY);
+        EffectSystem.ExpiryEvent event = new EffectSystem.ExpiryEvent(null, effects, 1f, handle);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(event);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            ((EffectSystem.ExpiryEvent) in.readObject()).run();
+        }
+        assertEquals(1, effects.size());
+
+        event.run();
+        assertEquals(0, effects.size());
+    }
+}
@@ -0,0 +1,106 @@
+package NG.Living;
+
+import NG.Tools.Directory;
+import NG.Tools.Logger;
+
+import java.io.IOException;
+
+/**
+ * Compares processing the emotions of many monsters one collection at a time, against processing them together in an
+ * {@link EmotionSystem}. Every monster gets a copy of the emotions of the same soul, each with a different initial
+ * fright. Both variants process one step per iteration, and must end with the same values. Arguments (all optional):
+ * {@code -monsters N -steps S -rounds R}
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class EmotionBenchmark {
+    private final Emotion.ECollection[] separate;
+    private final Emotion.ECollection[] batched;
+    private final EmotionSystem system = new EmotionSystem();
+    private float time = 1;
+
+    public EmotionBenchmark(Emotion.ECollection prototype, int nofMonsters) {
+        separate = new Emotion.ECollection[nofMonsters];
+        batched = new Emotion.ECollection[nofMonsters];
+
+        for (int i = 0; i < nofMonsters; i++) {
+            separate[i] = new Emotion.ECollection(prototype);
+            batched[i] = new Emotion.ECollection(prototype);
+            separate[i].add(Emotion.FRIGHT, i % 1000);
+            batched[i].add(Emotion.FRIGHT, i % 1000);
+            system.attach(batched[i]);
+        }
+    }
+
+    /** @return nanoseconds per monster per step of processing each collection separately */
+    private double runSeparate(int nofSteps, float startTime) {
+        long start = System.nanoTime();
+        for (int s = 1; s <= nofSteps; s++) {
+            float stepTime = startTime + s;
+            for (Emotion.ECollection emotions : separate) {
+                emotions.process(stepTime);
+            }
+        }
+        return (double) (System.nanoTime() - start) / nofSteps / separate.length;
+    }
+
+    /** @return nanoseconds per monster per step of processing all collections in the emotion system */
+    private double runBatched(int nofSteps, float startTime) {
+        long start = System.nanoTime();
+        for (int s = 1; s <= nofSteps; s++) {
+            system.process(startTime + s);
+        }
+        return (double) (System.nanoTime() - start) / nofSteps / batched.length;
+    }
+
+    /** runs both variants for the given number of steps, and prints the results */
+    private void round(int nofSteps, boolean print) {
+        double separateNanos = runSeparate(nofSteps, time);
+        double batchedNanos = runBatched(nofSteps, time);
+        time += nofSteps;
+
+        for (int i = 0; i < separate.length; i++) {
+            for (Emotion emotion : Emotion.values()) {
+                if (separate[i].get(emotion) != batched[i].get(emotion)) {
+                    throw new AssertionError("Monster " + i + " differs in " + emotion);
+                }
+            }
+        }
+
+        if (print) {
+            Logger.INFO.printf("separate: %6.2f ns, batched: %6.2f ns per monster per step (%.1fx)",
+                    separateNanos, batchedNanos, separateNanos / batchedNanos
+            );
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int nofMonsters = 10_000;
+        int nofSteps = 1000;
+        int nofRounds = 5;
+
+        for (int i = 0; i < args.length - 1; i += 2) {
+            int value = Integer.parseInt(args[i + 1]);
+            switch (args[i]) {
+                case "-monsters":
+                    nofMonsters = value;
+                    break;
+                case "-steps":
+                    nofSteps = value;
+                    break;
+                case "-rounds":
+                    nofRounds = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument " + args[i]);
+            }
+        }
+
+        SoulDescription soul = new SoulDescription(Directory.souls.getFile("soul1.txt"));
+        EmotionBenchmark benchmark = new EmotionBenchmark(soul.emotions, nofMonsters);
+
+        benchmark.round(nofSteps, false); // warm-up
+        for (int i = 0; i < nofRounds; i++) {
+            benchmark.round(nofSteps, true);
+        }
+    }
+}
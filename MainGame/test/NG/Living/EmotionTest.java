@@ -0,0 +1,158 @@
+package NG.Living;
+
+import NG.Actions.Attacks.DamageType;
+import NG.Core.HeadlessGame;
+import NG.Entities.EntityProperties;
+import NG.GameMap.FixedMapGenerator;
+import NG.GameMap.GameMap;
+import NG.GameMap.MapTiles;
+import NG.Settings.Settings;
+import NG.Tools.Directory;
+import NG.Tools.Logger;
+import org.joml.Vector2i;
+import org.junit.Test;
+
+import java.util.Scanner;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class EmotionTest {
+    /** the emotion table of the default soul */
+    private static final String EMOTIONS = "" +
+            "EXCITEMENT          100     | -0.005 | 0.00   | -0.01  | 0.0    | -0.005 | 0.0     | -0.001\n" +
+            "CURIOUSNESS         100     | 0.01   | -0.005 | -0.01  | 0.0    | -0.003 | 0.0     | 0.0\n" +
+            "FRIGHT              0       | 0.01   | -0.005 | -0.001 | -0.01  | 0.0    | -0.002  | 0.005\n" +
+            "ANGER               0       | 0.03   | 0.00   | -0.01  | -0.005 | -0.01  | 0.0     | 0.001\n" +
+            "PATIENCE            50      | -0.02  | -0.01  | 0.0    | -0.03  | 0.001  | 0.0     | -0.001\n" +
+            "SELF_CONFIDENCE     50      | 0.00   | 0.005  | -0.01  | 0.0    | 0.0    | 0.0     | -0.001\n" +
+            "STRESS              0       | 0.02   | -0.01  | 0.04   | 0.01   | -0.005 | -0.0005 | -0.0001\n" +
+            "end\n";
+    private static final int[] GAPS = {8, 9, 50, 200, 500, 1000, 1500, 5000};
+    private static final float RELATIVE_TOLERANCE = 0.002f;
+
+    /** processing a long gap at once gives the same result as processing it one step at a time, within tolerance */
+    @Test
+    public void testCatchUpEquivalence() {
+        for (int initial : new int[]{0, 1000, 30000}) {
+            for (int gap : GAPS) {
+                Emotion.ECollection stepwise = new Emotion.ECollection(new Scanner(EMOTIONS));
+                Emotion.ECollection atOnce = new Emotion.ECollection(new Scanner(EMOTIONS));
+                stepwise.add(Emotion.FRIGHT, initial);
+                atOnce.add(Emotion.FRIGHT, initial);
+
+                // state time starts at 1
+                for (int t = 2; t <= gap + 1; t++) {
+                    stepwise.process(t);
+                }
+                atOnce.process(gap + 1);
+
+                float tolerance = Math.max(initial, 100) * RELATIVE_TOLERANCE + 2;
+                for (Emotion emotion : Emotion.values()) {
+                    String message = emotion + " after " + gap + " steps from " + initial;
+                    assertEquals(message, stepwise.get(emotion), atOnce.get(emotion), tolerance);
+                }
+            }
+        }
+    }
+
+    /** processing continues from where the previous processing stopped */
+    @Test
+    public void testProcessIsIncremental() {
+        Emotion.ECollection once = new Emotion.ECollection(new Scanner(EMOTIONS));
+        Emotion.ECollection twice = new Emotion.ECollection(new Scanner(EMOTIONS));
+
+        once.process(101);
+        twice.process(51);
+        twice.process(101);
+        twice.process(101);
+
+        for (Emotion emotion : Emotion.values()) {
+            assertEquals(emotion.toString(), once.get(emotion), twice.get(emotion), 2);
+        }
+    }
+
+    /** collections processed in an emotion system get the same values as collections processed separately */
+    @Test
+    public void testEmotionSystemEquivalence() {
+        Emotion.ECollection prototype = new Emotion.ECollection(new Scanner(EMOTIONS));
+        EmotionSystem system = new EmotionSystem();
+        Emotion.ECollection[] separate = new Emotion.ECollection[100];
+        Emotion.ECollection[] batched = new Emotion.ECollection[100];
+
+        for (int i = 0; i < separate.length; i++) {
+            separate[i] = new Emotion.ECollection(prototype);
+            batched[i] = new Emotion.ECollection(prototype);
+            separate[i].add(Emotion.ANGER, i * 100);
+            batched[i].add(Emotion.ANGER, i * 100);
+            system.attach(batched[i]);
+        }
+
+        for (int t = 2; t < 50; t++) {
+            for (Emotion.ECollection emotions : separate) {
+                emotions.process(t);
+            }
+            system.process(t);
+
+            // removes a member from the middle, which moves the last member, and processes it separately for a while
+            if (t == 20) {
+                system.detach(batched[10]);
+            } else if (t > 20 && t < 30) {
+                batched[10].process(t);
+            } else if (t == 30) {
+                batched[10].process(t);
+                system.attach(batched[10]);
+            }
+        }
+        assertEquals(separate.length, system.size());
+
+        for (int i = 0; i < separate.length; i++) {
+            for (Emotion emotion : Emotion.values()) {
+                assertEquals(emotion + " of " + i, separate[i].get(emotion), batched[i].get(emotion));
+            }
+        }
+    }
+
+    /** monsters that die, despawn or get another mind leave the emotion system, and empty groups are dropped */
+    @Test
+    public void testGoneMonstersAreDetached() throws Exception {
+        Logger.setLoggingLevel(Logger.ERROR);
+        HeadlessGame game = new HeadlessGame(new Settings());
+        try {
+            game.init();
+            MapTiles.readTileSetFile("Hitbox", "tileSetHitbox.txt");
+            game.get(GameMap.class).generateNew(new FixedMapGenerator(new float[10][10]));
+
+            EmotionSystem system = game.get(EmotionSystem.class);
+            EntityProperties properties = new EntityProperties();
+            SoulDescription description = new SoulDescription(Directory.souls.getFile("soul1.txt"));
+            MonsterSoul[] souls = new MonsterSoul[4];
+            for (int i = 0; i < souls.length; i++) {
+                souls[i] = new MonsterSoul(properties, description);
+                souls[i].spawnEntity(game, new Vector2i(2 * i + 1, 1));
+            }
+            assertEquals(4, system.size());
+            assertEquals(1, system.nofGroups());
+
+            souls[0].applyDamage(DamageType.TRUE, souls[0].getHitpoints() * 1000f, 5f);
+            souls[1].entity().setDespawnTime(5f);
+            system.process(4f);
+            assertEquals(4, system.size());
+
+            system.process(6f);
+            assertEquals(2, system.size());
+
+            souls[2].setOwner(game.get(Player.class), game);
+            assertEquals(1, system.size());
+
+            souls[3].mind().setEntity(null, null);
+            assertEquals(0, system.size());
+            assertEquals(0, system.nofGroups());
+
+        } finally {
+            game.cleanup();
+        }
+    }
+}
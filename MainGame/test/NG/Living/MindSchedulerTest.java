@@ -0,0 +1,153 @@
+package NG.Living;
+
+import NG.Core.HeadlessGame;
+import NG.Entities.EntityProperties;
+import NG.Entities.MonsterEntity;
+import NG.GameMap.FixedMapGenerator;
+import NG.GameMap.GameMap;
+import NG.GameMap.MapTiles;
+import NG.Settings.Settings;
+import NG.Tools.Logger;
+import org.joml.Vector2i;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class MindSchedulerTest {
+    private MindScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new MindScheduler();
+    }
+
+    @Test
+    public void testNearMindsThinkEveryTick() {
+        int n = 10;
+        int[] levels = new int[n];
+        int[] buckets = buckets(n);
+        boolean[] due = new boolean[n];
+
+        for (int tick = 0; tick < 20; tick++) {
+            assertEquals(n, scheduler.select(levels, buckets, n, due));
+        }
+    }
+
+    @Test
+    public void testEachMindThinksOncePerInterval() {
+        int n = 100;
+        int[] levels = new int[n];
+        for (int i = 0; i < n; i++) {
+            levels[i] = i % (MindScheduler.FAR_LEVEL + 1);
+        }
+        int[] buckets = buckets(n);
+        boolean[] due = new boolean[n];
+        int[] counts = new int[n];
+
+        int nofTicks = MindScheduler.FAR_MINIMUM_INTERVAL * 4;
+        for (int tick = 0; tick < nofTicks; tick++) {
+            scheduler.select(levels, buckets, n, due);
+            for (int i = 0; i < n; i++) {
+                if (due[i]) counts[i]++;
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            int interval = (levels[i] == MindScheduler.FAR_LEVEL) ? MindScheduler.FAR_MINIMUM_INTERVAL : 1 << levels[i];
+            assertEquals("mind " + i, nofTicks / interval, counts[i]);
+        }
+    }
+
+    /** the number of far minds thinking per tick does not grow with the number of far minds */
+    @Test
+    public void testFarMindsShareBudget() {
+        for (int n : new int[]{1_000, 10_000, 100_000}) {
+            int[] levels = new int[n];
+            Arrays.fill(levels, MindScheduler.FAR_LEVEL);
+            int[] buckets = buckets(n);
+            boolean[] due = new boolean[n];
+
+            for (int tick = 0; tick < 50; tick++) {
+                int nofDue = scheduler.select(levels, buckets, n, due);
+                assertTrue(n + " minds: " + nofDue, nofDue <= MindScheduler.FAR_BUDGET + 1);
+                assertTrue(n + " minds: " + nofDue, nofDue >= MindScheduler.FAR_BUDGET - 1);
+            }
+        }
+    }
+
+    /** only the focus points near a position determine its level, also when there are many */
+    @Test
+    public void testLevelsOfManyFocusPoints() {
+        // a line of focus points on x = 0
+        for (int i = 0; i < 1_000; i++) {
+            scheduler.addFocusPoint(0, i);
+        }
+        scheduler.buildFocusGrid();
+
+        assertEquals(0, scheduler.levelOf(10, 500));
+        assertEquals(1, scheduler.levelOf(-30, 500));
+        assertEquals(2, scheduler.levelOf(60, 999));
+        assertEquals(2, scheduler.levelOf(0, 999 + 79.5f));
+        assertEquals(MindScheduler.FAR_LEVEL, scheduler.levelOf(0, 999 + 80.5f));
+        assertEquals(MindScheduler.FAR_LEVEL, scheduler.levelOf(100, 500));
+        assertEquals(MindScheduler.FAR_LEVEL, scheduler.levelOf(-1e6f, 1e6f));
+    }
+
+    /** a monster far from all owned monsters thinks less often than one close to an owned monster */
+    @Test
+    public void testFarMonstersAreDemoted() throws Exception {
+        Logger.setLoggingLevel(Logger.ERROR);
+        HeadlessGame game = new HeadlessGame(new Settings());
+        try {
+            game.init();
+            MapTiles.readTileSetFile("Hitbox", "tileSetHitbox.txt");
+            game.get(GameMap.class).generateNew(new FixedMapGenerator(new float[80][4]));
+
+            EntityProperties properties = new EntityProperties();
+            MonsterSoul owned = new MonsterSoul(properties);
+            MonsterSoul near = new MonsterSoul(properties);
+            MonsterSoul far = new MonsterSoul(properties);
+            List<MonsterEntity> entities = Arrays.asList(
+                    owned.spawnEntity(game, new Vector2i(1, 1)),
+                    near.spawnEntity(game, new Vector2i(6, 1)),
+                    far.spawnEntity(game, new Vector2i(78, 1))
+            );
+            game.get(Player.class).addToTeam(owned, game);
+
+            MindScheduler scheduler = game.get(MindScheduler.class);
+            boolean[] due = new boolean[entities.size()];
+            int[] counts = new int[entities.size()];
+            int nofTicks = MindScheduler.FAR_MINIMUM_INTERVAL * 4;
+
+            for (int tick = 0; tick < nofTicks; tick++) {
+                scheduler.schedule(100f + tick, entities, due);
+                for (int i = 0; i < due.length; i++) {
+                    if (due[i]) counts[i]++;
+                }
+            }
+
+            assertEquals(nofTicks, counts[0]);
+            assertEquals(nofTicks, counts[1]);
+            assertEquals(nofTicks / MindScheduler.FAR_MINIMUM_INTERVAL, counts[2]);
+
+        } finally {
+            game.cleanup();
+        }
+    }
+
+    private static int[] buckets(int n) {
+        int[] buckets = new int[n];
+        for (int i = 0; i < n; i++) {
+            buckets[i] = i + 1;
+        }
+        return buckets;
+    }
+}
@@ -0,0 +1,88 @@
+package NG.Living.MonsterMind;
+
+import NG.Living.*;
+import NG.Tools.Directory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class ActionRolloutTest {
+    private static final StimulusType[] STIMULI = {
+            BaseStimulus.DAMAGE, BaseStimulus.REWARD, BaseStimulus.FLASH, BaseStimulus.EXPLOSION,
+            BaseStimulus.AFFECTION, BaseStimulus.ANNOYANCE
+    };
+    private static final CommandSType CALM = new CommandSType(true);
+    private static final CommandSType SCARY = new CommandSType(false);
+
+    private SoulDescription soul;
+    private Map<StimulusType, Emotion.Translation> effects;
+    private CommandSType[] candidates;
+    private float[] relevances;
+
+    @Before
+    public void setUp() throws IOException {
+        soul = new SoulDescription(Directory.souls.getFile("soul1.txt"));
+        effects = new HashMap<>(soul.stimulusEffects);
+
+        Emotion.Translation calm = new Emotion.Translation();
+        calm.set(Emotion.SELF_CONFIDENCE, 50);
+        effects.put(CALM, calm);
+        Emotion.Translation scary = new Emotion.Translation();
+        scary.set(Emotion.FRIGHT, 50);
+        effects.put(SCARY, scary);
+
+        candidates = new CommandSType[]{SCARY, CALM};
+        relevances = new float[]{1, 1};
+    }
+
+    @Test
+    public void testSelectsMostJoyfulAction() {
+        Associator<StimulusType> associations = new Associator<>(StimulusType.class, 6, 10);
+        assertSame(CALM, select(associations));
+    }
+
+    /** the same state of mind gives the same decision, regardless of how the rollouts are scheduled */
+    @Test
+    public void testSameSeedSameChoice() {
+        CommandSType first = select(learn(42));
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(first, select(learn(42)));
+        }
+    }
+
+    private CommandSType select(Associator<StimulusType> associations) {
+        ActionRollout rollout = new ActionRollout(
+                new Emotion.ECollection(soul.emotions), associations, effects, soul.emotionValues,
+                candidates, candidates.length, 0
+        );
+        return rollout.selectBest(candidates, relevances, candidates.length, 0).join();
+    }
+
+    /** @return an associator that learned a random sequence of stimuli, including the candidates */
+    private static Associator<StimulusType> learn(long seed) {
+        Random random = new Random(seed);
+        Associator<StimulusType> associations = new Associator<>(StimulusType.class, 6, 10);
+
+        for (int i = 0; i < 200; i++) {
+            StimulusType type = (random.nextInt(4) == 0) ?
+                    (random.nextBoolean() ? CALM : SCARY) :
+                    STIMULI[random.nextInt(STIMULI.length)];
+            float importance = random.nextFloat();
+            associations.record(type, importance);
+            associations.notice(type, importance);
+        }
+
+        return associations;
+    }
+}
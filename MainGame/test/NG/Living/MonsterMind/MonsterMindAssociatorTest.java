@@ -0,0 +1,46 @@
+package NG.Living.MonsterMind;
+
+import NG.Entities.EntityProperties;
+import NG.Living.CommandSType;
+import NG.Living.SoulDescription;
+import NG.Living.SpeciesRegistry;
+import NG.Tools.Directory;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class MonsterMindAssociatorTest {
+    private SoulDescription description;
+    private MonsterMindAssociator first;
+    private MonsterMindAssociator second;
+
+    @Before
+    public void setUp() {
+        SpeciesRegistry registry = new SpeciesRegistry();
+        registry.load(Directory.souls.getDirectory(), Directory.monsters.getDirectory());
+        description = registry.getSoul("soul1");
+
+        EntityProperties properties = new EntityProperties();
+        first = (MonsterMindAssociator) registry.createSoul(properties, "soul1").mind();
+        second = (MonsterMindAssociator) registry.createSoul(properties, "soul1").mind();
+    }
+
+    /** the judgement of a new stimulus by one mind changes neither the description nor other minds */
+    @Test
+    public void testJudgementIsCopiedOnWrite() {
+        CommandSType unknown = new CommandSType(true);
+        int nofKnown = description.importance.size();
+
+        float judgement = first.judge(unknown);
+        assertEquals(judgement, first.judge(unknown), 0f);
+
+        assertEquals(nofKnown, description.importance.size());
+        assertFalse(description.importance.containsKey(unknown));
+        assertSame(description.importance, second.getImportance());
+        assertNotSame(description.importance, first.getImportance());
+    }
+}
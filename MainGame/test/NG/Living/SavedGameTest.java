@@ -0,0 +1,96 @@
+package NG.Living;
+
+import NG.Actions.Attacks.DamageType;
+import NG.CollisionDetection.GameState;
+import NG.CollisionDetection.PhysicsEngine;
+import NG.Core.HeadlessGame;
+import NG.Entities.Entity;
+import NG.Entities.EntityProperties;
+import NG.Entities.MonsterEntity;
+import NG.GameMap.FixedMapGenerator;
+import NG.GameMap.GameMap;
+import NG.GameMap.MapTiles;
+import NG.Settings.Settings;
+import NG.Tools.Logger;
+import org.joml.Vector2i;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.Collection;
+
+import static org.junit.Assert.*;
+
+/**
+ * Saves the state and the effects of a game separately, as the game does, and restores them in another game.
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class SavedGameTest {
+    private HeadlessGame source;
+    private HeadlessGame target;
+
+    @Before
+    public void setUp() throws Exception {
+        Logger.setLoggingLevel(Logger.ERROR);
+        MapTiles.readTileSetFile("Hitbox", "tileSetHitbox.txt");
+        source = createGame();
+        target = createGame();
+    }
+
+    @After
+    public void tearDown() {
+        source.cleanup();
+        target.cleanup();
+    }
+
+    /** the monsters get their soul back, and the effects are restored on these souls */
+    @Test
+    public void testSoulsAndEffectsAreRestored() throws Exception {
+        SpeciesRegistry species = source.get(SpeciesRegistry.class);
+        MonsterSoul soul = species.createSoul(EntityProperties.DEFAULT_NAME, "soul1");
+        source.get(GameState.class).addEntity(soul.spawnEntity(source, new Vector2i(1, 1)));
+        source.get(EffectSystem.class).addDefenceMultiplier(soul, DamageType.TRUE, 2f, 0, Float.POSITIVE_INFINITY);
+
+        PhysicsEngine state = copy(source.get(PhysicsEngine.class));
+        EffectSystem effects = copy(source.get(EffectSystem.class));
+        target.remove(target.get(PhysicsEngine.class));
+        target.remove(target.get(EffectSystem.class));
+        target.add(state);
+        target.add(effects);
+        state.init(target);
+        effects.init(target);
+
+        Collection<Entity> entities = state.entities();
+        assertEquals(1, entities.size());
+        MonsterSoul restored = ((MonsterEntity) entities.iterator().next()).getController();
+        assertEquals(soul.getId(), restored.getId());
+        assertSame(target.get(SpeciesRegistry.class).getSpecies(EntityProperties.DEFAULT_NAME), restored.props);
+        assertSame(restored, restored.entity().getController());
+
+        effects.update(1f);
+        assertEquals(1, effects.size());
+        assertEquals(2f, restored.defenceMultipliers[DamageType.TRUE.ordinal()], 0f);
+    }
+
+    private static HeadlessGame createGame() throws Exception {
+        HeadlessGame game = new HeadlessGame(new Settings());
+        game.init();
+        float[][] heights = new float[Settings.CHUNK_SIZE + 1][Settings.CHUNK_SIZE + 1];
+        game.get(GameMap.class).generateNew(new FixedMapGenerator(heights));
+        return game;
+    }
+
+    /** @return a copy of the given element, serialized in its own stream */
+    private static <T extends Serializable> T copy(T element) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(element);
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            //noinspection unchecked
+            return (T) in.readObject();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package NG.Living;
+
+import NG.Entities.EntityProperties;
+import NG.Living.MonsterMind.MonsterMindAssociator;
+import NG.Tools.Directory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class SoulCodecTest {
+    private static final int NOF_SOULS = 100;
+    private SpeciesRegistry registry;
+    private List<MonsterSoul> souls;
+
+    @Before
+    public void setUp() {
+        registry = new SpeciesRegistry();
+        registry.load(Directory.souls.getDirectory(), Directory.monsters.getDirectory());
+        EntityProperties properties = registry.getSpecies(EntityProperties.DEFAULT_NAME);
+        SoulDescription description = registry.getSoul("soul1");
+        souls = new ArrayList<>();
+
+        for (int i = 0; i < NOF_SOULS; i++) {
+            MonsterSoul soul = (i % 2 == 0) ? new MonsterSoul(properties) : new MonsterSoul(properties, description);
+            soul.applyDamage(NG.Actions.Attacks.DamageType.TRUE, i, 0);
+            souls.add(soul);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        byte[] written = write(souls);
+        List<MonsterSoul> read = read(written);
+
+        assertEquals(souls.size(), read.size());
+        for (int i = 0; i < souls.size(); i++) {
+            MonsterSoul expected = souls.get(i);
+            MonsterSoul actual = read.get(i);
+            assertEquals(expected.toString(), actual.toString());
+            assertEquals(expected.getHitpoints(), actual.getHitpoints());
+            assertEquals(expected.mind().getClass(), actual.mind().getClass());
+        }
+
+        // everything that is written, is read back
+        assertArrayEquals(written, write(read));
+    }
+
+    @Test
+    public void testSharedObjectsStayShared() throws IOException {
+        List<MonsterSoul> read = read(write(souls));
+
+        SoulDescription description = null;
+        for (MonsterSoul soul : read) {
+            assertSame(read.get(0).props, soul.props);
+
+            if (soul.mind() instanceof MonsterMindAssociator) {
+                SoulDescription other = ((MonsterMindAssociator) soul.mind()).getDescription();
+                if (description == null) description = other;
+                assertSame(description, other);
+            }
+        }
+        assertNotNull(description);
+    }
+
+    @Test
+    public void testSharesTablesOfRegistry() throws IOException {
+        List<MonsterSoul> read = read(write(souls));
+
+        SoulDescription description = registry.getSoul("soul1");
+        assertSame(registry.getSpecies(EntityProperties.DEFAULT_NAME), read.get(0).props);
+        assertSame(description, ((MonsterMindAssociator) read.get(1).mind()).getDescription());
+    }
+
+    /** a description that is not in the registry is written in full, but shares the matrix of an equal soul */
+    @Test
+    public void testSharesMatrixOfUnregisteredDescription() throws IOException {
+        SoulDescription copy = new SoulDescription(Directory.souls.getFile("soul1.txt"));
+        List<MonsterSoul> written = Collections.singletonList(new MonsterSoul(souls.get(0).props, copy));
+        MonsterSoul read = read(write(written)).get(0);
+
+        SoulDescription description = ((MonsterMindAssociator) read.mind()).getDescription();
+        assertNotSame(registry.getSoul("soul1"), description);
+        assertEquals(copy.importance, description.importance);
+        assertSame(
+                registry.getSoul("soul1").emotions.getTransformationMatrix(),
+                description.emotions.getTransformationMatrix()
+        );
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsUnknownSpecies() throws IOException {
+        byte[] written = write(souls);
+        read(written, new SpeciesRegistry());
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherData() throws IOException {
+        read(new byte[]{1, 2, 3, 4, 5, 6});
+    }
+
+    /** a reference that decodes to a negative index, as the fifth byte of a varint can cause */
+    @Test(expected = IOException.class)
+    public void testRejectsNegativeIndex() throws IOException {
+        byte[] record = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+        read(block(0, new byte[0], record));
+    }
+
+    /** a varint whose fifth byte has more bits than fit in an int */
+    @Test(expected = IOException.class)
+    public void testRejectsOverlongVarInt() throws IOException {
+        byte[] record = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x10};
+        read(block(0, new byte[0], record));
+    }
+
+    /** stimulus types are only read from their known tags, never deserialized */
+    @Test(expected = IOException.class)
+    public void testRejectsUnknownType() throws IOException {
+        byte[] type = {3, 0, 0, 0, 4, (byte) 0xAC, (byte) 0xED, 0, 5};
+        read(block(1, type));
+    }
+
+    /**
+     * @return a block with the given type table, no other shared objects, and the given records
+     */
+    private static byte[] block(int nofTypes, byte[] types, byte[]... records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(SoulCodec.MAGIC);
+        out.writeShort(SoulCodec.VERSION);
+        out.writeInt(0);
+        out.writeInt(nofTypes);
+        out.write(types);
+        out.writeInt(Emotion.count);
+        out.writeInt(0);
+        out.writeInt(0);
+
+        out.writeInt(records.length);
+        for (byte[] record : records) {
+            out.writeInt(record.length);
+            out.write(record);
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] write(List<MonsterSoul> souls) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SoulCodec.write(souls, bytes, registry);
+        return bytes.toByteArray();
+    }
+
+    private List<MonsterSoul> read(byte[] block) throws IOException {
+        return read(block, registry);
+    }
+
+    private static List<MonsterSoul> read(byte[] block, SpeciesRegistry registry) throws IOException {
+        return SoulCodec.read(new ByteArrayInputStream(block), registry);
+    }
+}
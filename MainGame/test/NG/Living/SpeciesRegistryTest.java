@@ -0,0 +1,56 @@
+package NG.Living;
+
+import NG.Living.MonsterMind.MonsterMindAssociator;
+import NG.Tools.Directory;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class SpeciesRegistryTest {
+    private SpeciesRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new SpeciesRegistry();
+        registry.load(Directory.souls.getDirectory(), Directory.monsters.getDirectory());
+    }
+
+    @Test
+    public void testLoadsSoulsAndSpecies() {
+        assertNotNull(registry.getSoul("soul1"));
+        assertNotNull(registry.getSpecies("robot"));
+    }
+
+    @Test
+    public void testSoulsShareTheirSpecies() {
+        MonsterSoul first = registry.createSoul("robot", "soul1");
+        MonsterSoul second = registry.createSoul("robot", "soul1");
+
+        assertSame(first.props, second.props);
+        assertSame(description(first), description(second));
+        assertSame(registry.getSoul("soul1"), description(first));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testDescriptionIsImmutable() {
+        registry.getSoul("soul1").importance.clear();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testEmotionValuesAreImmutable() {
+        registry.getSoul("soul1").emotionValues.put(Emotion.ANGER, 1f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnknownSpecies() {
+        registry.createSoul("unicorn", "soul1");
+    }
+
+    private static SoulDescription description(MonsterSoul soul) {
+        return ((MonsterMindAssociator) soul.mind()).getDescription();
+    }
+}
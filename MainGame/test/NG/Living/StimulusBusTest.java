@@ -0,0 +1,166 @@
+package NG.Living;
+
+import NG.Core.HeadlessGame;
+import NG.Entities.EntityProperties;
+import NG.Entities.MonsterEntity;
+import NG.GameMap.FixedMapGenerator;
+import NG.GameMap.GameMap;
+import NG.GameMap.MapTiles;
+import NG.Settings.Settings;
+import NG.Tools.Logger;
+import org.joml.Vector2i;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Geert van Ieperen created on 19-10-2026.
+ */
+public class StimulusBusTest {
+    private static final int MAP_SIZE = 2 * Settings.CHUNK_SIZE;
+    private HeadlessGame game;
+    private StimulusBus bus;
+    private List<MonsterEntity> monsters;
+    private List<Vector3f> positions;
+    private float gameTime = 1;
+
+    @Before
+    public void setUp() throws Exception {
+        Logger.setLoggingLevel(Logger.ERROR);
+        game = new HeadlessGame(new Settings());
+        game.init();
+        MapTiles.readTileSetFile("Hitbox", "tileSetHitbox.txt");
+        game.get(GameMap.class).generateNew(new FixedMapGenerator(new float[MAP_SIZE + 1][MAP_SIZE + 1]));
+
+        bus = new StimulusBus();
+        monsters = new ArrayList<>();
+        positions = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        game.cleanup();
+    }
+
+    /** a stimulus reaches exactly the monsters within its range, for monsters spread over many cells */
+    @Test
+    public void testRangeCulling() {
+        Random random = new Random(1);
+        for (int i = 0; i < 60; i++) {
+            spawn(random.nextInt(MAP_SIZE), random.nextInt(MAP_SIZE));
+        }
+
+        for (int i = 0; i < 200; i++) {
+            Vector3f origin = new Vector3f(random.nextFloat(), random.nextFloat(), 0).mul(MAP_SIZE * Settings.TILE_SIZE);
+            float range = random.nextFloat() * 20;
+            assertDeliveredInRange(new RangedStimulus(origin, range));
+        }
+    }
+
+    /**
+     * monsters on a line with the spacing of the smallest cell size lie on the borders of the cells, and a range that
+     * ends exactly on a monster still reaches it
+     */
+    @Test
+    public void testCellBoundaries() {
+        for (int x = 0; x < MAP_SIZE; x++) {
+            spawn(x, 3);
+        }
+
+        for (Vector3f position : positions) {
+            for (Vector3f other : positions) {
+                // ranges ending exactly on the other monster, on the edge of its cell
+                assertDeliveredInRange(new RangedStimulus(position, position.distance(other)));
+            }
+        }
+    }
+
+    /** a stimulus outside the grid reaches the monsters within its range on the edge of the grid */
+    @Test
+    public void testOriginOutsideGrid() {
+        for (int x = 10; x < 20; x++) {
+            spawn(x, 10);
+        }
+
+        Vector3f first = positions.get(0);
+        Vector3f origin = new Vector3f(first).sub(10, 0, 0);
+        assertDeliveredInRange(new RangedStimulus(origin, 10));
+        assertDeliveredInRange(new RangedStimulus(origin, 9.9f));
+        assertDeliveredInRange(new RangedStimulus(new Vector3f(origin).sub(0, 5, 0), 12));
+    }
+
+    /** a stimulus without range reaches all monsters */
+    @Test
+    public void testUnboundedRange() {
+        for (int x = 0; x < MAP_SIZE; x += 3) {
+            spawn(x, x);
+        }
+
+        bus.emit(() -> new Vector3f());
+        bus.deliver(gameTime, monsters);
+
+        for (MonsterEntity monster : monsters) {
+            assertEquals(gameTime, monster.getController().getLastStimulusTime(), 0f);
+        }
+    }
+
+    private void spawn(int x, int y) {
+        MonsterEntity monster = new MonsterSoul(new EntityProperties()).spawnEntity(game, new Vector2i(x, y));
+        monsters.add(monster);
+        positions.add(monster.getPositionAt(0, new Vector3f()));
+    }
+
+    /** delivers the stimulus in a new tick, and checks that exactly the monsters in range received it */
+    private void assertDeliveredInRange(RangedStimulus stimulus) {
+        gameTime++;
+        bus.emit(stimulus);
+        bus.deliver(gameTime, monsters);
+
+        for (int i = 0; i < monsters.size(); i++) {
+            boolean isInRange = stimulus.getMagnitude(positions.get(i)) >= StimulusBus.DEFAULT_MINIMUM_MAGNITUDE;
+            boolean isDelivered = monsters.get(i).getController().getLastStimulusTime() == gameTime;
+            assertEquals("monster at " + positions.get(i) + ", " + stimulus, isInRange, isDelivered);
+        }
+    }
+
+    /** a stimulus that is just noticeable up to a given distance in the horizontal plane */
+    private static class RangedStimulus implements Stimulus {
+        private final Vector3fc position;
+        private final float range;
+
+        RangedStimulus(Vector3fc position, float range) {
+            this.position = position;
+            this.range = range;
+        }
+
+        @Override
+        public Vector3fc getPosition() {
+            return position;
+        }
+
+        @Override
+        public float getMagnitude(Vector3fc target) {
+            float dx = target.x() - position.x();
+            float dy = target.y() - position.y();
+            return (dx * dx + dy * dy <= range * range) ? 1 : 0;
+        }
+
+        @Override
+        public float getRange(float minimumMagnitude) {
+            return range;
+        }
+
+        @Override
+        public String toString() {
+            return "stimulus at " + position + " with range " + range;
+        }
+    }
+}
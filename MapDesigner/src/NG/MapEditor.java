@@ -147,12 +147,8 @@ public class MapEditor {
             new Thread(() -> {
                 Logger.printOnline(saveNotify);
 
-                try (FileOutputStream fileOut = hasExtension ?
-                        new FileOutputStream(selectedFile) :
-                        new FileOutputStream(nameWithExtension);
-                ) {
-                    ObjectOutputStream out = new ObjectOutputStream(fileOut);
-                    out.writeObject(game.get(TileMap.class));
+                try {
+                    MapCodec.write(game.get(TileMap.class), hasExtension ? selectedFile : new File(nameWithExtension));
 
                     Logger.INFO.print("Saved file " + (hasExtension ? selectedFile : nameWithExtension));
 
@@ -175,9 +171,8 @@ public class MapEditor {
             Supplier<String> loadNotify = () -> "Loading file " + selectedFile + "...";
             Logger.printOnline(loadNotify);
 
-            try (FileInputStream fs = new FileInputStream(selectedFile)) {
-                ObjectInputStream in = new ObjectInputStream(fs);
-                TileMap newMap = (TileMap) in.readObject();
+            try {
+                TileMap newMap = (TileMap) MapCodec.read(selectedFile);
                 newMap.restore(game);
 
                 game.setGameMap(newMap);